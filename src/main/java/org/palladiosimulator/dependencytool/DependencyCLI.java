@@ -1,11 +1,25 @@
 package org.palladiosimulator.dependencytool;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -17,17 +31,32 @@ import org.kohsuke.github.GHContent;
 import org.kohsuke.github.GHRepository;
 import org.kohsuke.github.GitHub;
 import org.kohsuke.github.GitHubBuilder;
+import org.kohsuke.github.connector.GitHubConnector;
 import org.palladiosimulator.dependencytool.dependencies.DependencyCalculator;
+import org.palladiosimulator.dependencytool.dependencies.ExternalProviderIndex;
+import org.palladiosimulator.dependencytool.dependencies.P2MetadataCache;
+import org.palladiosimulator.dependencytool.dependencies.UpdateSiteClient;
+import org.palladiosimulator.dependencytool.dependencies.UpdateSiteDiscovery;
 import org.palladiosimulator.dependencytool.dependencies.UpdateSiteTypes;
+import org.palladiosimulator.dependencytool.github.CoalescingGitHubConnector;
 import org.palladiosimulator.dependencytool.github.RepositoryObject;
-import org.palladiosimulator.dependencytool.graph.GraphicalRepresentation;
+import org.palladiosimulator.dependencytool.graph.DependencyExplanations;
+import org.palladiosimulator.dependencytool.graph.GraphExporter;
+import org.palladiosimulator.dependencytool.history.HistoricalAnalysis;
+import org.palladiosimulator.dependencytool.history.HistoryPoint;
+import org.palladiosimulator.dependencytool.local.WorkingCopy;
+import org.palladiosimulator.dependencytool.local.WorkingCopyChange;
+import org.palladiosimulator.dependencytool.local.WorkingCopyWatcher;
+import org.palladiosimulator.dependencytool.metrics.MeteredGitHubConnector;
+import org.palladiosimulator.dependencytool.metrics.Metrics;
+import org.palladiosimulator.dependencytool.metrics.MetricsReport;
 import org.palladiosimulator.dependencytool.neo4j.EmbeddedNeo4j;
+import org.palladiosimulator.dependencytool.server.DependencyServer;
+import org.palladiosimulator.dependencytool.snapshot.BinarySnapshot;
+import org.palladiosimulator.dependencytool.snapshot.PartialAnalysis;
+import org.palladiosimulator.dependencytool.snapshot.SnapshotDiff;
+import org.palladiosimulator.dependencytool.util.OutputFormatter;
 import org.palladiosimulator.dependencytool.util.OutputType;
-import org.palladiosimulator.dependencytool.util.Views;
-
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
 
 /**
  * Command Line Interface for the dependency tool.
@@ -36,6 +65,8 @@ public final class DependencyCLI {
 
     private static final Logger LOGGER = Logger.getLogger(DependencyCLI.class.getName());
 
+    private static final Set<OutputType> EXPORT_TYPES = EnumSet.of(OutputType.GRAPHML, OutputType.DOT, OutputType.CSV);
+
     /**
      * Main method for CLI.
      *
@@ -54,34 +85,32 @@ public final class DependencyCLI {
             return;
         }
 
+        if (cmd.hasOption("jfr")) {
+            startFlightRecording(Path.of(cmd.getOptionValue("jfr")));
+        }
+
         final String updateSiteUrl = cmd.getOptionValue("us");
         final boolean includeImports = cmd.hasOption("ii");
         final boolean jsonOutput = cmd.hasOption("json");
         final boolean includeArchived = cmd.hasOption("ia");
         final boolean includeNoUpdateSite = cmd.hasOption("inus");
-        UpdateSiteTypes updateSiteType = UpdateSiteTypes.NIGHTLY;
+        final List<UpdateSiteTypes> updateSiteTypes = new ArrayList<>(List.of(UpdateSiteTypes.NIGHTLY));
         final Set<String> reposToIgnore = new HashSet<>();
 
-        final GitHub github;
-        try {
-            if (cmd.hasOption("at")) {
-                final String githubOAuthToken = cmd.getOptionValue("at");
-                github = GitHub.connectUsingOAuth(githubOAuthToken);
-            } else {
-                github = GitHubBuilder.fromEnvironment().build();
-            }
-        } catch (IOException e) {
-            LOGGER.warning("Could not connect to GitHub! Did you set your login data / token?: " + e.getMessage());
-            System.exit(1);
-            return;
-        }
+        final Supplier<GitHub> github = connectLazily(cmd);
 
         if (cmd.hasOption("help")) {
             printHelp(options);
             return;
         }
         if (cmd.hasOption("ur")) {
-            updateSiteType = UpdateSiteTypes.RELEASE;
+            updateSiteTypes.set(0, UpdateSiteTypes.RELEASE);
+        }
+        if (cmd.hasOption("ut")) {
+            updateSiteTypes.clear();
+            for (String type : cmd.getOptionValue("ut").split(",")) {
+                updateSiteTypes.add(UpdateSiteTypes.valueOf(type.trim().toUpperCase()));
+            }
         }
         if (cmd.hasOption("ri")) {
             reposToIgnore.addAll(Arrays.asList(cmd.getOptionValue("ri").split(",")));
@@ -97,10 +126,45 @@ public final class DependencyCLI {
                         + e.getMessage());
             }
         }
-        final OutputType outputType = OutputType.valueOf(cmd.getOptionValue("o").toUpperCase());
+        final List<String> updateSitePatterns = cmd.hasOption("usp")
+                ? Arrays.asList(cmd.getOptionValue("usp").split(","))
+                : UpdateSiteDiscovery.DEFAULT_PATTERNS;
+        // all update site requests of a run share one client, so identical requests in flight are sent once
+        final UpdateSiteClient updateSiteClient = new UpdateSiteClient();
+        final Function<UpdateSiteTypes, UpdateSiteDiscovery> newDiscovery = type -> new UpdateSiteDiscovery(
+                updateSiteUrl, type, updateSitePatterns, UpdateSiteDiscovery.DEFAULT_POSITIVE_TTL,
+                UpdateSiteDiscovery.DEFAULT_NEGATIVE_TTL, updateSiteClient);
+        final Map<UpdateSiteTypes, UpdateSiteDiscovery> updateSiteDiscoveries = new LinkedHashMap<>();
+        for (UpdateSiteTypes updateSiteType : updateSiteTypes) {
+            updateSiteDiscoveries.put(updateSiteType, newDiscovery.apply(updateSiteType));
+        }
+        final P2MetadataCache p2MetadataCache = createP2MetadataCache(cmd, updateSiteClient);
+        final Supplier<ExternalProviderIndex> externalProviders = loadExternalProvidersLazily(cmd,
+                updateSiteDiscoveries.values().iterator().next(), p2MetadataCache);
 
+        final int[] shard;
         try {
-            Set<GHRepository> repos = repositoriesFromArgs(cmd.getArgList(), github);
+            shard = cmd.hasOption("sh") ? parseShard(cmd.getOptionValue("sh")) : null;
+        } catch (IllegalArgumentException e) {
+            LOGGER.warning("--shard expects <index>/<count> with 0 <= index < count, e.g. 0/4");
+            System.exit(1);
+            return;
+        }
+        final Function<UpdateSiteTypes, DependencyCalculator> newCalculator = type -> new DependencyCalculator(
+                updateSiteDiscoveries.computeIfAbsent(type, newDiscovery), p2MetadataCache,
+                includeImports, reposToIgnore, includeArchived, includeNoUpdateSite, externalProviders.get(), cmd.hasOption("ef"));
+
+        final Callable<Map<UpdateSiteTypes, DependencyCalculator>> analyses = () -> {
+            if (cmd.hasOption("m")) {
+                return merge(cmd.getOptionValue("m"), cmd.hasOption("apm"), newCalculator);
+            }
+            // revalidate the p2 metadata against the update sites on every calculation of a long-running server
+            p2MetadataCache.invalidate();
+
+            final Set<GHRepository> repos;
+            try (Metrics.Timing timing = Metrics.get().time("enumeration")) {
+                repos = repositoriesFromArgs(cmd.getArgList(), github.get());
+            }
 
             if (cmd.hasOption("rrf")) {
                 String requiredFile = cmd.getOptionValue("rrf");
@@ -119,102 +183,489 @@ public final class DependencyCLI {
                 });
             }
 
-            final DependencyCalculator dc = new DependencyCalculator(updateSiteUrl, updateSiteType, includeImports, reposToIgnore, includeArchived, includeNoUpdateSite);
-            dc.addAll(repos);
+            if (shard != null) {
+                repos.removeIf(repo -> !PartialAnalysis.isInShard(repo.getFullName(), shard[0], shard[1]));
+                LOGGER.info("Analysing " + repos.size() + " repositories of shard " + shard[0] + "/" + shard[1]);
+            }
+
+            final Map<UpdateSiteTypes, DependencyCalculator> calculators = new LinkedHashMap<>();
+            updateSiteTypes.forEach(type -> calculators.put(type, newCalculator.apply(type)));
+            final List<DependencyCalculator> dcs = new ArrayList<>(calculators.values());
+            dcs.get(0).addAll(repos, dcs.subList(1, dcs.size()));
+            return calculators;
+        };
+        final Callable<DependencyCalculator> analysis = () -> analyses.call().values().iterator().next();
 
-            final Map<RepositoryObject, Set<RepositoryObject>> dependencies = dc.getDependencies();
-            createOutput(outputType, jsonOutput, dependencies);
+        if (updateSiteTypes.size() > 1 && (cmd.hasOption("s") || cmd.hasOption("df") || cmd.hasOption("x")
+                || cmd.hasOption("w") || cmd.hasOption("hi"))) {
+            LOGGER.warning("--serve, --diff, --explain, --watch and --history support only one update site type");
+            System.exit(1);
+            return;
+        }
+
+        if (shard != null) {
+            shard(cmd, analyses, shard);
+            return;
+        }
+        if (cmd.hasOption("s")) {
+            serve(cmd, analysis, github);
+            return;
+        }
+        if (cmd.hasOption("df")) {
+            diff(cmd, analysis);
+            return;
+        }
+        if (cmd.hasOption("x")) {
+            explain(cmd, analysis, jsonOutput);
+            return;
+        }
+        if (cmd.hasOption("w")) {
+            watch(cmd, analysis, includeImports, jsonOutput);
+            return;
+        }
+        if (cmd.hasOption("hi")) {
+            history(cmd, github.get(), reposToIgnore, includeArchived, includeImports, jsonOutput);
+            return;
+        }
+        if (!cmd.hasOption("o")) {
+            LOGGER.warning("Missing required option: o");
+            printHelp(options);
+            return;
+        }
+        final OutputType outputType = OutputType.valueOf(cmd.getOptionValue("o").toUpperCase());
+        if (updateSiteTypes.size() > 1 && outputType == OutputType.NEO4J) {
+            LOGGER.warning("NEO4J supports only one update site type");
+            System.exit(1);
+            return;
+        }
+        if (cmd.hasOption("ls") && updateSiteTypes.size() > 1) {
+            LOGGER.warning("--load-snapshot supports only one update site type");
+            System.exit(1);
+            return;
+        }
+        if (cmd.hasOption("ls") && cmd.hasOption("rs")) {
+            LOGGER.warning("A snapshot contains no resolution summary, --resolution-summary is ignored");
+        }
+
+        try {
+            final Map<UpdateSiteTypes, DependencyCalculator> calculators;
+            final Map<UpdateSiteTypes, Map<RepositoryObject, Set<RepositoryObject>>> results = new LinkedHashMap<>();
+            if (cmd.hasOption("ls")) {
+                // the dependencies were resolved when the snapshot was saved, so nothing is analysed
+                calculators = Map.of();
+                try (Metrics.Timing timing = Metrics.get().time("load")) {
+                    results.put(updateSiteTypes.get(0), BinarySnapshot.open(Path.of(cmd.getOptionValue("ls"))).toDependencies());
+                }
+            } else {
+                calculators = analyses.call();
+                calculators.forEach((type, calculator) -> results.put(type, calculator.getDependencies()));
+            }
+            // with several update site types, every type gets its own result, files are suffixed with the type
+            // System.out must stay open
+            final Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            final boolean combined = results.size() > 1 && !cmd.hasOption("of") && outputType != OutputType.NEO4J;
+            for (Map.Entry<UpdateSiteTypes, Map<RepositoryObject, Set<RepositoryObject>>> result : results.entrySet()) {
+                final String suffix = results.size() > 1 ? result.getKey().toString() : null;
+                if (cmd.hasOption("ss")) {
+                    BinarySnapshot.write(result.getValue(), withSuffix(cmd.getOptionValue("ss"), suffix));
+                }
+                if (cmd.hasOption("rs") && calculators.containsKey(result.getKey())) {
+                    Files.writeString(withSuffix(cmd.getOptionValue("rs"), suffix), OutputFormatter
+                        .formatResolutionSummary(calculators.get(result.getKey()).getResolutionSummary()));
+                }
+            }
+            if (combined && !EXPORT_TYPES.contains(outputType)) {
+                try (Metrics.Timing timing = Metrics.get().time("output")) {
+                    OutputFormatter.writeByUpdateSiteType(outputType, jsonOutput, results, out);
+                    out.write("\n");
+                }
+            } else {
+                for (Map.Entry<UpdateSiteTypes, Map<RepositoryObject, Set<RepositoryObject>>> result : results.entrySet()) {
+                    final String suffix = results.size() > 1 ? result.getKey().toString() : null;
+                    final Map<RepositoryObject, Set<RepositoryObject>> dependencies = result.getValue();
+                    if (combined) {
+                        out.write("# " + result.getKey() + "\n");
+                    }
+                    try (Metrics.Timing timing = Metrics.get().time("output")) {
+                        if (outputType == OutputType.NEO4J) {
+                            try (EmbeddedNeo4j neo4j = new EmbeddedNeo4j()) {
+                                neo4j.commit(dependencies);
+                            }
+                        } else if (cmd.hasOption("of")) {
+                            try (Writer writer = Files.newBufferedWriter(withSuffix(cmd.getOptionValue("of"), suffix), StandardCharsets.UTF_8)) {
+                                writeOutput(cmd, outputType, jsonOutput, dependencies, writer);
+                            }
+                        } else {
+                            writeOutput(cmd, outputType, jsonOutput, dependencies, out);
+                            // the graph formats end with a line break already
+                            if (!EXPORT_TYPES.contains(outputType)) {
+                                out.write("\n");
+                            }
+                        }
+                    }
+                }
+            }
+            out.flush();
+            writeReports(cmd);
+        } catch (Exception e) {
+            LOGGER.warning("An error occured during calculating the dependencies: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    // Connects to GitHub on first use, so merging shards or comparing snapshots does not load the GitHub client.
+    private static Supplier<GitHub> connectLazily(CommandLine cmd) {
+        return new Supplier<GitHub>() {
+            private GitHub github;
+
+            @Override
+            public synchronized GitHub get() {
+                if (github == null) {
+                    github = connect(cmd);
+                }
+                return github;
+            }
+        };
+    }
+
+    // Reads the external p2 repositories on first use, so modes that do not calculate dependencies do not download them.
+    private static Supplier<ExternalProviderIndex> loadExternalProvidersLazily(CommandLine cmd,
+            UpdateSiteDiscovery updateSiteDiscovery, P2MetadataCache p2MetadataCache) {
+        return new Supplier<ExternalProviderIndex>() {
+            private ExternalProviderIndex externalProviders;
+
+            @Override
+            public synchronized ExternalProviderIndex get() {
+                if (externalProviders == null) {
+                    externalProviders = cmd.hasOption("ep")
+                            ? ExternalProviderIndex.load(Arrays.asList(cmd.getOptionValue("ep").split(",")),
+                                    updateSiteDiscovery, p2MetadataCache)
+                            : ExternalProviderIndex.empty();
+                }
+                return externalProviders;
+            }
+        };
+    }
+
+    private static GitHub connect(CommandLine cmd) {
+        try {
+            GitHubBuilder githubBuilder = GitHubBuilder.fromEnvironment();
+            if (cmd.hasOption("at")) {
+                final String githubOAuthToken = cmd.getOptionValue("at");
+                githubBuilder = githubBuilder.withOAuthToken(githubOAuthToken);
+            }
+            // coalesced requests are not sent, so they are not metered either
+            return githubBuilder
+                .withConnector(new CoalescingGitHubConnector(new MeteredGitHubConnector(GitHubConnector.DEFAULT)))
+                .build();
         } catch (IOException e) {
+            LOGGER.warning("Could not connect to GitHub! Did you set your login data / token?: " + e.getMessage());
+            System.exit(1);
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static P2MetadataCache createP2MetadataCache(CommandLine cmd, UpdateSiteClient updateSiteClient) {
+        if (cmd.hasOption("np2c")) {
+            return P2MetadataCache.disabled();
+        } else if (cmd.hasOption("p2c")) {
+            return new P2MetadataCache(Path.of(cmd.getOptionValue("p2c")), updateSiteClient);
+        }
+        return new P2MetadataCache(P2MetadataCache.defaultDirectory(), updateSiteClient);
+    }
+
+    private static int[] parseShard(String value) {
+        final String[] parts = value.split("/");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException(value);
+        }
+        final int index = Integer.parseInt(parts[0].trim());
+        final int count = Integer.parseInt(parts[1].trim());
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException(value);
+        }
+        return new int[] {index, count};
+    }
+
+    private static void shard(CommandLine cmd, Callable<Map<UpdateSiteTypes, DependencyCalculator>> analyses, int[] shard) {
+        try {
+            final Map<UpdateSiteTypes, Collection<RepositoryObject>> repositories = new LinkedHashMap<>();
+            analyses.call().forEach((type, calculator) -> repositories.put(type, calculator.getRepositories()));
+            final PartialAnalysis partial = new PartialAnalysis(shard[0], shard[1], repositories);
+            try (Metrics.Timing timing = Metrics.get().time("output")) {
+                if (cmd.hasOption("of")) {
+                    try (Writer writer = Files.newBufferedWriter(Path.of(cmd.getOptionValue("of")), StandardCharsets.UTF_8)) {
+                        partial.write(writer);
+                    }
+                } else {
+                    // System.out must stay open
+                    final Writer writer = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+                    partial.write(writer);
+                    writer.write("\n");
+                    writer.flush();
+                }
+            }
+            writeReports(cmd);
+        } catch (Exception e) {
+            LOGGER.warning("An error occured during analysing the shard: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static Map<UpdateSiteTypes, DependencyCalculator> merge(String files, boolean allowPartial,
+            Function<UpdateSiteTypes, DependencyCalculator> newCalculator) throws IOException {
+        final List<PartialAnalysis> partials = new ArrayList<>();
+        try (Metrics.Timing timing = Metrics.get().time("merge")) {
+            for (String file : files.split(",")) {
+                partials.add(PartialAnalysis.read(Path.of(file.trim())));
+            }
+            final Map<UpdateSiteTypes, DependencyCalculator> calculators = new LinkedHashMap<>();
+            PartialAnalysis.merge(partials, allowPartial).forEach((type, repositories) -> {
+                final DependencyCalculator calculator = newCalculator.apply(type);
+                calculator.addAnalysed(repositories);
+                calculators.put(type, calculator);
+            });
+            return calculators;
+        }
+    }
+
+    private static void diff(CommandLine cmd, Callable<DependencyCalculator> analysis) {
+        final String[] snapshots = cmd.getOptionValue("df").split(",");
+        try {
+            final BinarySnapshot before = BinarySnapshot.open(Path.of(snapshots[0]));
+            final BinarySnapshot after;
+            if (snapshots.length > 1) {
+                after = BinarySnapshot.open(Path.of(snapshots[1]));
+            } else {
+                final Map<RepositoryObject, Set<RepositoryObject>> dependencies = analysis.call().getDependencies();
+                if (cmd.hasOption("ss")) {
+                    BinarySnapshot.write(dependencies, Path.of(cmd.getOptionValue("ss")));
+                }
+                after = BinarySnapshot.of(dependencies);
+            }
+            final SnapshotDiff diff;
+            try (Metrics.Timing timing = Metrics.get().time("diff")) {
+                diff = SnapshotDiff.compare(before, after);
+            }
+            System.out.println(OutputFormatter.formatDiff(diff));
+            writeReports(cmd);
+        } catch (Exception e) {
+            LOGGER.warning("An error occured during comparing the dependencies: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void explain(CommandLine cmd, Callable<DependencyCalculator> analysis, boolean jsonOutput) {
+        final String[] repositories = cmd.getOptionValue("x").split(",");
+        if (repositories.length != 2) {
+            LOGGER.warning("--explain expects two repositories split by one comma");
+            System.exit(1);
+            return;
+        }
+        try {
+            final DependencyCalculator calculator = analysis.call();
+            final DependencyExplanations explanations = new DependencyExplanations(calculator.getDependencies(),
+                    calculator.getFeatureExpansion());
+            for (String repository : repositories) {
+                if (!explanations.contains(repository)) {
+                    LOGGER.warning("Unknown repository " + repository);
+                    System.exit(1);
+                    return;
+                }
+            }
+            System.out.println(OutputFormatter.formatExplanation(jsonOutput, repositories[0], repositories[1],
+                    explanations.explain(repositories[0], repositories[1])));
+            writeReports(cmd);
+        } catch (Exception e) {
             LOGGER.warning("An error occured during calculating the dependencies: " + e.getMessage());
             System.exit(1);
         }
     }
 
+    private static void history(CommandLine cmd, GitHub github, Set<String> reposToIgnore, boolean includeArchived,
+            boolean includeImports, boolean jsonOutput) {
+        final List<String> points = Arrays.asList(cmd.getOptionValue("hi").split(","));
+        try {
+            final Set<GHRepository> repos;
+            try (Metrics.Timing timing = Metrics.get().time("enumeration")) {
+                repos = repositoriesFromArgs(cmd.getArgList(), github);
+            }
+            repos.removeIf(repo -> reposToIgnore.contains(repo.getName()) || reposToIgnore.contains(repo.getFullName())
+                    || !includeArchived && repo.isArchived());
+            final List<HistoryPoint> history = new HistoricalAnalysis(repos, includeImports).analyse(points);
+            System.out.println(OutputFormatter.formatHistory(jsonOutput, history));
+            writeReports(cmd);
+        } catch (Exception e) {
+            LOGGER.warning("An error occured during calculating the historical dependencies: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void watch(CommandLine cmd, Callable<DependencyCalculator> analysis, boolean includeImports,
+            boolean jsonOutput) {
+        try {
+            final DependencyCalculator calculator = analysis.call();
+            final List<WorkingCopy> workingCopies = new ArrayList<>();
+            for (String workingCopy : cmd.getOptionValue("w").split(",")) {
+                // either <owner>/<name>=<directory> or a directory named like the repository
+                final int separator = workingCopy.indexOf('=');
+                final Path root = Path.of(workingCopy.substring(separator + 1).trim());
+                final String repository = separator < 0 ? findRepository(calculator, root)
+                        : workingCopy.substring(0, separator).trim();
+                if (repository == null) {
+                    LOGGER.warning("No analysed repository is named like " + root + ", use <owner>/<name>=" + root);
+                    System.exit(1);
+                    return;
+                }
+                workingCopies.add(new WorkingCopy(repository, root, includeImports));
+            }
+
+            final Consumer<WorkingCopyChange> print = change -> {
+                try {
+                    System.out.println(OutputFormatter.formatWorkingCopyChange(jsonOutput, change));
+                } catch (IOException e) {
+                    LOGGER.warning("Could not format the change: " + e.getMessage());
+                }
+            };
+            final WorkingCopyWatcher watcher = new WorkingCopyWatcher(calculator, workingCopies, print);
+            final WorkingCopyChange initial = watcher.start();
+            if (!initial.isEmpty()) {
+                print.accept(initial);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    watcher.close();
+                } catch (IOException e) {
+                    LOGGER.warning("Could not stop watching: " + e.getMessage());
+                }
+            }));
+            LOGGER.info("Watching " + workingCopies);
+            watcher.run();
+        } catch (Exception e) {
+            LOGGER.warning("An error occured during watching the working copies: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static String findRepository(DependencyCalculator calculator, Path root) {
+        final Path fileName = root.toAbsolutePath().normalize().getFileName();
+        for (RepositoryObject repository : calculator.getRepositories()) {
+            final String name = repository.getName();
+            if (fileName != null && name.substring(name.indexOf('/') + 1).equalsIgnoreCase(fileName.toString())) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    // Served from merged shards, GitHub is only connected to when the first webhook event arrives.
+    private static void serve(CommandLine cmd, Callable<DependencyCalculator> analysis, Supplier<GitHub> github) {
+        final int port = Integer.parseInt(cmd.getOptionValue("s"));
+        final Duration refreshInterval = Duration.ofMinutes(Long.parseLong(cmd.getOptionValue("sr", "60")));
+        final DependencyServer server = new DependencyServer(new InetSocketAddress("localhost", port), analysis,
+                repository -> github.get().getRepository(repository), cmd.getOptionValue("ws"), refreshInterval);
+        try {
+            server.start();
+        } catch (Exception e) {
+            LOGGER.warning("Could not start the dependency server: " + e.getMessage());
+            server.close();
+            System.exit(1);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+    }
+
     private static Options createOptions() {
         final Options options = new Options();
         options.addRequiredOption("us", "update-site", true, "The update site to use")
-                .addRequiredOption("o", "output", true, "Decide what to output. One of " + Arrays.toString(OutputType.values()) + ".");
+                .addOption("o", "output", true, "Decide what to output. One of " + Arrays.toString(OutputType.values()) + ". Required unless --serve, --explain, --diff or --history is used.");
 
         options.addOption("h", "help", false, "Print this message")
                 .addOption("at", "oauth", true, "OAuth authentication token for GitHub API. Can be omiited to use the GITHUB_OAUTH environment variable.")
                 .addOption("ur", "use-release", false, "Use release update site instead of nightly.")
+                .addOption("ut", "update-site-types", true, "Analyse several update site types in one run, e.g. NIGHTLY,RELEASE. Split by one comma. "
+                        + "Manifests and features are read once, every type gets its own output and the files of -ss and -of are suffixed with the type.")
                 .addOption("ii", "include-imports", false, "Consider feature.xml includes while calculating dependencies.")
                 .addOption("j", "json", false, "Format the output as json.")
                 .addOption("ri", "repository-ignore", true, "Specify one or more repositories which should be ignored when calculating dependencies. Split by an underscore.")
                 .addOption("rif", "repository-ignore-file", true, "Path to file with repositories to ignore. Each repository name must be in a new line.")
+                .addOption("ef", "expand-features", false, "Additionally require the bundles and features that required features transitively include, as read from the feature.xml files and the feature groups of the external p2 repositories.")
                 .addOption("ia", "include-archived", false, "Include archived repositories into the dependency calculation.")
                 .addOption("inus", "include-no-updatesite", false, "Include repositories even if an update site could not be found.")
-                .addOption("rrf", "require-repo-file", true, "Filter repositories that do not have the file specified by `<arg>`");
+                .addOption("rrf", "require-repo-file", true, "Filter repositories that do not have the file specified by `<arg>`")
+                .addOption("usp", "update-site-pattern", true, "Candidate update site URL patterns in order of preference. Split by one comma. "
+                        + "Placeholders: {site}, {name} (lower case), {Name}, {type}. Default: " + String.join(",", UpdateSiteDiscovery.DEFAULT_PATTERNS))
+                .addOption("ep", "external-p2", true, "p2 repositories of third-party bundles and features, e.g. the Eclipse release and Orbit, whose units are not reported as unresolved requirements. Split by one comma.")
+                .addOption("rs", "resolution-summary", true, "Write the internal, external and unresolved requirements as json to the given file.")
+                .addOption("p2c", "p2-cache", true, "Directory of the persistent p2 metadata cache. Default: " + P2MetadataCache.defaultDirectory())
+                .addOption("np2c", "no-p2-cache", false, "Always download the p2 metadata of update sites.")
+                .addOption("r", "report", true, "Write a JSON report of timings, requests, cache hit rates and latencies to the given file.")
+                .addOption("pr", "prometheus", true, "Write the report in the Prometheus text format to the given file, e.g. for the node exporter textfile collector.")
+                .addOption("jfr", "flight-recording", true, "Record the run with the Java Flight Recorder and dump the recording to the given file at exit.")
+                .addOption("s", "serve", true, "Keep the dependency graph in memory and answer queries on the given local port instead of printing one output.")
+                .addOption("sr", "server-refresh", true, "Minutes between background refreshes of the dependency graph in server mode. Default: 60")
+                .addOption("ws", "webhook-secret", true, "Secret GitHub webhook payloads must be signed with in server mode.")
+                .addOption("x", "explain", true, "Explain why the first repository depends on the second one, e.g. PalladioSimulator/Palladio-Core-PCM,PalladioSimulator/Palladio-Core-Commons. Split by one comma.")
+                .addOption("df", "diff", true, "Print the differences between a snapshot and this run as json. Split two snapshots by one comma to compare them without running an analysis.")
+                .addOption("hi", "history", true, "Print the dependency graph at several points in time instead of the current one, e.g. v4.3.0,v5.0.0,2021-06-30. A point is a tag, branch or commit or the last commit of the default branch on a date. Split by one comma.")
+                .addOption("sh", "shard", true, "Analyse only the repositories of one shard, e.g. 0/4 for the first of four shards, and write the partial result as json to the standard output or the --output-file.")
+                .addOption("m", "merge", true, "Merge the partial results of all shards instead of analysing repositories, e.g. shard-0.json,shard-1.json. Split by one comma. Every other option works on the merged result.")
+                .addOption("apm", "allow-partial-merge", false, "Merge even if the partial results of some shards are missing. Their repositories are left out.")
+                .addOption("w", "watch", true, "Watch the bundles and features of local working copies and print the changed dependencies and layers after every edit. Split by one comma. A working copy is a directory named like its repository or <owner>/<name>=<directory>.")
+                .addOption("ss", "save-snapshot", true, "Additionally write the analysed repositories and dependencies as binary snapshot to the given file.")
+                .addOption("ls", "load-snapshot", true, "Read the repositories and dependencies from a binary snapshot written by --save-snapshot instead of analysing repositories and print them as --output.")
+                .addOption("of", "output-file", true, "Write the output to the given file instead of the standard output.")
+                .addOption("ebf", "export-bundles-features", false, "Include bundles and features as nodes in the GRAPHML, DOT and CSV export.");
 
         return options;
     }
 
-    private static void createOutput(OutputType outputType, boolean jsonOutput,
-            Map<RepositoryObject, Set<RepositoryObject>> dependencies) throws JsonProcessingException {
+    // Returns the textual output, graph exports and Neo4j databases are written directly.
+    private static void writeOutput(CommandLine cmd, OutputType outputType, boolean jsonOutput,
+            Map<RepositoryObject, Set<RepositoryObject>> dependencies, Writer writer) throws IOException {
+        if (EXPORT_TYPES.contains(outputType)) {
+            new GraphExporter(dependencies, cmd.hasOption("ebf")).export(outputType, writer);
+        } else {
+            OutputFormatter.write(outputType, jsonOutput, dependencies, writer);
+        }
+    }
 
-        final ObjectMapper objectMapper = new ObjectMapper();
-        final ObjectWriter objectWriter = objectMapper.writer();
+    // Inserts the update site type before the file extension, e.g. dependencies-release.graphml
+    private static Path withSuffix(String file, String suffix) {
+        final Path path = Path.of(file);
+        if (suffix == null) {
+            return path;
+        }
+        final String name = path.getFileName().toString();
+        final int extension = name.lastIndexOf('.');
+        return path.resolveSibling(extension <= 0 ? name + "-" + suffix
+                : name.substring(0, extension) + "-" + suffix + name.substring(extension));
+    }
 
-        switch (outputType) {
-            case NEO4J:
-                try (EmbeddedNeo4j neo4j = new EmbeddedNeo4j()) {
-                    neo4j.commit(dependencies);
-                }
-                break;
-            case TOPOLOGY:
-                final GraphicalRepresentation graphRep = new GraphicalRepresentation(dependencies);
-                graphRep.createTopologyHierarchy();
-                final List<Set<RepositoryObject>> topology = graphRep.getTopologyHierachy();
-
-                if (jsonOutput) {
-                    System.out.println(objectWriter.withView(Views.Topology.class).writeValueAsString(topology));
-                } else {
-                    System.out.println(topology.toString().replaceAll("],", "],\n"));
-                }
-                break;
-            case REPOSITORIES:
-                if (jsonOutput) {
-                    System.out.println(objectWriter.withView(Views.Repository.class).writeValueAsString(dependencies.keySet()));
-                } else {
-                    final StringBuilder reposString = new StringBuilder();
-                    for (final RepositoryObject repo : dependencies.keySet()) {
-                        reposString.append("Name: ").append(repo.getName()).append("\n");
-                        reposString.append("Address: ").append(repo.getGithubURL()).append("\n");
-                        reposString.append("UpdateSite: ").append(repo.getUpdateSite()).append("\n");
-                        reposString.append("Dependencies: ").append(dependencies.get(repo)).append("\n");
-                        reposString.append("ProvidedFeatures: ").append(repo.getProvidedFeatures()).append("\n");
-                        reposString.append("ProvidedBundles: ").append(repo.getProvidedBundles()).append("\n");
-                        reposString.append("RequiredFeatures: ").append(repo.getRequiredFeatures()).append("\n");
-                        reposString.append("RequiredBundles: ").append(repo.getRequiredBundles()).append("\n");
-                        reposString.append("\n");
-                    }
-                    System.out.println(reposString.toString());
-                }
-                break;
-            case DEPENDENCIES:
-                Map<String, List<String>> stringDependencies = new HashMap<>();
-                for (final Map.Entry<RepositoryObject, Set<RepositoryObject>> entry : dependencies.entrySet()) {
-                    final String repoName = entry.getKey().getName();
-                    final List<String> repoDependencies = entry.getValue().stream().map(RepositoryObject::getName).collect(Collectors.toList()); 
-                    stringDependencies.put(repoName, repoDependencies);
-                }
+    // The recording is dumped by the flight recorder itself at exit, so runs ending with System.exit are covered too.
+    private static void startFlightRecording(Path file) {
+        try {
+            final Recording recording = new Recording(Configuration.getConfiguration("profile"));
+            recording.setName("dependencytool");
+            recording.setToDisk(true);
+            recording.setDestination(file);
+            recording.setDumpOnExit(true);
+            recording.start();
+        } catch (IOException | java.text.ParseException e) {
+            LOGGER.warning("Could not start the flight recording: " + e.getMessage());
+        }
+    }
 
-                if (jsonOutput) {
-                    System.out.println(objectWriter.withView(Views.Dependency.class).writeValueAsString(stringDependencies));
-                } else {
-                    final StringBuilder dependencyString = new StringBuilder();
-                    for (final Map.Entry<String, List<String>> entry : stringDependencies.entrySet()) {
-                        dependencyString.append(entry.getKey()).append(":").append("\n");
-                        for (String dependency : entry.getValue()) {
-                            dependencyString.append("  ").append(dependency).append("\n");
-                        }
-                        dependencyString.append("\n");
-                    }
-                    System.out.println(dependencyString.toString().trim());
-                }
-                break;
-            default:
-                throw new IllegalArgumentException("Unknown output type: " + outputType);
+    private static void writeReports(CommandLine cmd) {
+        final MetricsReport report = new MetricsReport(Metrics.get());
+        try {
+            if (cmd.hasOption("r")) {
+                report.writeJson(Path.of(cmd.getOptionValue("r")));
+            }
+            if (cmd.hasOption("pr")) {
+                report.writePrometheus(Path.of(cmd.getOptionValue("pr")));
+            }
+        } catch (IOException e) {
+            LOGGER.warning("Could not write the metrics report: " + e.getMessage());
         }
     }
 
@@ -0,0 +1,54 @@
+package org.palladiosimulator.dependencytool.dependencies;
+
+import java.util.Set;
+
+import org.palladiosimulator.dependencytool.util.SortedStringSet;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The bundles and features required by a single bundle or feature, as specified in its manifest.mf or feature.xml
+ * file.
+ */
+public final class ArtifactRequirements {
+
+    private final Set<String> bundles;
+    private final Set<String> features;
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param      bundles   The required bundles
+     * @param      features  The required features
+     */
+    @JsonCreator
+    public ArtifactRequirements(@JsonProperty("bundles") Set<String> bundles,
+                                @JsonProperty("features") Set<String> features) {
+        this.bundles = SortedStringSet.of(bundles == null ? Set.of() : bundles);
+        this.features = SortedStringSet.of(features == null ? Set.of() : features);
+    }
+
+    /**
+     * Returns the required bundles.
+     *
+     * @return     The sorted bundle ids.
+     */
+    public Set<String> getBundles() {
+        return bundles;
+    }
+
+    /**
+     * Returns the required features.
+     *
+     * @return     The sorted feature ids.
+     */
+    public Set<String> getFeatures() {
+        return features;
+    }
+
+    @Override
+    public String toString() {
+        return "bundles=" + bundles + ", features=" + features;
+    }
+}
@@ -1,25 +1,36 @@
 package org.palladiosimulator.dependencytool.dependencies;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Function;
+import java.util.TreeMap;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.kohsuke.github.GHRepository;
 import org.palladiosimulator.dependencytool.github.RepositoryObject;
+import org.palladiosimulator.dependencytool.metrics.Metrics;
+import org.palladiosimulator.dependencytool.metrics.ResolutionEvent;
 import org.xml.sax.SAXException;
 
 /**
@@ -32,14 +43,29 @@ public class DependencyCalculator {
 
     private static final Logger LOGGER = Logger.getLogger(DependencyCalculator.class.getName());
     
-    private final UpdateSiteTypes updateSiteType;
-    private final String updateSiteUrl;
+    private final UpdateSiteDiscovery updateSiteDiscovery;
+    private final P2MetadataCache p2MetadataCache;
     private final boolean includeImports;
     private final Set<String> reposToIgnore;
     private final boolean includeArchived;
     private final boolean includeNoUpdateSite;
+    private final ExternalProviderIndex externalProviders;
+    private final boolean expandFeatures;
     
-    private final Set<RepositoryObject> repositories;
+    private final Map<String, RepositoryObject> repositories;
+
+    // reverse indexes from a bundle or feature to the repositories providing or requiring it, rebuilt in parallel
+    // when many repositories are added and kept up to date when single repositories are updated
+    private Map<String, Set<RepositoryObject>> providedBundleIndex = new ConcurrentHashMap<>();
+    private Map<String, Set<RepositoryObject>> providedFeatureIndex = new ConcurrentHashMap<>();
+    private Map<String, Set<RepositoryObject>> requiredBundleIndex = new ConcurrentHashMap<>();
+    private Map<String, Set<RepositoryObject>> requiredFeatureIndex = new ConcurrentHashMap<>();
+
+    private ResolutionSummary resolutionSummary = new ResolutionSummary();
+
+    // the transitive includes of the features, built before resolving after repositories were added and updated
+    // for the features of single repositories that are replaced
+    private FeatureExpansion featureExpansion;
 
     /**
      * Constructs a new instance.
@@ -60,13 +86,85 @@ public class DependencyCalculator {
                                 final Set<String> reposToIgnore,
                                 final boolean includeArchived,
                                 final boolean includeNoUpdateSite) throws IOException {
-        this.repositories = new HashSet<>();
-        this.updateSiteUrl = updateSiteUrl;
-        this.updateSiteType = type;
+        this(new UpdateSiteDiscovery(updateSiteUrl, type), P2MetadataCache.disabled(), includeImports, reposToIgnore,
+                includeArchived, includeNoUpdateSite);
+    }
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param      updateSiteDiscovery  The discovery that is used to find the corresponding update site for a repo.
+     *                                  Provided bundles and features can only be computed for repositories with update sites
+     * @param      p2MetadataCache      The cache for the metadata of the p2 repositories of update sites
+     * @param      includeImports       Set to true to consider feature.xml includes while calculating dependencies
+     * @param      reposToIgnore        A set of repository names that should be ignored
+     * @param      includeArchived      Set to true to include repositories that were archived
+     * @param      includeNoUpdateSite  Set to true to include repositories for which no update site could be determined
+     */
+    public DependencyCalculator(final UpdateSiteDiscovery updateSiteDiscovery,
+                                final P2MetadataCache p2MetadataCache,
+                                final boolean includeImports,
+                                final Set<String> reposToIgnore,
+                                final boolean includeArchived,
+                                final boolean includeNoUpdateSite) {
+        this(updateSiteDiscovery, p2MetadataCache, includeImports, reposToIgnore, includeArchived, includeNoUpdateSite,
+                ExternalProviderIndex.empty());
+    }
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param      updateSiteDiscovery  The discovery that is used to find the corresponding update site for a repo.
+     *                                  Provided bundles and features can only be computed for repositories with update sites
+     * @param      p2MetadataCache      The cache for the metadata of the p2 repositories of update sites
+     * @param      includeImports       Set to true to consider feature.xml includes while calculating dependencies
+     * @param      reposToIgnore        A set of repository names that should be ignored
+     * @param      includeArchived      Set to true to include repositories that were archived
+     * @param      includeNoUpdateSite  Set to true to include repositories for which no update site could be determined
+     * @param      externalProviders    The units of third-party p2 repositories that requirements may resolve to
+     */
+    public DependencyCalculator(final UpdateSiteDiscovery updateSiteDiscovery,
+                                final P2MetadataCache p2MetadataCache,
+                                final boolean includeImports,
+                                final Set<String> reposToIgnore,
+                                final boolean includeArchived,
+                                final boolean includeNoUpdateSite,
+                                final ExternalProviderIndex externalProviders) {
+        this(updateSiteDiscovery, p2MetadataCache, includeImports, reposToIgnore, includeArchived, includeNoUpdateSite,
+                externalProviders, false);
+    }
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param      updateSiteDiscovery  The discovery that is used to find the corresponding update site for a repo.
+     *                                  Provided bundles and features can only be computed for repositories with update sites
+     * @param      p2MetadataCache      The cache for the metadata of the p2 repositories of update sites
+     * @param      includeImports       Set to true to consider feature.xml includes while calculating dependencies
+     * @param      reposToIgnore        A set of repository names that should be ignored
+     * @param      includeArchived      Set to true to include repositories that were archived
+     * @param      includeNoUpdateSite  Set to true to include repositories for which no update site could be determined
+     * @param      externalProviders    The units of third-party p2 repositories that requirements may resolve to
+     * @param      expandFeatures       Set to true to additionally require everything the required features
+     *                                  transitively include, see {@link FeatureExpansion}
+     */
+    public DependencyCalculator(final UpdateSiteDiscovery updateSiteDiscovery,
+                                final P2MetadataCache p2MetadataCache,
+                                final boolean includeImports,
+                                final Set<String> reposToIgnore,
+                                final boolean includeArchived,
+                                final boolean includeNoUpdateSite,
+                                final ExternalProviderIndex externalProviders,
+                                final boolean expandFeatures) {
+        this.repositories = new TreeMap<>();
+        this.updateSiteDiscovery = updateSiteDiscovery;
+        this.p2MetadataCache = p2MetadataCache;
         this.includeImports = includeImports;
         this.reposToIgnore = reposToIgnore;
         this.includeArchived = includeArchived;
         this.includeNoUpdateSite = includeNoUpdateSite;
+        this.externalProviders = externalProviders;
+        this.expandFeatures = expandFeatures;
     }
 
     /**
@@ -84,38 +182,39 @@ public class DependencyCalculator {
      * @param      repositories  A collection of GitHub repositories
      */
     public void addAll(Collection<GHRepository> repositories) {
+        addAll(repositories, List.of());
+    }
+
+    /**
+     * Add all GitHub repositories to this and other dependency calculations that only differ in their update sites,
+     * e.g. to compare the nightly and the release update sites in one run.
+     *
+     * The manifest.mf and feature.xml files of every repository are read once and shared by all calculations. The
+     * update sites of the other calculations are read concurrently as soon as a repository was analysed.
+     *
+     * @param      repositories  A collection of GitHub repositories
+     * @param      others        The calculations for other update sites. The repositories to ignore and whether to
+     *                           include archived repositories are taken from this calculation.
+     */
+    public void addAll(Collection<GHRepository> repositories, List<DependencyCalculator> others) {
         ExecutorService ex = Executors.newFixedThreadPool(128);
 
-        this.repositories.addAll(repositories
-            .parallelStream()
+        final List<CompletableFuture<RepositoryObject>> analyses = repositories
+            .stream()
             .filter(e -> !reposToIgnore.contains(e.getName()) && !reposToIgnore.contains(e.getFullName()))
             .filter(e -> includeArchived || !e.isArchived())
-            .sequential()
-            .map(e -> ex.submit(() -> {
-                try {
-                    return new RepositoryObject(e, updateSiteUrl, updateSiteType, includeImports);
-                } catch (IOException | ParserConfigurationException | SAXException exception) {
-                    throw new RuntimeException(exception);
-                }
-            }))
-            .parallel()
-            .map(e -> {
-                try {
-                    return e.get();
-                } catch (InterruptedException | ExecutionException e1) {
-                    LOGGER.warning("Exception while waiting for future to complete");
-                    return null;
-                }
-            })
-            .filter(e -> e != null)
-            .filter(e -> {
-                boolean keep = includeNoUpdateSite || e.getUpdateSite() != null;
-                if (!keep)
-                    LOGGER.warning("No updatesite found for " + e.getName() + ". skipping...");
-                return keep;
-            })
-            .sorted()
-            .collect(Collectors.toSet()));
+            .map(e -> CompletableFuture.supplyAsync(() -> analyse(e), ex))
+            .collect(Collectors.toList());
+        // the required side is shared, only the update sites of the other calculations are read again
+        final Map<DependencyCalculator, List<CompletableFuture<RepositoryObject>>> otherAnalyses = new HashMap<>();
+        for (DependencyCalculator other : others) {
+            otherAnalyses.put(other, analyses.stream()
+                .map(analysis -> analysis.thenApplyAsync(other::analyseProvided, ex))
+                .collect(Collectors.toList()));
+        }
+
+        putAll(analyses);
+        otherAnalyses.forEach(DependencyCalculator::putAll);
 
         ex.shutdown();
         try {
@@ -125,6 +224,102 @@ public class DependencyCalculator {
         }
     }
     
+    /**
+     * Add already analysed repositories to the dependency calculation, e.g. the merged partial results of a sharded
+     * analysis. Repositories without update site are skipped unless they should be included.
+     *
+     * @param      repositories  The analysed repositories
+     */
+    public void addAnalysed(Collection<RepositoryObject> repositories) {
+        putAnalysed(repositories.stream()
+            .filter(this::hasUpdateSite)
+            .collect(Collectors.toList()));
+    }
+
+    /**
+     * Returns the repositories of the dependency calculation.
+     *
+     * @return     The analysed repositories sorted by name.
+     */
+    public Collection<RepositoryObject> getRepositories() {
+        return Collections.unmodifiableCollection(repositories.values());
+    }
+
+    /**
+     * Analyses a single GitHub repository again, e.g. after a push, and replaces its previous analysis result.
+     *
+     * Only the reverse indexes of this repository are updated. The returned dependencies cover the repository itself
+     * and every repository whose dependencies may have changed because it requires a bundle or feature the
+     * repository provided before or provides now. Cached probing results and p2 metadata of its update site are
+     * validated again, so a republished update site is read.
+     *
+     * @param      repository  The GitHub repository to analyse
+     * @return     The update containing the new dependencies of all affected repositories.
+     * @throws IOException if the repository could not be analysed.
+     */
+    public DependencyUpdate update(GHRepository repository) throws IOException {
+        final RepositoryObject previous = repositories.get(repository.getFullName());
+        RepositoryObject current = null;
+        if (!reposToIgnore.contains(repository.getName()) && !reposToIgnore.contains(repository.getFullName())
+                && (includeArchived || !repository.isArchived())) {
+            try (Metrics.Timing timing = Metrics.get().time("analysis")) {
+                invalidateUpdateSite(repository.getName());
+                current = new RepositoryObject(repository, updateSiteDiscovery, p2MetadataCache, includeImports);
+                Metrics.get().repositoryLatency(current.getName(), timing.elapsedNanos());
+            } catch (ParserConfigurationException | SAXException e) {
+                throw new IOException(e);
+            }
+            if (!hasUpdateSite(current)) {
+                current = null;
+            }
+        }
+        return replace(previous, current);
+    }
+
+    // The update site may have been republished since it was cached, e.g. by the build of the push that triggered
+    // the update, so it is discovered again and its p2 repositories are validated again.
+    private void invalidateUpdateSite(String name) {
+        updateSiteDiscovery.candidates(name).forEach(updateSiteDiscovery::invalidate);
+        updateSiteDiscovery.discover(name)
+            .ifPresent(site -> site.getRepositories().forEach(p2MetadataCache::invalidate));
+    }
+
+    /**
+     * Replaces the analysis result of a repository, e.g. by one whose required bundles and features were read from
+     * a local working copy. The repository is kept even if it has no update site.
+     *
+     * @param      repository  The new analysis result, it replaces the repository with the same name
+     * @return     The update containing the new dependencies of all affected repositories.
+     * @see        #update(GHRepository)
+     */
+    public DependencyUpdate replace(RepositoryObject repository) {
+        return replace(repositories.get(repository.getName()), repository);
+    }
+
+    private DependencyUpdate replace(RepositoryObject previous, RepositoryObject current) {
+        final Set<RepositoryObject> affected = new TreeSet<>();
+        if (previous != null) {
+            affected.addAll(requiringExpanded(previous));
+            remove(previous);
+            affected.addAll(requiring(previous));
+        }
+        if (current != null) {
+            put(current);
+            affected.addAll(requiring(current));
+            affected.addAll(requiringExpanded(current));
+            affected.add(current);
+        }
+        affected.removeIf(repo -> !repositories.containsKey(repo.getName()));
+
+        final Map<RepositoryObject, Set<RepositoryObject>> dependencies = new HashMap<>();
+        final ResolutionSummary summary = new ResolutionSummary();
+        for (RepositoryObject repo : affected) {
+            dependencies.put(repo, resolve(repo, summary));
+        }
+        final Set<String> removed = previous != null && current == null ? Set.of(previous.getName()) : Set.of();
+        return new DependencyUpdate(dependencies, removed);
+    }
+
     /**
      * Returns the repository dependencies as map.
      * 
@@ -133,66 +328,318 @@ public class DependencyCalculator {
      * @return     A map representing the dependencies between repositories.
      */
     public Map<RepositoryObject, Set<RepositoryObject>> getDependencies() {
-        final Map<String, RepositoryObject> providedBundleToRepo = reverseProvidedMap(RepositoryObject::getProvidedBundles);
-        final Map<String, RepositoryObject> providedFeatureToRepo = reverseProvidedMap(RepositoryObject::getProvidedFeatures);
+        final ResolutionEvent event = new ResolutionEvent();
+        event.begin();
+        try (Metrics.Timing timing = Metrics.get().time("resolution")) {
+            final Map<RepositoryObject, Set<RepositoryObject>> dependencies = resolveDependencies();
+            event.repositories = dependencies.size();
+            event.dependencies = dependencies.values().stream().mapToInt(Set::size).sum();
+            return dependencies;
+        } finally {
+            event.commit();
+        }
+    }
 
-        final Map<RepositoryObject, Set<RepositoryObject>> dependencies = new HashMap<>();
-        for (RepositoryObject repo : repositories) {
-            final Set<RepositoryObject> repoDependencies = new HashSet<>();
-            repoDependencies.addAll(resolveDependencies(repo.getRequiredBundles(), providedBundleToRepo));
-            repoDependencies.addAll(resolveDependencies(repo.getRequiredFeatures(), providedFeatureToRepo));
+    /**
+     * Returns the transitive includes of the features the requirements are resolved with.
+     *
+     * @return     The expansion of the current repositories or empty if features are not expanded.
+     */
+    public Optional<FeatureExpansion> getFeatureExpansion() {
+        return Optional.ofNullable(prepareFeatureExpansion());
+    }
 
-            // loops not allowed by jgrapht
-            repoDependencies.remove(repo);
-            dependencies.put(repo, repoDependencies);
-        }
+    /**
+     * Returns the classification of the requirements of the last call of {@link #getDependencies()}.
+     *
+     * @return     The internal, external and unresolved requirements.
+     */
+    public ResolutionSummary getResolutionSummary() {
+        return resolutionSummary;
+    }
+
+    // Resolves all repositories in the common fork-join pool. Every repository is resolved into its own summary, the
+    // summaries are merged in the order of the repository names afterwards, so the result does not depend on the
+    // scheduling.
+    private Map<RepositoryObject, Set<RepositoryObject>> resolveDependencies() {
+        prepareFeatureExpansion();
+        final List<RepositoryObject> repos = new ArrayList<>(repositories.values());
+        final ResolutionSummary[] summaries = new ResolutionSummary[repos.size()];
+        final List<Set<RepositoryObject>> resolved = new ArrayList<>(Collections.nCopies(repos.size(), null));
+        IntStream.range(0, repos.size()).parallel().forEach(i -> {
+            summaries[i] = new ResolutionSummary();
+            resolved.set(i, resolve(repos.get(i), summaries[i]));
+        });
 
+        final Map<RepositoryObject, Set<RepositoryObject>> dependencies = new HashMap<>(repos.size() * 4 / 3 + 1);
+        final ResolutionSummary summary = new ResolutionSummary();
+        for (int i = 0; i < repos.size(); i++) {
+            dependencies.put(repos.get(i), resolved.get(i));
+            summary.addAll(summaries[i]);
+        }
+        // one aggregated line instead of one per requirement and requiring repository
+        LOGGER.log(summary.getUnresolved().isEmpty() ? Level.INFO : Level.WARNING, summary.toString());
+        Metrics.get().gauge("requirements.internal", summary.getInternal());
+        Metrics.get().gauge("requirements.external", summary.getExternal().values().stream().mapToInt(Set::size).sum());
+        Metrics.get().gauge("requirements.unresolved", summary.getUnresolved().size());
+        this.resolutionSummary = summary;
         return dependencies;
     }
 
-    private Set<RepositoryObject> resolveDependencies(Set<String> required, Map<String, RepositoryObject> providedToRepo) {
+    private Set<RepositoryObject> resolve(RepositoryObject repo, ResolutionSummary summary) {
+        Set<String> requiredBundles = repo.getRequiredBundles();
+        Set<String> requiredFeatures = repo.getRequiredFeatures();
+        if (expandFeatures) {
+            final ArtifactRequirements expansion = prepareFeatureExpansion().expandAll(requiredFeatures);
+            requiredBundles = union(requiredBundles, expansion.getBundles());
+            requiredFeatures = union(requiredFeatures, expansion.getFeatures());
+        }
+
+        final Set<RepositoryObject> repoDependencies = new HashSet<>();
+        repoDependencies.addAll(resolveDependencies(repo, requiredBundles, providedBundleIndex,
+                externalProviders::getBundleSource, "bundle:", summary));
+        repoDependencies.addAll(resolveDependencies(repo, requiredFeatures, providedFeatureIndex,
+                externalProviders::getFeatureSource, "feature:", summary));
+
+        // loops not allowed by jgrapht
+        repoDependencies.remove(repo);
+        return repoDependencies;
+    }
+
+    // Expands the features of all repositories once, so resolving them in parallel only reads the memoized results.
+    private synchronized FeatureExpansion prepareFeatureExpansion() {
+        if (!expandFeatures || featureExpansion != null) {
+            return featureExpansion;
+        }
+        try (Metrics.Timing timing = Metrics.get().time("features.expansion")) {
+            // a feature built by several repositories is taken from the first one like its provider
+            final Map<String, ArtifactRequirements> sources = new HashMap<>();
+            for (RepositoryObject repo : repositories.values()) {
+                repo.getFeatureRequirements().forEach(sources::putIfAbsent);
+            }
+            final FeatureExpansion expansion = new FeatureExpansion(sources, externalProviders);
+            repositories.values().forEach(repo -> expansion.expandAll(repo.getRequiredFeatures()));
+            Metrics.get().gauge("features.expanded", expansion.size());
+            featureExpansion = expansion;
+            return expansion;
+        }
+    }
+
+    private static Set<String> union(Set<String> required, Set<String> expanded) {
+        if (expanded.isEmpty()) {
+            return required;
+        }
+        final Set<String> union = new TreeSet<>(required);
+        union.addAll(expanded);
+        return union;
+    }
+
+    // Uses the first provider in alphabetical order if a bundle or feature is provided by multiple repositories.
+    // TODO: Do not use the first in Alphabet but use the one that mimimizes the topology three depth
+    private Set<RepositoryObject> resolveDependencies(RepositoryObject repo, Set<String> required,
+            Map<String, Set<RepositoryObject>> providedIndex, Function<String, Optional<String>> externalIndex,
+            String kind, ResolutionSummary summary) {
         final Set<RepositoryObject> repoDependencies = new HashSet<>();
 
         for (String dependency : required) {
-            if (providedToRepo.containsKey(dependency)) {
-                repoDependencies.add(providedToRepo.get(dependency));
+            final Set<RepositoryObject> providers = providedIndex.get(dependency);
+            if (providers != null) {
+                repoDependencies.add(providers.iterator().next());
+                summary.addInternal();
+                continue;
+            }
+            final Optional<String> source = externalIndex.apply(dependency);
+            if (source.isPresent()) {
+                summary.addExternal(source.get(), kind + dependency);
             } else {
-                LOGGER.warning(dependency + "is not provided by any repository.");
+                LOGGER.fine(dependency + " required by " + repo.getName() + " is not provided by any repository.");
+                summary.addUnresolved(kind + dependency, repo.getName());
             }
         }
 
         return repoDependencies;
     }
 
-    private Map<String, RepositoryObject> reverseProvidedMap(Function<RepositoryObject, Set<String>> map) {
-        final Map<String, Set<RepositoryObject>> reverseMapWithDuplicates = new HashMap<>();
-        final Map<String, RepositoryObject> reverseMap = new HashMap<>();
+    private RepositoryObject analyse(GHRepository repository) {
+        try (Metrics.Timing timing = Metrics.get().time("analysis")) {
+            final RepositoryObject analysed = new RepositoryObject(repository, updateSiteDiscovery, p2MetadataCache, includeImports);
+            Metrics.get().repositoryLatency(analysed.getName(), timing.elapsedNanos());
+            return analysed;
+        } catch (IOException | ParserConfigurationException | SAXException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    private RepositoryObject analyseProvided(RepositoryObject analysed) {
+        try {
+            return new RepositoryObject(analysed, updateSiteDiscovery, p2MetadataCache);
+        } catch (IOException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    private void putAll(List<CompletableFuture<RepositoryObject>> analyses) {
+        putAnalysed(analyses.stream()
+            .map(e -> {
+                try {
+                    return e.get();
+                } catch (InterruptedException | ExecutionException e1) {
+                    LOGGER.warning("Exception while waiting for future to complete");
+                    return null;
+                }
+            })
+            .filter(e -> e != null)
+            .filter(this::hasUpdateSite)
+            .collect(Collectors.toList()));
+    }
+
+    // Adds many repositories at once and rebuilds the reverse indexes afterwards instead of updating them per
+    // repository.
+    private void putAnalysed(List<RepositoryObject> analysed) {
+        for (RepositoryObject repository : analysed) {
+            repositories.put(repository.getName(), repository);
+        }
+        featureExpansion = null;
+        try (Metrics.Timing timing = Metrics.get().time("indexing")) {
+            final List<RepositoryObject> repos = new ArrayList<>(repositories.values());
+            providedBundleIndex = buildIndex(repos, RepositoryObject::getProvidedBundles);
+            providedFeatureIndex = buildIndex(repos, RepositoryObject::getProvidedFeatures);
+            requiredBundleIndex = buildIndex(repos, RepositoryObject::getRequiredBundles);
+            requiredFeatureIndex = buildIndex(repos, RepositoryObject::getRequiredFeatures);
+        }
+        warnMultipleProviders(providedBundleIndex);
+        warnMultipleProviders(providedFeatureIndex);
+    }
 
-        for (RepositoryObject repo : repositories) {
-            Set<String> reverseKeys = map.apply(repo);
-            for (String reverseKey : reverseKeys) {
+    // Builds a reverse index in parallel. It is sized for the number of index entries up front, so it does not rehash
+    // while the threads fill it, and its repository sets are sorted, so the first provider is the same in every run.
+    private static Map<String, Set<RepositoryObject>> buildIndex(List<RepositoryObject> repos,
+            Function<RepositoryObject, Set<String>> keys) {
+        final int size = repos.stream().mapToInt(repo -> keys.apply(repo).size()).sum();
+        final Map<String, Set<RepositoryObject>> index = new ConcurrentHashMap<>(Math.max(16, size));
+        repos.parallelStream().forEach(repo -> {
+            for (String key : keys.apply(repo)) {
+                index.computeIfAbsent(key, k -> new ConcurrentSkipListSet<>()).add(repo);
+            }
+        });
+        return index;
+    }
 
-                Set<RepositoryObject> duplicates = reverseMapWithDuplicates.getOrDefault(reverseKey, new TreeSet<>());
-                duplicates.add(repo);
-                reverseMapWithDuplicates.put(reverseKey, duplicates);
+    // Make sure every bundle/feature/.. is provided by exactly one repository.
+    private static void warnMultipleProviders(Map<String, Set<RepositoryObject>> providedIndex) {
+        new TreeMap<>(providedIndex).forEach((key, repos) -> {
+            if (repos.size() > 1) {
+                List<String> repoNames = repos.stream().map(RepositoryObject::getName).collect(Collectors.toList());
+                LOGGER.warning(key + " is provided by multiple repositories: " + repoNames + " using " + repos.iterator().next() + ".");
             }
+        });
+    }
+
+    private boolean hasUpdateSite(RepositoryObject repository) {
+        boolean keep = includeNoUpdateSite || repository.getUpdateSite() != null;
+        if (!keep)
+            LOGGER.warning("No updatesite found for " + repository.getName() + ". skipping...");
+        return keep;
+    }
+
+    // Adds a repository or replaces a previous analysis of it.
+    private void put(RepositoryObject repository) {
+        final RepositoryObject previous = repositories.get(repository.getName());
+        if (previous != null) {
+            remove(previous);
         }
+        repositories.put(repository.getName(), repository);
+        redefineFeatures(repository);
+        index(providedBundleIndex, repository.getProvidedBundles(), repository, true);
+        index(providedFeatureIndex, repository.getProvidedFeatures(), repository, true);
+        index(requiredBundleIndex, repository.getRequiredBundles(), repository, false);
+        index(requiredFeatureIndex, repository.getRequiredFeatures(), repository, false);
+    }
+
+    private void remove(RepositoryObject repository) {
+        repositories.remove(repository.getName());
+        redefineFeatures(repository);
+        unindex(providedBundleIndex, repository.getProvidedBundles(), repository);
+        unindex(providedFeatureIndex, repository.getProvidedFeatures(), repository);
+        unindex(requiredBundleIndex, repository.getRequiredBundles(), repository);
+        unindex(requiredFeatureIndex, repository.getRequiredFeatures(), repository);
+    }
 
-        // TODO: Do not use the first in Alphabet but use the one that mimimizes the topology three depth
-        for (var entry : reverseMapWithDuplicates.entrySet()) {
-            reverseMap.put(entry.getKey(), entry.getValue().iterator().next());
+    // Updates the definitions of the features a repository contains, which are taken from the first repository in
+    // alphabetical order containing them like when the expansion is built.
+    private void redefineFeatures(RepositoryObject repository) {
+        if (featureExpansion == null || repository.getFeatureRequirements().isEmpty()) {
+            return;
+        }
+        final Map<String, Optional<ArtifactRequirements>> changed = new HashMap<>();
+        for (String feature : repository.getFeatureRequirements().keySet()) {
+            changed.put(feature, repositories.values().stream()
+                .map(repo -> repo.getFeatureRequirements().get(feature))
+                .filter(source -> source != null)
+                .findFirst());
+        }
+        featureExpansion.redefine(changed);
+    }
+
+    private void index(Map<String, Set<RepositoryObject>> index, Set<String> keys, RepositoryObject repository, boolean provided) {
+        for (String key : keys) {
+            final Set<RepositoryObject> repos = index.computeIfAbsent(key, k -> new ConcurrentSkipListSet<>());
+            repos.add(repository);
+            // Make sure every bundle/feature/.. is provided by exactly one repository.
+            if (provided && repos.size() > 1) {
+                List<String> repoNames = repos.stream().map(RepositoryObject::getName).collect(Collectors.toList());
+                LOGGER.warning(key + " is provided by multiple repositories: " + repoNames + " using " + repos.iterator().next() + ".");
+            }
         }
+    }
 
+    private static void unindex(Map<String, Set<RepositoryObject>> index, Set<String> keys, RepositoryObject repository) {
+        for (String key : keys) {
+            final Set<RepositoryObject> repos = index.get(key);
+            if (repos != null) {
+                repos.remove(repository);
+                if (repos.isEmpty()) {
+                    index.remove(key);
+                }
+            }
+        }
+    }
 
-        // Make sure every bundle/feature/.. is provided by exactly one repository.
-        for (Map.Entry<String, Set<RepositoryObject>> entry : reverseMapWithDuplicates.entrySet()) {
-            if (entry.getValue().size() > 1) {
-                List<String> repoNames = entry.getValue().stream().map(RepositoryObject::getName).collect(Collectors.toList());
-                LOGGER.warning(entry.getKey()  + " is provided by multiple repositories: " + repoNames + " using " + reverseMap.get(entry.getKey()) + ".");
+    // Returns all repositories whose expanded features include a bundle or feature that the given repository provides
+    // or whose expansion may change because the repository defines one of their features.
+    private Set<RepositoryObject> requiringExpanded(RepositoryObject repository) {
+        if (!expandFeatures) {
+            return Set.of();
+        }
+        final FeatureExpansion expansion = prepareFeatureExpansion();
+        final Set<RepositoryObject> requiring = new TreeSet<>();
+        for (RepositoryObject repo : repositories.values()) {
+            for (String feature : repo.getRequiredFeatures()) {
+                // the expansions are memoized, so this only looks them up
+                final ArtifactRequirements expanded = expansion.expand(feature);
+                if (repository.getFeatureRequirements().containsKey(feature)
+                        || !Collections.disjoint(expanded.getBundles(), repository.getProvidedBundles())
+                        || !Collections.disjoint(expanded.getFeatures(), repository.getProvidedFeatures())
+                        || !Collections.disjoint(expanded.getFeatures(), repository.getFeatureRequirements().keySet())) {
+                    requiring.add(repo);
+                    break;
+                }
             }
         }
+        requiring.remove(repository);
+        return requiring;
+    }
 
-        return reverseMap;
+    // Returns all repositories requiring a bundle or feature that the given repository provides.
+    private Set<RepositoryObject> requiring(RepositoryObject repository) {
+        final Set<RepositoryObject> requiring = new TreeSet<>();
+        for (String bundle : repository.getProvidedBundles()) {
+            requiring.addAll(requiredBundleIndex.getOrDefault(bundle, Set.of()));
+        }
+        for (String feature : repository.getProvidedFeatures()) {
+            requiring.addAll(requiredFeatureIndex.getOrDefault(feature, Set.of()));
+        }
+        requiring.remove(repository);
+        return requiring;
     }
 }
-
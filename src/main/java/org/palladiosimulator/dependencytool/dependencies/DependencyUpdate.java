@@ -0,0 +1,47 @@
+package org.palladiosimulator.dependencytool.dependencies;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import org.palladiosimulator.dependencytool.github.RepositoryObject;
+
+/**
+ * The result of analysing a single repository again.
+ *
+ * @see DependencyCalculator#update(org.kohsuke.github.GHRepository)
+ */
+public class DependencyUpdate {
+
+    private final Map<RepositoryObject, Set<RepositoryObject>> dependencies;
+    private final Set<String> removed;
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param      dependencies  The new dependencies of every repository affected by the update
+     * @param      removed       The names of repositories that are no longer part of the calculation
+     */
+    public DependencyUpdate(Map<RepositoryObject, Set<RepositoryObject>> dependencies, Set<String> removed) {
+        this.dependencies = Collections.unmodifiableMap(dependencies);
+        this.removed = Collections.unmodifiableSet(removed);
+    }
+
+    /**
+     * Returns the new dependencies of all affected repositories. Repositories that are not contained are unchanged.
+     *
+     * @return     A map from affected repository to the repositories it depends on.
+     */
+    public Map<RepositoryObject, Set<RepositoryObject>> getDependencies() {
+        return dependencies;
+    }
+
+    /**
+     * Returns the repositories that were removed, e.g. because they were archived or have no update site anymore.
+     *
+     * @return     The full names of the removed repositories.
+     */
+    public Set<String> getRemoved() {
+        return removed;
+    }
+}
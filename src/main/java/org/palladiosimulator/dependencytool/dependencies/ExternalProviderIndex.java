@@ -0,0 +1,143 @@
+package org.palladiosimulator.dependencytool.dependencies;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.logging.Logger;
+
+import org.palladiosimulator.dependencytool.metrics.Metrics;
+
+/**
+ * Index of the bundles and features provided by third-party p2 repositories, e.g. the Eclipse release or Orbit.
+ *
+ * Requirements that no analysed repository provides are looked up here, so they can be told apart from requirements
+ * nobody provides. The provided units of every external repository are read once, their metadata is kept in the
+ * persistent p2 metadata cache, and all units are interned into hash maps, so a lookup takes constant time even for
+ * hundreds of thousands of units.
+ */
+public final class ExternalProviderIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(ExternalProviderIndex.class.getName());
+
+    private static final ExternalProviderIndex EMPTY = new ExternalProviderIndex(Map.of());
+
+    private final Map<String, String> bundleSources;
+    private final Map<String, String> featureSources;
+    private final Map<String, ArtifactRequirements> featureContents;
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param      metadata  The metadata of every external repository by its location. If a unit is provided by
+     *                       several repositories, the first one in iteration order is its source.
+     */
+    public ExternalProviderIndex(Map<String, P2Metadata> metadata) {
+        final int bundles = metadata.values().stream().mapToInt(m -> m.getBundles().size()).sum();
+        final int features = metadata.values().stream().mapToInt(m -> m.getFeatures().size()).sum();
+        // sized up front, so indexing large repositories does not rehash
+        this.bundleSources = new HashMap<>(bundles * 4 / 3 + 1);
+        this.featureSources = new HashMap<>(features * 4 / 3 + 1);
+        this.featureContents = new HashMap<>(features * 4 / 3 + 1);
+        metadata.forEach((source, content) -> {
+            content.getBundles().forEach(bundle -> bundleSources.putIfAbsent(bundle, source));
+            content.getFeatures().forEach(feature -> {
+                if (featureSources.putIfAbsent(feature, source) == null) {
+                    featureContents.put(feature, new ArtifactRequirements(
+                            content.getFeatureBundles().getOrDefault(feature, Set.of()),
+                            content.getFeatureIncludes().getOrDefault(feature, Set.of())));
+                }
+            });
+        });
+    }
+
+    /**
+     * Returns an index without external repositories.
+     *
+     * @return     The empty index.
+     */
+    public static ExternalProviderIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Reads the provided units of the external repositories. Composite repositories are resolved to their children
+     * and all simple repositories are read concurrently. Repositories that cannot be read are skipped.
+     *
+     * @param      locations        The URLs of the external p2 repositories in order of preference
+     * @param      discovery        The discovery that resolves composite repositories
+     * @param      p2MetadataCache  The cache for the metadata of the p2 repositories
+     * @return     The index of all provided bundles and features.
+     */
+    public static ExternalProviderIndex load(List<String> locations, UpdateSiteDiscovery discovery,
+            P2MetadataCache p2MetadataCache) {
+        try (Metrics.Timing timing = Metrics.get().time("external.index");
+                P2RepositoryReader reader = new P2RepositoryReader(discovery.getClient(), p2MetadataCache)) {
+            final Map<String, CompletableFuture<Optional<P2Metadata>>> reads = new LinkedHashMap<>();
+            for (String location : locations) {
+                final Optional<UpdateSite> site = discovery.resolve(location);
+                if (site.isEmpty()) {
+                    LOGGER.warning("No p2 repository found at " + location + ". skipping...");
+                    continue;
+                }
+                for (String repository : site.get().getRepositories()) {
+                    reads.putIfAbsent(repository, CompletableFuture.supplyAsync(() -> read(reader, repository)));
+                }
+            }
+
+            final Map<String, P2Metadata> metadata = new LinkedHashMap<>();
+            reads.forEach((location, read) -> read.join().ifPresent(content -> metadata.put(location, content)));
+            final ExternalProviderIndex index = new ExternalProviderIndex(metadata);
+            LOGGER.info("Indexed " + index.bundleSources.size() + " bundles and " + index.featureSources.size()
+                    + " features of " + metadata.size() + " external p2 repositories");
+            return index;
+        } catch (IOException | CompletionException e) {
+            LOGGER.warning("Could not index the external p2 repositories: " + e.getMessage());
+            return EMPTY;
+        }
+    }
+
+    /**
+     * Returns the external repository providing a bundle.
+     *
+     * @param      bundle  The bundle id
+     * @return     The location of the providing p2 repository or an empty optional if it is not provided.
+     */
+    public Optional<String> getBundleSource(String bundle) {
+        return Optional.ofNullable(bundleSources.get(bundle));
+    }
+
+    /**
+     * Returns the external repository providing a feature.
+     *
+     * @param      feature  The feature id
+     * @return     The location of the providing p2 repository or an empty optional if it is not provided.
+     */
+    public Optional<String> getFeatureSource(String feature) {
+        return Optional.ofNullable(featureSources.get(feature));
+    }
+
+    /**
+     * Returns the bundles and features included in an external feature, as listed in its feature group.
+     *
+     * @param      feature  The feature id
+     * @return     The included bundles and features or an empty optional if the feature is not provided.
+     */
+    public Optional<ArtifactRequirements> getFeatureContent(String feature) {
+        return Optional.ofNullable(featureContents.get(feature));
+    }
+
+    private static Optional<P2Metadata> read(P2RepositoryReader reader, String repository) {
+        try {
+            return Optional.of(reader.readProvided(repository));
+        } catch (IOException e) {
+            LOGGER.warning("Could not read external p2 repository " + repository + ": " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package org.palladiosimulator.dependencytool.dependencies;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Expands features to all bundles and features they transitively include.
+ *
+ * A feature is looked up in the feature.xml files of the analysed repositories first and in the feature groups of
+ * the external p2 repositories second. Every feature is expanded once and the result is reused for every feature
+ * including it, so expanding all features of an organization is linear in the number of distinct features and
+ * their includes. PDE rejects cyclic includes, the features of a cycle nevertheless get the same expansion, which
+ * contains all of them.
+ */
+public final class FeatureExpansion {
+
+    private static final Logger LOGGER = Logger.getLogger(FeatureExpansion.class.getName());
+
+    private static final ArtifactRequirements NONE = new ArtifactRequirements(Set.of(), Set.of());
+
+    private final Map<String, ArtifactRequirements> sources;
+    private final Function<String, Optional<ArtifactRequirements>> definitions;
+    private final Map<String, ArtifactRequirements> expanded = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param      sources    The bundles and features every feature of the analysed repositories requires, as read
+     *                        from its feature.xml
+     * @param      externals  The index of the external p2 repositories whose feature groups are expanded as well
+     */
+    public FeatureExpansion(Map<String, ArtifactRequirements> sources, ExternalProviderIndex externals) {
+        this.sources = new ConcurrentHashMap<>(sources);
+        this.definitions = feature -> {
+            final ArtifactRequirements source = this.sources.get(feature);
+            return source != null ? Optional.of(source) : externals.getFeatureContent(feature);
+        };
+    }
+
+    /**
+     * Expands several features.
+     *
+     * @param      features  The feature ids
+     * @return     All bundles and features the features transitively include, not counting the features themselves
+     *             unless they include each other.
+     */
+    public ArtifactRequirements expandAll(Collection<String> features) {
+        if (features.isEmpty()) {
+            return NONE;
+        }
+        final Set<String> bundles = new TreeSet<>();
+        final Set<String> included = new TreeSet<>();
+        for (String feature : features) {
+            final ArtifactRequirements expansion = expand(feature);
+            bundles.addAll(expansion.getBundles());
+            included.addAll(expansion.getFeatures());
+        }
+        return new ArtifactRequirements(bundles, included);
+    }
+
+    /**
+     * Expands a feature.
+     *
+     * @param      feature  The feature id
+     * @return     All bundles and features the feature transitively includes or nothing if the feature is unknown.
+     */
+    public ArtifactRequirements expand(String feature) {
+        final ArtifactRequirements known = expanded.get(feature);
+        if (known != null) {
+            return known;
+        }
+        // the memo is filled depth-first, so concurrent callers expand one feature after another
+        synchronized (this) {
+            final ArtifactRequirements memoized = expanded.get(feature);
+            if (memoized != null) {
+                return memoized;
+            }
+            new Components().visit(feature);
+            return expanded.get(feature);
+        }
+    }
+
+    /**
+     * Replaces the feature.xml files of features, e.g. after a repository containing them changed. Only the
+     * expansions of these features and of the features including them are dropped, they are expanded again when
+     * they are requested.
+     *
+     * @param      changed  The bundles and features every feature requires now or empty if no analysed repository
+     *                      contains it anymore
+     */
+    public synchronized void redefine(Map<String, Optional<ArtifactRequirements>> changed) {
+        if (changed.isEmpty()) {
+            return;
+        }
+        changed.forEach((feature, source) -> {
+            if (source.isPresent()) {
+                sources.put(feature, source.get());
+            } else {
+                sources.remove(feature);
+            }
+        });
+        // the features of an expansion are all transitive includes, so one lookup finds every feature including them
+        expanded.entrySet().removeIf(entry -> changed.containsKey(entry.getKey())
+                || !Collections.disjoint(entry.getValue().getFeatures(), changed.keySet()));
+    }
+
+    /**
+     * Returns the number of features expanded so far.
+     *
+     * @return     The number of memoized features.
+     */
+    public int size() {
+        return expanded.size();
+    }
+
+    /**
+     * Tarjan's algorithm on the includes of the features that are not expanded yet. A strongly connected component
+     * is completed after every component it includes, so the includes leaving it are already expanded.
+     */
+    private final class Components {
+        private final Map<String, ArtifactRequirements> definitions = new HashMap<>();
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final Map<String, Integer> lowLinks = new HashMap<>();
+        private final Deque<String> stack = new ArrayDeque<>();
+        private final Set<String> onStack = new HashSet<>();
+
+        private void visit(String feature) {
+            final Optional<ArtifactRequirements> definition = FeatureExpansion.this.definitions.apply(feature);
+            if (definition.isEmpty()) {
+                expanded.put(feature, NONE);
+                return;
+            }
+            final int index = indexes.size();
+            definitions.put(feature, definition.get());
+            indexes.put(feature, index);
+            lowLinks.put(feature, index);
+            stack.push(feature);
+            onStack.add(feature);
+
+            for (String include : definition.get().getFeatures()) {
+                if (expanded.containsKey(include)) {
+                    continue;
+                }
+                if (!indexes.containsKey(include)) {
+                    visit(include);
+                    if (onStack.contains(include)) {
+                        lowLinks.put(feature, Math.min(lowLinks.get(feature), lowLinks.get(include)));
+                    }
+                } else if (onStack.contains(include)) {
+                    lowLinks.put(feature, Math.min(lowLinks.get(feature), indexes.get(include)));
+                }
+            }
+
+            if (lowLinks.get(feature) == index) {
+                final List<String> component = new ArrayList<>();
+                String member;
+                do {
+                    member = stack.pop();
+                    onStack.remove(member);
+                    component.add(member);
+                } while (!member.equals(feature));
+                complete(component);
+            }
+        }
+
+        // All features of a component include each other, so they share one expansion.
+        private void complete(List<String> component) {
+            final Set<String> bundles = new TreeSet<>();
+            final Set<String> features = new TreeSet<>();
+            for (String member : component) {
+                final ArtifactRequirements definition = definitions.get(member);
+                bundles.addAll(definition.getBundles());
+                features.addAll(definition.getFeatures());
+                for (String include : definition.getFeatures()) {
+                    if (!component.contains(include)) {
+                        final ArtifactRequirements expansion = expanded.get(include);
+                        bundles.addAll(expansion.getBundles());
+                        features.addAll(expansion.getFeatures());
+                    }
+                }
+            }
+            if (component.size() > 1 || features.contains(component.get(0))) {
+                LOGGER.warning("Features " + new TreeSet<>(component) + " include each other");
+            }
+
+            final ArtifactRequirements expansion = new ArtifactRequirements(bundles, features);
+            component.forEach(member -> expanded.put(member, expansion));
+        }
+    }
+}
@@ -16,6 +16,7 @@ public class FeatureXML {
     private static final String PLUGIN_NODE_NAME = "plugin";
     private static final String ID_TIME = "id";
     
+    private final String id;
     private final Set<String> featureSet = new HashSet<>();
     private final Set<String> bundleSet = new HashSet<>();
     
@@ -26,7 +27,10 @@ public class FeatureXML {
      * @param includeImports Additionally parse imports if true.
      */
     public FeatureXML(Document doc, boolean includeImports) {
-        NodeList nList = doc.getElementsByTagName(FEATURE_TAG).item(0).getChildNodes();
+        Node featureNode = doc.getElementsByTagName(FEATURE_TAG).item(0);
+        Node idNode = featureNode.getAttributes().getNamedItem(ID_TIME);
+        id = idNode == null ? null : idNode.getTextContent();
+        NodeList nList = featureNode.getChildNodes();
         for (int i = 0; i < nList.getLength(); i++) {
             Node nNode = nList.item(i);
             Boolean isNode = nNode.getNodeType() == Node.ELEMENT_NODE;
@@ -47,6 +51,15 @@ public class FeatureXML {
         }
     }
     
+    /**
+     * Returns the id of the feature defined by this feature.xml.
+     *
+     * @return     The feature id or null if the feature.xml does not specify one.
+     */
+    public String getId() {
+        return id;
+    }
+
     /**
      * Returns the features that are required by this feature.xml.
      *
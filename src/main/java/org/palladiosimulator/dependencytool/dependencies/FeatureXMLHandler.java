@@ -2,12 +2,15 @@ package org.palladiosimulator.dependencytool.dependencies;
 
 import org.kohsuke.github.GHContent;
 import org.kohsuke.github.GHRepository;
+import org.palladiosimulator.dependencytool.metrics.RepositoryFileEvent;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.logging.Logger;
 
 import javax.xml.parsers.DocumentBuilder;
@@ -27,6 +30,7 @@ public class FeatureXMLHandler {
     private final boolean includeImports;
     private final Set<String> requiredBundles = new HashSet<>();
     private final Set<String> requiredFeatures = new HashSet<>();
+    private final Map<String, ArtifactRequirements> featureRequirements = new TreeMap<>();
     
     /**
      * Constructs a new instance.
@@ -59,19 +63,38 @@ public class FeatureXMLHandler {
         return requiredFeatures;
     }
 
+    /**
+     * Returns the bundles and features that are required by every feature individually.
+     *
+     * @return     The requirements per feature, identified by its id or its directory name if the feature.xml does
+     *             not specify one.
+     */
+    public Map<String, ArtifactRequirements> getFeatureRequirements() {
+        return featureRequirements;
+    }
+
     private void calculateDependencies() throws IOException, ParserConfigurationException, SAXException {
         // get required bundles and features from all Feature.xml
-        Set<String> featureXMLs = new HashSet<>();
-        for (String feature : getFeatures()) {
-            featureXMLs.add("/features/" + feature + "/feature.xml");
-        }
-        for (String featureXML : featureXMLs) {
-            Optional<GHContent> featureContent = getFileContent(featureXML);
-            if (featureContent.isPresent()) {
-                Document featureDoc = getDocumentFromStream(featureContent.get().read());
-                FeatureXML feature = new FeatureXML(featureDoc, includeImports);
-                requiredBundles.addAll(feature.getRequiredBundles());
-                requiredFeatures.addAll(feature.getRequiredFeatures());
+        for (String featureDirectory : getFeatures()) {
+            final String featureXML = "/features/" + featureDirectory + "/feature.xml";
+            final RepositoryFileEvent event = new RepositoryFileEvent();
+            event.begin();
+            event.repository = repository.getFullName();
+            event.path = featureXML;
+            try {
+                Optional<GHContent> featureContent = getFileContent(featureXML);
+                if (featureContent.isPresent()) {
+                    Document featureDoc = getDocumentFromStream(featureContent.get().read());
+                    FeatureXML feature = new FeatureXML(featureDoc, includeImports);
+                    requiredBundles.addAll(feature.getRequiredBundles());
+                    requiredFeatures.addAll(feature.getRequiredFeatures());
+                    featureRequirements.put(feature.getId() == null ? featureDirectory : feature.getId(),
+                            new ArtifactRequirements(feature.getRequiredBundles(), feature.getRequiredFeatures()));
+                    event.bytes = featureContent.get().getSize();
+                    event.found = true;
+                }
+            } finally {
+                event.commit();
             }
         }
     }
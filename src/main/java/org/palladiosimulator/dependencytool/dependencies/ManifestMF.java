@@ -3,6 +3,7 @@ package org.palladiosimulator.dependencytool.dependencies;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashSet;
+import java.util.Optional;
 import java.util.Set;
 import java.util.jar.Attributes;
 import java.util.jar.Manifest;
@@ -23,6 +24,20 @@ public class ManifestMF {
         manifest = new Manifest(stream);
     }
     
+    /**
+     * Returns the symbolic name of the bundle without directives like singleton.
+     *
+     * @return     The symbolic name or empty if the manifest.mf file does not specify one.
+     */
+    public Optional<String> getSymbolicName() {
+        final String symbolicName = manifest.getMainAttributes().getValue("Bundle-SymbolicName");
+        if (symbolicName == null) {
+            return Optional.empty();
+        }
+        final int directives = symbolicName.indexOf(';');
+        return Optional.of((directives < 0 ? symbolicName : symbolicName.substring(0, directives)).trim());
+    }
+
     /**
      * Parses the manifest.mf file for names of bundles specified in require-bundle.
      * 
@@ -2,11 +2,14 @@ package org.palladiosimulator.dependencytool.dependencies;
 
 import org.kohsuke.github.GHContent;
 import org.kohsuke.github.GHRepository;
+import org.palladiosimulator.dependencytool.metrics.RepositoryFileEvent;
 
 import java.io.IOException;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.logging.Logger;
 
 /**
@@ -34,20 +37,43 @@ public class ManifestMFDependencyHandler {
      */
     public Set<String> getRequiredBundles() {
         Set<String> dependencies = new HashSet<>();
+        for (ArtifactRequirements requirements : getBundleRequirements().values()) {
+            dependencies.addAll(requirements.getBundles());
+        }
+        return dependencies;
+    }
+
+    /**
+     * Parses the dependencies of every bundle individually.
+     *
+     * @return     The required bundles per bundle, identified by its symbolic name or its directory name if the
+     *             manifest.mf file does not specify one. Bundles without manifest.mf file are omitted.
+     */
+    public Map<String, ArtifactRequirements> getBundleRequirements() {
+        Map<String, ArtifactRequirements> requirements = new TreeMap<>();
         for (String bundle : getBundles()) {
             Optional<ManifestMF> manifest = Optional.empty();
             final String manifestPath = "bundles/" + bundle + "/META-INF/MANIFEST.MF";
+            final RepositoryFileEvent event = new RepositoryFileEvent();
+            event.begin();
+            event.repository = repository.getFullName();
+            event.path = manifestPath;
             try {
                 GHContent ghManifest = repository.getFileContent(manifestPath);
                 manifest = Optional.of(new ManifestMF(ghManifest.read()));
+                event.bytes = ghManifest.getSize();
+                event.found = true;
             } catch (IOException e) {
                 LOGGER.warning("No Manifest.MF found at " + manifestPath + " in " + repository.getFullName());
+            } finally {
+                event.commit();
             }
             if (manifest.isPresent()) {
-                dependencies.addAll(manifest.get().getRequiredBundles());
+                requirements.put(manifest.get().getSymbolicName().orElse(bundle),
+                        new ArtifactRequirements(manifest.get().getRequiredBundles(), Set.of()));
             }
         }
-        return dependencies;
+        return requirements;
     }
 
     // Returns a set of strings, containing all names of bundles present for the given repository name.
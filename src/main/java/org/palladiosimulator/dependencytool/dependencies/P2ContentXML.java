@@ -0,0 +1,210 @@
+package org.palladiosimulator.dependencytool.dependencies;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Represents the content.xml file of a simple p2 repository.
+ *
+ * The file is read as a stream, one installable unit at a time, and only the provided capabilities (bundles, exported
+ * packages, features) and the contents of feature groups are kept. The metadata document itself is never held in
+ * memory, which matters for large release sites.
+ */
+public class P2ContentXML {
+
+    private static final String UNIT = "unit";
+    private static final String PROVIDED = "provided";
+    private static final String REQUIRED = "required";
+    private static final String PROPERTY = "property";
+
+    private static final String NAMESPACE_BUNDLE = "osgi.bundle";
+    private static final String NAMESPACE_PACKAGE = "java.package";
+    private static final String NAMESPACE_FEATURE = "org.eclipse.update.feature";
+    private static final String NAMESPACE_IU = "org.eclipse.equinox.p2.iu";
+    private static final String FEATURE_GROUP_SUFFIX = ".feature.group";
+    private static final String FEATURE_JAR_SUFFIX = ".feature.jar";
+
+    private final Map<String, String> bundleVersions = new HashMap<>();
+    private final Map<String, String> featureVersions = new HashMap<>();
+    private final Map<String, String> packages = new HashMap<>();
+    private final Map<String, Set<String>> featureBundles = new HashMap<>();
+    private final Map<String, Set<String>> featureIncludes = new HashMap<>();
+    private final Map<String, String> strings = new HashMap<>();
+    private String timestamp;
+
+    /**
+     * Create a new content.xml object by reading a content.xml stream.
+     *
+     * @param      stream  The input stream that points to a content.xml file.
+     * @throws IOException if the stream could not be read or is not a valid content.xml file.
+     */
+    public P2ContentXML(InputStream stream) throws IOException {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        try {
+            final XMLStreamReader reader = factory.createXMLStreamReader(stream);
+            try {
+                parse(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Invalid content.xml: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the index of all capabilities provided by the repository.
+     *
+     * @return     The metadata of the repository.
+     */
+    public P2Metadata getMetadata() {
+        return new P2Metadata(bundleVersions, featureVersions, packages, featureBundles, featureIncludes, timestamp);
+    }
+
+    private void parse(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 0;
+        Unit unit = null;
+        while (reader.hasNext()) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                final String element = reader.getLocalName();
+                if (UNIT.equals(element)) {
+                    unit = new Unit(attribute(reader, "id"), attribute(reader, "version"));
+                } else if (unit != null && PROVIDED.equals(element)) {
+                    unit.provided.add(new Capability(attribute(reader, "namespace"), attribute(reader, "name"),
+                            attribute(reader, "version")));
+                } else if (unit != null && REQUIRED.equals(element)) {
+                    unit.required.add(new Capability(attribute(reader, "namespace"), attribute(reader, "name"),
+                            attribute(reader, "range")));
+                } else if (unit == null && depth == 3 && PROPERTY.equals(element)
+                        && "p2.timestamp".equals(reader.getAttributeValue(null, "name"))) {
+                    // repository > properties > property
+                    timestamp = reader.getAttributeValue(null, "value");
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+                if (unit != null && UNIT.equals(reader.getLocalName())) {
+                    addUnit(unit);
+                    unit = null;
+                }
+            }
+        }
+    }
+
+    private void addUnit(Unit unit) {
+        String bundle = null;
+        for (Capability capability : unit.provided) {
+            if (NAMESPACE_BUNDLE.equals(capability.namespace)) {
+                bundle = capability.name;
+                bundleVersions.merge(capability.name, capability.version, P2ContentXML::highest);
+            } else if (NAMESPACE_FEATURE.equals(capability.namespace)) {
+                featureVersions.merge(capability.name, capability.version, P2ContentXML::highest);
+            }
+        }
+        for (Capability capability : unit.provided) {
+            if (NAMESPACE_PACKAGE.equals(capability.namespace)) {
+                packages.putIfAbsent(capability.name, bundle != null ? bundle : unit.id);
+            }
+        }
+
+        if (unit.id.endsWith(FEATURE_GROUP_SUFFIX)) {
+            final String feature = stripSuffix(unit.id, FEATURE_GROUP_SUFFIX);
+            featureVersions.merge(feature, unit.version, P2ContentXML::highest);
+            final Set<String> bundles = featureBundles.computeIfAbsent(feature, key -> new TreeSet<>());
+            final Set<String> includes = featureIncludes.computeIfAbsent(feature, key -> new TreeSet<>());
+            for (Capability requirement : unit.required) {
+                // included bundles and features are required with a strict range, imports are not
+                if (!NAMESPACE_IU.equals(requirement.namespace) || !isStrictRange(requirement.version)) {
+                    continue;
+                }
+                if (requirement.name.endsWith(FEATURE_GROUP_SUFFIX)) {
+                    includes.add(stripSuffix(requirement.name, FEATURE_GROUP_SUFFIX));
+                } else if (!requirement.name.endsWith(FEATURE_JAR_SUFFIX)) {
+                    bundles.add(requirement.name);
+                }
+            }
+        }
+    }
+
+    // Strings like namespaces and versions repeat a lot, so share a single instance of each.
+    private String attribute(XMLStreamReader reader, String name) {
+        final String value = reader.getAttributeValue(null, name);
+        if (value == null) {
+            return "";
+        }
+        return strings.computeIfAbsent(value, key -> key);
+    }
+
+    private static boolean isStrictRange(String range) {
+        if (!range.startsWith("[") || !range.endsWith("]")) {
+            return false;
+        }
+        final String[] bounds = range.substring(1, range.length() - 1).split(",");
+        return bounds.length == 2 && bounds[0].trim().equals(bounds[1].trim());
+    }
+
+    private static String stripSuffix(String value, String suffix) {
+        return value.substring(0, value.length() - suffix.length());
+    }
+
+    // Compares OSGi versions (major.minor.micro.qualifier) and returns the higher one.
+    private static String highest(String first, String second) {
+        final String[] a = first.split("\\.", 4);
+        final String[] b = second.split("\\.", 4);
+        for (int i = 0; i < 4; i++) {
+            final String left = i < a.length ? a[i] : "";
+            final String right = i < b.length ? b[i] : "";
+            final int comparison = i < 3 ? Long.compare(number(left), number(right)) : left.compareTo(right);
+            if (comparison != 0) {
+                return comparison > 0 ? first : second;
+            }
+        }
+        return first;
+    }
+
+    private static long number(String segment) {
+        try {
+            return segment.isEmpty() ? 0 : Long.parseLong(segment);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static final class Unit {
+        private final String id;
+        private final String version;
+        private final List<Capability> provided = new ArrayList<>();
+        private final List<Capability> required = new ArrayList<>();
+
+        Unit(String id, String version) {
+            this.id = id;
+            this.version = version;
+        }
+    }
+
+    private static final class Capability {
+        private final String namespace;
+        private final String name;
+        private final String version;
+
+        Capability(String namespace, String name, String version) {
+            this.namespace = namespace;
+            this.name = name;
+            this.version = version;
+        }
+    }
+}
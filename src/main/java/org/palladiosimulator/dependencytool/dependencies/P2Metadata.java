@@ -0,0 +1,136 @@
+package org.palladiosimulator.dependencytool.dependencies;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonGetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Compact index of the capabilities that are provided by a single p2 repository.
+ *
+ * Holds the provided features and bundles with their versions, the exported packages and which bundles and features
+ * are included in each feature.
+ */
+public class P2Metadata {
+
+    private final Map<String, String> bundleVersions;
+    private final Map<String, String> featureVersions;
+    private final Map<String, String> packages;
+    private final Map<String, Set<String>> featureBundles;
+    private final Map<String, Set<String>> featureIncludes;
+    private final String timestamp;
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param      bundleVersions   The provided bundles mapped to their highest version
+     * @param      featureVersions  The provided features mapped to their highest version
+     * @param      packages         The exported packages mapped to the bundle exporting them
+     * @param      featureBundles   The features mapped to the bundles they include
+     * @param      featureIncludes  The features mapped to the features they include
+     * @param      timestamp        The p2.timestamp of the repository or null if it is unknown
+     */
+    @JsonCreator
+    public P2Metadata(@JsonProperty("bundleVersions") Map<String, String> bundleVersions,
+                      @JsonProperty("featureVersions") Map<String, String> featureVersions,
+                      @JsonProperty("packages") Map<String, String> packages,
+                      @JsonProperty("featureBundles") Map<String, Set<String>> featureBundles,
+                      @JsonProperty("featureIncludes") Map<String, Set<String>> featureIncludes,
+                      @JsonProperty("timestamp") String timestamp) {
+        this.bundleVersions = sorted(bundleVersions);
+        this.featureVersions = sorted(featureVersions);
+        this.packages = sorted(packages);
+        this.featureBundles = sorted(featureBundles);
+        this.featureIncludes = sorted(featureIncludes);
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Returns the names of all provided bundles.
+     *
+     * @return     The provided bundles.
+     */
+    @JsonIgnore
+    public Set<String> getBundles() {
+        return bundleVersions.keySet();
+    }
+
+    /**
+     * Returns the names of all provided features.
+     *
+     * @return     The provided features.
+     */
+    @JsonIgnore
+    public Set<String> getFeatures() {
+        return featureVersions.keySet();
+    }
+
+    /**
+     * Returns the provided bundles with their highest version.
+     *
+     * @return     A map from bundle name to version.
+     */
+    @JsonGetter("bundleVersions")
+    public Map<String, String> getBundleVersions() {
+        return bundleVersions;
+    }
+
+    /**
+     * Returns the provided features with their highest version.
+     *
+     * @return     A map from feature name to version.
+     */
+    @JsonGetter("featureVersions")
+    public Map<String, String> getFeatureVersions() {
+        return featureVersions;
+    }
+
+    /**
+     * Returns the exported packages.
+     *
+     * @return     A map from package name to the bundle exporting it.
+     */
+    @JsonGetter("packages")
+    public Map<String, String> getPackages() {
+        return packages;
+    }
+
+    /**
+     * Returns the bundles included in each feature.
+     *
+     * @return     A map from feature name to the names of the included bundles.
+     */
+    @JsonGetter("featureBundles")
+    public Map<String, Set<String>> getFeatureBundles() {
+        return featureBundles;
+    }
+
+    /**
+     * Returns the features included in each feature.
+     *
+     * @return     A map from feature name to the names of the included features.
+     */
+    @JsonGetter("featureIncludes")
+    public Map<String, Set<String>> getFeatureIncludes() {
+        return featureIncludes;
+    }
+
+    /**
+     * Returns the p2.timestamp property of the repository.
+     *
+     * @return     The timestamp or null if it is unknown.
+     */
+    @JsonGetter("timestamp")
+    public String getTimestamp() {
+        return timestamp;
+    }
+
+    private static <V> Map<String, V> sorted(Map<String, V> map) {
+        return map == null ? Collections.emptyMap() : Collections.unmodifiableMap(new TreeMap<>(map));
+    }
+}
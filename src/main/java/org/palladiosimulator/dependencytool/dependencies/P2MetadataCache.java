@@ -0,0 +1,252 @@
+package org.palladiosimulator.dependencytool.dependencies;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+import org.palladiosimulator.dependencytool.metrics.Metrics;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonGetter;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Persistent cache for the metadata of p2 repositories.
+ *
+ * Every entry is stored together with the HTTP validators (ETag or Last-Modified and size) of the metadata file it
+ * was read from. Before an entry is used, a single HEAD request checks whether the repository was republished in
+ * the meantime. Unchanged repositories are therefore never downloaded again.
+ */
+public class P2MetadataCache {
+
+    /**
+     * Loads the metadata of a p2 repository if it is not cached.
+     */
+    @FunctionalInterface
+    public interface Loader {
+        /**
+         * Loads the metadata.
+         *
+         * @return     The loaded metadata.
+         * @throws IOException if the repository could not be read.
+         */
+        P2Metadata load() throws IOException;
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(P2MetadataCache.class.getName());
+
+    private static final String CACHE_NAME = "p2metadata";
+
+    private final Path directory;
+    private final UpdateSiteClient client;
+    private final ObjectMapper objectMapper;
+    private final Map<String, P2Metadata> validated = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param      directory  The directory the cache entries are stored in or null to disable caching
+     */
+    public P2MetadataCache(Path directory) {
+        this(directory, new UpdateSiteClient());
+    }
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param      directory  The directory the cache entries are stored in or null to disable caching
+     * @param      client     The client the entries are validated with
+     */
+    public P2MetadataCache(Path directory, UpdateSiteClient client) {
+        this.directory = directory;
+        this.client = client;
+        // a disabled cache never reads or writes entries, so it does not load jackson
+        this.objectMapper = directory == null ? null : new ObjectMapper();
+    }
+
+    /**
+     * Returns a cache that always loads the metadata.
+     *
+     * @return     A disabled cache.
+     */
+    public static P2MetadataCache disabled() {
+        return new P2MetadataCache(null);
+    }
+
+    /**
+     * Returns the default cache directory in the home directory of the user.
+     *
+     * @return     The default cache directory.
+     */
+    public static Path defaultDirectory() {
+        return Path.of(System.getProperty("user.home"), ".cache", "dependencytool", "p2");
+    }
+
+    /**
+     * Returns the cached metadata of a p2 repository if the repository was not changed since it was cached.
+     * Otherwise the metadata is loaded and stored in the cache.
+     *
+     * @param      location  The URL of the p2 repository
+     * @param      loader    Loads the metadata if there is no valid cache entry
+     * @return     The metadata of the repository.
+     * @throws IOException if the metadata had to be loaded and could not be read.
+     */
+    public P2Metadata get(String location, Loader loader) throws IOException {
+        if (directory == null) {
+            return loader.load();
+        }
+        final P2Metadata known = validated.get(location);
+        if (known != null) {
+            Metrics.get().hit(CACHE_NAME);
+            return known;
+        }
+
+        final Optional<String> validator = currentValidator(location);
+        final Path entryFile = directory.resolve(hash(location) + ".json");
+        if (validator.isPresent()) {
+            final Optional<CacheEntry> entry = read(entryFile);
+            if (entry.isPresent() && entry.get().getLocation().equals(location)
+                    && entry.get().getValidator().equals(validator.get())) {
+                LOGGER.fine("Using cached p2 metadata for " + location);
+                Metrics.get().hit(CACHE_NAME);
+                validated.put(location, entry.get().getMetadata());
+                return entry.get().getMetadata();
+            }
+        }
+
+        Metrics.get().miss(CACHE_NAME);
+        final P2Metadata metadata = loader.load();
+        if (validator.isPresent()) {
+            write(entryFile, new CacheEntry(location, validator.get(), metadata));
+        }
+        validated.put(location, metadata);
+        return metadata;
+    }
+
+    /**
+     * Forgets which entries were already validated in this process, so they are validated against the update
+     * site again on their next use.
+     */
+    public void invalidate() {
+        validated.clear();
+    }
+
+    /**
+     * Forgets that the entry of a p2 repository was already validated in this process, so it is validated against
+     * the update site again on its next use.
+     *
+     * @param      location  The URL of the p2 repository
+     */
+    public void invalidate(String location) {
+        validated.remove(location);
+    }
+
+    // Builds a validator from the first metadata file that exists. Without ETag or Last-Modified nothing is cached.
+    private Optional<String> currentValidator(String location) {
+        final String base = location.endsWith("/") ? location : location + "/";
+        for (String file : P2RepositoryReader.CONTENT_FILES) {
+            final HttpResponse<Void> response;
+            try {
+                response = client.head(URI.create(base + file)).join();
+            } catch (CompletionException e) {
+                return Optional.empty();
+            }
+            if (!UpdateSiteClient.isSuccess(response.statusCode())) {
+                continue;
+            }
+            final Optional<String> etag = response.headers().firstValue("ETag");
+            if (etag.isPresent()) {
+                return Optional.of(file + ";etag=" + etag.get());
+            }
+            final Optional<String> lastModified = response.headers().firstValue("Last-Modified");
+            if (lastModified.isPresent()) {
+                return Optional.of(file + ";last-modified=" + lastModified.get() + ";length="
+                        + response.headers().firstValue("Content-Length").orElse(""));
+            }
+            return Optional.empty();
+        }
+        return Optional.empty();
+    }
+
+    private Optional<CacheEntry> read(Path entryFile) {
+        if (!Files.isRegularFile(entryFile)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(objectMapper.readValue(entryFile.toFile(), CacheEntry.class));
+        } catch (IOException e) {
+            LOGGER.warning("Ignoring unreadable cache entry " + entryFile + ": " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    // Writes to a temporary file first so concurrent readers never see a partial entry.
+    private void write(Path entryFile, CacheEntry entry) {
+        try {
+            Files.createDirectories(directory);
+            final Path temporary = Files.createTempFile(directory, entryFile.getFileName().toString(), ".tmp");
+            objectMapper.writeValue(temporary.toFile(), entry);
+            Files.move(temporary, entryFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warning("Could not write cache entry " + entryFile + ": " + e.getMessage());
+        }
+    }
+
+    private static String hash(String location) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(location.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder hex = new StringBuilder();
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    /**
+     * A persisted cache entry.
+     */
+    private static final class CacheEntry {
+        private final String location;
+        private final String validator;
+        private final P2Metadata metadata;
+
+        @JsonCreator
+        CacheEntry(@JsonProperty("location") String location,
+                   @JsonProperty("validator") String validator,
+                   @JsonProperty("metadata") P2Metadata metadata) {
+            this.location = location;
+            this.validator = validator;
+            this.metadata = metadata;
+        }
+
+        @JsonGetter("location")
+        String getLocation() {
+            return location;
+        }
+
+        @JsonGetter("validator")
+        String getValidator() {
+            return validator;
+        }
+
+        @JsonGetter("metadata")
+        P2Metadata getMetadata() {
+            return metadata;
+        }
+    }
+}
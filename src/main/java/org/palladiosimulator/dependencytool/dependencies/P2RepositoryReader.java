@@ -2,79 +2,142 @@ package org.palladiosimulator.dependencytool.dependencies;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
-import java.util.Collection;
-import java.util.HashSet;
+import java.net.http.HttpResponse;
+import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletionException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
-import org.osgi.util.promise.PromiseFactory;
-
-import aQute.bnd.http.HttpClient;
-import aQute.p2.api.Artifact;
-import aQute.p2.packed.Unpack200;
-import aQute.p2.provider.P2Impl;
+import org.palladiosimulator.dependencytool.metrics.CountingInputStream;
+import org.palladiosimulator.dependencytool.metrics.Metrics;
+import org.palladiosimulator.dependencytool.metrics.P2ReadEvent;
+import org.palladiosimulator.dependencytool.util.SingleFlight;
+import org.tukaani.xz.XZInputStream;
 
 /**
  * Reader for P2Repositories that allows to compute the features and bundles that are provided by a repositories.
+ *
+ * Only simple repositories are read. Composite repositories are resolved to their children by
+ * {@link UpdateSiteDiscovery}. Concurrent reads of the same repository are coalesced into one.
  */
 public class P2RepositoryReader implements Closeable {
-    
-    private final ExecutorService executor;
-    private final PromiseFactory promiseFactory;
+
+    /** The metadata files of a simple repository in the order p2 itself prefers them. */
+    static final List<String> CONTENT_FILES = List.of("content.jar", "content.xml.xz", "content.xml");
+
+    private static final String CONTENT_XML = "content.xml";
+
+    // shared by all readers, several repositories may read the same composite child at the same time
+    private static final SingleFlight<String, P2Metadata> READS = new SingleFlight<>("p2");
+
+    private final UpdateSiteClient client;
+    private final P2MetadataCache cache;
 
     /**
-     * Constructs a new instance.
+     * Constructs a new instance without caching.
      */
     public P2RepositoryReader() {
-        executor = Executors.newSingleThreadExecutor();
-        promiseFactory = new PromiseFactory(executor);
+        this(new UpdateSiteClient(), P2MetadataCache.disabled());
+    }
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param client The client the repositories are downloaded with, usually the one of the update site discovery.
+     * @param cache The cache that is consulted before a repository is downloaded.
+     */
+    public P2RepositoryReader(UpdateSiteClient client, P2MetadataCache cache) {
+        this.client = client;
+        this.cache = cache;
+    }
+
+    /**
+     * Returns all capabilities provided by the update site. The repository is read only once and as a stream.
+     *
+     * @param path Path to the repository that should be read.
+     * @return The features, bundles and packages provided by this repository.
+     * @throws IOException if the repository has no readable content metadata.
+     */
+    public P2Metadata readProvided(String path) throws IOException {
+        final String base = path.endsWith("/") ? path : path + "/";
+        final P2ReadEvent event = new P2ReadEvent();
+        event.begin();
+        event.location = base;
+        try (Metrics.Timing timing = Metrics.get().time("p2.read")) {
+            final P2Metadata metadata = READS.get(base, () -> cache.get(base, () -> readContent(base, event)));
+            Metrics.get().updateSiteLatency(base, timing.elapsedNanos());
+            return metadata;
+        } finally {
+            event.commit();
+        }
     }
 
     /**
      * Returns all provided features from the update site.
-     *  
+     *
      * @param path Path to the repository that should be read.
      * @return A set of names of features provided by this repository.
      * @throws IOException
      */
     public Set<String> readProvidedFeatures(String path) throws IOException {
-        URI repoURI = URI.create(path);
-        Set<String> features = new HashSet<>();
-        try (HttpClient client = new HttpClient()) {
-            P2Impl p2 = new P2Impl(new Unpack200(), client, repoURI, promiseFactory);
-            Collection<Artifact> artifacts = p2.getFeatures();
-            artifacts.forEach(a -> features.add(a.id));
-        } catch (Exception e) {
-            throw new IOException(e);
-        }
-        return features;
+        return readProvided(path).getFeatures();
     }
-    
+
     /**
      * Returns all provided bundles from the update site.
-     * 
+     *
      * @param path Path to the repository that should be read.
      * @return A set of names of bundles provided by this repository.
      * @throws IOException
      */
     public Set<String> readProvidedBundles(String path) throws IOException {
-        URI repoURI = URI.create(path);
-        Set<String> bundles = new HashSet<>();
-        try (HttpClient client = new HttpClient()) {
-            P2Impl p2 = new P2Impl(new Unpack200(), client, repoURI, promiseFactory);
-            Collection<Artifact> artifacts = p2.getBundles();
-            artifacts.forEach(a -> bundles.add(a.id));
-        } catch (Exception e) {
-            throw new IOException(e);
-        }
-        return bundles;
+        return readProvided(path).getBundles();
     }
-    
+
     @Override
     public void close() throws IOException {
-        executor.shutdown();
+        // the client is shared by the whole run and pools its connections, so there is nothing to release
     }
 
+    private P2Metadata readContent(String base, P2ReadEvent event) throws IOException {
+        for (String file : CONTENT_FILES) {
+            final HttpResponse<InputStream> response;
+            try {
+                response = client.getStream(URI.create(base + file)).join();
+            } catch (CompletionException e) {
+                throw new IOException("Could not read " + base + file, e.getCause());
+            }
+            try (CountingInputStream body = new CountingInputStream(response.body(), UpdateSiteClient.BYTES)) {
+                if (UpdateSiteClient.isSuccess(response.statusCode())) {
+                    event.file = file;
+                    try (Metrics.Timing timing = Metrics.get().time("p2.parse")) {
+                        return new P2ContentXML(decode(file, body)).getMetadata();
+                    } finally {
+                        event.bytes = body.getCount();
+                    }
+                }
+            }
+        }
+        throw new IOException("No content metadata found at " + base);
+    }
+
+    private static InputStream decode(String file, InputStream body) throws IOException {
+        if (file.endsWith(".xz")) {
+            return new XZInputStream(body);
+        }
+        if (file.endsWith(".jar")) {
+            final ZipInputStream zip = new ZipInputStream(body);
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (entry.getName().equals(CONTENT_XML)) {
+                    return zip;
+                }
+            }
+            throw new IOException(file + " does not contain " + CONTENT_XML);
+        }
+        return body;
+    }
 }
@@ -0,0 +1,84 @@
+package org.palladiosimulator.dependencytool.dependencies;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * Classification of all requirements of one dependency calculation.
+ *
+ * A requirement is internal if an analysed repository provides it, external if only an external p2 repository
+ * provides it, and unresolved otherwise. External and unresolved requirements are aggregated over all requiring
+ * repositories, so the summary stays small however many repositories require a platform bundle.
+ */
+@JsonPropertyOrder({"internal", "external", "unresolved"})
+public final class ResolutionSummary {
+
+    private int internal;
+    private final Map<String, Set<String>> external = new TreeMap<>();
+    private final Map<String, Set<String>> unresolved = new TreeMap<>();
+
+    /**
+     * Returns the number of requirements that are provided by an analysed repository.
+     *
+     * @return     The number of pairs of requiring repository and required bundle or feature.
+     */
+    public int getInternal() {
+        return internal;
+    }
+
+    /**
+     * Returns the requirements that are only provided by external p2 repositories.
+     *
+     * @return     A sorted map from the location of an external repository to the sorted ids of the required units
+     *             it provides, e.g. bundle:org.eclipse.core.runtime.
+     */
+    public Map<String, Set<String>> getExternal() {
+        return Collections.unmodifiableMap(external);
+    }
+
+    /**
+     * Returns the requirements that are not provided by any repository.
+     *
+     * @return     A sorted map from the id of a required unit, e.g. bundle:org.example, to the sorted names of the
+     *             repositories requiring it.
+     */
+    public Map<String, Set<String>> getUnresolved() {
+        return Collections.unmodifiableMap(unresolved);
+    }
+
+    void addInternal() {
+        internal++;
+    }
+
+    void addExternal(String source, String unit) {
+        external.computeIfAbsent(source, key -> new TreeSet<>()).add(unit);
+    }
+
+    void addUnresolved(String unit, String repository) {
+        unresolved.computeIfAbsent(unit, key -> new TreeSet<>()).add(repository);
+    }
+
+    void addAll(ResolutionSummary other) {
+        internal += other.internal;
+        other.external.forEach((source, units) -> external.computeIfAbsent(source, key -> new TreeSet<>()).addAll(units));
+        other.unresolved.forEach((unit, repos) -> unresolved.computeIfAbsent(unit, key -> new TreeSet<>()).addAll(repos));
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder summary = new StringBuilder()
+            .append(internal).append(" requirements provided by analysed repositories, ")
+            .append(external.values().stream().mapToInt(Set::size).sum()).append(" units provided by ")
+            .append(external.size()).append(" external repositories, ")
+            .append(unresolved.size()).append(" units not provided by any repository");
+        if (!unresolved.isEmpty()) {
+            summary.append(": ").append(unresolved.keySet());
+        }
+        return summary.toString();
+    }
+}
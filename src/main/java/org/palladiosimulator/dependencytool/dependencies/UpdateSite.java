@@ -0,0 +1,49 @@
+package org.palladiosimulator.dependencytool.dependencies;
+
+import java.util.List;
+
+/**
+ * An update site that was found for a repository.
+ *
+ * A composite update site is resolved to the simple p2 repositories it is made of.
+ */
+public class UpdateSite {
+
+    private final String url;
+    private final List<String> repositories;
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param      url           The URL of the update site
+     * @param      repositories  The URLs of all simple p2 repositories that belong to the update site
+     */
+    public UpdateSite(String url, List<String> repositories) {
+        this.url = url;
+        this.repositories = List.copyOf(repositories);
+    }
+
+    /**
+     * Returns the URL of the update site.
+     *
+     * @return     The update site URL.
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Returns the simple p2 repositories of this update site. For a simple update site this is the
+     * update site itself, for a composite update site these are all (transitive) children.
+     *
+     * @return     The URLs of the simple p2 repositories.
+     */
+    public List<String> getRepositories() {
+        return repositories;
+    }
+
+    @Override
+    public String toString() {
+        return url;
+    }
+}
@@ -0,0 +1,141 @@
+package org.palladiosimulator.dependencytool.dependencies;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import org.palladiosimulator.dependencytool.metrics.Metrics;
+import org.palladiosimulator.dependencytool.util.SingleFlight;
+
+/**
+ * Lightweight asynchronous HTTP access to update sites.
+ *
+ * Used to probe update sites with small requests before any full p2 repository is loaded. Identical HEAD and GET
+ * requests that are in flight at the same time are sent once and share the response, e.g. when several repositories
+ * probe the same composite child.
+ */
+public class UpdateSiteClient {
+
+    /** The counter of update site requests. */
+    public static final String REQUESTS = "p2.requests";
+
+    /** The counter of bytes received from update sites. */
+    public static final String BYTES = "p2.bytes";
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(20);
+
+    private final SingleFlight<URI, HttpResponse<Void>> heads = new SingleFlight<>("updatesite");
+    private final SingleFlight<URI, HttpResponse<byte[]>> gets = new SingleFlight<>("updatesite");
+
+    // created on the first request, setting up TLS is a noticeable part of the startup of runs that never need it
+    private volatile HttpClient client;
+
+    /**
+     * Constructs a new instance.
+     */
+    public UpdateSiteClient() {
+    }
+
+    /**
+     * Checks whether a resource exists by issuing a HEAD request.
+     *
+     * @param      uri   The resource to check
+     * @return     A future completing with true if the server answered with a 2xx status code.
+     *             Connection errors complete the future with false.
+     */
+    public CompletableFuture<Boolean> exists(URI uri) {
+        return head(uri)
+            .thenApply(response -> isSuccess(response.statusCode()))
+            .exceptionally(e -> false);
+    }
+
+    /**
+     * Issues a HEAD request, e.g. to read the validators (ETag, Last-Modified) of a resource.
+     *
+     * @param      uri   The resource to request
+     * @return     A future completing with the response. Connection errors fail the future.
+     */
+    public CompletableFuture<HttpResponse<Void>> head(URI uri) {
+        return heads.getAsync(uri, () -> sendHead(uri));
+    }
+
+    private CompletableFuture<HttpResponse<Void>> sendHead(URI uri) {
+        final HttpRequest request = HttpRequest.newBuilder(uri)
+            .method("HEAD", HttpRequest.BodyPublishers.noBody())
+            .timeout(TIMEOUT)
+            .build();
+        Metrics.get().count(REQUESTS);
+        return client().sendAsync(request, BodyHandlers.discarding());
+    }
+
+    /**
+     * Downloads a resource into memory. Only meant for small files like p2.index or compositeContent.
+     *
+     * @param      uri   The resource to download
+     * @return     A future completing with the response. Connection errors fail the future.
+     */
+    public CompletableFuture<HttpResponse<byte[]>> get(URI uri) {
+        return gets.getAsync(uri, () -> sendGet(uri));
+    }
+
+    private CompletableFuture<HttpResponse<byte[]>> sendGet(URI uri) {
+        final HttpRequest request = HttpRequest.newBuilder(uri)
+            .GET()
+            .timeout(TIMEOUT)
+            .build();
+        Metrics.get().count(REQUESTS);
+        return client().sendAsync(request, BodyHandlers.ofByteArray())
+            .whenComplete((response, e) -> {
+                if (response != null) {
+                    Metrics.get().count(BYTES, response.body().length);
+                }
+            });
+    }
+
+    /**
+     * Opens a resource as a stream, e.g. to read large metadata files without holding them in memory.
+     *
+     * @param      uri   The resource to download
+     * @return     A future completing with the response. Connection errors fail the future.
+     */
+    public CompletableFuture<HttpResponse<InputStream>> getStream(URI uri) {
+        final HttpRequest request = HttpRequest.newBuilder(uri)
+            .GET()
+            .timeout(TIMEOUT)
+            .build();
+        Metrics.get().count(REQUESTS);
+        return client().sendAsync(request, BodyHandlers.ofInputStream());
+    }
+
+    private HttpClient client() {
+        HttpClient result = client;
+        if (result == null) {
+            synchronized (this) {
+                result = client;
+                if (result == null) {
+                    result = HttpClient.newBuilder()
+                        .followRedirects(HttpClient.Redirect.NORMAL)
+                        .connectTimeout(TIMEOUT)
+                        .build();
+                    client = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks if a status code indicates success.
+     *
+     * @param      statusCode  The HTTP status code
+     * @return     true if the status code is in the 2xx range.
+     */
+    public static boolean isSuccess(int statusCode) {
+        return statusCode >= 200 && statusCode < 300;
+    }
+}
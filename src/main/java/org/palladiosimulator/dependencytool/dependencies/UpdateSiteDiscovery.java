@@ -0,0 +1,392 @@
+package org.palladiosimulator.dependencytool.dependencies;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.palladiosimulator.dependencytool.metrics.Metrics;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * Finds the update site of a repository by probing a list of candidate URL patterns.
+ *
+ * Candidates are probed concurrently with small requests (p2.index, compositeContent.*, content.*) instead of
+ * loading a full p2 repository. Composite update sites are followed down to their simple child repositories.
+ * Positive and negative probing results are cached for a configurable time to live, so shared or missing update
+ * sites are only probed once.
+ */
+public class UpdateSiteDiscovery {
+
+    /**
+     * The default candidate patterns. Supported placeholders are {@code {site}} for the update site URL,
+     * {@code {name}} for the lower case repository name, {@code {Name}} for the repository name as is
+     * and {@code {type}} for the update site type.
+     */
+    public static final List<String> DEFAULT_PATTERNS = List.of("{site}{name}/{type}/", "{site}{Name}/{type}/");
+
+    /** The default time to live of cached update sites. */
+    public static final Duration DEFAULT_POSITIVE_TTL = Duration.ofHours(1);
+
+    /** The default time to live of cached misses. */
+    public static final Duration DEFAULT_NEGATIVE_TTL = Duration.ofMinutes(10);
+
+    private static final Logger LOGGER = Logger.getLogger(UpdateSiteDiscovery.class.getName());
+
+    private static final String P2_INDEX = "p2.index";
+    private static final String METADATA_ORDER = "metadata.repository.factory.order";
+    private static final String COMPOSITE_CONTENT = "compositeContent";
+    private static final int MAX_COMPOSITE_DEPTH = 8;
+    private static final String CACHE_NAME = "discovery";
+
+    private final String updateSiteUrl;
+    private final UpdateSiteTypes updateSiteType;
+    private final List<String> patterns;
+    private final Duration positiveTtl;
+    private final Duration negativeTtl;
+    private final UpdateSiteClient client;
+
+    private final Map<String, CacheEntry> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new instance using the default patterns and time to live values.
+     *
+     * @param      updateSiteUrl   The update site url that is used as base for all candidates
+     * @param      updateSiteType  The type of update site to use (release or nightly)
+     */
+    public UpdateSiteDiscovery(String updateSiteUrl, UpdateSiteTypes updateSiteType) {
+        this(updateSiteUrl, updateSiteType, DEFAULT_PATTERNS, DEFAULT_POSITIVE_TTL, DEFAULT_NEGATIVE_TTL);
+    }
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param      updateSiteUrl   The update site url that is used as base for all candidates
+     * @param      updateSiteType  The type of update site to use (release or nightly)
+     * @param      patterns        The candidate patterns in order of preference, see {@link #DEFAULT_PATTERNS}
+     * @param      positiveTtl     How long a found update site is cached
+     * @param      negativeTtl     How long a missing update site is cached
+     */
+    public UpdateSiteDiscovery(String updateSiteUrl,
+                               UpdateSiteTypes updateSiteType,
+                               List<String> patterns,
+                               Duration positiveTtl,
+                               Duration negativeTtl) {
+        this(updateSiteUrl, updateSiteType, patterns, positiveTtl, negativeTtl, new UpdateSiteClient());
+    }
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param      updateSiteUrl   The update site url that is used as base for all candidates
+     * @param      updateSiteType  The type of update site to use (release or nightly)
+     * @param      patterns        The candidate patterns in order of preference, see {@link #DEFAULT_PATTERNS}
+     * @param      positiveTtl     How long a found update site is cached
+     * @param      negativeTtl     How long a missing update site is cached
+     * @param      client          The client all requests to update sites of this run are sent with
+     */
+    public UpdateSiteDiscovery(String updateSiteUrl,
+                               UpdateSiteTypes updateSiteType,
+                               List<String> patterns,
+                               Duration positiveTtl,
+                               Duration negativeTtl,
+                               UpdateSiteClient client) {
+        this.updateSiteUrl = updateSiteUrl;
+        this.updateSiteType = updateSiteType;
+        this.patterns = List.copyOf(patterns);
+        this.positiveTtl = positiveTtl;
+        this.negativeTtl = negativeTtl;
+        this.client = client;
+    }
+
+    /**
+     * Returns the type of update sites this instance searches for.
+     *
+     * @return     The update site type.
+     */
+    public UpdateSiteTypes getUpdateSiteType() {
+        return updateSiteType;
+    }
+
+    /**
+     * Returns the client the update sites are probed with, so the p2 repositories are read with it as well.
+     *
+     * @return     The update site client.
+     */
+    public UpdateSiteClient getClient() {
+        return client;
+    }
+
+    /**
+     * Searches the update site of a repository.
+     *
+     * @param      repositoryName  The name of the repository without the organization
+     * @return     The first candidate in pattern order that is a p2 repository, or an empty optional if there is none.
+     */
+    public Optional<UpdateSite> discover(String repositoryName) {
+        try (Metrics.Timing timing = Metrics.get().time("discovery")) {
+            return discoverCandidates(candidates(repositoryName));
+        }
+    }
+
+    private Optional<UpdateSite> discoverCandidates(List<String> candidates) {
+        final List<CompletableFuture<List<String>>> probes = candidates.stream()
+            .map(candidate -> probe(candidate, Set.of()))
+            .collect(Collectors.toList());
+
+        for (int i = 0; i < candidates.size(); i++) {
+            final List<String> repositories = probes.get(i).join();
+            if (!repositories.isEmpty()) {
+                return Optional.of(new UpdateSite(candidates.get(i), repositories));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Resolves a given p2 repository, e.g. a third-party update site, to the simple repositories it consists of.
+     *
+     * @param      location  The URL of a simple or composite p2 repository
+     * @return     The update site or an empty optional if there is no p2 repository at the location.
+     */
+    public Optional<UpdateSite> resolve(String location) {
+        try (Metrics.Timing timing = Metrics.get().time("discovery")) {
+            return discoverCandidates(List.of(normalize(location)));
+        }
+    }
+
+    /**
+     * Returns the candidate URLs for a repository in order of preference.
+     *
+     * @param      repositoryName  The name of the repository without the organization
+     * @return     The distinct candidate URLs.
+     */
+    public List<String> candidates(String repositoryName) {
+        final Set<String> candidates = new LinkedHashSet<>();
+        for (String pattern : patterns) {
+            candidates.add(normalize(pattern.replace("{site}", updateSiteUrl)
+                .replace("{name}", repositoryName.toLowerCase(Locale.ROOT))
+                .replace("{Name}", repositoryName)
+                .replace("{type}", updateSiteType.toString())));
+        }
+        return new ArrayList<>(candidates);
+    }
+
+    /**
+     * Removes all cached probing results.
+     */
+    public void invalidate() {
+        cache.clear();
+    }
+
+    /**
+     * Removes the cached probing result of a location and of the simple repositories it was resolved to.
+     *
+     * @param      location  The URL of a candidate or p2 repository
+     */
+    public void invalidate(String location) {
+        final CacheEntry removed = cache.remove(normalize(location));
+        if (removed != null) {
+            removed.repositories.forEach(cache::remove);
+        }
+    }
+
+    // Resolves a location to the simple repositories it consists of. An empty list means there is no repository.
+    private CompletableFuture<List<String>> probe(String location, Set<String> ancestors) {
+        final CacheEntry cached = cache.get(location);
+        if (cached != null && !cached.isExpired()) {
+            Metrics.get().hit(CACHE_NAME);
+            return CompletableFuture.completedFuture(cached.repositories);
+        }
+        Metrics.get().miss(CACHE_NAME);
+        if (ancestors.size() > MAX_COMPOSITE_DEPTH || ancestors.contains(location)) {
+            LOGGER.warning("Skipping " + location + " because of a composite cycle or too deep nesting.");
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        final Set<String> path = new HashSet<>(ancestors);
+        path.add(location);
+
+        return layoutOf(location)
+            .thenCompose(layout -> {
+                switch (layout) {
+                    case COMPOSITE:
+                        return children(location).thenCompose(children -> probeAll(children, path));
+                    case SIMPLE:
+                        return CompletableFuture.completedFuture(List.of(location));
+                    default:
+                        return CompletableFuture.completedFuture(Collections.<String>emptyList());
+                }
+            })
+            .exceptionally(e -> {
+                LOGGER.warning("Probing " + location + " failed: " + e.getMessage());
+                return Collections.emptyList();
+            })
+            .thenApply(repositories -> {
+                cache.put(location, new CacheEntry(repositories, repositories.isEmpty() ? negativeTtl : positiveTtl));
+                return repositories;
+            });
+    }
+
+    private CompletableFuture<List<String>> probeAll(List<String> locations, Set<String> ancestors) {
+        final List<CompletableFuture<List<String>>> probes = locations.stream()
+            .map(location -> probe(location, ancestors))
+            .collect(Collectors.toList());
+        return CompletableFuture.allOf(probes.toArray(new CompletableFuture<?>[0]))
+            .thenApply(ignored -> probes.stream()
+                .flatMap(probe -> probe.join().stream())
+                .distinct()
+                .collect(Collectors.toList()));
+    }
+
+    // Uses the p2.index if there is one, otherwise looks for the well known metadata files.
+    private CompletableFuture<Layout> layoutOf(String location) {
+        return client.get(URI.create(location + P2_INDEX))
+            .handle((response, e) -> e == null && UpdateSiteClient.isSuccess(response.statusCode())
+                    ? layoutFromIndex(response.body())
+                    : Optional.<Layout>empty())
+            .thenCompose(layout -> layout.isPresent()
+                    ? CompletableFuture.completedFuture(layout.get())
+                    : layoutFromFiles(location));
+    }
+
+    private Optional<Layout> layoutFromIndex(byte[] index) {
+        final Properties properties = new Properties();
+        try {
+            properties.load(new ByteArrayInputStream(index));
+        } catch (IOException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        final String order = properties.getProperty(METADATA_ORDER);
+        if (order == null) {
+            return Optional.empty();
+        }
+        for (String file : order.split(",")) {
+            final String trimmed = file.trim();
+            if (trimmed.equals("!")) {
+                break;
+            }
+            return Optional.of(trimmed.startsWith(COMPOSITE_CONTENT) ? Layout.COMPOSITE : Layout.SIMPLE);
+        }
+        return Optional.empty();
+    }
+
+    private CompletableFuture<Layout> layoutFromFiles(String location) {
+        final CompletableFuture<Boolean> composite = anyExists(location,
+                List.of(COMPOSITE_CONTENT + ".jar", COMPOSITE_CONTENT + ".xml"));
+        final CompletableFuture<Boolean> simple = anyExists(location, P2RepositoryReader.CONTENT_FILES);
+        return composite.thenCombine(simple, (isComposite, isSimple) -> {
+            if (isComposite) {
+                return Layout.COMPOSITE;
+            }
+            return isSimple ? Layout.SIMPLE : Layout.NONE;
+        });
+    }
+
+    private CompletableFuture<Boolean> anyExists(String location, List<String> files) {
+        final List<CompletableFuture<Boolean>> checks = files.stream()
+            .map(file -> client.exists(URI.create(location + file)))
+            .collect(Collectors.toList());
+        return CompletableFuture.allOf(checks.toArray(new CompletableFuture<?>[0]))
+            .thenApply(ignored -> checks.stream().anyMatch(CompletableFuture::join));
+    }
+
+    // Reads the child locations of a composite repository, preferring the compressed jar.
+    private CompletableFuture<List<String>> children(String location) {
+        return client.get(URI.create(location + COMPOSITE_CONTENT + ".jar"))
+            .thenCompose(jar -> {
+                if (UpdateSiteClient.isSuccess(jar.statusCode())) {
+                    return CompletableFuture.completedFuture(unzip(jar.body(), COMPOSITE_CONTENT + ".xml"));
+                }
+                return client.get(URI.create(location + COMPOSITE_CONTENT + ".xml"))
+                    .thenApply(xml -> UpdateSiteClient.isSuccess(xml.statusCode()) ? xml.body() : null);
+            })
+            .thenApply(content -> content == null ? Collections.<String>emptyList() : parseChildren(location, content));
+    }
+
+    private static List<String> parseChildren(String location, byte[] content) {
+        final List<String> children = new ArrayList<>();
+        try {
+            // the composite content is downloaded, so neither DTDs nor external entities are resolved
+            final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+            factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+            factory.setXIncludeAware(false);
+            factory.setExpandEntityReferences(false);
+            final Document document = factory.newDocumentBuilder().parse(new ByteArrayInputStream(content));
+            final NodeList childNodes = document.getElementsByTagName("child");
+            final URI base = URI.create(location);
+            for (int i = 0; i < childNodes.getLength(); i++) {
+                final String childLocation = ((Element) childNodes.item(i)).getAttribute("location");
+                if (!childLocation.isEmpty()) {
+                    children.add(normalize(base.resolve(childLocation).toString()));
+                }
+            }
+        } catch (IOException | ParserConfigurationException | SAXException e) {
+            LOGGER.warning("Could not parse composite content of " + location + ": " + e.getMessage());
+        }
+        return children;
+    }
+
+    private static byte[] unzip(byte[] jar, String entryName) {
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(jar))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (entry.getName().equals(entryName)) {
+                    return zip.readAllBytes();
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warning("Could not unpack " + entryName + ": " + e.getMessage());
+        }
+        return null;
+    }
+
+    private static String normalize(String location) {
+        return location.endsWith("/") ? location : location + "/";
+    }
+
+    private enum Layout {
+        COMPOSITE, SIMPLE, NONE
+    }
+
+    private static final class CacheEntry {
+        private final List<String> repositories;
+        private final long expiresAt;
+
+        CacheEntry(List<String> repositories, Duration ttl) {
+            this.repositories = List.copyOf(repositories);
+            this.expiresAt = System.nanoTime() + ttl.toNanos();
+        }
+
+        boolean isExpired() {
+            return System.nanoTime() - expiresAt > 0;
+        }
+    }
+}
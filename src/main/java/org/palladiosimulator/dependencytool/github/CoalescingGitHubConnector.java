@@ -0,0 +1,79 @@
+package org.palladiosimulator.dependencytool.github;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.kohsuke.github.connector.GitHubConnector;
+import org.kohsuke.github.connector.GitHubConnectorRequest;
+import org.kohsuke.github.connector.GitHubConnectorResponse;
+import org.palladiosimulator.dependencytool.util.SingleFlight;
+
+/**
+ * GitHub connector that sends identical GET requests only once while they are in flight.
+ *
+ * Repositories are analysed concurrently and several parts of an analysis may list the same directory or read the
+ * same file at the same time. The response of the request that is actually sent is buffered and every waiting
+ * request gets its own copy. Requests with a body are always sent.
+ */
+public class CoalescingGitHubConnector implements GitHubConnector {
+
+    private final GitHubConnector delegate;
+    private final SingleFlight<String, BufferedResponse> inFlight = new SingleFlight<>("github");
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param      delegate  The connector that actually sends the requests
+     */
+    public CoalescingGitHubConnector(GitHubConnector delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public GitHubConnectorResponse send(GitHubConnectorRequest request) throws IOException {
+        if (!"GET".equals(request.method()) || request.hasBody()) {
+            return delegate.send(request);
+        }
+        // the headers are part of the key, so requests with different tokens or validators are not shared
+        final String key = request.url() + " " + new TreeMap<>(request.allHeaders());
+        return inFlight.get(key, () -> BufferedResponse.of(delegate.send(request))).toResponse(request);
+    }
+
+    private static final class BufferedResponse {
+        private final int statusCode;
+        private final Map<String, List<String>> headers;
+        private final byte[] body;
+
+        private BufferedResponse(int statusCode, Map<String, List<String>> headers, byte[] body) {
+            this.statusCode = statusCode;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        private static BufferedResponse of(GitHubConnectorResponse response) throws IOException {
+            try (response) {
+                final InputStream bodyStream = response.bodyStream();
+                final byte[] body = bodyStream == null ? null : bodyStream.readAllBytes();
+                return new BufferedResponse(response.statusCode(), response.allHeaders(), body);
+            }
+        }
+
+        private GitHubConnectorResponse toResponse(GitHubConnectorRequest request) {
+            return new GitHubConnectorResponse(request, statusCode, headers) {
+                @Override
+                public InputStream bodyStream() {
+                    return body == null ? null : new ByteArrayInputStream(body);
+                }
+
+                @Override
+                public void close() {
+                    // nothing to release, the body is held in memory
+                }
+            };
+        }
+    }
+}
@@ -1,38 +1,59 @@
 package org.palladiosimulator.dependencytool.github;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.logging.Logger;
 
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.kohsuke.github.GHRepository;
+import org.palladiosimulator.dependencytool.dependencies.ArtifactRequirements;
 import org.palladiosimulator.dependencytool.dependencies.FeatureXMLHandler;
 import org.palladiosimulator.dependencytool.dependencies.ManifestMFDependencyHandler;
+import org.palladiosimulator.dependencytool.dependencies.P2Metadata;
+import org.palladiosimulator.dependencytool.dependencies.P2MetadataCache;
 import org.palladiosimulator.dependencytool.dependencies.P2RepositoryReader;
+import org.palladiosimulator.dependencytool.dependencies.UpdateSite;
+import org.palladiosimulator.dependencytool.dependencies.UpdateSiteDiscovery;
 import org.palladiosimulator.dependencytool.dependencies.UpdateSiteTypes;
+import org.palladiosimulator.dependencytool.metrics.Metrics;
+import org.palladiosimulator.dependencytool.metrics.RepositoryAnalysisEvent;
+import org.palladiosimulator.dependencytool.util.SortedStringSet;
 import org.xml.sax.SAXException;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonGetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
 /**
  * Represents a GitHub repository with it's provided and required bundles and features.
+ *
+ * An instance is the immutable result of analysing a repository. It keeps no reference to the GitHub API, only the
+ * names, URLs and frozen sets of ids, so it is small, can be shared between threads without synchronization and can
+ * be written to and restored from json or a snapshot.
  */
 @JsonPropertyOrder({"name", "githubUrl", "updatesiteUrl"})
 public class RepositoryObject implements Comparable<RepositoryObject> {
 
     private static final Logger LOGGER = Logger.getLogger(RepositoryObject.class.getName());
 
-    private final GHRepository repository;
+    private final String name;
+    private final String githubUrl;
+    private final String updateSite;
 
     private final Set<String> requiredBundles;
     private final Set<String> requiredFeatures;
     private final Set<String> providedBundles;
     private final Set<String> providedFeatures;
-
-    private String updateSite;
+    private final Map<String, ArtifactRequirements> bundleRequirements;
+    private final Map<String, ArtifactRequirements> featureRequirements;
 
     /**
      * Constructs a new instance.
@@ -51,17 +72,148 @@ public class RepositoryObject implements Comparable<RepositoryObject> {
                             String updateSite,
                             UpdateSiteTypes updateSiteType,
                             boolean includeImports) throws IOException, ParserConfigurationException, SAXException {
-        this.repository = repository;
+        this(repository, new UpdateSiteDiscovery(updateSite, updateSiteType), P2MetadataCache.disabled(), includeImports);
+    }
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param      repository           The repository to be analyzed
+     * @param      updateSiteDiscovery  The discovery that is used to find the corresponding update site for a repo.
+     *                                  Provided bundles and features can only be computed for repositories with update sites
+     * @param      p2MetadataCache      The cache for the metadata of the p2 repositories of update sites
+     * @param      includeImports       Set to true to consider feature.xml includes while calculating dependencies
+     * 
+     * @throws IOException if a repository or file of a repository could not be read.
+     * @throws ParserConfigurationException indicates an issue with parsing of feature.xml files.
+     * @throws SAXException indicates an issue with parsing of feature.xml files.
+     */
+    public RepositoryObject(GHRepository repository,
+                            UpdateSiteDiscovery updateSiteDiscovery,
+                            P2MetadataCache p2MetadataCache,
+                            boolean includeImports) throws IOException, ParserConfigurationException, SAXException {
+        this.name = repository.getFullName();
+        this.githubUrl = repository.getHtmlUrl().toString();
 
-        this.requiredBundles = new TreeSet<>();
-        this.requiredFeatures = new TreeSet<>();
-        this.providedBundles = new TreeSet<>();
-        this.providedFeatures = new TreeSet<>();
+        final RepositoryAnalysisEvent event = new RepositoryAnalysisEvent();
+        event.begin();
+        final Required required;
+        final Provided provided;
+        try {
+            try (Metrics.Timing timing = Metrics.get().time("analysis.required")) {
+                required = new Required(repository, includeImports);
+            }
+            try (Metrics.Timing timing = Metrics.get().time("analysis.provided")) {
+                provided = new Provided(name, updateSiteDiscovery, p2MetadataCache);
+            }
+        } finally {
+            event.end();
+        }
+        this.requiredBundles = required.bundles;
+        this.requiredFeatures = required.features;
+        this.bundleRequirements = required.bundleRequirements;
+        this.featureRequirements = required.featureRequirements;
+        this.providedBundles = provided.bundles;
+        this.providedFeatures = provided.features;
+        this.updateSite = provided.updateSite;
 
-        calculateRequired(includeImports);
-        calculateProvided(updateSite, updateSiteType);
+        if (event.shouldCommit()) {
+            event.repository = name;
+            event.updateSite = updateSite;
+            event.requiredBundles = requiredBundles.size();
+            event.providedBundles = providedBundles.size();
+            event.commit();
+        }
     }
     
+    /**
+     * Constructs a new instance for another update site of an already analysed repository. The required bundles and
+     * features are taken from the analysed repository, only the provided ones are read from the update site.
+     *
+     * @param      analysed             The repository analysed for another update site
+     * @param      updateSiteDiscovery  The discovery that is used to find the corresponding update site for a repo.
+     * @param      p2MetadataCache      The cache for the metadata of the p2 repositories of update sites
+     *
+     * @throws IOException if an update site could not be read.
+     */
+    public RepositoryObject(RepositoryObject analysed,
+                            UpdateSiteDiscovery updateSiteDiscovery,
+                            P2MetadataCache p2MetadataCache) throws IOException {
+        this.name = analysed.name;
+        this.githubUrl = analysed.githubUrl;
+
+        // the required side does not depend on the update site and is immutable
+        this.requiredBundles = analysed.requiredBundles;
+        this.requiredFeatures = analysed.requiredFeatures;
+        this.bundleRequirements = analysed.bundleRequirements;
+        this.featureRequirements = analysed.featureRequirements;
+
+        final Provided provided;
+        try (Metrics.Timing timing = Metrics.get().time("analysis.provided")) {
+            provided = new Provided(name, updateSiteDiscovery, p2MetadataCache);
+        }
+        this.providedBundles = provided.bundles;
+        this.providedFeatures = provided.features;
+        this.updateSite = provided.updateSite;
+    }
+
+    /**
+     * Constructs a new instance from an earlier analysis result, e.g. read from json or a snapshot. The bundles and
+     * features of the repository are unknown, so their requirements are empty.
+     *
+     * @param      name              The full repository name
+     * @param      githubUrl         The GitHub repository URL
+     * @param      updateSite        The update site URL or null if none was found
+     * @param      requiredBundles   The required bundle ids
+     * @param      requiredFeatures  The required feature ids
+     * @param      providedBundles   The provided bundle ids
+     * @param      providedFeatures  The provided feature ids
+     */
+    @JsonCreator
+    public RepositoryObject(@JsonProperty("name") String name,
+                            @JsonProperty("githubUrl") String githubUrl,
+                            @JsonProperty("updatesiteUrl") String updateSite,
+                            @JsonProperty("requiredBundles") Set<String> requiredBundles,
+                            @JsonProperty("requiredFeatures") Set<String> requiredFeatures,
+                            @JsonProperty("providedBundles") Set<String> providedBundles,
+                            @JsonProperty("providedFeatures") Set<String> providedFeatures) {
+        this(name, githubUrl, updateSite, requiredBundles, requiredFeatures, providedBundles, providedFeatures,
+                Map.of(), Map.of());
+    }
+
+    /**
+     * Constructs a new instance from an earlier analysis result.
+     *
+     * @param      name                 The full repository name
+     * @param      githubUrl            The GitHub repository URL
+     * @param      updateSite           The update site URL or null if none was found
+     * @param      requiredBundles      The required bundle ids
+     * @param      requiredFeatures     The required feature ids
+     * @param      providedBundles      The provided bundle ids
+     * @param      providedFeatures     The provided feature ids
+     * @param      bundleRequirements   The requirements per bundle whose sources are part of the repository
+     * @param      featureRequirements  The requirements per feature whose sources are part of the repository
+     */
+    public RepositoryObject(String name,
+                            String githubUrl,
+                            String updateSite,
+                            Set<String> requiredBundles,
+                            Set<String> requiredFeatures,
+                            Set<String> providedBundles,
+                            Set<String> providedFeatures,
+                            Map<String, ArtifactRequirements> bundleRequirements,
+                            Map<String, ArtifactRequirements> featureRequirements) {
+        this.name = name;
+        this.githubUrl = githubUrl;
+        this.updateSite = updateSite;
+        this.requiredBundles = frozen(requiredBundles);
+        this.requiredFeatures = frozen(requiredFeatures);
+        this.providedBundles = frozen(providedBundles);
+        this.providedFeatures = frozen(providedFeatures);
+        this.bundleRequirements = frozen(bundleRequirements);
+        this.featureRequirements = frozen(featureRequirements);
+    }
+
     /**
      * The full GitHub repository name (including user or organization).
      *
@@ -69,7 +221,7 @@ public class RepositoryObject implements Comparable<RepositoryObject> {
      */
     @JsonGetter("name")
     public String getName() {
-        return repository.getFullName();
+        return name;
     }
 
     /**
@@ -79,7 +231,7 @@ public class RepositoryObject implements Comparable<RepositoryObject> {
      */
     @JsonGetter("githubUrl")
     public String getGithubURL() {
-        return repository.getHtmlUrl().toString();
+        return githubUrl;
     }
 
     /**
@@ -112,39 +264,116 @@ public class RepositoryObject implements Comparable<RepositoryObject> {
         return providedFeatures;
     }
     
+    /**
+     * Returns the requirements of every bundle whose sources are part of the repository.
+     *
+     * @return     The requirements per bundle id.
+     */
+    @JsonIgnore
+    public Map<String, ArtifactRequirements> getBundleRequirements() {
+        return bundleRequirements;
+    }
+
+    /**
+     * Returns the requirements of every feature whose sources are part of the repository.
+     *
+     * @return     The requirements per feature id.
+     */
+    @JsonIgnore
+    public Map<String, ArtifactRequirements> getFeatureRequirements() {
+        return featureRequirements;
+    }
+
     @Override 
     public String toString() {
         return getName();
     }
 
-    private void calculateRequired(boolean includeImports) throws IOException, ParserConfigurationException, SAXException {
-        // get required bundles from all bundle Manifest.MF
-        ManifestMFDependencyHandler manifestMfHandler = new ManifestMFDependencyHandler(repository);
-        requiredBundles.addAll(manifestMfHandler.getRequiredBundles());
+    @Override
+    public int compareTo(RepositoryObject o) {
+        return getName().compareTo(o.getName());
+    }
 
-        FeatureXMLHandler featureXMLHandler = new FeatureXMLHandler(repository, includeImports);
-        requiredBundles.addAll(featureXMLHandler.getRequiredBundles());
-        requiredFeatures.addAll(featureXMLHandler.getRequiredFeatures());
+    private static Set<String> frozen(Set<String> ids) {
+        return ids == null ? SortedStringSet.of(Set.of()) : SortedStringSet.of(ids);
     }
 
-    private void calculateProvided(String updateSite, UpdateSiteTypes updateSiteType) throws IOException {
-        try (P2RepositoryReader repoReader = new P2RepositoryReader()) {
-            String maybeUpdateSiteUrl = updateSite + repository.getName().toLowerCase() + "/" + updateSiteType.toString() + "/";
-            providedBundles.addAll(repoReader.readProvidedBundles(maybeUpdateSiteUrl));
-            providedFeatures.addAll(repoReader.readProvidedFeatures(maybeUpdateSiteUrl));
-            
-            if (providedBundles.isEmpty() && providedFeatures.isEmpty()) {
-                LOGGER.warning("No update site or provided bundles and features found for "
-                               + getName()
-                               + " provided bundles and features cannot be determined");
-            } else {
-                this.updateSite = maybeUpdateSiteUrl;
-            }
+    private static Map<String, ArtifactRequirements> frozen(Map<String, ArtifactRequirements> requirements) {
+        return requirements == null || requirements.isEmpty() ? Map.of()
+                : Collections.unmodifiableMap(new TreeMap<>(requirements));
+    }
+
+    /**
+     * The required bundles and features read from the manifest.mf and feature.xml files of a repository.
+     */
+    private static final class Required {
+        private final Set<String> bundles;
+        private final Set<String> features;
+        private final Map<String, ArtifactRequirements> bundleRequirements;
+        private final Map<String, ArtifactRequirements> featureRequirements;
+
+        private Required(GHRepository repository, boolean includeImports)
+                throws IOException, ParserConfigurationException, SAXException {
+            final Set<String> requiredBundles = new TreeSet<>();
+            // get required bundles from all bundle Manifest.MF
+            ManifestMFDependencyHandler manifestMfHandler = new ManifestMFDependencyHandler(repository);
+            final Map<String, ArtifactRequirements> bundles = manifestMfHandler.getBundleRequirements();
+            bundles.values().forEach(requirements -> requiredBundles.addAll(requirements.getBundles()));
+
+            FeatureXMLHandler featureXMLHandler = new FeatureXMLHandler(repository, includeImports);
+            requiredBundles.addAll(featureXMLHandler.getRequiredBundles());
+
+            this.bundles = SortedStringSet.of(requiredBundles);
+            this.features = SortedStringSet.of(featureXMLHandler.getRequiredFeatures());
+            this.bundleRequirements = frozen(bundles);
+            this.featureRequirements = frozen(featureXMLHandler.getFeatureRequirements());
         }
     }
 
-    @Override
-    public int compareTo(RepositoryObject o) {
-        return getName().compareTo(o.getName());
+    /**
+     * The provided bundles and features read from the update site of a repository.
+     */
+    private static final class Provided {
+        private final Set<String> bundles;
+        private final Set<String> features;
+        private final String updateSite;
+
+        private Provided(String name, UpdateSiteDiscovery updateSiteDiscovery, P2MetadataCache p2MetadataCache)
+                throws IOException {
+            final Set<String> providedBundles = new TreeSet<>();
+            final Set<String> providedFeatures = new TreeSet<>();
+            String foundUpdateSite = null;
+            // update sites are named after the repository without its organization
+            final Optional<UpdateSite> site = updateSiteDiscovery.discover(name.substring(name.indexOf('/') + 1));
+            if (site.isEmpty()) {
+                LOGGER.warning("No update site found for " + name + " provided bundles and features cannot be determined");
+            } else {
+                try (P2RepositoryReader repoReader = new P2RepositoryReader(updateSiteDiscovery.getClient(),
+                        p2MetadataCache)) {
+                    for (String p2Repository : site.get().getRepositories()) {
+                        try {
+                            final P2Metadata metadata = repoReader.readProvided(p2Repository);
+                            providedBundles.addAll(metadata.getBundles());
+                            providedFeatures.addAll(metadata.getFeatures());
+                        } catch (IOException e) {
+                            LOGGER.warning("Could not read p2 repository " + p2Repository + " of " + name + ": " + e.getMessage());
+                        }
+                    }
+                }
+
+                if (providedBundles.isEmpty() && providedFeatures.isEmpty()) {
+                    LOGGER.warning("No provided bundles and features found for "
+                                   + name
+                                   + " at "
+                                   + site.get()
+                                   + " provided bundles and features cannot be determined");
+                } else {
+                    foundUpdateSite = site.get().getUrl();
+                }
+            }
+            this.bundles = SortedStringSet.of(providedBundles);
+            this.features = SortedStringSet.of(providedFeatures);
+            this.updateSite = foundUpdateSite;
+        }
     }
 }
@@ -0,0 +1,423 @@
+package org.palladiosimulator.dependencytool.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+
+import org.palladiosimulator.dependencytool.dependencies.ArtifactRequirements;
+import org.palladiosimulator.dependencytool.github.RepositoryObject;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Dependency graph between single bundles and features.
+ *
+ * Every bundle and feature is a node identified by a dense int id. A node is owned by the repository containing
+ * its sources, otherwise by its provider. The provider of a node is the first repository in alphabetical order that
+ * provides it on its update site, which is the repository the dependency calculator resolves a requirement to. Nodes
+ * that are neither part of nor provided by an analysed repository have no owner. The edges come from every
+ * manifest.mf and feature.xml file individually and are stored as sorted adjacency arrays in both directions.
+ *
+ * The repository graph is a projection of this graph: a repository depends on the providers of everything its
+ * bundles and features require, so it matches the graph of the dependency calculator.
+ */
+public final class BundleGraph {
+
+    private static final Logger LOGGER = Logger.getLogger(BundleGraph.class.getName());
+
+    /**
+     * The kind of a node.
+     */
+    public enum Kind {
+        /** A bundle, specified by a manifest.mf file. */
+        BUNDLE,
+        /** A feature, specified by a feature.xml file. */
+        FEATURE;
+
+        @JsonValue
+        @Override
+        public String toString() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final String[] repositories;
+    private final Kind[] kinds;
+    private final String[] names;
+    private final int[] owners;
+    private final int[] providers;
+    private final BitSet sources;
+    private final Map<String, Integer> bundleIds;
+    private final Map<String, Integer> featureIds;
+    // compressed sparse rows: the targets of node i are targets[offsets[i]] to targets[offsets[i + 1] - 1]
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] reverseOffsets;
+    private final int[] reverseTargets;
+
+    private BundleGraph(String[] repositories, List<Kind> kinds, List<String> names, int[] owners, int[] providers,
+            BitSet sources, Map<String, Integer> bundleIds, Map<String, Integer> featureIds, int[][] adjacency) {
+        this.repositories = repositories;
+        this.kinds = kinds.toArray(new Kind[0]);
+        this.names = names.toArray(new String[0]);
+        this.owners = owners;
+        this.providers = providers;
+        this.sources = sources;
+        this.bundleIds = bundleIds;
+        this.featureIds = featureIds;
+
+        final int nodeCount = adjacency.length;
+        this.offsets = new int[nodeCount + 1];
+        final int[] inDegrees = new int[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            offsets[node + 1] = offsets[node] + adjacency[node].length;
+            for (int target : adjacency[node]) {
+                inDegrees[target]++;
+            }
+        }
+        this.targets = new int[offsets[nodeCount]];
+        for (int node = 0; node < nodeCount; node++) {
+            System.arraycopy(adjacency[node], 0, targets, offsets[node], adjacency[node].length);
+        }
+
+        // sources are visited in ascending order, so every reverse row is sorted as well
+        this.reverseOffsets = new int[nodeCount + 1];
+        for (int node = 0; node < nodeCount; node++) {
+            reverseOffsets[node + 1] = reverseOffsets[node] + inDegrees[node];
+        }
+        this.reverseTargets = new int[targets.length];
+        final int[] fill = Arrays.copyOf(reverseOffsets, nodeCount);
+        for (int node = 0; node < nodeCount; node++) {
+            for (int target : adjacency[node]) {
+                reverseTargets[fill[target]++] = node;
+            }
+        }
+    }
+
+    /**
+     * Builds the graph of the bundles and features of analysed repositories.
+     *
+     * @param      repositories  The analysed repositories
+     * @return     The graph.
+     */
+    public static BundleGraph of(Collection<RepositoryObject> repositories) {
+        final List<RepositoryObject> sorted = new ArrayList<>(new TreeSet<>(repositories));
+        final String[] repositoryNames = sorted.stream().map(RepositoryObject::getName).toArray(String[]::new);
+
+        final List<Kind> kinds = new ArrayList<>();
+        final List<String> names = new ArrayList<>();
+        final Map<String, Integer> bundleIds = new HashMap<>();
+        final Map<String, Integer> featureIds = new HashMap<>();
+        final List<Integer> owners = new ArrayList<>();
+        final BitSet sources = new BitSet();
+        final Map<Integer, ArtifactRequirements> requirements = new HashMap<>();
+
+        // nodes with sources first, so their ids do not depend on the order they are required in
+        for (int repository = 0; repository < sorted.size(); repository++) {
+            final RepositoryObject repositoryObject = sorted.get(repository);
+            addSources(repositoryNames, repository, repositoryObject.getBundleRequirements(), Kind.BUNDLE, bundleIds,
+                    kinds, names, owners, sources, requirements);
+            addSources(repositoryNames, repository, repositoryObject.getFeatureRequirements(), Kind.FEATURE,
+                    featureIds, kinds, names, owners, sources, requirements);
+        }
+
+        final int sourceCount = names.size();
+        final List<int[]> adjacency = new ArrayList<>();
+        for (int node = 0; node < sourceCount; node++) {
+            final ArtifactRequirements required = requirements.get(node);
+            final int[] row = new int[required.getBundles().size() + required.getFeatures().size()];
+            int size = 0;
+            for (String bundle : required.getBundles()) {
+                row[size++] = intern(Kind.BUNDLE, bundle, bundleIds, kinds, names, owners);
+            }
+            for (String feature : required.getFeatures()) {
+                row[size++] = intern(Kind.FEATURE, feature, featureIds, kinds, names, owners);
+            }
+            adjacency.add(distinctWithout(row, node));
+        }
+        while (adjacency.size() < names.size()) {
+            adjacency.add(new int[0]);
+        }
+
+        // the first provider in alphabetical order wins, like the dependency calculator resolves requirements
+        final int[] providers = new int[names.size()];
+        Arrays.fill(providers, -1);
+        for (int repository = sorted.size() - 1; repository >= 0; repository--) {
+            assignProvider(sorted.get(repository).getProvidedBundles(), bundleIds, providers, repository);
+            assignProvider(sorted.get(repository).getProvidedFeatures(), featureIds, providers, repository);
+        }
+        // nodes without sources are owned by their provider
+        final int[] ownerIds = owners.stream().mapToInt(Integer::intValue).toArray();
+        for (int node = sources.nextClearBit(0); node < ownerIds.length; node = sources.nextClearBit(node + 1)) {
+            ownerIds[node] = providers[node];
+        }
+
+        return new BundleGraph(repositoryNames, kinds, names, ownerIds, providers, sources, bundleIds, featureIds,
+                adjacency.toArray(new int[0][]));
+    }
+
+    /**
+     * Returns the number of bundles and features.
+     *
+     * @return     The number of nodes. Node ids range from 0 to this number exclusive.
+     */
+    public int getNodeCount() {
+        return names.length;
+    }
+
+    /**
+     * Returns the number of requirements between bundles and features.
+     *
+     * @return     The number of edges.
+     */
+    public int getEdgeCount() {
+        return targets.length;
+    }
+
+    /**
+     * Finds the id of a bundle or feature.
+     *
+     * @param      kind  The kind of the node
+     * @param      name  The bundle or feature id
+     * @return     The node id or -1 if the bundle or feature is neither part of nor required by any repository.
+     */
+    public int indexOf(Kind kind, String name) {
+        return (kind == Kind.BUNDLE ? bundleIds : featureIds).getOrDefault(name, -1);
+    }
+
+    /**
+     * Returns the kind of a node.
+     *
+     * @param      node  The node id
+     * @return     The kind.
+     */
+    public Kind getKind(int node) {
+        return kinds[node];
+    }
+
+    /**
+     * Returns the bundle or feature id of a node.
+     *
+     * @param      node  The node id
+     * @return     The bundle or feature id.
+     */
+    public String getName(int node) {
+        return names[node];
+    }
+
+    /**
+     * Returns a name that is unique for bundles and features, since a bundle and a feature can share the same id.
+     *
+     * @param      node  The node id
+     * @return     The kind and the bundle or feature id, e.g. bundle:org.palladiosimulator.pcm.
+     */
+    public String getId(int node) {
+        return kinds[node] + ":" + names[node];
+    }
+
+    /**
+     * Returns the repository that owns a node.
+     *
+     * @param      node  The node id
+     * @return     The full repository name or null if no analysed repository contains or provides the node.
+     */
+    public String getOwner(int node) {
+        return owners[node] < 0 ? null : repositories[owners[node]];
+    }
+
+    /**
+     * Returns the repository that provides a node on its update site.
+     *
+     * @param      node  The node id
+     * @return     The full name of the first repository in alphabetical order that provides the node or null if no
+     *             analysed repository provides it.
+     */
+    public String getProvider(int node) {
+        return providers[node] < 0 ? null : repositories[providers[node]];
+    }
+
+    /**
+     * Checks whether the sources of a node are part of its owner.
+     *
+     * @param      node  The node id
+     * @return     true if its manifest.mf or feature.xml file was analysed.
+     */
+    public boolean hasSources(int node) {
+        return sources.get(node);
+    }
+
+    /**
+     * Returns the bundles and features a node directly requires.
+     *
+     * @param      node  The node id
+     * @return     The sorted node ids.
+     */
+    public int[] getRequirements(int node) {
+        return Arrays.copyOfRange(targets, offsets[node], offsets[node + 1]);
+    }
+
+    /**
+     * Returns the bundles and features that directly require a node.
+     *
+     * @param      node  The node id
+     * @return     The sorted node ids.
+     */
+    public int[] getRequiredBy(int node) {
+        return Arrays.copyOfRange(reverseTargets, reverseOffsets[node], reverseOffsets[node + 1]);
+    }
+
+    /**
+     * Returns all bundles and features that transitively require a node, i.e. everything that is affected by a
+     * change of the node.
+     *
+     * @param      node  The node id
+     * @return     The sorted node ids excluding the node itself.
+     */
+    public int[] getImpact(int node) {
+        final BitSet visited = new BitSet(names.length);
+        final int[] stack = new int[names.length];
+        int size = 0;
+        stack[size++] = node;
+        visited.set(node);
+        while (size > 0) {
+            final int next = stack[--size];
+            for (int i = reverseOffsets[next]; i < reverseOffsets[next + 1]; i++) {
+                if (!visited.get(reverseTargets[i])) {
+                    visited.set(reverseTargets[i]);
+                    stack[size++] = reverseTargets[i];
+                }
+            }
+        }
+        visited.clear(node);
+        return visited.stream().toArray();
+    }
+
+    /**
+     * Projects the graph onto the repositories: the repository containing the sources of a node depends on the
+     * providers of its requirements.
+     *
+     * @return     The sorted names of the repositories every repository depends on. Requirements within a
+     *             repository and of nodes without provider are omitted.
+     */
+    public Map<String, Set<String>> getRepositoryDependencies() {
+        final Map<String, Set<String>> dependencies = new TreeMap<>();
+        for (String repository : repositories) {
+            dependencies.put(repository, new TreeSet<>());
+        }
+        for (int node = sources.nextSetBit(0); node >= 0; node = sources.nextSetBit(node + 1)) {
+            for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                final int provider = providers[targets[i]];
+                if (provider >= 0 && provider != owners[node]) {
+                    dependencies.get(repositories[owners[node]]).add(repositories[provider]);
+                }
+            }
+        }
+        return dependencies;
+    }
+
+    /**
+     * Computes the build order of the bundles and features whose sources are part of the analysed repositories.
+     *
+     * Nodes without requirements on other such nodes are in layer 0, every other node is one layer above its highest
+     * requirement. All nodes of a layer can be built in parallel.
+     *
+     * @return     The node ids of every layer in ascending order.
+     * @throws IllegalArgumentException if the requirements are cyclic.
+     */
+    public List<int[]> getBuildLayers() {
+        // Kahn's algorithm restricted to nodes with sources
+        final int[] pending = new int[names.length];
+        int[] layer = new int[sources.cardinality()];
+        int layerSize = 0;
+        for (int node = sources.nextSetBit(0); node >= 0; node = sources.nextSetBit(node + 1)) {
+            for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                if (sources.get(targets[i])) {
+                    pending[node]++;
+                }
+            }
+            if (pending[node] == 0) {
+                layer[layerSize++] = node;
+            }
+        }
+
+        final List<int[]> layers = new ArrayList<>();
+        int built = 0;
+        while (layerSize > 0) {
+            final int[] current = Arrays.copyOf(layer, layerSize);
+            Arrays.sort(current);
+            layers.add(current);
+            built += current.length;
+            layerSize = 0;
+            for (int node : current) {
+                for (int i = reverseOffsets[node]; i < reverseOffsets[node + 1]; i++) {
+                    if (--pending[reverseTargets[i]] == 0) {
+                        layer[layerSize++] = reverseTargets[i];
+                    }
+                }
+            }
+        }
+        if (built < sources.cardinality()) {
+            throw new IllegalArgumentException("Cyclic requirements between " + (sources.cardinality() - built)
+                    + " bundles and features");
+        }
+        return layers;
+    }
+
+    private static void addSources(String[] repositories, int owner, Map<String, ArtifactRequirements> artifacts,
+            Kind kind, Map<String, Integer> ids, List<Kind> kinds, List<String> names, List<Integer> owners,
+            BitSet sources, Map<Integer, ArtifactRequirements> requirements) {
+        for (Map.Entry<String, ArtifactRequirements> artifact : artifacts.entrySet()) {
+            if (ids.containsKey(artifact.getKey())) {
+                LOGGER.warning("Sources of " + kind + " " + artifact.getKey() + " found in "
+                        + repositories[owners.get(ids.get(artifact.getKey()))] + " and " + repositories[owner]
+                        + ". Using the first one.");
+                continue;
+            }
+            final int node = intern(kind, artifact.getKey(), ids, kinds, names, owners);
+            owners.set(node, owner);
+            sources.set(node);
+            requirements.put(node, artifact.getValue());
+        }
+    }
+
+    private static int intern(Kind kind, String name, Map<String, Integer> ids, List<Kind> kinds, List<String> names,
+            List<Integer> owners) {
+        return ids.computeIfAbsent(name, key -> {
+            kinds.add(kind);
+            names.add(key);
+            owners.add(-1);
+            return names.size() - 1;
+        });
+    }
+
+    private static void assignProvider(Set<String> provided, Map<String, Integer> ids, int[] providers,
+            int repository) {
+        for (String name : provided) {
+            final Integer node = ids.get(name);
+            if (node != null) {
+                providers[node] = repository;
+            }
+        }
+    }
+
+    private static int[] distinctWithout(int[] row, int node) {
+        final int[] sorted = row.clone();
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (sorted[i] != node && (size == 0 || sorted[size - 1] != sorted[i])) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, size);
+    }
+}
@@ -0,0 +1,295 @@
+package org.palladiosimulator.dependencytool.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+import org.palladiosimulator.dependencytool.dependencies.ArtifactRequirements;
+import org.palladiosimulator.dependencytool.dependencies.FeatureExpansion;
+import org.palladiosimulator.dependencytool.github.RepositoryObject;
+import org.palladiosimulator.dependencytool.graph.BundleGraph.Kind;
+import org.palladiosimulator.dependencytool.metrics.Metrics;
+
+/**
+ * Explains why a repository depends on another one by the shortest chain of requirements between them.
+ *
+ * Every edge of the repository graph is annotated with the bundles and features whose provider it is, the same
+ * provider the dependency calculator chooses. With expanded features, everything a required feature transitively
+ * includes is required by the same bundles and features as the feature itself. The first query from a repository
+ * runs a breadth-first search from it and keeps its row of predecessors, so every further query from the same
+ * repository only follows predecessors from the target back to the source. Creating an instance is linear in the size
+ * of the graph, a row needs one int per repository and only rows of queried repositories are built.
+ */
+public final class DependencyExplanations {
+
+    private final String[] repositories;
+    private final Map<String, Integer> ids;
+    private final Map<Long, List<Requirement>> reasons;
+    private final int[][] adjacency;
+    // predecessors.get(from)[to] is the repository before "to" on a shortest path from "from", -1 if unreachable
+    private final AtomicReferenceArray<int[]> predecessors;
+
+    /**
+     * Constructs a new instance. The predecessors are computed by the queries.
+     *
+     * @param      dependencies  The dependencies between the repositories as returned by the dependency calculator
+     */
+    public DependencyExplanations(Map<RepositoryObject, Set<RepositoryObject>> dependencies) {
+        this(dependencies, Optional.empty());
+    }
+
+    /**
+     * Constructs a new instance. The predecessors are computed by the queries.
+     *
+     * @param      dependencies  The dependencies between the repositories as returned by the dependency calculator
+     * @param      expansion     The feature expansion the dependency calculator resolved the requirements with, if
+     *                           it expands features
+     */
+    public DependencyExplanations(Map<RepositoryObject, Set<RepositoryObject>> dependencies,
+            Optional<FeatureExpansion> expansion) {
+        final List<RepositoryObject> sorted = new ArrayList<>(new TreeSet<>(dependencies.keySet()));
+        final int n = sorted.size();
+        this.repositories = new String[n];
+        this.ids = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            repositories[i] = sorted.get(i).getName();
+            ids.put(repositories[i], i);
+        }
+
+        // first provider in alphabetical order, like the dependency calculator resolves requirements
+        final Map<String, Integer> bundleProviders = new HashMap<>();
+        final Map<String, Integer> featureProviders = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            for (String bundle : sorted.get(i).getProvidedBundles()) {
+                bundleProviders.putIfAbsent(bundle, i);
+            }
+            for (String feature : sorted.get(i).getProvidedFeatures()) {
+                featureProviders.putIfAbsent(feature, i);
+            }
+        }
+
+        this.reasons = new HashMap<>();
+        this.adjacency = new int[n][];
+        for (int from = 0; from < n; from++) {
+            final RepositoryObject repository = sorted.get(from);
+            adjacency[from] = dependencies.get(repository).stream()
+                .map(RepositoryObject::getName)
+                .filter(ids::containsKey)
+                .mapToInt(ids::get)
+                .sorted()
+                .toArray();
+            for (int to : adjacency[from]) {
+                reasons.put(key(from, to), new ArrayList<>());
+            }
+            final Map<String, Set<String>> bundleRequirers = requirers(repository, ArtifactRequirements::getBundles);
+            final Map<String, Set<String>> featureRequirers = requirers(repository, ArtifactRequirements::getFeatures);
+            final Set<String> requiredBundles = new TreeSet<>(repository.getRequiredBundles());
+            final Set<String> requiredFeatures = new TreeSet<>(repository.getRequiredFeatures());
+            if (expansion.isPresent()) {
+                for (String feature : repository.getRequiredFeatures()) {
+                    final ArtifactRequirements included = expansion.get().expand(feature);
+                    final Set<String> requiredBy = Set.copyOf(featureRequirers.getOrDefault(feature, Set.of()));
+                    requiredBundles.addAll(included.getBundles());
+                    requiredFeatures.addAll(included.getFeatures());
+                    included.getBundles().forEach(bundle -> bundleRequirers
+                        .computeIfAbsent(bundle, key -> new TreeSet<>()).addAll(requiredBy));
+                    included.getFeatures().forEach(include -> featureRequirers
+                        .computeIfAbsent(include, key -> new TreeSet<>()).addAll(requiredBy));
+                }
+            }
+            annotate(from, Kind.BUNDLE, requiredBundles, bundleProviders, bundleRequirers);
+            annotate(from, Kind.FEATURE, requiredFeatures, featureProviders, featureRequirers);
+        }
+        this.predecessors = new AtomicReferenceArray<>(n);
+    }
+
+    /**
+     * Checks whether a repository is part of the analysed repositories.
+     *
+     * @param      repository  The full repository name
+     * @return     true if it is known.
+     */
+    public boolean contains(String repository) {
+        return ids.containsKey(repository);
+    }
+
+    /**
+     * Explains the transitive dependency of one repository on another.
+     *
+     * @param      from  The full name of the depending repository
+     * @param      to    The full name of the repository it depends on
+     * @return     The steps of a shortest dependency chain from the first to the second repository or empty if it
+     *             does not depend on it or a repository is unknown.
+     */
+    public Optional<List<Step>> explain(String from, String to) {
+        final Integer source = ids.get(from);
+        final Integer target = ids.get(to);
+        if (source == null || target == null) {
+            return Optional.empty();
+        }
+        final int[] row = predecessors(source);
+        if (row[target] < 0) {
+            return Optional.empty();
+        }
+        final List<Step> steps = new ArrayList<>();
+        int current = target;
+        while (current != source) {
+            final int previous = row[current];
+            steps.add(new Step(repositories[previous], repositories[current], reasons.get(key(previous, current))));
+            current = previous;
+        }
+        Collections.reverse(steps);
+        return Optional.of(steps);
+    }
+
+    // Concurrent queries may compute the same row, the rows are equal and either one is kept.
+    private int[] predecessors(int from) {
+        final int[] known = predecessors.get(from);
+        if (known != null) {
+            return known;
+        }
+        try (Metrics.Timing timing = Metrics.get().time("explanations")) {
+            final int[] row = new int[repositories.length];
+            Arrays.fill(row, -1);
+            final int[] queue = new int[repositories.length];
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = from;
+            while (head < tail) {
+                final int next = queue[head++];
+                for (int to : adjacency[next]) {
+                    if (row[to] < 0 && to != from) {
+                        row[to] = next;
+                        queue[tail++] = to;
+                    }
+                }
+            }
+            final int[] witness = predecessors.compareAndExchange(from, null, row);
+            return witness == null ? row : witness;
+        }
+    }
+
+    private void annotate(int from, Kind kind, Set<String> required, Map<String, Integer> providers,
+            Map<String, Set<String>> requirers) {
+        for (String name : required) {
+            final Integer provider = providers.get(name);
+            final List<Requirement> edgeReasons = provider == null ? null : reasons.get(key(from, provider));
+            if (edgeReasons != null) {
+                edgeReasons.add(new Requirement(kind, name, requirers.getOrDefault(name, Set.of())));
+            }
+        }
+    }
+
+    private long key(int from, int to) {
+        return (long) from * repositories.length + to;
+    }
+
+    // Maps every required bundle or feature to the bundles and features of the repository that require it.
+    private static Map<String, Set<String>> requirers(RepositoryObject repository,
+            Function<ArtifactRequirements, Set<String>> required) {
+        final Map<String, Set<String>> requirers = new TreeMap<>();
+        repository.getBundleRequirements().forEach((bundle, requirements) -> required.apply(requirements)
+            .forEach(name -> requirers.computeIfAbsent(name, key -> new TreeSet<>()).add(Kind.BUNDLE + ":" + bundle)));
+        repository.getFeatureRequirements().forEach((feature, requirements) -> required.apply(requirements)
+            .forEach(name -> requirers.computeIfAbsent(name, key -> new TreeSet<>()).add(Kind.FEATURE + ":" + feature)));
+        return requirers;
+    }
+
+    /**
+     * A direct dependency between two repositories on a dependency chain.
+     */
+    public static final class Step {
+        private final String from;
+        private final String to;
+        private final List<Requirement> requirements;
+
+        private Step(String from, String to, List<Requirement> requirements) {
+            this.from = from;
+            this.to = to;
+            this.requirements = Collections.unmodifiableList(requirements);
+        }
+
+        /**
+         * Returns the depending repository.
+         *
+         * @return     The full repository name.
+         */
+        public String getFrom() {
+            return from;
+        }
+
+        /**
+         * Returns the repository that provides the requirements.
+         *
+         * @return     The full repository name.
+         */
+        public String getTo() {
+            return to;
+        }
+
+        /**
+         * Returns the requirements of the depending repository that are satisfied by the providing repository.
+         *
+         * @return     The requirements, bundles before features, each sorted by id.
+         */
+        public List<Requirement> getRequirements() {
+            return requirements;
+        }
+    }
+
+    /**
+     * A bundle or feature that is required by a repository.
+     */
+    public static final class Requirement {
+        private final Kind kind;
+        private final String name;
+        private final Set<String> requiredBy;
+
+        private Requirement(Kind kind, String name, Set<String> requiredBy) {
+            this.kind = kind;
+            this.name = name;
+            this.requiredBy = Collections.unmodifiableSet(requiredBy);
+        }
+
+        /**
+         * Returns whether a bundle or a feature is required.
+         *
+         * @return     The kind.
+         */
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * Returns the id of the required bundle or feature.
+         *
+         * @return     The bundle or feature id.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the bundles and features of the depending repository that require it.
+         *
+         * @return     The sorted ids, e.g. bundle:org.palladiosimulator.pcm.
+         */
+        public Set<String> getRequiredBy() {
+            return requiredBy;
+        }
+
+        @Override
+        public String toString() {
+            return kind + " " + name + " required by " + requiredBy;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package org.palladiosimulator.dependencytool.graph;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DirectedMultigraph;
+import org.jgrapht.nio.Attribute;
+import org.jgrapht.nio.AttributeType;
+import org.jgrapht.nio.DefaultAttribute;
+import org.jgrapht.nio.dot.DOTExporter;
+import org.jgrapht.nio.graphml.GraphMLExporter;
+import org.jgrapht.nio.graphml.GraphMLExporter.AttributeCategory;
+import org.palladiosimulator.dependencytool.github.RepositoryObject;
+import org.palladiosimulator.dependencytool.util.OutputType;
+
+/**
+ * Exports the dependency graph in standard graph formats.
+ *
+ * The exporters of jgrapht-io write every vertex and edge directly to the given writer, so the output is never held
+ * in memory as a whole. Optionally, bundles and features are exported as nodes too, connected to the repositories
+ * that require or provide them.
+ *
+ * The CSV export has one {@code source,target,relation} row per edge, so requirements and provisions of the same
+ * bundle stay distinguishable. A node without edges gets a row with empty target and relation.
+ */
+public class GraphExporter {
+
+    private static final String KIND = "kind";
+    private static final String NAME = "name";
+    // GraphML keys are identified by their name, so edges need a different one than the node kind
+    private static final String RELATION = "relation";
+    private static final String CSV_HEADER = "source,target,relation\n";
+
+    private final Graph<Node, Edge> graph;
+    private final boolean includeBundlesAndFeatures;
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param      dependencies               The dependencies between the repositories
+     * @param      includeBundlesAndFeatures  Set to true to export bundles and features as nodes
+     */
+    public GraphExporter(Map<RepositoryObject, Set<RepositoryObject>> dependencies, boolean includeBundlesAndFeatures) {
+        this.includeBundlesAndFeatures = includeBundlesAndFeatures;
+        // multigraph, because a repository can both require and provide the same bundle
+        this.graph = new DirectedMultigraph<>(Edge.class);
+
+        for (RepositoryObject repository : dependencies.keySet()) {
+            graph.addVertex(Node.repository(repository.getName()));
+        }
+        for (Map.Entry<RepositoryObject, Set<RepositoryObject>> entry : dependencies.entrySet()) {
+            final Node source = Node.repository(entry.getKey().getName());
+            for (RepositoryObject dependency : entry.getValue()) {
+                graph.addEdge(source, Node.repository(dependency.getName()), new Edge("DEPENDS_ON"));
+            }
+            if (includeBundlesAndFeatures) {
+                addEdges(source, entry.getKey().getRequiredBundles(), "bundle", "REQUIRES_BUNDLE");
+                addEdges(source, entry.getKey().getProvidedBundles(), "bundle", "PROVIDES_BUNDLE");
+                addEdges(source, entry.getKey().getRequiredFeatures(), "feature", "REQUIRES_FEATURE");
+                addEdges(source, entry.getKey().getProvidedFeatures(), "feature", "PROVIDES_FEATURE");
+            }
+        }
+    }
+
+    /**
+     * Returns the graph that is exported.
+     *
+     * @return     The graph of repositories and optionally bundles and features.
+     */
+    public Graph<Node, Edge> getGraph() {
+        return graph;
+    }
+
+    /**
+     * Writes the graph to a writer.
+     *
+     * @param      outputType  The format, one of GRAPHML, DOT or CSV
+     * @param      writer      The writer, should be buffered. It is flushed but not closed.
+     * @throws UncheckedIOException if the graph could not be written.
+     */
+    public void export(OutputType outputType, Writer writer) {
+        switch (outputType) {
+            case GRAPHML:
+                final GraphMLExporter<Node, Edge> graphML = new GraphMLExporter<>(Node::getId);
+                graphML.registerAttribute(KIND, AttributeCategory.NODE, AttributeType.STRING);
+                graphML.registerAttribute(NAME, AttributeCategory.NODE, AttributeType.STRING);
+                graphML.registerAttribute(RELATION, AttributeCategory.EDGE, AttributeType.STRING);
+                graphML.setVertexAttributeProvider(GraphExporter::nodeAttributes);
+                graphML.setEdgeAttributeProvider(GraphExporter::edgeAttributes);
+                graphML.exportGraph(graph, writer);
+                break;
+            case DOT:
+                final DOTExporter<Node, Edge> dot = new DOTExporter<>(node -> quote(node.getId()));
+                dot.setVertexAttributeProvider(node -> {
+                    final Map<String, Attribute> attributes = new LinkedHashMap<>();
+                    attributes.put("label", DefaultAttribute.createAttribute(node.getName()));
+                    if (!node.isRepository()) {
+                        attributes.put("shape", DefaultAttribute.createAttribute("box"));
+                    }
+                    return attributes;
+                });
+                if (includeBundlesAndFeatures) {
+                    dot.setEdgeAttributeProvider(edge -> Map.of("label", DefaultAttribute.createAttribute(edge.getKind())));
+                }
+                dot.exportGraph(graph, writer);
+                break;
+            case CSV:
+                try {
+                    exportCsv(writer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Output type " + outputType + " is no graph format");
+        }
+    }
+
+    private void exportCsv(Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        for (Node node : graph.vertexSet()) {
+            if (graph.degreeOf(node) == 0) {
+                writer.write(csv(node.getId()) + ",,\n");
+            }
+            for (Edge edge : graph.outgoingEdgesOf(node)) {
+                writer.write(csv(node.getId()) + "," + csv(graph.getEdgeTarget(edge).getId()) + "," + edge.getKind()
+                        + "\n");
+            }
+        }
+        writer.flush();
+    }
+
+    private void addEdges(Node source, Set<String> names, String kind, String edgeKind) {
+        for (String name : names) {
+            final Node target = new Node(kind, name);
+            graph.addVertex(target);
+            graph.addEdge(source, target, new Edge(edgeKind));
+        }
+    }
+
+    private static Map<String, Attribute> nodeAttributes(Node node) {
+        final Map<String, Attribute> attributes = new LinkedHashMap<>();
+        attributes.put(KIND, DefaultAttribute.createAttribute(node.getKind()));
+        attributes.put(NAME, DefaultAttribute.createAttribute(node.getName()));
+        return attributes;
+    }
+
+    private static Map<String, Attribute> edgeAttributes(Edge edge) {
+        final Map<String, Attribute> attributes = new LinkedHashMap<>();
+        attributes.put(RELATION, DefaultAttribute.createAttribute(edge.getKind()));
+        return attributes;
+    }
+
+    // RFC 4180, ids containing a separator, quote or line break are quoted
+    private static String csv(String id) {
+        if (id.indexOf(',') < 0 && id.indexOf('"') < 0 && id.indexOf('\n') < 0 && id.indexOf('\r') < 0) {
+            return id;
+        }
+        return "\"" + id.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String quote(String id) {
+        return "\"" + id.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    /**
+     * A repository, bundle or feature node.
+     */
+    public static final class Node {
+        private static final String REPOSITORY = "repository";
+
+        private final String kind;
+        private final String name;
+
+        private Node(String kind, String name) {
+            this.kind = kind;
+            this.name = name;
+        }
+
+        private static Node repository(String name) {
+            return new Node(REPOSITORY, name);
+        }
+
+        /**
+         * Returns the kind of the node.
+         *
+         * @return     repository, bundle or feature.
+         */
+        public String getKind() {
+            return kind;
+        }
+
+        /**
+         * Returns the name of the node.
+         *
+         * @return     The full repository name or the bundle or feature id.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the id of the node in the exported graph. Repositories are identified by their name, bundles and
+         * features by their kind and id, since a bundle and a feature can share the same id.
+         *
+         * @return     The id.
+         */
+        public String getId() {
+            return isRepository() ? name : kind + ":" + name;
+        }
+
+        private boolean isRepository() {
+            return REPOSITORY.equals(kind);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Node)) {
+                return false;
+            }
+            final Node other = (Node) obj;
+            return kind.equals(other.kind) && name.equals(other.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(kind, name);
+        }
+
+        @Override
+        public String toString() {
+            return getId();
+        }
+    }
+
+    /**
+     * A dependency, requirement or provision edge.
+     */
+    public static final class Edge extends DefaultEdge {
+        private static final long serialVersionUID = 2930412366436419342L;
+
+        private final String kind;
+
+        private Edge(String kind) {
+            this.kind = kind;
+        }
+
+        /**
+         * Returns the kind of the edge.
+         *
+         * @return     DEPENDS_ON, REQUIRES_BUNDLE, PROVIDES_BUNDLE, REQUIRES_FEATURE or PROVIDES_FEATURE.
+         */
+        public String getKind() {
+            return kind;
+        }
+    }
+}
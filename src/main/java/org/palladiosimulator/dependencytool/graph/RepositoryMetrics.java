@@ -0,0 +1,146 @@
+package org.palladiosimulator.dependencytool.graph;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.palladiosimulator.dependencytool.github.RepositoryObject;
+
+/**
+ * Structural metrics of every repository in the dependency graph, identified by its name.
+ *
+ * The metrics are computed once for the whole graph, so exports can store them instead of letting every query
+ * traverse the graph again.
+ */
+public final class RepositoryMetrics {
+
+    private final TopologyLayers layers;
+    private final TopologyLayers depths;
+    private final Map<String, Set<String>> dependencies;
+    private final Map<String, Set<String>> dependents;
+    private final Map<String, Integer> transitiveDependents;
+
+    private RepositoryMetrics(TopologyLayers layers, TopologyLayers depths, Map<String, Set<String>> dependencies,
+            Map<String, Set<String>> dependents, Map<String, Integer> transitiveDependents) {
+        this.layers = layers;
+        this.depths = depths;
+        this.dependencies = dependencies;
+        this.dependents = dependents;
+        this.transitiveDependents = transitiveDependents;
+    }
+
+    /**
+     * Computes the metrics of all repositories.
+     *
+     * @param      dependencies  The dependencies between the repositories as returned by the dependency calculator
+     * @return     The metrics.
+     */
+    public static RepositoryMetrics of(Map<RepositoryObject, Set<RepositoryObject>> dependencies) {
+        final Map<String, Set<String>> forward = new HashMap<>();
+        final Map<String, Set<String>> reverse = new HashMap<>();
+        dependencies.forEach((repository, deps) -> {
+            final Set<String> names = forward.computeIfAbsent(repository.getName(), name -> new TreeSet<>());
+            reverse.computeIfAbsent(repository.getName(), name -> new TreeSet<>());
+            for (RepositoryObject dependency : deps) {
+                names.add(dependency.getName());
+                forward.computeIfAbsent(dependency.getName(), name -> new TreeSet<>());
+                reverse.computeIfAbsent(dependency.getName(), name -> new TreeSet<>()).add(repository.getName());
+            }
+        });
+
+        TopologyLayers layers = null;
+        TopologyLayers depths = null;
+        try {
+            layers = TopologyLayers.of(forward);
+            // the longest path from a repository nobody depends on is the layer in the reversed graph
+            depths = TopologyLayers.of(reverse);
+        } catch (IllegalArgumentException e) {
+            // layers and depths are undefined, the counts are computed nevertheless
+        }
+
+        final Map<String, Integer> transitiveDependents = new HashMap<>();
+        for (String repository : reverse.keySet()) {
+            transitiveDependents.put(repository, closure(repository, reverse).size());
+        }
+        return new RepositoryMetrics(layers, depths, Collections.unmodifiableMap(forward),
+                Collections.unmodifiableMap(reverse), Collections.unmodifiableMap(transitiveDependents));
+    }
+
+    /**
+     * Checks whether layers and depths are defined, which is the case if the dependencies are not cyclic.
+     *
+     * @return     True if the dependencies are acyclic.
+     */
+    public boolean isAcyclic() {
+        return layers != null;
+    }
+
+    /**
+     * Returns the topology layer of a repository, the length of the longest path to a repository without
+     * dependencies.
+     *
+     * @param      repository  The name of the repository
+     * @return     The layer or -1 if the repository is unknown or the dependencies are cyclic.
+     */
+    public int getLayer(String repository) {
+        return layers == null ? -1 : layers.getLayer(repository);
+    }
+
+    /**
+     * Returns the depth of a repository, the length of the longest path from a repository nobody depends on.
+     *
+     * @param      repository  The name of the repository
+     * @return     The depth or -1 if the repository is unknown or the dependencies are cyclic.
+     */
+    public int getDepth(String repository) {
+        return depths == null ? -1 : depths.getLayer(repository);
+    }
+
+    /**
+     * Returns the number of repositories a repository directly depends on.
+     *
+     * @param      repository  The name of the repository
+     * @return     The number of dependencies.
+     */
+    public int getFanOut(String repository) {
+        return dependencies.getOrDefault(repository, Set.of()).size();
+    }
+
+    /**
+     * Returns the number of repositories that directly depend on a repository.
+     *
+     * @param      repository  The name of the repository
+     * @return     The number of dependents.
+     */
+    public int getFanIn(String repository) {
+        return dependents.getOrDefault(repository, Set.of()).size();
+    }
+
+    /**
+     * Returns the number of repositories that directly or transitively depend on a repository.
+     *
+     * @param      repository  The name of the repository
+     * @return     The number of transitive dependents.
+     */
+    public int getTransitiveDependents(String repository) {
+        return transitiveDependents.getOrDefault(repository, 0);
+    }
+
+    private static Set<String> closure(String repository, Map<String, Set<String>> edges) {
+        final Set<String> closure = new HashSet<>();
+        final Deque<String> queue = new ArrayDeque<>(edges.get(repository));
+        while (!queue.isEmpty()) {
+            final String next = queue.poll();
+            if (closure.add(next)) {
+                queue.addAll(edges.get(next));
+            }
+        }
+        closure.remove(repository);
+        return closure;
+    }
+}
@@ -0,0 +1,125 @@
+package org.palladiosimulator.dependencytool.graph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Topology layer of every repository, identified by its name.
+ *
+ * Repositories without dependencies are in layer 0, every other repository is one layer above its highest
+ * dependency. These are the same layers {@link GraphicalRepresentation#createTopologyHierarchy()} creates by
+ * repeatedly removing the repositories without dependencies. In contrast to it, the layers can be updated when the
+ * dependencies of some repositories change by recomputing only these repositories and their transitive dependents.
+ */
+public final class TopologyLayers {
+
+    private final Map<String, Integer> layers;
+
+    private TopologyLayers(Map<String, Integer> layers) {
+        this.layers = layers;
+    }
+
+    /**
+     * Computes the layers of all repositories.
+     *
+     * @param      dependencies  The names of the repositories every repository depends on
+     * @return     The layers.
+     * @throws IllegalArgumentException if the dependencies are cyclic.
+     */
+    public static TopologyLayers of(Map<String, Set<String>> dependencies) {
+        final Map<String, Integer> layers = new HashMap<>();
+        for (String repository : dependencies.keySet()) {
+            computeLayer(repository, dependencies, layers);
+        }
+        return new TopologyLayers(Collections.unmodifiableMap(layers));
+    }
+
+    /**
+     * Computes the layers after the dependencies of some repositories changed. The layers of this instance are kept.
+     *
+     * @param      dependencies  The names of the repositories every repository depends on after the change
+     * @param      dependents    The names of the repositories that depend on every repository after the change
+     * @param      changed       The repositories whose dependencies changed, were added or were removed
+     * @return     The new layers.
+     * @throws IllegalArgumentException if the dependencies are cyclic.
+     */
+    public TopologyLayers update(Map<String, Set<String>> dependencies, Map<String, Set<String>> dependents,
+            Set<String> changed) {
+        // only the changed repositories and everything that transitively depends on them can move
+        final Set<String> stale = new HashSet<>();
+        final Deque<String> queue = new ArrayDeque<>(changed);
+        while (!queue.isEmpty()) {
+            final String next = queue.poll();
+            if (stale.add(next)) {
+                queue.addAll(dependents.getOrDefault(next, Set.of()));
+            }
+        }
+
+        final Map<String, Integer> updated = new HashMap<>(layers);
+        updated.keySet().removeAll(stale);
+        updated.keySet().retainAll(dependencies.keySet());
+        for (String repository : stale) {
+            if (dependencies.containsKey(repository)) {
+                computeLayer(repository, dependencies, updated);
+            }
+        }
+        return new TopologyLayers(Collections.unmodifiableMap(updated));
+    }
+
+    /**
+     * Returns the layer of a repository.
+     *
+     * @param      repository  The name of the repository
+     * @return     The layer or -1 if the repository is unknown.
+     */
+    public int getLayer(String repository) {
+        return layers.getOrDefault(repository, -1);
+    }
+
+    /**
+     * Returns the repositories of every layer, starting with the repositories without dependencies.
+     *
+     * @return     The sorted names of the repositories per layer.
+     */
+    public List<Set<String>> getLayers() {
+        final List<Set<String>> result = new ArrayList<>();
+        layers.forEach((repository, layer) -> {
+            while (result.size() <= layer) {
+                result.add(new TreeSet<>());
+            }
+            result.get(layer).add(repository);
+        });
+        return result;
+    }
+
+    private static int computeLayer(String repository, Map<String, Set<String>> dependencies,
+            Map<String, Integer> layers) {
+        return computeLayer(repository, dependencies, layers, new HashSet<>());
+    }
+
+    private static int computeLayer(String repository, Map<String, Set<String>> dependencies,
+            Map<String, Integer> layers, Set<String> path) {
+        final Integer known = layers.get(repository);
+        if (known != null) {
+            return known;
+        }
+        if (!path.add(repository)) {
+            throw new IllegalArgumentException("Cyclic dependency involving " + repository);
+        }
+        int layer = 0;
+        for (String dependency : dependencies.getOrDefault(repository, Set.of())) {
+            layer = Math.max(layer, computeLayer(dependency, dependencies, layers, path) + 1);
+        }
+        path.remove(repository);
+        layers.put(repository, layer);
+        return layer;
+    }
+}
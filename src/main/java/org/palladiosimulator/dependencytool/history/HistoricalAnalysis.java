@@ -0,0 +1,285 @@
+package org.palladiosimulator.dependencytool.history;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.kohsuke.github.GHCommit;
+import org.kohsuke.github.GHRepository;
+import org.kohsuke.github.GHTree;
+import org.kohsuke.github.GHTreeEntry;
+import org.palladiosimulator.dependencytool.dependencies.ArtifactRequirements;
+import org.palladiosimulator.dependencytool.dependencies.FeatureXML;
+import org.palladiosimulator.dependencytool.dependencies.ManifestMF;
+import org.palladiosimulator.dependencytool.graph.TopologyLayers;
+import org.palladiosimulator.dependencytool.metrics.Metrics;
+import org.palladiosimulator.dependencytool.util.SingleFlight;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+/**
+ * Analyses the dependencies between repositories at several points in time, e.g. the last releases.
+ *
+ * A point in time is either a ref like a tag, branch or commit that is looked up in every repository, or a date in
+ * the format yyyy-MM-dd, for which the last commit of the default branch on that day is used. The manifest.mf and
+ * feature.xml files are found in the recursive tree of the commit and fetched by their blob SHA. Since a blob SHA
+ * identifies the content, every distinct file is fetched and parsed only once across all repositories and points in
+ * time, even if several of them find it concurrently.
+ *
+ * Update sites only provide their current content, so a repository provides the bundles and features whose sources
+ * it contains at that point in time. Requirements are resolved to the first such repository in alphabetical order.
+ */
+public class HistoricalAnalysis {
+
+    private static final Logger LOGGER = Logger.getLogger(HistoricalAnalysis.class.getName());
+
+    private static final String CACHE_NAME = "descriptors";
+    private static final Pattern MANIFEST_PATH = Pattern.compile("bundles/([^/]+)/META-INF/MANIFEST\\.MF");
+    private static final Pattern FEATURE_PATH = Pattern.compile("features/([^/]+)/feature\\.xml");
+    private static final Pattern DATE = Pattern.compile("\\d{4}-\\d{2}-\\d{2}");
+
+    private final Collection<GHRepository> repositories;
+    private final boolean includeImports;
+    private final Map<String, Descriptor> descriptors = new ConcurrentHashMap<>();
+    private final SingleFlight<String, Descriptor> fetches = new SingleFlight<>(CACHE_NAME);
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param      repositories    The repositories to analyse
+     * @param      includeImports  Set to true to consider feature.xml imports while calculating dependencies
+     */
+    public HistoricalAnalysis(Collection<GHRepository> repositories, boolean includeImports) {
+        this.repositories = repositories;
+        this.includeImports = includeImports;
+    }
+
+    /**
+     * Analyses all repositories at every point in time.
+     *
+     * @param      points  The refs or dates in the format yyyy-MM-dd
+     * @return     The dependency graph at every point in time, in the given order.
+     */
+    public List<HistoryPoint> analyse(List<String> points) {
+        final ExecutorService ex = Executors.newFixedThreadPool(128);
+        try {
+            final List<Map<String, Future<Optional<State>>>> states = new ArrayList<>();
+            for (String point : points) {
+                final Map<String, Future<Optional<State>>> pointStates = new TreeMap<>();
+                for (GHRepository repository : repositories) {
+                    pointStates.put(repository.getFullName(), ex.submit(() -> analyse(repository, point)));
+                }
+                states.add(pointStates);
+            }
+
+            final List<HistoryPoint> history = new ArrayList<>();
+            for (int i = 0; i < points.size(); i++) {
+                final Map<String, State> pointStates = new TreeMap<>();
+                for (Map.Entry<String, Future<Optional<State>>> state : states.get(i).entrySet()) {
+                    try {
+                        state.getValue().get().ifPresent(value -> pointStates.put(state.getKey(), value));
+                    } catch (InterruptedException | ExecutionException e) {
+                        LOGGER.warning("Could not analyse " + state.getKey() + " at " + points.get(i) + ": " + e.getMessage());
+                    }
+                }
+                history.add(resolve(points.get(i), pointStates));
+            }
+            return history;
+        } finally {
+            ex.shutdownNow();
+        }
+    }
+
+    private Optional<State> analyse(GHRepository repository, String point) throws IOException {
+        try (Metrics.Timing timing = Metrics.get().time("history.analysis")) {
+            final Optional<String> ref = resolveRef(repository, point);
+            if (ref.isEmpty()) {
+                return Optional.empty();
+            }
+            final GHTree tree;
+            try {
+                tree = repository.getTreeRecursive(ref.get(), 1);
+            } catch (IOException e) {
+                LOGGER.warning(point + " not found in " + repository.getFullName() + ": " + e.getMessage());
+                return Optional.empty();
+            }
+            if (tree.isTruncated()) {
+                LOGGER.warning("The tree of " + repository.getFullName() + " at " + point + " is truncated. Some bundles "
+                        + "and features may be missing.");
+            }
+
+            final State state = new State(ref.get());
+            for (GHTreeEntry entry : tree.getTree()) {
+                final Matcher manifest = MANIFEST_PATH.matcher(entry.getPath());
+                final Matcher feature = FEATURE_PATH.matcher(entry.getPath());
+                if (manifest.matches()) {
+                    final Descriptor descriptor = descriptor(repository, entry.getSha(), false);
+                    state.bundles.put(descriptor.id.orElse(manifest.group(1)), descriptor.requirements);
+                } else if (feature.matches()) {
+                    final Descriptor descriptor = descriptor(repository, entry.getSha(), true);
+                    state.features.put(descriptor.id.orElse(feature.group(1)), descriptor.requirements);
+                }
+            }
+            return Optional.of(state);
+        }
+    }
+
+    // Returns the ref to analyse, the last commit of the given day for dates.
+    private static Optional<String> resolveRef(GHRepository repository, String point) throws IOException {
+        if (!DATE.matcher(point).matches()) {
+            return Optional.of(point);
+        }
+        final Date until;
+        try {
+            until = Date.from(LocalDate.parse(point).plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant());
+        } catch (DateTimeParseException e) {
+            return Optional.of(point);
+        }
+        final Iterator<GHCommit> commits = repository.queryCommits()
+            .from(repository.getDefaultBranch())
+            .until(until)
+            .pageSize(1)
+            .list()
+            .iterator();
+        if (!commits.hasNext()) {
+            LOGGER.info(repository.getFullName() + " has no commits before " + point);
+            return Optional.empty();
+        }
+        return Optional.of(commits.next().getSHA1());
+    }
+
+    private Descriptor descriptor(GHRepository repository, String sha, boolean feature) throws IOException {
+        // the same content may be a manifest.mf and a feature.xml in theory, so the kind is part of the key
+        final String key = (feature ? "feature:" : "bundle:") + sha;
+        final Descriptor known = descriptors.get(key);
+        if (known != null) {
+            Metrics.get().hit(CACHE_NAME);
+            return known;
+        }
+        Metrics.get().miss(CACHE_NAME);
+        return fetches.get(key, () -> {
+            // a concurrent fetch may have completed since the lookup above
+            final Descriptor fetched = descriptors.get(key);
+            if (fetched != null) {
+                return fetched;
+            }
+            final Descriptor descriptor;
+            try (InputStream content = repository.readBlob(sha)) {
+                descriptor = feature ? parseFeature(content) : parseManifest(content);
+            }
+            descriptors.put(key, descriptor);
+            return descriptor;
+        });
+    }
+
+    private static Descriptor parseManifest(InputStream content) throws IOException {
+        final ManifestMF manifest = new ManifestMF(content);
+        return new Descriptor(manifest.getSymbolicName(),
+                new ArtifactRequirements(manifest.getRequiredBundles(), Set.of()));
+    }
+
+    private Descriptor parseFeature(InputStream content) throws IOException {
+        try {
+            final Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(content);
+            document.getDocumentElement().normalize();
+            final FeatureXML feature = new FeatureXML(document, includeImports);
+            return new Descriptor(Optional.ofNullable(feature.getId()),
+                    new ArtifactRequirements(feature.getRequiredBundles(), feature.getRequiredFeatures()));
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Invalid feature.xml", e);
+        }
+    }
+
+    private static HistoryPoint resolve(String point, Map<String, State> states) {
+        // first provider in alphabetical order, the states are sorted by repository name
+        final Map<String, String> bundleProviders = new HashMap<>();
+        final Map<String, String> featureProviders = new HashMap<>();
+        states.forEach((repository, state) -> {
+            state.bundles.keySet().forEach(bundle -> bundleProviders.putIfAbsent(bundle, repository));
+            state.features.keySet().forEach(feature -> featureProviders.putIfAbsent(feature, repository));
+        });
+
+        final Map<String, Set<String>> dependencies = new TreeMap<>();
+        final Map<String, String> commits = new TreeMap<>();
+        states.forEach((repository, state) -> {
+            final Set<String> repositoryDependencies = new TreeSet<>();
+            for (ArtifactRequirements requirements : state.requirements()) {
+                requirements.getBundles().stream().map(bundleProviders::get).filter(provider -> provider != null)
+                    .forEach(repositoryDependencies::add);
+                requirements.getFeatures().stream().map(featureProviders::get).filter(provider -> provider != null)
+                    .forEach(repositoryDependencies::add);
+            }
+            repositoryDependencies.remove(repository);
+            dependencies.put(repository, repositoryDependencies);
+            commits.put(repository, state.ref);
+        });
+
+        List<Integer> layerCounts = null;
+        try {
+            layerCounts = new ArrayList<>();
+            for (Set<String> layer : TopologyLayers.of(dependencies).getLayers()) {
+                layerCounts.add(layer.size());
+            }
+        } catch (IllegalArgumentException e) {
+            LOGGER.warning("Dependencies at " + point + " are cyclic: " + e.getMessage());
+            layerCounts = null;
+        }
+        return new HistoryPoint(point, commits, dependencies, layerCounts);
+    }
+
+    /**
+     * A parsed manifest.mf or feature.xml file.
+     */
+    private static final class Descriptor {
+        private final Optional<String> id;
+        private final ArtifactRequirements requirements;
+
+        private Descriptor(Optional<String> id, ArtifactRequirements requirements) {
+            this.id = id;
+            this.requirements = requirements;
+        }
+    }
+
+    /**
+     * The bundles and features of a repository at one point in time.
+     */
+    private static final class State {
+        private final String ref;
+        private final Map<String, ArtifactRequirements> bundles = new TreeMap<>();
+        private final Map<String, ArtifactRequirements> features = new TreeMap<>();
+
+        private State(String ref) {
+            this.ref = ref;
+        }
+
+        private List<ArtifactRequirements> requirements() {
+            final List<ArtifactRequirements> requirements = new ArrayList<>(bundles.values());
+            requirements.addAll(features.values());
+            return requirements;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.palladiosimulator.dependencytool.history;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * The dependency graph of all repositories at one point in time.
+ */
+@JsonPropertyOrder({"point", "repositories", "dependencyCount", "layerCounts", "dependencies"})
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class HistoryPoint {
+
+    private final String point;
+    private final Map<String, String> commits;
+    private final Map<String, Set<String>> dependencies;
+    private final List<Integer> layerCounts;
+
+    HistoryPoint(String point, Map<String, String> commits, Map<String, Set<String>> dependencies,
+            List<Integer> layerCounts) {
+        this.point = point;
+        this.commits = Collections.unmodifiableMap(commits);
+        this.dependencies = Collections.unmodifiableMap(dependencies);
+        this.layerCounts = layerCounts == null ? null : Collections.unmodifiableList(layerCounts);
+    }
+
+    /**
+     * Returns the ref or date as requested.
+     *
+     * @return     The ref or date.
+     */
+    public String getPoint() {
+        return point;
+    }
+
+    /**
+     * Returns the analysed commit of every repository that existed at this point.
+     *
+     * @return     A sorted map from full repository name to the commit or ref that was analysed.
+     */
+    public Map<String, String> getRepositories() {
+        return commits;
+    }
+
+    /**
+     * Returns the number of dependencies between the repositories.
+     *
+     * @return     The number of edges of the graph.
+     */
+    public int getDependencyCount() {
+        return dependencies.values().stream().mapToInt(Set::size).sum();
+    }
+
+    /**
+     * Returns the number of repositories in every topology layer.
+     *
+     * @return     The layer sizes starting with the repositories without dependencies or null if the dependencies
+     *             were cyclic at this point.
+     */
+    public List<Integer> getLayerCounts() {
+        return layerCounts;
+    }
+
+    /**
+     * Returns the dependencies between the repositories.
+     *
+     * @return     A sorted map from full repository name to the sorted names of its dependencies.
+     */
+    public Map<String, Set<String>> getDependencies() {
+        return dependencies;
+    }
+}
@@ -0,0 +1,239 @@
+package org.palladiosimulator.dependencytool.local;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.palladiosimulator.dependencytool.dependencies.ArtifactRequirements;
+import org.palladiosimulator.dependencytool.dependencies.FeatureXML;
+import org.palladiosimulator.dependencytool.dependencies.ManifestMF;
+import org.palladiosimulator.dependencytool.github.RepositoryObject;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+/**
+ * A local working copy of a repository whose manifest.mf and feature.xml files replace the ones on GitHub.
+ *
+ * The files are laid out like in the repositories on GitHub, i.e. bundles/&lt;bundle&gt;/META-INF/MANIFEST.MF and
+ * features/&lt;feature&gt;/feature.xml. Every file is parsed once and only parsed again when it is reported as
+ * changed, so an edit costs one parse regardless of the size of the working copy.
+ */
+public final class WorkingCopy {
+
+    private static final Logger LOGGER = Logger.getLogger(WorkingCopy.class.getName());
+
+    static final String BUNDLES = "bundles";
+    static final String FEATURES = "features";
+    private static final Path MANIFEST = Path.of("META-INF", "MANIFEST.MF");
+    private static final Path FEATURE_XML = Path.of("feature.xml");
+
+    private final String repository;
+    private final Path root;
+    private final boolean includeImports;
+
+    // the parsed descriptors by the directory of their bundle or feature
+    private final Map<String, Descriptor> bundles = new HashMap<>();
+    private final Map<String, Descriptor> features = new HashMap<>();
+
+    /**
+     * Constructs a new instance. The files are parsed by {@link #scan()}.
+     *
+     * @param      repository      The full name of the repository the working copy belongs to
+     * @param      root            The root directory of the working copy
+     * @param      includeImports  Set to true to consider feature.xml imports
+     */
+    public WorkingCopy(String repository, Path root, boolean includeImports) {
+        this.repository = repository;
+        this.root = root.toAbsolutePath().normalize();
+        this.includeImports = includeImports;
+    }
+
+    /**
+     * Returns the full name of the repository.
+     *
+     * @return     The repository name.
+     */
+    public String getRepository() {
+        return repository;
+    }
+
+    /**
+     * Returns the root directory.
+     *
+     * @return     The absolute root directory.
+     */
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Parses all manifest.mf and feature.xml files of the working copy.
+     *
+     * @throws IOException if the bundles or features directory could not be listed.
+     */
+    public void scan() throws IOException {
+        bundles.clear();
+        features.clear();
+        for (String kind : Set.of(BUNDLES, FEATURES)) {
+            final Path directory = root.resolve(kind);
+            if (!Files.isDirectory(directory)) {
+                continue;
+            }
+            try (DirectoryStream<Path> children = Files.newDirectoryStream(directory, Files::isDirectory)) {
+                for (Path child : children) {
+                    reparse(child);
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses the manifest.mf or feature.xml file a changed path belongs to again.
+     *
+     * @param      path  A changed file or directory within the working copy, e.g. the manifest.mf file itself or the
+     *                   directory of a bundle that was created or deleted
+     * @return     True if the requirements or the id of a bundle or feature changed.
+     */
+    public boolean reparse(Path path) {
+        final Path relative = root.relativize(path.toAbsolutePath().normalize());
+        if (relative.getNameCount() < 2 || relative.startsWith("..")) {
+            return false;
+        }
+        final String kind = relative.getName(0).toString();
+        final String directory = relative.getName(1).toString();
+        final Path artifact = root.resolve(kind).resolve(directory);
+        final Optional<Descriptor> descriptor;
+        if (BUNDLES.equals(kind)) {
+            descriptor = parseManifest(artifact.resolve(MANIFEST));
+        } else if (FEATURES.equals(kind)) {
+            descriptor = parseFeature(artifact.resolve(FEATURE_XML));
+        } else {
+            return false;
+        }
+
+        final Map<String, Descriptor> descriptors = BUNDLES.equals(kind) ? bundles : features;
+        final Descriptor previous = descriptor.isPresent() ? descriptors.put(directory, descriptor.get())
+                : descriptors.remove(directory);
+        return !Objects.equals(previous, descriptor.orElse(null));
+    }
+
+    /**
+     * Creates the analysis result of the repository with the requirements of this working copy.
+     *
+     * The provided bundles and features are taken from the update site like for every other repository. The bundles
+     * and features of the working copy are provided in addition, so bundles that are not released yet can be
+     * required by other working copies.
+     *
+     * @param      analysed  The analysis result of the repository on GitHub or null if it was not analysed
+     * @return     The analysis result with the requirements of the working copy.
+     */
+    public RepositoryObject apply(RepositoryObject analysed) {
+        final Set<String> requiredBundles = new TreeSet<>();
+        final Set<String> requiredFeatures = new TreeSet<>();
+        final Map<String, ArtifactRequirements> bundleRequirements = new TreeMap<>();
+        final Map<String, ArtifactRequirements> featureRequirements = new TreeMap<>();
+        bundles.forEach((directory, descriptor) -> {
+            bundleRequirements.put(descriptor.id(directory), descriptor.requirements);
+            requiredBundles.addAll(descriptor.requirements.getBundles());
+        });
+        features.forEach((directory, descriptor) -> {
+            featureRequirements.put(descriptor.id(directory), descriptor.requirements);
+            requiredBundles.addAll(descriptor.requirements.getBundles());
+            requiredFeatures.addAll(descriptor.requirements.getFeatures());
+        });
+
+        final Set<String> providedBundles = new TreeSet<>(bundleRequirements.keySet());
+        final Set<String> providedFeatures = new TreeSet<>(featureRequirements.keySet());
+        String githubUrl = root.toUri().toString();
+        String updateSite = null;
+        if (analysed != null) {
+            providedBundles.addAll(analysed.getProvidedBundles());
+            providedFeatures.addAll(analysed.getProvidedFeatures());
+            githubUrl = analysed.getGithubURL();
+            updateSite = analysed.getUpdateSite();
+        }
+        return new RepositoryObject(repository, githubUrl, updateSite, requiredBundles, requiredFeatures,
+                providedBundles, providedFeatures, bundleRequirements, featureRequirements);
+    }
+
+    @Override
+    public String toString() {
+        return repository + " at " + root;
+    }
+
+    private Optional<Descriptor> parseManifest(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            final ManifestMF manifest = new ManifestMF(in);
+            return Optional.of(new Descriptor(manifest.getSymbolicName().orElse(null),
+                    new ArtifactRequirements(manifest.getRequiredBundles(), Set.of())));
+        } catch (IOException e) {
+            LOGGER.warning("Could not read " + file + ": " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private Optional<Descriptor> parseFeature(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            final Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(in);
+            document.getDocumentElement().normalize();
+            final FeatureXML feature = new FeatureXML(document, includeImports);
+            return Optional.of(new Descriptor(feature.getId(),
+                    new ArtifactRequirements(feature.getRequiredBundles(), feature.getRequiredFeatures())));
+        } catch (IOException | ParserConfigurationException | SAXException e) {
+            // editors save files in several steps, the complete file is reported again
+            LOGGER.warning("Could not parse " + file + ": " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * The id and requirements read from one manifest.mf or feature.xml file.
+     */
+    private static final class Descriptor {
+        private final String id;
+        private final ArtifactRequirements requirements;
+
+        private Descriptor(String id, ArtifactRequirements requirements) {
+            this.id = id;
+            this.requirements = requirements;
+        }
+
+        private String id(String directory) {
+            return id == null ? directory : id;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Descriptor)) {
+                return false;
+            }
+            final Descriptor other = (Descriptor) obj;
+            return Objects.equals(id, other.id) && requirements.getBundles().equals(other.requirements.getBundles())
+                    && requirements.getFeatures().equals(other.requirements.getFeatures());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, requirements.getBundles(), requirements.getFeatures());
+        }
+    }
+}
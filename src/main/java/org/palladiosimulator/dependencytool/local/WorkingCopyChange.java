@@ -0,0 +1,73 @@
+package org.palladiosimulator.dependencytool.local;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * The effect of changed manifest.mf and feature.xml files of working copies on the dependency graph.
+ */
+@JsonPropertyOrder({"dependencies", "layers", "cycle"})
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class WorkingCopyChange {
+
+    private final Map<String, Set<String>> dependencies;
+    private final Map<String, Integer> layers;
+    private final String cycle;
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param      dependencies  The new dependencies of every repository whose dependencies changed
+     * @param      layers        The new topology layer of every repository whose layer changed
+     * @param      cycle         The description of the cycle the dependencies contain or null if they are acyclic
+     */
+    public WorkingCopyChange(Map<String, Set<String>> dependencies, Map<String, Integer> layers, String cycle) {
+        this.dependencies = Collections.unmodifiableMap(dependencies);
+        this.layers = Collections.unmodifiableMap(layers);
+        this.cycle = cycle;
+    }
+
+    /**
+     * Returns the repositories whose dependencies changed.
+     *
+     * @return     The sorted names of the new dependencies by repository name. Removed repositories have no
+     *             dependencies.
+     */
+    public Map<String, Set<String>> getDependencies() {
+        return dependencies;
+    }
+
+    /**
+     * Returns the repositories whose topology layer changed. Layers are not updated while the dependencies are
+     * cyclic.
+     *
+     * @return     The new layers by repository name, -1 for removed repositories.
+     */
+    public Map<String, Integer> getLayers() {
+        return layers;
+    }
+
+    /**
+     * Returns the cycle the dependencies contain after the change.
+     *
+     * @return     The description of the cycle or null if the dependencies are acyclic.
+     */
+    public String getCycle() {
+        return cycle;
+    }
+
+    /**
+     * Checks whether the change affects the dependency graph.
+     *
+     * @return     True if neither dependencies nor layers changed and there is no cycle.
+     */
+    @JsonIgnore
+    public boolean isEmpty() {
+        return dependencies.isEmpty() && layers.isEmpty() && cycle == null;
+    }
+}
@@ -0,0 +1,262 @@
+package org.palladiosimulator.dependencytool.local;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.palladiosimulator.dependencytool.dependencies.DependencyCalculator;
+import org.palladiosimulator.dependencytool.dependencies.DependencyUpdate;
+import org.palladiosimulator.dependencytool.github.RepositoryObject;
+import org.palladiosimulator.dependencytool.graph.TopologyLayers;
+import org.palladiosimulator.dependencytool.metrics.Metrics;
+
+/**
+ * Watches the bundles and features of local working copies and reports how their changes affect the dependencies
+ * and topology layers.
+ *
+ * Only the manifest.mf and feature.xml files reported by the file system are parsed again. The working copies
+ * replace their repositories in the dependency calculation, which resolves only the repositories that may be
+ * affected, and the layers are updated for the changed repositories and their transitive dependents.
+ */
+public final class WorkingCopyWatcher implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(WorkingCopyWatcher.class.getName());
+
+    /** Editors write a file in several steps, events arriving within this time are processed together. */
+    private static final long QUIET_PERIOD_MILLIS = 100;
+
+    private final DependencyCalculator calculator;
+    private final List<WorkingCopy> workingCopies;
+    private final Consumer<WorkingCopyChange> listener;
+    private final WatchService watchService;
+
+    private final Map<WatchKey, WorkingCopy> keys = new HashMap<>();
+    private final Map<String, RepositoryObject> analysed = new HashMap<>();
+    private final Map<String, Set<String>> dependencies = new HashMap<>();
+    private TopologyLayers layers;
+    private boolean cyclic;
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param      calculator     The dependency calculation the working copies are part of
+     * @param      workingCopies  The working copies to watch
+     * @param      listener       Receives every change of the dependency graph
+     * @throws IOException if the file system cannot be watched.
+     */
+    public WorkingCopyWatcher(DependencyCalculator calculator, List<WorkingCopy> workingCopies,
+            Consumer<WorkingCopyChange> listener) throws IOException {
+        this.calculator = calculator;
+        this.workingCopies = List.copyOf(workingCopies);
+        this.listener = listener;
+        this.watchService = FileSystems.getDefault().newWatchService();
+    }
+
+    /**
+     * Parses the working copies, replaces their repositories in the dependency calculation and starts watching them.
+     *
+     * @return     The differences between the analysed repositories and the working copies.
+     * @throws IOException if a working copy could not be read or watched.
+     */
+    public WorkingCopyChange start() throws IOException {
+        calculator.getDependencies().forEach((repository, deps) -> dependencies.put(repository.getName(), names(deps)));
+        calculator.getRepositories().forEach(repository -> analysed.put(repository.getName(), repository));
+        try {
+            layers = TopologyLayers.of(dependencies);
+        } catch (IllegalArgumentException e) {
+            layers = TopologyLayers.of(Map.of());
+            cyclic = true;
+        }
+
+        for (WorkingCopy workingCopy : workingCopies) {
+            register(workingCopy, workingCopy.getRoot());
+            workingCopy.scan();
+        }
+        return apply(workingCopies);
+    }
+
+    /**
+     * Processes file system events until the watcher is closed. Every change of the dependency graph is passed to
+     * the listener.
+     */
+    public void run() {
+        try {
+            while (true) {
+                final Map<WorkingCopy, Set<Path>> changed = new LinkedHashMap<>();
+                final Set<WorkingCopy> rescanned = new LinkedHashSet<>();
+                WatchKey key = watchService.take();
+                while (key != null) {
+                    collect(key, changed, rescanned);
+                    key = watchService.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+                }
+
+                // rescanned working copies may have changed in events that were lost, so they are applied anyway
+                final List<WorkingCopy> reparsed = new ArrayList<>(rescanned);
+                for (Map.Entry<WorkingCopy, Set<Path>> entry : changed.entrySet()) {
+                    if (rescanned.contains(entry.getKey())) {
+                        continue;
+                    }
+                    boolean any = false;
+                    for (Path path : entry.getValue()) {
+                        any |= entry.getKey().reparse(path);
+                    }
+                    if (any) {
+                        reparsed.add(entry.getKey());
+                    }
+                }
+                if (!reparsed.isEmpty()) {
+                    final WorkingCopyChange change = apply(reparsed);
+                    if (!change.isEmpty()) {
+                        listener.accept(change);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    private void collect(WatchKey key, Map<WorkingCopy, Set<Path>> changed, Set<WorkingCopy> rescanned) {
+        final WorkingCopy workingCopy = keys.get(key);
+        final Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                // events were lost, so the whole working copy is watched and parsed again
+                try {
+                    register(workingCopy, workingCopy.getRoot());
+                    workingCopy.scan();
+                    rescanned.add(workingCopy);
+                } catch (IOException e) {
+                    LOGGER.warning("Could not scan " + workingCopy + ": " + e.getMessage());
+                }
+                continue;
+            }
+            final Path path = directory.resolve((Path) event.context());
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+                // new bundles and features are watched as well, the directory may be filled already
+                try {
+                    register(workingCopy, path);
+                } catch (IOException e) {
+                    LOGGER.warning("Could not watch " + path + ": " + e.getMessage());
+                }
+            }
+            changed.computeIfAbsent(workingCopy, copy -> new LinkedHashSet<>()).add(path);
+        }
+        if (!key.reset()) {
+            keys.remove(key);
+        }
+    }
+
+    // Watches the root, the bundles and features directories, every bundle and feature and the META-INF directories.
+    private void register(WorkingCopy workingCopy, Path start) throws IOException {
+        final Path root = workingCopy.getRoot();
+        try (Stream<Path> directories = Files.walk(start, 3)) {
+            for (Path directory : directories.filter(Files::isDirectory).collect(Collectors.toList())) {
+                final Path relative = root.relativize(directory.toAbsolutePath().normalize());
+                final boolean watched = relative.toString().isEmpty()
+                        || (relative.startsWith(WorkingCopy.BUNDLES) || relative.startsWith(WorkingCopy.FEATURES))
+                                && (relative.getNameCount() <= 2 || relative.getNameCount() == 3
+                                        && relative.startsWith(WorkingCopy.BUNDLES)
+                                        && "META-INF".equals(relative.getName(2).toString()));
+                if (watched) {
+                    keys.put(directory.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), workingCopy);
+                }
+            }
+        }
+    }
+
+    private WorkingCopyChange apply(List<WorkingCopy> changed) {
+        try (Metrics.Timing timing = Metrics.get().time("watch.update")) {
+            final Map<String, Set<String>> changedDependencies = new TreeMap<>();
+            final Set<String> changedRepositories = new HashSet<>();
+            for (WorkingCopy workingCopy : changed) {
+                final DependencyUpdate update = calculator.replace(workingCopy.apply(analysed.get(workingCopy.getRepository())));
+                update.getDependencies().forEach((repository, deps) -> {
+                    final Set<String> names = names(deps);
+                    if (!names.equals(dependencies.put(repository.getName(), names))) {
+                        changedDependencies.put(repository.getName(), names);
+                        changedRepositories.add(repository.getName());
+                    }
+                });
+                for (String removed : update.getRemoved()) {
+                    dependencies.remove(removed);
+                    changedDependencies.put(removed, Set.of());
+                    changedRepositories.add(removed);
+                }
+            }
+
+            final Map<String, Integer> changedLayers = new TreeMap<>();
+            String cycle = null;
+            if (!changedRepositories.isEmpty() || cyclic) {
+                try {
+                    final TopologyLayers updated = cyclic ? TopologyLayers.of(dependencies)
+                            : layers.update(dependencies, reverse(dependencies), changedRepositories);
+                    for (String repository : union(layers, updated)) {
+                        if (layers.getLayer(repository) != updated.getLayer(repository)) {
+                            changedLayers.put(repository, updated.getLayer(repository));
+                        }
+                    }
+                    layers = updated;
+                    cyclic = false;
+                } catch (IllegalArgumentException e) {
+                    cycle = e.getMessage();
+                    cyclic = true;
+                }
+            }
+            return new WorkingCopyChange(changedDependencies, changedLayers, cycle);
+        }
+    }
+
+    private static Set<String> names(Set<RepositoryObject> repositories) {
+        return repositories.stream().map(RepositoryObject::getName).collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private static Map<String, Set<String>> reverse(Map<String, Set<String>> dependencies) {
+        final Map<String, Set<String>> dependents = new HashMap<>();
+        dependencies.forEach((repository, deps) -> {
+            for (String dependency : deps) {
+                dependents.computeIfAbsent(dependency, name -> new HashSet<>()).add(repository);
+            }
+        });
+        return dependents;
+    }
+
+    private static Set<String> union(TopologyLayers before, TopologyLayers after) {
+        final Set<String> repositories = new HashSet<>();
+        before.getLayers().forEach(repositories::addAll);
+        after.getLayers().forEach(repositories::addAll);
+        return repositories;
+    }
+}
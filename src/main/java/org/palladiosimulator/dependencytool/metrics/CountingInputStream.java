@@ -0,0 +1,54 @@
+package org.palladiosimulator.dependencytool.metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream that adds the number of bytes read to a counter of the {@link Metrics}.
+ */
+public class CountingInputStream extends FilterInputStream {
+
+    private final String counter;
+    private long count;
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param      in       The stream to count
+     * @param      counter  The name of the counter the read bytes are added to
+     */
+    public CountingInputStream(InputStream in, String counter) {
+        super(in);
+        this.counter = counter;
+    }
+
+    /**
+     * Returns the number of bytes read from this stream.
+     *
+     * @return     The number of bytes.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int b = super.read();
+        if (b >= 0) {
+            count++;
+            Metrics.get().count(counter);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        final int read = super.read(b, off, len);
+        if (read > 0) {
+            count += read;
+            Metrics.get().count(counter, read);
+        }
+        return read;
+    }
+}
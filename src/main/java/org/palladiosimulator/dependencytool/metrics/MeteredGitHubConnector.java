@@ -0,0 +1,66 @@
+package org.palladiosimulator.dependencytool.metrics;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.kohsuke.github.connector.GitHubConnector;
+import org.kohsuke.github.connector.GitHubConnectorRequest;
+import org.kohsuke.github.connector.GitHubConnectorResponse;
+
+/**
+ * GitHub connector that counts the requests and received bytes of all GitHub API calls and tracks the remaining
+ * rate limit.
+ */
+public class MeteredGitHubConnector implements GitHubConnector {
+
+    /** The counter of GitHub API requests. */
+    public static final String REQUESTS = "github.requests";
+
+    /** The counter of bytes received from the GitHub API. */
+    public static final String BYTES = "github.bytes";
+
+    /** The gauge of the remaining GitHub rate limit. */
+    public static final String RATE_LIMIT_REMAINING = "github.ratelimit.remaining";
+
+    private final GitHubConnector delegate;
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param      delegate  The connector that actually sends the requests
+     */
+    public MeteredGitHubConnector(GitHubConnector delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public GitHubConnectorResponse send(GitHubConnectorRequest request) throws IOException {
+        final Metrics metrics = Metrics.get();
+        metrics.count(REQUESTS);
+        final GitHubConnectorResponse response;
+        try (Metrics.Timing timing = metrics.time("github.request")) {
+            response = delegate.send(request);
+        }
+
+        final String remaining = response.header("X-RateLimit-Remaining");
+        if (remaining != null) {
+            try {
+                metrics.gauge(RATE_LIMIT_REMAINING, Long.parseLong(remaining.trim()));
+            } catch (NumberFormatException e) {
+                // not a valid rate limit header, keep the last known value
+            }
+        }
+        return new GitHubConnectorResponse(request, response.statusCode(), response.allHeaders()) {
+            @Override
+            public InputStream bodyStream() throws IOException {
+                final InputStream body = response.bodyStream();
+                return body == null ? null : new CountingInputStream(body, BYTES);
+            }
+
+            @Override
+            public void close() throws IOException {
+                response.close();
+            }
+        };
+    }
+}
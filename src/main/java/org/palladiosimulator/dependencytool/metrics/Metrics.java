@@ -0,0 +1,295 @@
+package org.palladiosimulator.dependencytool.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process wide registry for performance measurements of a run.
+ *
+ * Records the time spent in each phase, counters (e.g. HTTP requests and bytes), gauges (e.g. the remaining GitHub
+ * rate limit), cache hits and misses and the latency of each analysed repository and update site. All methods are
+ * thread safe and cheap enough to be called from the analysis threads.
+ */
+public final class Metrics {
+
+    private static final Metrics INSTANCE = new Metrics();
+
+    private static final String CACHE_PREFIX = "cache.";
+    private static final String HIT_SUFFIX = ".hit";
+    private static final String MISS_SUFFIX = ".miss";
+
+    private final Map<String, Phase> phases = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> gauges = new ConcurrentHashMap<>();
+    private final Map<String, Long> repositoryLatencies = new ConcurrentHashMap<>();
+    private final Map<String, Long> updateSiteLatencies = new ConcurrentHashMap<>();
+    private volatile long startedAt = System.currentTimeMillis();
+
+    private Metrics() {
+    }
+
+    /**
+     * Returns the registry of this process.
+     *
+     * @return     The metrics registry.
+     */
+    public static Metrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts measuring a phase. The measurement is recorded when the returned timing is closed.
+     *
+     * @param      phase  The name of the phase
+     * @return     The running timing.
+     */
+    public Timing time(String phase) {
+        return new Timing(phase);
+    }
+
+    /**
+     * Records one execution of a phase.
+     *
+     * @param      phase  The name of the phase
+     * @param      nanos  The duration of the execution in nanoseconds
+     */
+    public void record(String phase, long nanos) {
+        phases.computeIfAbsent(phase, key -> new Phase()).add(nanos);
+    }
+
+    /**
+     * Increments a counter by one.
+     *
+     * @param      counter  The name of the counter
+     */
+    public void count(String counter) {
+        count(counter, 1);
+    }
+
+    /**
+     * Increments a counter.
+     *
+     * @param      counter  The name of the counter
+     * @param      amount   The amount to add
+     */
+    public void count(String counter, long amount) {
+        counters.computeIfAbsent(counter, key -> new LongAdder()).add(amount);
+    }
+
+    /**
+     * Sets a gauge to its current value.
+     *
+     * @param      gauge  The name of the gauge
+     * @param      value  The current value
+     */
+    public void gauge(String gauge, long value) {
+        gauges.computeIfAbsent(gauge, key -> new AtomicLong()).set(value);
+    }
+
+    /**
+     * Records a cache hit.
+     *
+     * @param      cache  The name of the cache
+     */
+    public void hit(String cache) {
+        count(CACHE_PREFIX + cache + HIT_SUFFIX);
+    }
+
+    /**
+     * Records a cache miss.
+     *
+     * @param      cache  The name of the cache
+     */
+    public void miss(String cache) {
+        count(CACHE_PREFIX + cache + MISS_SUFFIX);
+    }
+
+    /**
+     * Records how long the analysis of a repository took.
+     *
+     * @param      repository  The name of the repository
+     * @param      nanos       The duration in nanoseconds
+     */
+    public void repositoryLatency(String repository, long nanos) {
+        repositoryLatencies.merge(repository, nanos, Long::sum);
+    }
+
+    /**
+     * Records how long reading a p2 repository of an update site took.
+     *
+     * @param      location  The URL of the p2 repository
+     * @param      nanos     The duration in nanoseconds
+     */
+    public void updateSiteLatency(String location, long nanos) {
+        updateSiteLatencies.merge(location, nanos, Long::sum);
+    }
+
+    /**
+     * Removes all measurements and restarts the run clock.
+     */
+    public void reset() {
+        phases.clear();
+        counters.clear();
+        gauges.clear();
+        repositoryLatencies.clear();
+        updateSiteLatencies.clear();
+        startedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Returns the start of the run.
+     *
+     * @return     The start in milliseconds since the epoch.
+     */
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * Returns the recorded phases.
+     *
+     * @return     A sorted map from phase name to its measurements.
+     */
+    public Map<String, Phase> getPhases() {
+        return Collections.unmodifiableMap(new TreeMap<>(phases));
+    }
+
+    /**
+     * Returns the current counter values.
+     *
+     * @return     A sorted map from counter name to value.
+     */
+    public Map<String, Long> getCounters() {
+        final Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, adder) -> values.put(name, adder.sum()));
+        return values;
+    }
+
+    /**
+     * Returns the current gauge values.
+     *
+     * @return     A sorted map from gauge name to value.
+     */
+    public Map<String, Long> getGauges() {
+        final Map<String, Long> values = new TreeMap<>();
+        gauges.forEach((name, gauge) -> values.put(name, gauge.get()));
+        return values;
+    }
+
+    /**
+     * Returns the hit rate of every cache that was used.
+     *
+     * @return     A sorted map from cache name to the ratio of hits to lookups.
+     */
+    public Map<String, Double> getCacheHitRates() {
+        final Map<String, Long> values = getCounters();
+        final Set<String> caches = new TreeSet<>();
+        for (String name : values.keySet()) {
+            if (name.startsWith(CACHE_PREFIX) && name.endsWith(HIT_SUFFIX)) {
+                caches.add(name.substring(CACHE_PREFIX.length(), name.length() - HIT_SUFFIX.length()));
+            } else if (name.startsWith(CACHE_PREFIX) && name.endsWith(MISS_SUFFIX)) {
+                caches.add(name.substring(CACHE_PREFIX.length(), name.length() - MISS_SUFFIX.length()));
+            }
+        }
+        final Map<String, Double> rates = new TreeMap<>();
+        for (String cache : caches) {
+            final long hits = values.getOrDefault(CACHE_PREFIX + cache + HIT_SUFFIX, 0L);
+            final long misses = values.getOrDefault(CACHE_PREFIX + cache + MISS_SUFFIX, 0L);
+            rates.put(cache, (double) hits / (hits + misses));
+        }
+        return rates;
+    }
+
+    /**
+     * Returns the analysis latency of each repository.
+     *
+     * @return     A map from repository name to nanoseconds.
+     */
+    public Map<String, Long> getRepositoryLatencies() {
+        return Collections.unmodifiableMap(repositoryLatencies);
+    }
+
+    /**
+     * Returns the read latency of each p2 repository.
+     *
+     * @return     A map from p2 repository URL to nanoseconds.
+     */
+    public Map<String, Long> getUpdateSiteLatencies() {
+        return Collections.unmodifiableMap(updateSiteLatencies);
+    }
+
+    /**
+     * Aggregated executions of a single phase.
+     */
+    public static final class Phase {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private void add(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        /**
+         * Returns how often the phase was executed.
+         *
+         * @return     The number of executions.
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * Returns the summed duration of all executions. Concurrent executions are summed up individually.
+         *
+         * @return     The total duration in nanoseconds.
+         */
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        /**
+         * Returns the longest execution.
+         *
+         * @return     The maximum duration in nanoseconds.
+         */
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+    }
+
+    /**
+     * A running measurement of a phase.
+     */
+    public final class Timing implements AutoCloseable {
+        private final String phase;
+        private final long start = System.nanoTime();
+
+        private Timing(String phase) {
+            this.phase = phase;
+        }
+
+        /**
+         * Returns the time since the measurement was started.
+         *
+         * @return     The elapsed time in nanoseconds.
+         */
+        public long elapsedNanos() {
+            return System.nanoTime() - start;
+        }
+
+        @Override
+        public void close() {
+            record(phase, elapsedNanos());
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package org.palladiosimulator.dependencytool.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Machine readable report of the {@link Metrics} of a run.
+ *
+ * The report can be written as JSON to track runs over time or in the Prometheus text format for the textfile
+ * collector of the node exporter.
+ */
+public class MetricsReport {
+
+    private static final int SLOWEST_ENTRIES = 10;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    private final Metrics metrics;
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param      metrics  The metrics to report
+     */
+    public MetricsReport(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Writes the report as JSON.
+     *
+     * @param      file  The file to write to
+     * @throws IOException if the file could not be written.
+     */
+    public void writeJson(Path file) throws IOException {
+        final Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", metrics.getStartedAt());
+        report.put("durationMillis", System.currentTimeMillis() - metrics.getStartedAt());
+
+        final Map<String, Object> phases = new LinkedHashMap<>();
+        metrics.getPhases().forEach((name, phase) -> {
+            final Map<String, Object> values = new LinkedHashMap<>();
+            values.put("count", phase.getCount());
+            values.put("totalMillis", phase.getTotalNanos() / NANOS_PER_MILLI);
+            values.put("maxMillis", phase.getMaxNanos() / NANOS_PER_MILLI);
+            phases.put(name, values);
+        });
+        report.put("phases", phases);
+        report.put("counters", metrics.getCounters());
+        report.put("gauges", metrics.getGauges());
+        report.put("cacheHitRates", metrics.getCacheHitRates());
+        report.put("repositoryLatencyMillis", percentiles(metrics.getRepositoryLatencies()));
+        report.put("slowestRepositories", slowest(metrics.getRepositoryLatencies()));
+        report.put("updateSiteLatencyMillis", percentiles(metrics.getUpdateSiteLatencies()));
+        report.put("slowestUpdateSites", slowest(metrics.getUpdateSiteLatencies()));
+
+        writeAtomically(file, writer -> new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(writer, report));
+    }
+
+    /**
+     * Writes the report in the Prometheus text exposition format.
+     *
+     * @param      file  The file to write to, usually in the directory of the textfile collector
+     * @throws IOException if the file could not be written.
+     */
+    public void writePrometheus(Path file) throws IOException {
+        final StringBuilder text = new StringBuilder();
+        text.append("# TYPE dependencytool_run_duration_seconds gauge\n");
+        sample(text, "dependencytool_run_duration_seconds", "",
+                (System.currentTimeMillis() - metrics.getStartedAt()) / 1000.0);
+
+        text.append("# TYPE dependencytool_phase_seconds_total counter\n");
+        metrics.getPhases().forEach((name, phase) -> sample(text, "dependencytool_phase_seconds_total",
+                label("phase", name), phase.getTotalNanos() / NANOS_PER_SECOND));
+        text.append("# TYPE dependencytool_phase_executions_total counter\n");
+        metrics.getPhases().forEach((name, phase) -> sample(text, "dependencytool_phase_executions_total",
+                label("phase", name), phase.getCount()));
+
+        metrics.getCounters().forEach((name, value) -> {
+            final String metric = "dependencytool_" + sanitize(name) + "_total";
+            text.append("# TYPE ").append(metric).append(" counter\n");
+            sample(text, metric, "", value);
+        });
+        metrics.getGauges().forEach((name, value) -> {
+            final String metric = "dependencytool_" + sanitize(name);
+            text.append("# TYPE ").append(metric).append(" gauge\n");
+            sample(text, metric, "", value);
+        });
+
+        text.append("# TYPE dependencytool_cache_hit_ratio gauge\n");
+        metrics.getCacheHitRates().forEach((cache, rate) -> sample(text, "dependencytool_cache_hit_ratio",
+                label("cache", cache), rate));
+
+        text.append("# TYPE dependencytool_repository_latency_seconds summary\n");
+        final List<Long> latencies = sorted(metrics.getRepositoryLatencies());
+        for (double quantile : QUANTILES) {
+            sample(text, "dependencytool_repository_latency_seconds", label("quantile", String.valueOf(quantile)),
+                    percentile(latencies, quantile) / NANOS_PER_SECOND);
+        }
+        sample(text, "dependencytool_repository_latency_seconds_sum", "",
+                latencies.stream().mapToLong(Long::longValue).sum() / NANOS_PER_SECOND);
+        sample(text, "dependencytool_repository_latency_seconds_count", "", latencies.size());
+
+        writeAtomically(file, writer -> writer.write(text.toString()));
+    }
+
+    private static Map<String, Object> percentiles(Map<String, Long> latencies) {
+        final List<Long> values = sorted(latencies);
+        final Map<String, Object> percentiles = new LinkedHashMap<>();
+        percentiles.put("count", values.size());
+        for (double quantile : QUANTILES) {
+            percentiles.put("p" + Math.round(quantile * 100), percentile(values, quantile) / NANOS_PER_MILLI);
+        }
+        percentiles.put("max", values.isEmpty() ? 0 : values.get(values.size() - 1) / NANOS_PER_MILLI);
+        return percentiles;
+    }
+
+    private static List<Map<String, Object>> slowest(Map<String, Long> latencies) {
+        return latencies.entrySet()
+            .stream()
+            .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+            .limit(SLOWEST_ENTRIES)
+            .map(entry -> {
+                final Map<String, Object> value = new LinkedHashMap<>();
+                value.put("name", entry.getKey());
+                value.put("millis", entry.getValue() / NANOS_PER_MILLI);
+                return value;
+            })
+            .collect(Collectors.toList());
+    }
+
+    private static List<Long> sorted(Map<String, Long> latencies) {
+        final List<Long> values = new ArrayList<>(latencies.values());
+        values.sort(null);
+        return values;
+    }
+
+    // nearest rank percentile
+    private static long percentile(List<Long> sorted, double quantile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        final int rank = (int) Math.ceil(quantile * sorted.size());
+        return sorted.get(Math.max(0, rank - 1));
+    }
+
+    private static void sample(StringBuilder text, String metric, String labels, double value) {
+        text.append(metric).append(labels).append(' ').append(Double.toString(value)).append('\n');
+    }
+
+    private static String label(String name, String value) {
+        return "{" + name + "=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"}";
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[^a-zA-Z0-9_]", "_");
+    }
+
+    // The textfile collector may read at any time, so never expose a partially written file.
+    private static void writeAtomically(Path file, WriterAction action) throws IOException {
+        final Path target = file.toAbsolutePath();
+        final Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            action.write(writer);
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @FunctionalInterface
+    private interface WriterAction {
+        void write(Writer writer) throws IOException;
+    }
+}
@@ -0,0 +1,25 @@
+package org.palladiosimulator.dependencytool.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for a single transaction of the Neo4j export.
+ */
+@Name("org.palladiosimulator.dependencytool.Neo4jTransaction")
+@Label("Neo4j Transaction")
+@Category({"Palladio", "Dependency Tool"})
+@Description("Transaction writing the nodes and relationships of a repository")
+public class Neo4jTransactionEvent extends jdk.jfr.Event {
+
+    @Label("Repository")
+    public String repository;
+
+    @Label("Kind")
+    public String kind;
+
+    @Label("Relationships")
+    public int relationships;
+}
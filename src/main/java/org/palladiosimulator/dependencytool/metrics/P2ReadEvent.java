@@ -0,0 +1,27 @@
+package org.palladiosimulator.dependencytool.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for reading the metadata of a p2 repository.
+ */
+@Name("org.palladiosimulator.dependencytool.P2Read")
+@Label("P2 Read")
+@Category({"Palladio", "Dependency Tool"})
+@Description("Read of the content metadata of a p2 repository, possibly answered from the cache")
+public class P2ReadEvent extends jdk.jfr.Event {
+
+    @Label("Location")
+    public String location;
+
+    @Label("File")
+    public String file;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
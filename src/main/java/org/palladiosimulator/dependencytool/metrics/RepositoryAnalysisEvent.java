@@ -0,0 +1,29 @@
+package org.palladiosimulator.dependencytool.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for the analysis of a single repository, i.e. the construction of a
+ * {@link org.palladiosimulator.dependencytool.github.RepositoryObject}.
+ */
+@Name("org.palladiosimulator.dependencytool.RepositoryAnalysis")
+@Label("Repository Analysis")
+@Category({"Palladio", "Dependency Tool"})
+@Description("Calculation of the required and provided bundles and features of a repository")
+public class RepositoryAnalysisEvent extends jdk.jfr.Event {
+
+    @Label("Repository")
+    public String repository;
+
+    @Label("Update Site")
+    public String updateSite;
+
+    @Label("Required Bundles")
+    public int requiredBundles;
+
+    @Label("Provided Bundles")
+    public int providedBundles;
+}
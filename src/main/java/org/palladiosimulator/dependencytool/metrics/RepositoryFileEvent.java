@@ -0,0 +1,30 @@
+package org.palladiosimulator.dependencytool.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for fetching and parsing a single file (MANIFEST.MF or feature.xml) of a repository.
+ */
+@Name("org.palladiosimulator.dependencytool.RepositoryFile")
+@Label("Repository File")
+@Category({"Palladio", "Dependency Tool"})
+@Description("Fetch and parse of a manifest or feature file from GitHub")
+public class RepositoryFileEvent extends jdk.jfr.Event {
+
+    @Label("Repository")
+    public String repository;
+
+    @Label("Path")
+    public String path;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Found")
+    public boolean found;
+}
@@ -0,0 +1,22 @@
+package org.palladiosimulator.dependencytool.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for one pass resolving the dependencies between all repositories.
+ */
+@Name("org.palladiosimulator.dependencytool.Resolution")
+@Label("Dependency Resolution")
+@Category({"Palladio", "Dependency Tool"})
+@Description("Resolution of required bundles and features to the repositories providing them")
+public class ResolutionEvent extends jdk.jfr.Event {
+
+    @Label("Repositories")
+    public int repositories;
+
+    @Label("Dependencies")
+    public int dependencies;
+}
@@ -8,10 +8,13 @@ import static org.neo4j.configuration.GraphDatabaseSettings.DEFAULT_DATABASE_NAM
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 import org.neo4j.dbms.api.DatabaseManagementService;
@@ -21,8 +24,12 @@ import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.RelationshipType;
 import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.schema.IndexDefinition;
 import org.neo4j.io.fs.FileUtils;
 import org.palladiosimulator.dependencytool.github.RepositoryObject;
+import org.palladiosimulator.dependencytool.graph.RepositoryMetrics;
+import org.palladiosimulator.dependencytool.metrics.Metrics;
+import org.palladiosimulator.dependencytool.metrics.Neo4jTransactionEvent;
 
 /**
  * The Class EmbeddedNeo4j. An object that hold a Neo4j resource until it is
@@ -37,40 +44,22 @@ public class EmbeddedNeo4j implements AutoCloseable {
     private enum Relationships implements RelationshipType {
 
         /** The depending on repository relationships. */
-        REPOSITORY("depending on repository"),
+        REPOSITORY,
         /** The require the feature relationships. */
-        REQUIRE_FEATURE("require the feature"),
+        REQUIRE_FEATURE,
         /** The require the bundle relationships. */
-        REQUIRE_BUNDLE("require the bundle"),
+        REQUIRE_BUNDLE,
         /** The provide the feature relationships. */
-        PROVIDE_FEATURE("provide the feature"),
+        PROVIDE_FEATURE,
         /** The provide the bundle relationships. */
-        PROVIDE_BUNDLE("provide the bundle");
-
-        /** The relationship message. */
-        private final String message;
-
-        /**
-         * Instantiates a new relationships.
-         *
-         * @param message the message for the relationship
-         */
-        Relationships(String message) {
-            this.message = message;
-        }
-
-        /**
-         * Gets the relationship message.
-         *
-         * @return the message
-         */
-        public String getMessage() {
-            return this.message;
-        }
+        PROVIDE_BUNDLE
     }
 
     private static final Logger LOGGER = Logger.getLogger(EmbeddedNeo4j.class.getName());
 
+    /** The time to wait for the created indexes to be populated. */
+    private static final long INDEX_TIMEOUT_MINUTES = 5;
+
     /**
      * Registers a new virtual-machine shutdown hook for the database management
      * service.
@@ -155,24 +144,75 @@ public class EmbeddedNeo4j implements AutoCloseable {
     /**
      * Commit the given repository object to the Neo4j database instance.
      *
+     * Repository nodes additionally get their topology layer, depth, fan-in, fan-out and number of transitive
+     * dependents as properties, see {@link RepositoryMetrics}. The names of all nodes and the layers are indexed.
+     *
      * @param dependencies the repositories to commit
      */
     public void commit(Map<RepositoryObject, Set<RepositoryObject>> dependencies) {
-        for (final RepositoryObject repository : Objects.requireNonNull(dependencies,
-                "The list of repositories must not be null.").keySet()) {
+        try (Metrics.Timing timing = Metrics.get().time("neo4j.commit")) {
+            Objects.requireNonNull(dependencies, "The list of repositories must not be null.");
+            this.createIndexes();
+
+            final RepositoryMetrics metrics = RepositoryMetrics.of(dependencies);
+            if (!metrics.isAcyclic()) {
+                LOGGER.warning("The dependencies are cyclic, layer and depth are set to -1");
+            }
+            for (final RepositoryObject repository : dependencies.keySet()) {
 
-            this.commitFeature(repository);
-            this.commitBundle(repository);
-            this.commitRepository(repository, dependencies.get(repository));
+                this.commitFeature(repository);
+                this.commitBundle(repository);
+                this.commitRepository(repository, dependencies.get(repository), metrics);
+            }
+
+            try (Transaction tx = this.databaseService.beginTx()) {
+                tx.schema().awaitIndexesOnline(INDEX_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+            }
         }
     }
 
+    /**
+     * Creates the indexes on the names of all nodes and the layers of repositories unless they already exist.
+     */
+    private void createIndexes() {
+        try (Transaction tx = this.databaseService.beginTx()) {
+            this.createIndex(tx, this.repositoryLabel, "name");
+            this.createIndex(tx, this.repositoryLabel, "layer");
+            this.createIndex(tx, this.featureLabel, "name");
+            this.createIndex(tx, this.bundleLabel, "name");
+            tx.commit();
+        }
+    }
+
+    /**
+     * Creates an index unless it already exists.
+     *
+     * @param tx       the tx
+     * @param label    the label of the indexed nodes
+     * @param property the indexed property
+     */
+    private void createIndex(Transaction tx, Label label, String property) {
+        for (final IndexDefinition index : tx.schema().getIndexes(label)) {
+            final List<String> keys = new ArrayList<>();
+            index.getPropertyKeys().forEach(keys::add);
+            if (keys.equals(List.of(property))) {
+                return;
+            }
+        }
+        tx.schema().indexFor(label).on(property).create();
+    }
+
     /**
      * Commit bundle.
      *
      * @param repository the repository
      */
     private void commitBundle(final RepositoryObject repository) {
+        final Neo4jTransactionEvent event = new Neo4jTransactionEvent();
+        event.begin();
+        event.repository = repository.getName();
+        event.kind = "bundle";
+        event.relationships = repository.getRequiredBundles().size() + repository.getProvidedBundles().size();
         try (Transaction tx = this.databaseService.beginTx()) {
             for (final String bundle : repository.getRequiredBundles()) {
                 final String repositoryName = repository.getName();
@@ -200,6 +240,8 @@ public class EmbeddedNeo4j implements AutoCloseable {
             }
 
             tx.commit();
+        } finally {
+            event.commit();
         }
     }
 
@@ -209,6 +251,11 @@ public class EmbeddedNeo4j implements AutoCloseable {
      * @param repository the repository
      */
     private void commitFeature(final RepositoryObject repository) {
+        final Neo4jTransactionEvent event = new Neo4jTransactionEvent();
+        event.begin();
+        event.repository = repository.getName();
+        event.kind = "feature";
+        event.relationships = repository.getRequiredFeatures().size() + repository.getProvidedFeatures().size();
         try (Transaction tx = this.databaseService.beginTx()) {
             for (final String feature : repository.getRequiredFeatures()) {
                 final String repositoryName = repository.getName();
@@ -233,20 +280,35 @@ public class EmbeddedNeo4j implements AutoCloseable {
             }
 
             tx.commit();
+        } finally {
+            event.commit();
         }
     }
 
     /**
      * Commit repository.
      *
-     * @param repository the repository
+     * @param repository   the repository
+     * @param dependencies the repositories it depends on
+     * @param metrics      the metrics of all repositories
      */
-    private void commitRepository(final RepositoryObject repository, final Set<RepositoryObject> dependencies) {
+    private void commitRepository(final RepositoryObject repository, final Set<RepositoryObject> dependencies,
+            final RepositoryMetrics metrics) {
+        final Neo4jTransactionEvent event = new Neo4jTransactionEvent();
+        event.begin();
+        event.repository = repository.getName();
+        event.kind = "repository";
+        event.relationships = dependencies.size();
         try (Transaction tx = this.databaseService.beginTx()) {
-            for (final RepositoryObject dependency : dependencies) {
-                final String repositoryName = repository.getName();
-                final Node repositoryNode = this.getOrCreateRepositoryNode(tx, repositoryName);
+            final String repositoryName = repository.getName();
+            final Node repositoryNode = this.getOrCreateRepositoryNode(tx, repositoryName);
+            repositoryNode.setProperty("layer", metrics.getLayer(repositoryName));
+            repositoryNode.setProperty("depth", metrics.getDepth(repositoryName));
+            repositoryNode.setProperty("fanIn", metrics.getFanIn(repositoryName));
+            repositoryNode.setProperty("fanOut", metrics.getFanOut(repositoryName));
+            repositoryNode.setProperty("transitiveDependents", metrics.getTransitiveDependents(repositoryName));
 
+            for (final RepositoryObject dependency : dependencies) {
                 final String dependencyName = dependency.getName();
                 final Node dependencyNode = this.getOrCreateRepositoryNode(tx, dependencyName);
 
@@ -255,6 +317,8 @@ public class EmbeddedNeo4j implements AutoCloseable {
                 LOGGER.info(repositoryName + " -> " + dependencyName);
             }
             tx.commit();
+        } finally {
+            event.commit();
         }
     }
 
@@ -304,7 +368,8 @@ public class EmbeddedNeo4j implements AutoCloseable {
      * @param relation the relation
      */
     private void createRelationship(final Node from, final Node to, final Relationships relation) {
-        from.createRelationshipTo(to, relation).setProperty("message", relation.getMessage());
+        // the type already names the relationship, so it gets no properties
+        from.createRelationshipTo(to, relation);
     }
 
     /**
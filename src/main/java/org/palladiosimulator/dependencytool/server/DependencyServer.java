@@ -0,0 +1,358 @@
+package org.palladiosimulator.dependencytool.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+import org.kohsuke.github.GHRepository;
+import org.palladiosimulator.dependencytool.dependencies.DependencyCalculator;
+import org.palladiosimulator.dependencytool.dependencies.DependencyUpdate;
+import org.palladiosimulator.dependencytool.metrics.Metrics;
+import org.palladiosimulator.dependencytool.util.OutputFormatter;
+import org.palladiosimulator.dependencytool.util.OutputType;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Keeps the dependency graph in memory and answers queries over HTTP.
+ *
+ * The graph is calculated once on start and then refreshed in the background. A refresh builds a complete new
+ * {@link DependencySnapshot} which replaces the current one atomically, so queries never see a partially updated
+ * graph and are never blocked by a running refresh. If a refresh fails, the previous snapshot is kept.
+ *
+ * <ul>
+ * <li>{@code GET /repositories}, {@code /topology}, {@code /dependencies}: the output views, as json or with
+ * {@code ?format=text} in the text format of the command line interface. The topology of cyclic dependencies is
+ * answered with 409 Conflict and the cycle.</li>
+ * <li>{@code GET /dependents?repository=<user/repo>}: the repositories that directly depend on a repository</li>
+ * <li>{@code GET /closure?repository=<user/repo>[&direction=dependents]}: the transitive dependencies or
+ * dependents of a repository</li>
+ * <li>{@code GET /explain?from=<user/repo>&to=<user/repo>}: the shortest chain of requirements why a repository
+ * depends on another one</li>
+ * <li>{@code GET /status}: the age and size of the current snapshot</li>
+ * <li>{@code POST /webhook}: GitHub push and release events, see below</li>
+ * </ul>
+ *
+ * A webhook event analyses only the affected repository again. The reverse indexes of the
+ * {@link DependencyCalculator} and the topology are updated incrementally for the repositories whose dependencies
+ * can change. Webhook updates and full refreshes are executed one after another on the same thread.
+ */
+public class DependencyServer implements AutoCloseable {
+
+    /**
+     * Loads a GitHub repository by name, e.g. when it was pushed to.
+     */
+    @FunctionalInterface
+    public interface RepositoryLoader {
+        /**
+         * Loads a repository.
+         *
+         * @param      repository  The full repository name
+         * @return     The repository.
+         * @throws IOException if the repository could not be loaded.
+         */
+        GHRepository load(String repository) throws IOException;
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(DependencyServer.class.getName());
+
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final String TEXT = "text/plain; charset=utf-8";
+    private static final int HANDLER_THREADS = 4;
+    private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    private final InetSocketAddress address;
+    private final Callable<DependencyCalculator> analysis;
+    private final RepositoryLoader repositoryLoader;
+    private final String webhookSecret;
+    private final Duration refreshInterval;
+    private final AtomicReference<DependencySnapshot> snapshot = new AtomicReference<>();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // only accessed by the refresh thread after the start
+    private DependencyCalculator calculator;
+
+    private HttpServer server;
+    private ExecutorService handlerExecutor;
+    private ScheduledExecutorService refreshExecutor;
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param      address           The address to listen on
+     * @param      analysis          Analyses all repositories, called for the initial snapshot and every refresh
+     * @param      repositoryLoader  Loads single repositories named by webhook events
+     * @param      webhookSecret     The secret webhook payloads must be signed with or null to accept unsigned payloads
+     * @param      refreshInterval   The delay between the end of a refresh and the start of the next one
+     */
+    public DependencyServer(InetSocketAddress address,
+                            Callable<DependencyCalculator> analysis,
+                            RepositoryLoader repositoryLoader,
+                            String webhookSecret,
+                            Duration refreshInterval) {
+        this.address = address;
+        this.analysis = analysis;
+        this.repositoryLoader = repositoryLoader;
+        this.webhookSecret = webhookSecret;
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * Calculates the initial snapshot, starts listening and schedules the background refresh.
+     *
+     * @throws Exception if the initial snapshot could not be calculated or the server could not be started.
+     */
+    public void start() throws Exception {
+        calculator = analysis.call();
+        snapshot.set(DependencySnapshot.of(calculator.getDependencies(), calculator.getFeatureExpansion()));
+
+        // Without TCP_NODELAY, headers and body are sent in separate segments and delayed acknowledgements add
+        // tens of milliseconds to every response. The property is read once when the first server is created.
+        if (System.getProperty(NODELAY_PROPERTY) == null) {
+            System.setProperty(NODELAY_PROPERTY, "true");
+        }
+        server = HttpServer.create(address, 0);
+        server.createContext("/repositories", exchange -> serveView(exchange, OutputType.REPOSITORIES));
+        server.createContext("/topology", exchange -> serveView(exchange, OutputType.TOPOLOGY));
+        server.createContext("/dependencies", exchange -> serveView(exchange, OutputType.DEPENDENCIES));
+        server.createContext("/dependents", handler(this::serveDependents));
+        server.createContext("/closure", handler(this::serveClosure));
+        server.createContext("/explain", handler(this::serveExplanation));
+        server.createContext("/status", handler(this::serveStatus));
+        server.createContext("/webhook", handler(this::serveWebhook));
+        handlerExecutor = Executors.newFixedThreadPool(HANDLER_THREADS);
+        server.setExecutor(handlerExecutor);
+        server.start();
+
+        refreshExecutor = Executors.newSingleThreadScheduledExecutor();
+        refreshExecutor.scheduleWithFixedDelay(this::refresh, refreshInterval.toMillis(), refreshInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        LOGGER.info("Serving " + snapshot.get().getRepositories().size() + " repositories on port " + getPort());
+    }
+
+    /**
+     * Calculates a new snapshot and replaces the current one. Keeps the current snapshot if the calculation fails.
+     */
+    public void refresh() {
+        try (Metrics.Timing timing = Metrics.get().time("server.refresh")) {
+            final DependencyCalculator refreshed = analysis.call();
+            snapshot.set(DependencySnapshot.of(refreshed.getDependencies(), refreshed.getFeatureExpansion()));
+            calculator = refreshed;
+            LOGGER.info("Refreshed dependency graph in " + timing.elapsedNanos() / 1_000_000 + " ms");
+        } catch (Exception e) {
+            LOGGER.warning("Refreshing the dependency graph failed, keeping the previous one: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Analyses a single repository again and updates the current snapshot incrementally. Keeps the current snapshot
+     * if the analysis fails and rebuilds it completely if only the incremental update fails.
+     *
+     * @param      repository  The full repository name
+     */
+    public void update(String repository) {
+        try (Metrics.Timing timing = Metrics.get().time("server.update")) {
+            final DependencyUpdate update = calculator.update(repositoryLoader.load(repository));
+            DependencySnapshot updated;
+            try {
+                updated = snapshot.get().update(update, calculator.getFeatureExpansion());
+            } catch (RuntimeException e) {
+                // the calculator contains the update already, so the snapshot is rebuilt from it to stay consistent
+                LOGGER.warning("Updating the snapshot incrementally failed, rebuilding it: " + e.getMessage());
+                updated = DependencySnapshot.of(calculator.getDependencies(), calculator.getFeatureExpansion());
+            }
+            snapshot.set(updated);
+            // the repository itself is not part of the dependencies if it was removed or ignored
+            final long affected = update.getDependencies().keySet().stream()
+                .filter(analysed -> !analysed.getName().equals(repository))
+                .count();
+            LOGGER.info("Updated " + repository + " and " + affected + " affected repositories in "
+                    + timing.elapsedNanos() / 1_000_000 + " ms");
+        } catch (Exception e) {
+            LOGGER.warning("Updating " + repository + " failed, keeping the previous dependency graph: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the current snapshot.
+     *
+     * @return     The snapshot queries are answered from.
+     */
+    public DependencySnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Returns the port the server listens on, e.g. if it was started on an ephemeral port.
+     *
+     * @return     The port.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+        if (server != null) {
+            server.stop(0);
+        }
+        if (handlerExecutor != null) {
+            handlerExecutor.shutdownNow();
+        }
+    }
+
+    private void serveView(HttpExchange exchange, OutputType outputType) throws IOException {
+        final boolean jsonOutput = !"text".equals(query(exchange).get("format"));
+        final DependencySnapshot current = snapshot.get();
+        final Optional<byte[]> view = current.getView(outputType, jsonOutput);
+        if (view.isEmpty()) {
+            sendError(exchange, 409, "No topology, the dependencies are cyclic: " + current.getCycle().orElse(""));
+            return;
+        }
+        send(exchange, 200, jsonOutput ? JSON : TEXT, view.get());
+    }
+
+    private void serveDependents(HttpExchange exchange, Map<String, String> query) throws IOException {
+        final String repository = query.get("repository");
+        sendNames(exchange, repository, snapshot.get().getDependents(String.valueOf(repository)));
+    }
+
+    private void serveClosure(HttpExchange exchange, Map<String, String> query) throws IOException {
+        final String repository = query.get("repository");
+        final boolean dependents = "dependents".equals(query.get("direction"));
+        sendNames(exchange, repository, snapshot.get().getClosure(String.valueOf(repository), dependents));
+    }
+
+    private void serveExplanation(HttpExchange exchange, Map<String, String> query) throws IOException {
+        final String from = query.get("from");
+        final String to = query.get("to");
+        final DependencySnapshot current = snapshot.get();
+        if (from == null || to == null) {
+            sendError(exchange, 400, "Missing query parameter from or to");
+        } else if (!current.getRepositories().containsKey(from) || !current.getRepositories().containsKey(to)) {
+            sendError(exchange, 404, "Unknown repository " + (current.getRepositories().containsKey(from) ? to : from));
+        } else {
+            final boolean jsonOutput = !"text".equals(query.get("format"));
+            final String explanation = OutputFormatter.formatExplanation(jsonOutput, from, to,
+                    current.getExplanation(from, to));
+            send(exchange, 200, jsonOutput ? JSON : TEXT, explanation.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void serveStatus(HttpExchange exchange, Map<String, String> query) throws IOException {
+        final DependencySnapshot current = snapshot.get();
+        final Map<String, Object> status = new LinkedHashMap<>();
+        status.put("createdAt", current.getCreatedAt());
+        status.put("ageMillis", System.currentTimeMillis() - current.getCreatedAt());
+        status.put("repositories", current.getRepositories().size());
+        current.getCycle().ifPresent(cycle -> status.put("cycle", cycle));
+        send(exchange, 200, JSON, objectMapper.writeValueAsBytes(status));
+    }
+
+    private void serveWebhook(HttpExchange exchange, Map<String, String> query) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            sendError(exchange, 405, "Webhook events must be posted");
+            return;
+        }
+        final byte[] payload;
+        try (InputStream in = exchange.getRequestBody()) {
+            payload = in.readAllBytes();
+        }
+        if (webhookSecret != null && !WebhookEvent.verify(webhookSecret, payload,
+                exchange.getRequestHeaders().getFirst(WebhookEvent.SIGNATURE_HEADER))) {
+            sendError(exchange, 401, "Invalid signature");
+            return;
+        }
+        final Optional<WebhookEvent> event;
+        try {
+            event = WebhookEvent.parse(exchange.getRequestHeaders().getFirst(WebhookEvent.EVENT_HEADER), payload);
+        } catch (JsonProcessingException e) {
+            sendError(exchange, 400, "Invalid payload: " + e.getOriginalMessage());
+            return;
+        }
+        if (event.isEmpty()) {
+            send(exchange, 204, JSON, new byte[0]);
+            return;
+        }
+        // GitHub expects an answer within seconds, so the analysis runs after the event was accepted
+        refreshExecutor.execute(() -> update(event.get().getRepository()));
+        send(exchange, 202, JSON, objectMapper.writeValueAsBytes(Map.of("repository", event.get().getRepository())));
+    }
+
+    private void sendNames(HttpExchange exchange, String repository, Optional<Set<String>> names) throws IOException {
+        if (repository == null) {
+            sendError(exchange, 400, "Missing query parameter repository");
+        } else if (names.isEmpty()) {
+            sendError(exchange, 404, "Unknown repository " + repository);
+        } else {
+            send(exchange, 200, JSON, objectMapper.writeValueAsBytes(names.get()));
+        }
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, JSON, objectMapper.writeValueAsBytes(Map.of("error", message)));
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        // a length of -1 announces an empty body
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        final Map<String, String> query = new HashMap<>();
+        final String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) {
+            return query;
+        }
+        for (String parameter : raw.split("&")) {
+            final int separator = parameter.indexOf('=');
+            if (separator > 0) {
+                query.put(URLDecoder.decode(parameter.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    private HttpHandler handler(QueryHandler queryHandler) {
+        return exchange -> {
+            try {
+                queryHandler.handle(exchange, query(exchange));
+            } catch (JsonProcessingException e) {
+                sendError(exchange, 500, e.getMessage());
+            }
+        };
+    }
+
+    @FunctionalInterface
+    private interface QueryHandler {
+        void handle(HttpExchange exchange, Map<String, String> query) throws IOException;
+    }
+}
@@ -0,0 +1,330 @@
+package org.palladiosimulator.dependencytool.server;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.palladiosimulator.dependencytool.dependencies.DependencyUpdate;
+import org.palladiosimulator.dependencytool.dependencies.FeatureExpansion;
+import org.palladiosimulator.dependencytool.github.RepositoryObject;
+import org.palladiosimulator.dependencytool.graph.DependencyExplanations;
+import org.palladiosimulator.dependencytool.graph.TopologyLayers;
+import org.palladiosimulator.dependencytool.metrics.Metrics;
+import org.palladiosimulator.dependencytool.util.OutputFormatter;
+import org.palladiosimulator.dependencytool.util.OutputType;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+/**
+ * Immutable result of one dependency calculation as served by the {@link DependencyServer}.
+ *
+ * The adjacency maps are built when the snapshot is created, so queries only look up prepared data. Views are
+ * rendered on their first request and explanations are prepared per depending repository on its first query, so a
+ * snapshot that is replaced before it is queried costs little. A snapshot can be derived from a previous one after
+ * single repositories were analysed again, which patches the adjacency maps and recomputes the topology only for the
+ * affected repositories.
+ *
+ * Cyclic dependencies have no topology layers, so a snapshot of them has no topology view. All other views and
+ * queries are available regardless.
+ */
+public final class DependencySnapshot {
+
+    private static final Set<OutputType> VIEWS = EnumSet.of(OutputType.REPOSITORIES, OutputType.TOPOLOGY,
+            OutputType.DEPENDENCIES);
+
+    private final long createdAt;
+    private final Map<RepositoryObject, Set<RepositoryObject>> graph;
+    private final Map<String, RepositoryObject> repositories;
+    private final Map<String, Set<String>> dependencies;
+    private final Map<String, Set<String>> dependents;
+    // null if the dependencies are cyclic
+    private final TopologyLayers layers;
+    private final String cycle;
+    private final Supplier<DependencyExplanations> explanations;
+    private final Map<OutputType, byte[]> jsonViews = new ConcurrentHashMap<>();
+    private final Map<OutputType, byte[]> textViews = new ConcurrentHashMap<>();
+
+    private DependencySnapshot(Map<RepositoryObject, Set<RepositoryObject>> graph,
+            Map<String, RepositoryObject> repositories, TopologyLayers layers, String cycle,
+            Map<String, Set<String>> dependencies, Map<String, Set<String>> dependents,
+            Optional<FeatureExpansion> expansion) {
+        this.createdAt = System.currentTimeMillis();
+        this.graph = Collections.unmodifiableMap(graph);
+        this.repositories = Collections.unmodifiableMap(repositories);
+        this.layers = layers;
+        this.cycle = cycle;
+        this.dependencies = Collections.unmodifiableMap(dependencies);
+        this.dependents = Collections.unmodifiableMap(dependents);
+        this.explanations = explainLazily(this.graph, expansion);
+    }
+
+    /**
+     * Creates a snapshot of calculated dependencies.
+     *
+     * @param      dependencies  The dependencies between the repositories as returned by the dependency calculator
+     * @param      expansion     The feature expansion of the dependency calculator, if it expands features
+     * @return     The snapshot.
+     */
+    public static DependencySnapshot of(Map<RepositoryObject, Set<RepositoryObject>> dependencies,
+            Optional<FeatureExpansion> expansion) {
+        final Map<String, Set<String>> forward = forward(dependencies);
+        TopologyLayers layers = null;
+        String cycle = null;
+        try (Metrics.Timing timing = Metrics.get().time("topology")) {
+            layers = TopologyLayers.of(forward);
+        } catch (IllegalArgumentException e) {
+            cycle = e.getMessage();
+        }
+        final Map<String, RepositoryObject> repositories = new TreeMap<>();
+        dependencies.keySet().forEach(repository -> repositories.put(repository.getName(), repository));
+        return new DependencySnapshot(new HashMap<>(dependencies), repositories, layers, cycle, forward,
+                reverse(forward), expansion);
+    }
+
+    /**
+     * Creates a new snapshot with the dependencies of some repositories replaced. Only the entries of the changed
+     * repositories and of the repositories they depended on or depend on now are replaced, all other entries are
+     * shared with this snapshot.
+     *
+     * @param      update     The result of analysing single repositories again
+     * @param      expansion  The feature expansion of the dependency calculator, if it expands features
+     * @return     The new snapshot. This snapshot is not changed.
+     */
+    public DependencySnapshot update(DependencyUpdate update, Optional<FeatureExpansion> expansion) {
+        final Set<String> changed = new HashSet<>(update.getRemoved());
+        update.getDependencies().keySet().forEach(repository -> changed.add(repository.getName()));
+
+        // repositories are replaced by their new analysis result, so match them by name
+        final Map<RepositoryObject, Set<RepositoryObject>> graph = new HashMap<>(this.graph);
+        final Map<String, RepositoryObject> repositories = new TreeMap<>(this.repositories);
+        for (String name : changed) {
+            final RepositoryObject previous = repositories.remove(name);
+            if (previous != null) {
+                graph.remove(previous);
+            }
+        }
+        graph.putAll(update.getDependencies());
+        update.getDependencies().keySet().forEach(repository -> repositories.put(repository.getName(), repository));
+
+        // the sets are shared with this snapshot, so every changed reverse entry is copied once before it is patched
+        final Map<String, Set<String>> forward = new TreeMap<>(dependencies);
+        final Map<String, Set<String>> reverse = new TreeMap<>(dependents);
+        final Map<String, Set<String>> patched = new HashMap<>();
+        for (String name : changed) {
+            final Set<String> previous = forward.remove(name);
+            if (previous != null) {
+                previous.forEach(dependency -> patch(reverse, patched, dependency).remove(name));
+            }
+        }
+        for (Map.Entry<RepositoryObject, Set<RepositoryObject>> entry : update.getDependencies().entrySet()) {
+            final String name = entry.getKey().getName();
+            final Set<String> names = names(entry.getValue());
+            forward.put(name, Collections.unmodifiableSet(names));
+            patch(reverse, patched, name);
+            names.forEach(dependency -> patch(reverse, patched, dependency).add(name));
+        }
+        for (String name : changed) {
+            if (!forward.containsKey(name) && patch(reverse, patched, name).isEmpty()) {
+                patched.remove(name);
+                reverse.remove(name);
+            }
+        }
+        patched.forEach((name, names) -> reverse.put(name, Collections.unmodifiableSet(names)));
+
+        TopologyLayers updatedLayers = null;
+        String updatedCycle = null;
+        try (Metrics.Timing timing = Metrics.get().time("topology.update")) {
+            // the layers of a cyclic graph are unknown, so they are computed completely once the cycle is gone
+            updatedLayers = layers != null ? layers.update(forward, reverse, changed) : TopologyLayers.of(forward);
+        } catch (IllegalArgumentException e) {
+            updatedCycle = e.getMessage();
+        }
+        return new DependencySnapshot(graph, repositories, updatedLayers, updatedCycle, forward, reverse, expansion);
+    }
+
+    /**
+     * Returns the creation time of the snapshot.
+     *
+     * @return     The creation time in milliseconds since the epoch.
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Returns all repositories of the snapshot.
+     *
+     * @return     A sorted map from full repository name to repository.
+     */
+    public Map<String, RepositoryObject> getRepositories() {
+        return repositories;
+    }
+
+    /**
+     * Returns the cycle that prevents the topology from being computed.
+     *
+     * @return     The description of the cycle or empty if the dependencies are acyclic.
+     */
+    public Optional<String> getCycle() {
+        return Optional.ofNullable(cycle);
+    }
+
+    /**
+     * Returns a rendered output view. Views are rendered on their first request.
+     *
+     * @param      outputType  The output type, one of REPOSITORIES, TOPOLOGY or DEPENDENCIES
+     * @param      jsonOutput  Set to true for the json representation
+     * @return     The rendered view as UTF-8 or empty if the output type has no textual representation or is the
+     *             topology of cyclic dependencies.
+     * @throws JsonProcessingException if the view could not be rendered.
+     */
+    public Optional<byte[]> getView(OutputType outputType, boolean jsonOutput) throws JsonProcessingException {
+        if (!VIEWS.contains(outputType) || outputType == OutputType.TOPOLOGY && layers == null) {
+            return Optional.empty();
+        }
+        final Map<OutputType, byte[]> views = jsonOutput ? jsonViews : textViews;
+        final byte[] view = views.get(outputType);
+        if (view != null) {
+            return Optional.of(view);
+        }
+        // concurrent first requests wait for one rendering instead of rendering the same view each
+        synchronized (views) {
+            byte[] rendered = views.get(outputType);
+            if (rendered == null) {
+                rendered = render(outputType, jsonOutput);
+                views.put(outputType, rendered);
+            }
+            return Optional.of(rendered);
+        }
+    }
+
+    /**
+     * Returns the repositories a repository directly depends on.
+     *
+     * @param      repository  The full repository name
+     * @return     The sorted names of the dependencies or empty if the repository is unknown.
+     */
+    public Optional<Set<String>> getDependencies(String repository) {
+        return Optional.ofNullable(dependencies.get(repository));
+    }
+
+    /**
+     * Returns the repositories that directly depend on a repository.
+     *
+     * @param      repository  The full repository name
+     * @return     The sorted names of the dependents or empty if the repository is unknown.
+     */
+    public Optional<Set<String>> getDependents(String repository) {
+        return Optional.ofNullable(dependents.get(repository));
+    }
+
+    /**
+     * Returns the transitive closure of a repository.
+     *
+     * @param      repository  The full repository name
+     * @param      dependents  Set to true to follow dependents instead of dependencies
+     * @return     The sorted names of all transitively reachable repositories excluding the repository itself or
+     *             empty if the repository is unknown.
+     */
+    public Optional<Set<String>> getClosure(String repository, boolean dependents) {
+        final Map<String, Set<String>> edges = dependents ? this.dependents : this.dependencies;
+        if (!edges.containsKey(repository)) {
+            return Optional.empty();
+        }
+        final Set<String> closure = new TreeSet<>();
+        final Deque<String> queue = new ArrayDeque<>(edges.get(repository));
+        while (!queue.isEmpty()) {
+            final String next = queue.poll();
+            if (closure.add(next)) {
+                queue.addAll(edges.getOrDefault(next, Set.of()));
+            }
+        }
+        closure.remove(repository);
+        return Optional.of(closure);
+    }
+
+    /**
+     * Explains the transitive dependency of one repository on another.
+     *
+     * @param      from  The full name of the depending repository
+     * @param      to    The full name of the repository it depends on
+     * @return     The steps of a shortest dependency chain or empty if the first repository does not depend on the
+     *             second one.
+     */
+    public Optional<List<DependencyExplanations.Step>> getExplanation(String from, String to) {
+        return explanations.get().explain(from, to);
+    }
+
+    private byte[] render(OutputType outputType, boolean jsonOutput) throws JsonProcessingException {
+        if (outputType != OutputType.TOPOLOGY) {
+            return bytes(OutputFormatter.format(outputType, jsonOutput, graph));
+        }
+        final List<Set<RepositoryObject>> topology = new ArrayList<>();
+        for (Set<String> layer : layers.getLayers()) {
+            topology.add(layer.stream().map(repositories::get).collect(Collectors.toCollection(TreeSet::new)));
+        }
+        return bytes(OutputFormatter.formatTopology(jsonOutput, topology));
+    }
+
+    // Prepares the explanations on the first query, most snapshots of a busy webhook are never asked for one.
+    private static Supplier<DependencyExplanations> explainLazily(Map<RepositoryObject, Set<RepositoryObject>> graph,
+            Optional<FeatureExpansion> expansion) {
+        return new Supplier<DependencyExplanations>() {
+            private DependencyExplanations explanations;
+
+            @Override
+            public synchronized DependencyExplanations get() {
+                if (explanations == null) {
+                    explanations = new DependencyExplanations(graph, expansion);
+                }
+                return explanations;
+            }
+        };
+    }
+
+    private static Map<String, Set<String>> forward(Map<RepositoryObject, Set<RepositoryObject>> graph) {
+        final Map<String, Set<String>> forward = new TreeMap<>();
+        graph.forEach((repository, dependencies) -> forward.put(repository.getName(),
+                Collections.unmodifiableSet(names(dependencies))));
+        return forward;
+    }
+
+    private static Map<String, Set<String>> reverse(Map<String, Set<String>> forward) {
+        final Map<String, Set<String>> reverse = new TreeMap<>();
+        forward.keySet().forEach(repository -> reverse.put(repository, new TreeSet<>()));
+        forward.forEach((repository, dependencies) -> dependencies
+            .forEach(dependency -> reverse.computeIfAbsent(dependency, key -> new TreeSet<>()).add(repository)));
+        reverse.replaceAll((repository, dependents) -> Collections.unmodifiableSet(dependents));
+        return reverse;
+    }
+
+    // Returns the reverse entry of a repository as a modifiable copy, copying it on the first call of an update.
+    private static Set<String> patch(Map<String, Set<String>> reverse, Map<String, Set<String>> patched,
+            String repository) {
+        return patched.computeIfAbsent(repository,
+                key -> new TreeSet<>(reverse.getOrDefault(key, Collections.emptySet())));
+    }
+
+    private static Set<String> names(Set<RepositoryObject> repositories) {
+        return repositories.stream().map(RepositoryObject::getName).collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
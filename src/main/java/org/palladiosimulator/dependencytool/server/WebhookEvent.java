@@ -0,0 +1,124 @@
+package org.palladiosimulator.dependencytool.server;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Optional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * A GitHub webhook delivery that requires a repository to be analysed again.
+ *
+ * Only pushes to the default branch and release events are relevant, because only they can change the manifests,
+ * features or update site of a repository.
+ */
+public final class WebhookEvent {
+
+    /** The header containing the event type. */
+    public static final String EVENT_HEADER = "X-GitHub-Event";
+
+    /** The header containing the HMAC of the payload. */
+    public static final String SIGNATURE_HEADER = "X-Hub-Signature-256";
+
+    private static final String SIGNATURE_PREFIX = "sha256=";
+    private static final String HMAC = "HmacSHA256";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final String type;
+    private final String repository;
+
+    private WebhookEvent(String type, String repository) {
+        this.type = type;
+        this.repository = repository;
+    }
+
+    /**
+     * Parses a webhook delivery.
+     *
+     * @param      type     The event type from the {@value #EVENT_HEADER} header
+     * @param      payload  The JSON payload
+     * @return     The event or empty if the delivery does not affect the dependencies of a repository, e.g. a push to
+     *             another branch or a ping.
+     * @throws IOException if the payload is no valid JSON.
+     */
+    public static Optional<WebhookEvent> parse(String type, byte[] payload) throws IOException {
+        final JsonNode root = OBJECT_MAPPER.readTree(payload);
+        final String repository = root.path("repository").path("full_name").asText(null);
+        if (repository == null) {
+            return Optional.empty();
+        }
+        if ("push".equals(type)) {
+            final String defaultBranch = root.path("repository").path("default_branch").asText();
+            if (!root.path("ref").asText().equals("refs/heads/" + defaultBranch)) {
+                return Optional.empty();
+            }
+            return Optional.of(new WebhookEvent(type, repository));
+        }
+        if ("release".equals(type)) {
+            return Optional.of(new WebhookEvent(type, repository));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Verifies the signature GitHub computes with the secret of the webhook.
+     *
+     * @param      secret     The secret of the webhook
+     * @param      payload    The payload as received
+     * @param      signature  The value of the {@value #SIGNATURE_HEADER} header, may be null
+     * @return     true if the signature matches the payload.
+     */
+    public static boolean verify(String secret, byte[] payload, String signature) {
+        if (signature == null || !signature.startsWith(SIGNATURE_PREFIX)) {
+            return false;
+        }
+        final byte[] expected = (SIGNATURE_PREFIX + sign(secret, payload)).getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(expected, signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Computes the signature of a payload.
+     *
+     * @param      secret   The secret of the webhook
+     * @param      payload  The payload
+     * @return     The hex encoded HMAC-SHA256 of the payload.
+     */
+    public static String sign(String secret, byte[] payload) {
+        try {
+            final Mac mac = Mac.getInstance(HMAC);
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC));
+            final StringBuilder hex = new StringBuilder();
+            for (byte b : mac.doFinal(payload)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not supported", e);
+        }
+    }
+
+    /**
+     * Returns the event type.
+     *
+     * @return     push or release.
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Returns the repository that has to be analysed again.
+     *
+     * @return     The full repository name.
+     */
+    public String getRepository() {
+        return repository;
+    }
+}
@@ -0,0 +1,472 @@
+package org.palladiosimulator.dependencytool.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.palladiosimulator.dependencytool.github.RepositoryObject;
+
+/**
+ * Versioned binary snapshot of analysed repositories and their dependencies.
+ *
+ * The file is memory-mapped when it is opened and read in place, nothing is parsed up front. It consists of
+ * <ol>
+ * <li>a header: magic number, format version, number of strings, number of repositories, size of the int pool and
+ * size of the string data</li>
+ * <li>the end offset of every string in the string data; the strings are sorted, so they can be searched</li>
+ * <li>one fixed size record per repository, sorted by name: the string ids of name, GitHub URL and update site (-1
+ * if there is none) and the int pool offsets of the required bundles, required features, provided bundles,
+ * provided features and dependencies</li>
+ * <li>the int pool: every list is stored as its length followed by its string ids, dependencies as repository
+ * indices</li>
+ * <li>the UTF-8 string data</li>
+ * </ol>
+ * All values are big endian.
+ */
+public final class BinarySnapshot {
+
+    /** The magic number at the start of every snapshot ("PDTS"). */
+    public static final int MAGIC = 0x50445453;
+
+    /** The current format version. Snapshots of other versions are rejected. */
+    public static final int VERSION = 1;
+
+    private static final int HEADER_INTS = 6;
+    private static final int RECORD_INTS = 8;
+    private static final int NAME = 0;
+    private static final int GITHUB_URL = 1;
+    private static final int UPDATE_SITE = 2;
+    private static final int REQUIRED_BUNDLES = 3;
+    private static final int REQUIRED_FEATURES = 4;
+    private static final int PROVIDED_BUNDLES = 5;
+    private static final int PROVIDED_FEATURES = 6;
+    private static final int DEPENDENCIES = 7;
+
+    /**
+     * The lists of bundles and features stored per repository.
+     */
+    public enum Artifacts {
+        /** The bundles a repository requires. */
+        REQUIRED_BUNDLES(BinarySnapshot.REQUIRED_BUNDLES),
+        /** The features a repository requires. */
+        REQUIRED_FEATURES(BinarySnapshot.REQUIRED_FEATURES),
+        /** The bundles a repository provides. */
+        PROVIDED_BUNDLES(BinarySnapshot.PROVIDED_BUNDLES),
+        /** The features a repository provides. */
+        PROVIDED_FEATURES(BinarySnapshot.PROVIDED_FEATURES);
+
+        private final int field;
+
+        Artifacts(int field) {
+            this.field = field;
+        }
+    }
+
+    private final ByteBuffer buffer;
+    private final int stringCount;
+    private final int repositoryCount;
+    private final int stringOffsets;
+    private final int records;
+    private final int intPool;
+    private final int stringData;
+
+    private BinarySnapshot(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_INTS * Integer.BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a dependency snapshot");
+        }
+        final int version = buffer.getInt(Integer.BYTES);
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + ", expected " + VERSION);
+        }
+        this.stringCount = buffer.getInt(2 * Integer.BYTES);
+        this.repositoryCount = buffer.getInt(3 * Integer.BYTES);
+        final int intPoolSize = buffer.getInt(4 * Integer.BYTES);
+        final int stringDataSize = buffer.getInt(5 * Integer.BYTES);
+        this.stringOffsets = HEADER_INTS * Integer.BYTES;
+        this.records = stringOffsets + stringCount * Integer.BYTES;
+        this.intPool = records + repositoryCount * RECORD_INTS * Integer.BYTES;
+        this.stringData = intPool + intPoolSize * Integer.BYTES;
+        if (stringData + stringDataSize != buffer.limit()) {
+            throw new IOException("Truncated dependency snapshot");
+        }
+    }
+
+    /**
+     * Opens a snapshot by mapping it into memory.
+     *
+     * @param      file  The snapshot file
+     * @return     The snapshot.
+     * @throws IOException if the file could not be read or is no snapshot of the current version.
+     */
+    public static BinarySnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new BinarySnapshot(buffer);
+        }
+    }
+
+    /**
+     * Creates a snapshot in memory, e.g. to compare the result of a run with a snapshot file.
+     *
+     * @param      dependencies  The dependencies as returned by the dependency calculator
+     * @return     The snapshot.
+     */
+    public static BinarySnapshot of(Map<RepositoryObject, Set<RepositoryObject>> dependencies) {
+        try {
+            return new BinarySnapshot(encode(dependencies));
+        } catch (IOException e) {
+            throw new IllegalStateException("Encoded an invalid snapshot", e);
+        }
+    }
+
+    /**
+     * Writes the dependencies calculated for a set of repositories as snapshot. An existing file is replaced
+     * atomically.
+     *
+     * @param      dependencies  The dependencies as returned by the dependency calculator
+     * @param      file          The snapshot file
+     * @throws IOException if the file could not be written.
+     */
+    public static void write(Map<RepositoryObject, Set<RepositoryObject>> dependencies, Path file) throws IOException {
+        final ByteBuffer buffer = encode(dependencies);
+        final Path target = file.toAbsolutePath();
+        final Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static ByteBuffer encode(Map<RepositoryObject, Set<RepositoryObject>> dependencies) {
+        final TreeMap<String, RepositoryObject> repositories = new TreeMap<>();
+        dependencies.keySet().forEach(repository -> repositories.put(repository.getName(), repository));
+
+        final TreeSet<String> strings = new TreeSet<>();
+        for (RepositoryObject repository : repositories.values()) {
+            strings.add(repository.getName());
+            strings.add(repository.getGithubURL());
+            if (repository.getUpdateSite() != null) {
+                strings.add(repository.getUpdateSite());
+            }
+            strings.addAll(repository.getRequiredBundles());
+            strings.addAll(repository.getRequiredFeatures());
+            strings.addAll(repository.getProvidedBundles());
+            strings.addAll(repository.getProvidedFeatures());
+        }
+        final Map<String, Integer> stringIds = new TreeMap<>();
+        final List<byte[]> encoded = new ArrayList<>(strings.size());
+        int stringDataSize = 0;
+        for (String string : strings) {
+            stringIds.put(string, stringIds.size());
+            final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            encoded.add(bytes);
+            stringDataSize += bytes.length;
+        }
+        final Map<String, Integer> repositoryIndices = new TreeMap<>();
+        repositories.keySet().forEach(name -> repositoryIndices.put(name, repositoryIndices.size()));
+
+        final List<Integer> pool = new ArrayList<>();
+        final int[] records = new int[repositories.size() * RECORD_INTS];
+        int record = 0;
+        for (RepositoryObject repository : repositories.values()) {
+            records[record + NAME] = stringIds.get(repository.getName());
+            records[record + GITHUB_URL] = stringIds.get(repository.getGithubURL());
+            records[record + UPDATE_SITE] = repository.getUpdateSite() == null ? -1 : stringIds.get(repository.getUpdateSite());
+            records[record + REQUIRED_BUNDLES] = appendList(pool, repository.getRequiredBundles(), stringIds);
+            records[record + REQUIRED_FEATURES] = appendList(pool, repository.getRequiredFeatures(), stringIds);
+            records[record + PROVIDED_BUNDLES] = appendList(pool, repository.getProvidedBundles(), stringIds);
+            records[record + PROVIDED_FEATURES] = appendList(pool, repository.getProvidedFeatures(), stringIds);
+            final Set<String> repositoryDependencies = new TreeSet<>();
+            dependencies.get(repository).forEach(dependency -> repositoryDependencies.add(dependency.getName()));
+            records[record + DEPENDENCIES] = appendList(pool, repositoryDependencies, repositoryIndices);
+            record += RECORD_INTS;
+        }
+
+        final int size = (HEADER_INTS + strings.size() + records.length + pool.size()) * Integer.BYTES + stringDataSize;
+        final ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(strings.size()).putInt(repositories.size()).putInt(pool.size())
+            .putInt(stringDataSize);
+        int end = 0;
+        for (byte[] bytes : encoded) {
+            end += bytes.length;
+            buffer.putInt(end);
+        }
+        for (int value : records) {
+            buffer.putInt(value);
+        }
+        for (int value : pool) {
+            buffer.putInt(value);
+        }
+        encoded.forEach(buffer::put);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Returns the number of repositories.
+     *
+     * @return     The number of repositories.
+     */
+    public int getRepositoryCount() {
+        return repositoryCount;
+    }
+
+    /**
+     * Finds a repository by name.
+     *
+     * @param      name  The full repository name
+     * @return     The index of the repository or -1 if there is no repository with this name.
+     */
+    public int indexOf(String name) {
+        int low = 0;
+        int high = repositoryCount - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int comparison = getName(middle).compareTo(name);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the full name of a repository.
+     *
+     * @param      repository  The index of the repository
+     * @return     The full repository name.
+     */
+    public String getName(int repository) {
+        return getString(field(repository, NAME));
+    }
+
+    /**
+     * Returns the GitHub URL of a repository.
+     *
+     * @param      repository  The index of the repository
+     * @return     The GitHub URL.
+     */
+    public String getGithubUrl(int repository) {
+        return getString(field(repository, GITHUB_URL));
+    }
+
+    /**
+     * Returns the update site of a repository.
+     *
+     * @param      repository  The index of the repository
+     * @return     The update site URL or null if none was found.
+     */
+    public String getUpdateSite(int repository) {
+        final int id = field(repository, UPDATE_SITE);
+        return id < 0 ? null : getString(id);
+    }
+
+    /**
+     * Returns the bundles a repository requires.
+     *
+     * @param      repository  The index of the repository
+     * @return     The sorted bundle names, decoded on access.
+     */
+    public List<String> getRequiredBundles(int repository) {
+        return stringList(field(repository, REQUIRED_BUNDLES));
+    }
+
+    /**
+     * Returns the features a repository requires.
+     *
+     * @param      repository  The index of the repository
+     * @return     The sorted feature names, decoded on access.
+     */
+    public List<String> getRequiredFeatures(int repository) {
+        return stringList(field(repository, REQUIRED_FEATURES));
+    }
+
+    /**
+     * Returns the bundles a repository provides.
+     *
+     * @param      repository  The index of the repository
+     * @return     The sorted bundle names, decoded on access.
+     */
+    public List<String> getProvidedBundles(int repository) {
+        return stringList(field(repository, PROVIDED_BUNDLES));
+    }
+
+    /**
+     * Returns the features a repository provides.
+     *
+     * @param      repository  The index of the repository
+     * @return     The sorted feature names, decoded on access.
+     */
+    public List<String> getProvidedFeatures(int repository) {
+        return stringList(field(repository, PROVIDED_FEATURES));
+    }
+
+    /**
+     * Returns the string ids of a list of bundles or features of a repository without decoding them.
+     *
+     * @param      repository  The index of the repository
+     * @param      artifacts   The list to return
+     * @return     The string ids in ascending order, which is also the order of the names.
+     */
+    public int[] getStringIds(int repository, Artifacts artifacts) {
+        return poolList(field(repository, artifacts.field));
+    }
+
+    /**
+     * Returns the string id of the name of a repository without decoding it.
+     *
+     * @param      repository  The index of the repository
+     * @return     The string id. Repositories are sorted by name, so their name ids are ascending.
+     */
+    public int getNameId(int repository) {
+        return field(repository, NAME);
+    }
+
+    /**
+     * Returns the number of distinct strings of the snapshot.
+     *
+     * @return     The number of strings. String ids range from 0 to this number exclusive.
+     */
+    public int getStringCount() {
+        return stringCount;
+    }
+
+    /**
+     * Decodes a string.
+     *
+     * @param      id  The string id
+     * @return     The string. Strings with lower ids are lexicographically smaller.
+     */
+    public String getString(int id) {
+        if (id < 0 || id >= stringCount) {
+            throw new IndexOutOfBoundsException("String " + id + " of " + stringCount);
+        }
+        final int start = id == 0 ? 0 : buffer.getInt(stringOffsets + (id - 1) * Integer.BYTES);
+        final int end = buffer.getInt(stringOffsets + id * Integer.BYTES);
+        final byte[] bytes = new byte[end - start];
+        // absolute bulk get requires Java 13, a duplicate keeps the shared buffer position untouched
+        final ByteBuffer view = buffer.duplicate();
+        view.position(stringData + start);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the repositories a repository depends on.
+     *
+     * @param      repository  The index of the repository
+     * @return     The indices of the dependencies in ascending order.
+     */
+    public int[] getDependencies(int repository) {
+        return poolList(field(repository, DEPENDENCIES));
+    }
+
+    /**
+     * Returns the dependencies of all repositories by name, e.g. to compute the topology.
+     *
+     * @return     A sorted map from repository name to the sorted names of its dependencies.
+     */
+    public Map<String, Set<String>> getDependencies() {
+        final Map<String, Set<String>> dependencies = new TreeMap<>();
+        for (int repository = 0; repository < repositoryCount; repository++) {
+            final Set<String> names = new TreeSet<>();
+            for (int dependency : getDependencies(repository)) {
+                names.add(getName(dependency));
+            }
+            dependencies.put(getName(repository), names);
+        }
+        return dependencies;
+    }
+
+    /**
+     * Restores the analysed repositories and their dependencies, e.g. to format them again without an analysis.
+     * The requirements of the single bundles and features are not part of a snapshot and stay empty.
+     *
+     * @return     The dependencies between the repositories like the dependency calculator returns them.
+     */
+    public Map<RepositoryObject, Set<RepositoryObject>> toDependencies() {
+        final RepositoryObject[] repositories = new RepositoryObject[repositoryCount];
+        for (int repository = 0; repository < repositoryCount; repository++) {
+            repositories[repository] = new RepositoryObject(getName(repository), getGithubUrl(repository),
+                    getUpdateSite(repository), new TreeSet<>(getRequiredBundles(repository)),
+                    new TreeSet<>(getRequiredFeatures(repository)), new TreeSet<>(getProvidedBundles(repository)),
+                    new TreeSet<>(getProvidedFeatures(repository)));
+        }
+        final Map<RepositoryObject, Set<RepositoryObject>> dependencies = new HashMap<>();
+        for (int repository = 0; repository < repositoryCount; repository++) {
+            final Set<RepositoryObject> repositoryDependencies = new HashSet<>();
+            for (int dependency : getDependencies(repository)) {
+                repositoryDependencies.add(repositories[dependency]);
+            }
+            dependencies.put(repositories[repository], repositoryDependencies);
+        }
+        return dependencies;
+    }
+
+    private int field(int repository, int field) {
+        if (repository < 0 || repository >= repositoryCount) {
+            throw new IndexOutOfBoundsException("Repository " + repository + " of " + repositoryCount);
+        }
+        return buffer.getInt(records + (repository * RECORD_INTS + field) * Integer.BYTES);
+    }
+
+    private int poolInt(int index) {
+        return buffer.getInt(intPool + index * Integer.BYTES);
+    }
+
+    private int[] poolList(int offset) {
+        final int[] values = new int[poolInt(offset)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = poolInt(offset + 1 + i);
+        }
+        return values;
+    }
+
+    private List<String> stringList(int offset) {
+        final int size = poolInt(offset);
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException(index);
+                }
+                return getString(poolInt(offset + 1 + index));
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private static int appendList(List<Integer> pool, Collection<String> values, Map<String, Integer> ids) {
+        final int offset = pool.size();
+        pool.add(values.size());
+        values.stream().map(ids::get).sorted().forEach(pool::add);
+        return offset;
+    }
+}
@@ -0,0 +1,308 @@
+package org.palladiosimulator.dependencytool.snapshot;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import org.palladiosimulator.dependencytool.dependencies.ArtifactRequirements;
+import org.palladiosimulator.dependencytool.dependencies.UpdateSiteTypes;
+import org.palladiosimulator.dependencytool.github.RepositoryObject;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The analysed repositories of one shard, so the analysis can be spread across several processes or machines and
+ * merged afterwards.
+ *
+ * Repositories are assigned to shards by the hash of their full name, which is the same in every JVM, so every
+ * process of a sharded run takes a disjoint part of the same enumeration. A partial result holds the analysed
+ * repositories of every update site type, including the requirements of their bundles and features. Dependencies
+ * are resolved only after merging, because a requirement may be provided by a repository of another shard.
+ */
+@JsonPropertyOrder({"version", "shard", "shardCount", "repositories"})
+public final class PartialAnalysis {
+
+    /** The current format version. Partial results of other versions are rejected. */
+    public static final int VERSION = 1;
+
+    private static final Logger LOGGER = Logger.getLogger(PartialAnalysis.class.getName());
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private final int shard;
+    private final int shardCount;
+    private final Map<UpdateSiteTypes, List<RepositoryObject>> repositories;
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param      shard         The index of the shard, starting at 0
+     * @param      shardCount    The number of shards
+     * @param      repositories  The analysed repositories of the shard per update site type
+     */
+    public PartialAnalysis(int shard, int shardCount, Map<UpdateSiteTypes, ? extends Collection<RepositoryObject>> repositories) {
+        if (shardCount < 1 || shard < 0 || shard >= shardCount) {
+            throw new IllegalArgumentException("Invalid shard " + shard + "/" + shardCount);
+        }
+        this.shard = shard;
+        this.shardCount = shardCount;
+        this.repositories = new LinkedHashMap<>();
+        repositories.forEach((type, analysed) -> this.repositories.put(type,
+                Collections.unmodifiableList(analysed.stream().sorted().collect(Collectors.toList()))));
+    }
+
+    @JsonCreator
+    private PartialAnalysis(@JsonProperty("version") int version,
+                            @JsonProperty("shard") int shard,
+                            @JsonProperty("shardCount") int shardCount,
+                            @JsonProperty("repositories") Map<UpdateSiteTypes, List<Entry>> repositories) {
+        this(shard, shardCount, toRepositories(version, repositories));
+    }
+
+    /**
+     * Checks whether a repository belongs to a shard.
+     *
+     * @param      repository  The full repository name
+     * @param      shard       The index of the shard, starting at 0
+     * @param      shardCount  The number of shards
+     * @return     true if the shard analyses the repository.
+     */
+    public static boolean isInShard(String repository, int shard, int shardCount) {
+        // String.hashCode is specified, so the partition is the same in every process
+        return Math.floorMod(repository.hashCode(), shardCount) == shard;
+    }
+
+    /**
+     * Reads a partial result.
+     *
+     * @param      file  The file written by {@link #write(Writer)}
+     * @return     The partial result.
+     * @throws IOException if the file could not be read or is no partial result of the current version.
+     */
+    public static PartialAnalysis read(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return OBJECT_MAPPER.readValue(reader, PartialAnalysis.class);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid partial result " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Merges the partial results of all shards of a run.
+     *
+     * @param      partials  The partial results, one per shard
+     * @return     The analysed repositories of all shards per update site type.
+     * @throws IllegalArgumentException if the partial results belong to different runs, a shard is contained twice or
+     *                                  a shard is missing.
+     */
+    public static Map<UpdateSiteTypes, List<RepositoryObject>> merge(List<PartialAnalysis> partials) {
+        return merge(partials, false);
+    }
+
+    /**
+     * Merges the partial results of the shards of a run.
+     *
+     * @param      partials      The partial results, one per shard
+     * @param      allowPartial  Set to true to merge even if shards are missing. Their repositories are left out and
+     *                           dependencies on them are not resolved.
+     * @return     The analysed repositories of the merged shards per update site type.
+     * @throws IllegalArgumentException if the partial results belong to different runs, a shard is contained twice or
+     *                                  a shard is missing and partial results are not allowed.
+     */
+    public static Map<UpdateSiteTypes, List<RepositoryObject>> merge(List<PartialAnalysis> partials,
+            boolean allowPartial) {
+        if (partials.isEmpty()) {
+            throw new IllegalArgumentException("Nothing to merge");
+        }
+        final int shardCount = partials.get(0).shardCount;
+        final Set<UpdateSiteTypes> types = partials.get(0).repositories.keySet();
+        final BitSet merged = new BitSet(shardCount);
+        final Map<UpdateSiteTypes, List<RepositoryObject>> repositories = new LinkedHashMap<>();
+        for (PartialAnalysis partial : partials) {
+            if (partial.shardCount != shardCount || !partial.repositories.keySet().equals(types)) {
+                throw new IllegalArgumentException("Shard " + partial.shard + "/" + partial.shardCount
+                        + " belongs to another run than shard " + partials.get(0).shard + "/" + shardCount);
+            }
+            if (merged.get(partial.shard)) {
+                throw new IllegalArgumentException("Shard " + partial.shard + "/" + shardCount + " is merged twice");
+            }
+            merged.set(partial.shard);
+            partial.repositories.forEach((type, analysed) -> repositories
+                .computeIfAbsent(type, key -> new ArrayList<>()).addAll(analysed));
+        }
+        if (merged.cardinality() < shardCount) {
+            final BitSet missing = new BitSet(shardCount);
+            missing.set(0, shardCount);
+            missing.andNot(merged);
+            final String message = "Only " + merged.cardinality() + " of " + shardCount + " shards are merged, "
+                    + "missing shards: " + missing;
+            if (!allowPartial) {
+                throw new IllegalArgumentException(message);
+            }
+            LOGGER.warning(message + ", the repositories of the missing shards are left out");
+        }
+        repositories.values().forEach(Collections::sort);
+        return repositories;
+    }
+
+    /**
+     * Writes the partial result as json.
+     *
+     * @param      writer  The writer to write to. It is neither flushed nor closed.
+     * @throws IOException if the result could not be written.
+     */
+    public void write(Writer writer) throws IOException {
+        OBJECT_MAPPER.writeValue(writer, this);
+    }
+
+    /**
+     * Returns the format version.
+     *
+     * @return     The version.
+     */
+    public int getVersion() {
+        return VERSION;
+    }
+
+    /**
+     * Returns the index of the shard.
+     *
+     * @return     The index, starting at 0.
+     */
+    public int getShard() {
+        return shard;
+    }
+
+    /**
+     * Returns the number of shards of the run.
+     *
+     * @return     The number of shards.
+     */
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Returns the analysed repositories of the shard.
+     *
+     * @return     The repositories sorted by name per update site type.
+     */
+    @JsonIgnore
+    public Map<UpdateSiteTypes, List<RepositoryObject>> getAnalysedRepositories() {
+        return Collections.unmodifiableMap(repositories);
+    }
+
+    @JsonProperty("repositories")
+    private Map<UpdateSiteTypes, List<Entry>> getEntries() {
+        final Map<UpdateSiteTypes, List<Entry>> entries = new LinkedHashMap<>();
+        repositories.forEach((type, analysed) -> entries.put(type,
+                analysed.stream().map(Entry::new).collect(Collectors.toList())));
+        return entries;
+    }
+
+    private static Map<UpdateSiteTypes, List<RepositoryObject>> toRepositories(int version,
+            Map<UpdateSiteTypes, List<Entry>> entries) {
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported version " + version);
+        }
+        final Map<UpdateSiteTypes, List<RepositoryObject>> repositories = new LinkedHashMap<>();
+        entries.forEach((type, analysed) -> repositories.put(type,
+                analysed.stream().map(Entry::toRepository).collect(Collectors.toList())));
+        return repositories;
+    }
+
+    /**
+     * An analysed repository including the requirements of its bundles and features.
+     */
+    @JsonPropertyOrder({"name", "githubUrl", "updatesiteUrl", "requiredBundles", "requiredFeatures",
+        "providedBundles", "providedFeatures", "bundleRequirements", "featureRequirements"})
+    private static final class Entry {
+        private final RepositoryObject repository;
+
+        private Entry(RepositoryObject repository) {
+            this.repository = repository;
+        }
+
+        @JsonCreator
+        private Entry(@JsonProperty("name") String name,
+                      @JsonProperty("githubUrl") String githubUrl,
+                      @JsonProperty("updatesiteUrl") String updateSite,
+                      @JsonProperty("requiredBundles") Set<String> requiredBundles,
+                      @JsonProperty("requiredFeatures") Set<String> requiredFeatures,
+                      @JsonProperty("providedBundles") Set<String> providedBundles,
+                      @JsonProperty("providedFeatures") Set<String> providedFeatures,
+                      @JsonProperty("bundleRequirements") Map<String, ArtifactRequirements> bundleRequirements,
+                      @JsonProperty("featureRequirements") Map<String, ArtifactRequirements> featureRequirements) {
+            this(new RepositoryObject(name, githubUrl, updateSite, requiredBundles, requiredFeatures, providedBundles,
+                    providedFeatures, bundleRequirements, featureRequirements));
+        }
+
+        @JsonProperty
+        public String getName() {
+            return repository.getName();
+        }
+
+        @JsonProperty
+        public String getGithubUrl() {
+            return repository.getGithubURL();
+        }
+
+        @JsonProperty("updatesiteUrl")
+        public String getUpdateSite() {
+            return repository.getUpdateSite();
+        }
+
+        @JsonProperty
+        public Set<String> getRequiredBundles() {
+            return repository.getRequiredBundles();
+        }
+
+        @JsonProperty
+        public Set<String> getRequiredFeatures() {
+            return repository.getRequiredFeatures();
+        }
+
+        @JsonProperty
+        public Set<String> getProvidedBundles() {
+            return repository.getProvidedBundles();
+        }
+
+        @JsonProperty
+        public Set<String> getProvidedFeatures() {
+            return repository.getProvidedFeatures();
+        }
+
+        @JsonProperty
+        public Map<String, ArtifactRequirements> getBundleRequirements() {
+            return new TreeMap<>(repository.getBundleRequirements());
+        }
+
+        @JsonProperty
+        public Map<String, ArtifactRequirements> getFeatureRequirements() {
+            return new TreeMap<>(repository.getFeatureRequirements());
+        }
+
+        private RepositoryObject toRepository() {
+            return repository;
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package org.palladiosimulator.dependencytool.snapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.palladiosimulator.dependencytool.graph.TopologyLayers;
+import org.palladiosimulator.dependencytool.snapshot.BinarySnapshot.Artifacts;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * Differences between two dependency calculations, e.g. of yesterday and today or of the nightly and the release
+ * update sites.
+ *
+ * The strings of both snapshots are interned into one sorted table by merging their sorted string tables. Since
+ * string ids are assigned in lexicographic order in every snapshot, all sorted id lists stay sorted after the
+ * translation, so repositories and their lists are compared by merging them. The comparison is linear in the size
+ * of both snapshots apart from computing the topology layers.
+ *
+ * Cyclic dependencies have no topology layers. If a snapshot is cyclic, it is flagged and layer changes are only
+ * reported for repositories that were added to or removed from the other, acyclic snapshot.
+ */
+@JsonPropertyOrder({"cyclicBefore", "cyclicAfter", "addedRepositories", "removedRepositories", "changedRepositories"})
+public final class SnapshotDiff {
+
+    private final List<String> addedRepositories = new ArrayList<>();
+    private final List<String> removedRepositories = new ArrayList<>();
+    private final List<RepositoryDiff> changedRepositories = new ArrayList<>();
+
+    private final List<String> strings = new ArrayList<>();
+    private final int[] beforeIds;
+    private final int[] afterIds;
+    private final boolean cyclicBefore;
+    private final boolean cyclicAfter;
+
+    private SnapshotDiff(BinarySnapshot before, BinarySnapshot after) {
+        this.beforeIds = new int[before.getStringCount()];
+        this.afterIds = new int[after.getStringCount()];
+        intern(before, after);
+
+        final TopologyLayers beforeLayers = layers(before);
+        final TopologyLayers afterLayers = layers(after);
+        this.cyclicBefore = beforeLayers == null;
+        this.cyclicAfter = afterLayers == null;
+
+        int i = 0;
+        int j = 0;
+        while (i < before.getRepositoryCount() || j < after.getRepositoryCount()) {
+            final int beforeName = i < before.getRepositoryCount() ? beforeIds[before.getNameId(i)] : Integer.MAX_VALUE;
+            final int afterName = j < after.getRepositoryCount() ? afterIds[after.getNameId(j)] : Integer.MAX_VALUE;
+            final String name = strings.get(Math.min(beforeName, afterName));
+            final RepositoryDiff diff = new RepositoryDiff(name);
+            if (beforeName < afterName) {
+                removedRepositories.add(name);
+                compare(diff, before, i++, beforeIds, null, -1, afterIds);
+                diff.setLayers(layer(beforeLayers, name), -1);
+            } else if (beforeName > afterName) {
+                addedRepositories.add(name);
+                compare(diff, null, -1, beforeIds, after, j++, afterIds);
+                diff.setLayers(-1, layer(afterLayers, name));
+            } else {
+                compare(diff, before, i++, beforeIds, after, j++, afterIds);
+                if (beforeLayers != null && afterLayers != null) {
+                    diff.setLayers(beforeLayers.getLayer(name), afterLayers.getLayer(name));
+                }
+            }
+            if (!diff.isEmpty()) {
+                changedRepositories.add(diff);
+            }
+        }
+    }
+
+    /**
+     * Compares two dependency calculations.
+     *
+     * @param      before  The earlier or reference calculation
+     * @param      after   The later calculation
+     * @return     The differences.
+     */
+    public static SnapshotDiff compare(BinarySnapshot before, BinarySnapshot after) {
+        return new SnapshotDiff(before, after);
+    }
+
+    /**
+     * Checks whether the dependencies of the earlier calculation are cyclic and thus have no topology layers.
+     *
+     * @return     true if they are cyclic.
+     */
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    public boolean isCyclicBefore() {
+        return cyclicBefore;
+    }
+
+    /**
+     * Checks whether the dependencies of the later calculation are cyclic and thus have no topology layers.
+     *
+     * @return     true if they are cyclic.
+     */
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    public boolean isCyclicAfter() {
+        return cyclicAfter;
+    }
+
+    /**
+     * Returns the repositories that are only part of the later calculation.
+     *
+     * @return     The sorted repository names.
+     */
+    public List<String> getAddedRepositories() {
+        return Collections.unmodifiableList(addedRepositories);
+    }
+
+    /**
+     * Returns the repositories that are only part of the earlier calculation.
+     *
+     * @return     The sorted repository names.
+     */
+    public List<String> getRemovedRepositories() {
+        return Collections.unmodifiableList(removedRepositories);
+    }
+
+    /**
+     * Returns the changes of every repository whose dependencies, bundles, features or layer differ, including
+     * added and removed repositories.
+     *
+     * @return     The changes sorted by repository name.
+     */
+    public List<RepositoryDiff> getChangedRepositories() {
+        return Collections.unmodifiableList(changedRepositories);
+    }
+
+    /**
+     * Checks whether both calculations are equal.
+     *
+     * @return     true if nothing changed.
+     */
+    @JsonIgnore
+    public boolean isEmpty() {
+        return changedRepositories.isEmpty();
+    }
+
+    // Returns null if the dependencies are cyclic.
+    private static TopologyLayers layers(BinarySnapshot snapshot) {
+        try {
+            return TopologyLayers.of(snapshot.getDependencies());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static int layer(TopologyLayers layers, String repository) {
+        return layers == null ? -1 : layers.getLayer(repository);
+    }
+
+    // Merges both sorted string tables into one and records the new id of every string of both snapshots.
+    private void intern(BinarySnapshot before, BinarySnapshot after) {
+        int i = 0;
+        int j = 0;
+        String beforeString = i < beforeIds.length ? before.getString(i) : null;
+        String afterString = j < afterIds.length ? after.getString(j) : null;
+        while (beforeString != null || afterString != null) {
+            final int comparison = beforeString == null ? 1
+                    : afterString == null ? -1 : beforeString.compareTo(afterString);
+            final int id = strings.size();
+            if (comparison <= 0) {
+                strings.add(beforeString);
+                beforeIds[i++] = id;
+                beforeString = i < beforeIds.length ? before.getString(i) : null;
+            } else {
+                strings.add(afterString);
+            }
+            if (comparison >= 0) {
+                afterIds[j++] = id;
+                afterString = j < afterIds.length ? after.getString(j) : null;
+            }
+        }
+    }
+
+    private void compare(RepositoryDiff diff, BinarySnapshot before, int beforeRepository, int[] beforeIds,
+            BinarySnapshot after, int afterRepository, int[] afterIds) {
+        diff.add("dependencies", merge(dependencyIds(before, beforeRepository, beforeIds),
+                dependencyIds(after, afterRepository, afterIds)));
+        diff.add("requiredBundles",
+                merge(artifactIds(before, beforeRepository, Artifacts.REQUIRED_BUNDLES, beforeIds),
+                        artifactIds(after, afterRepository, Artifacts.REQUIRED_BUNDLES, afterIds)));
+        diff.add("requiredFeatures",
+                merge(artifactIds(before, beforeRepository, Artifacts.REQUIRED_FEATURES, beforeIds),
+                        artifactIds(after, afterRepository, Artifacts.REQUIRED_FEATURES, afterIds)));
+        diff.add("providedBundles",
+                merge(artifactIds(before, beforeRepository, Artifacts.PROVIDED_BUNDLES, beforeIds),
+                        artifactIds(after, afterRepository, Artifacts.PROVIDED_BUNDLES, afterIds)));
+        diff.add("providedFeatures",
+                merge(artifactIds(before, beforeRepository, Artifacts.PROVIDED_FEATURES, beforeIds),
+                        artifactIds(after, afterRepository, Artifacts.PROVIDED_FEATURES, afterIds)));
+    }
+
+    private Change merge(int[] before, int[] after) {
+        final Change change = new Change();
+        int i = 0;
+        int j = 0;
+        while (i < before.length || j < after.length) {
+            if (j == after.length || i < before.length && before[i] < after[j]) {
+                change.removed.add(strings.get(before[i++]));
+            } else if (i == before.length || after[j] < before[i]) {
+                change.added.add(strings.get(after[j++]));
+            } else {
+                i++;
+                j++;
+            }
+        }
+        return change;
+    }
+
+    private static int[] artifactIds(BinarySnapshot snapshot, int repository, Artifacts artifacts, int[] ids) {
+        if (snapshot == null) {
+            return new int[0];
+        }
+        final int[] local = snapshot.getStringIds(repository, artifacts);
+        for (int k = 0; k < local.length; k++) {
+            local[k] = ids[local[k]];
+        }
+        return local;
+    }
+
+    private static int[] dependencyIds(BinarySnapshot snapshot, int repository, int[] ids) {
+        if (snapshot == null) {
+            return new int[0];
+        }
+        // repositories are sorted by name, so the translated name ids are sorted as well
+        final int[] dependencies = snapshot.getDependencies(repository);
+        for (int k = 0; k < dependencies.length; k++) {
+            dependencies[k] = ids[snapshot.getNameId(dependencies[k])];
+        }
+        return dependencies;
+    }
+
+    /**
+     * The changes of a single repository.
+     */
+    @JsonPropertyOrder({"repository", "layerBefore", "layerAfter"})
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static final class RepositoryDiff {
+        private final String repository;
+        private final Map<String, Change> changes = new LinkedHashMap<>();
+        private Integer layerBefore;
+        private Integer layerAfter;
+
+        private RepositoryDiff(String repository) {
+            this.repository = repository;
+        }
+
+        /**
+         * Returns the name of the repository.
+         *
+         * @return     The full repository name.
+         */
+        public String getRepository() {
+            return repository;
+        }
+
+        /**
+         * Returns the topology layer in the earlier calculation if the layer changed.
+         *
+         * @return     The layer, -1 if the repository was added, or null if the layer did not change or one of the
+         *             calculations is cyclic.
+         */
+        public Integer getLayerBefore() {
+            return layerBefore;
+        }
+
+        /**
+         * Returns the topology layer in the later calculation if the layer changed.
+         *
+         * @return     The layer, -1 if the repository was removed, or null if the layer did not change or one of the
+         *             calculations is cyclic.
+         */
+        public Integer getLayerAfter() {
+            return layerAfter;
+        }
+
+        /**
+         * Returns the changed lists of the repository.
+         *
+         * @return     The changes of dependencies, requiredBundles, requiredFeatures, providedBundles and
+         *             providedFeatures, only containing lists that changed.
+         */
+        @JsonAnyGetter
+        public Map<String, Change> getChanges() {
+            return Collections.unmodifiableMap(changes);
+        }
+
+        private void add(String list, Change change) {
+            if (!change.isEmpty()) {
+                changes.put(list, change);
+            }
+        }
+
+        private void setLayers(int before, int after) {
+            if (before != after) {
+                this.layerBefore = before;
+                this.layerAfter = after;
+            }
+        }
+
+        private boolean isEmpty() {
+            return changes.isEmpty() && layerBefore == null;
+        }
+    }
+
+    /**
+     * The added and removed entries of a list.
+     */
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    public static final class Change {
+        private final List<String> added = new ArrayList<>();
+        private final List<String> removed = new ArrayList<>();
+
+        /**
+         * Returns the entries that are only part of the later calculation.
+         *
+         * @return     The sorted entries.
+         */
+        public List<String> getAdded() {
+            return Collections.unmodifiableList(added);
+        }
+
+        /**
+         * Returns the entries that are only part of the earlier calculation.
+         *
+         * @return     The sorted entries.
+         */
+        public List<String> getRemoved() {
+            return Collections.unmodifiableList(removed);
+        }
+
+        private boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty();
+        }
+    }
+}
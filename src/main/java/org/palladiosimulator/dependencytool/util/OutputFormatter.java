@@ -0,0 +1,399 @@
+package org.palladiosimulator.dependencytool.util;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.palladiosimulator.dependencytool.dependencies.ResolutionSummary;
+import org.palladiosimulator.dependencytool.dependencies.UpdateSiteTypes;
+import org.palladiosimulator.dependencytool.github.RepositoryObject;
+import org.palladiosimulator.dependencytool.graph.BundleGraph;
+import org.palladiosimulator.dependencytool.graph.DependencyExplanations;
+import org.palladiosimulator.dependencytool.graph.GraphicalRepresentation;
+import org.palladiosimulator.dependencytool.history.HistoryPoint;
+import org.palladiosimulator.dependencytool.local.WorkingCopyChange;
+import org.palladiosimulator.dependencytool.metrics.Metrics;
+import org.palladiosimulator.dependencytool.snapshot.SnapshotDiff;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Formats the calculated dependencies for the textual output types.
+ */
+public final class OutputFormatter {
+
+    // Holds the jackson writers, so they are only initialized when json is written. Text output does not load the
+    // jackson databind classes at all.
+    private static final class Json {
+        private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+        private static final ObjectWriter OBJECT_WRITER = OBJECT_MAPPER.writer();
+        // values are written one by one into a shared generator, flushing after each of them would defeat buffering
+        private static final ObjectWriter VALUE_WRITER = OBJECT_WRITER.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Formats the dependencies.
+     *
+     * @param      outputType    The output type, one of REPOSITORIES, TOPOLOGY, BUNDLE_TOPOLOGY or DEPENDENCIES
+     * @param      jsonOutput    Set to true to format the output as json
+     * @param      dependencies  The dependencies between the repositories
+     * @return     The formatted output.
+     * @throws JsonProcessingException if the output could not be serialized as json.
+     * @see        #write(OutputType, boolean, Map, Writer)
+     */
+    public static String format(OutputType outputType, boolean jsonOutput,
+            Map<RepositoryObject, Set<RepositoryObject>> dependencies) throws JsonProcessingException {
+        final StringWriter writer = new StringWriter();
+        try {
+            write(outputType, jsonOutput, dependencies, writer);
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Writes the formatted dependencies. The output is written while it is formatted, so it is never held in memory
+     * as a whole. Repositories, dependencies and the members of a layer are written in alphabetical order.
+     *
+     * @param      outputType    The output type, one of REPOSITORIES, TOPOLOGY, BUNDLE_TOPOLOGY or DEPENDENCIES
+     * @param      jsonOutput    Set to true to format the output as json
+     * @param      dependencies  The dependencies between the repositories
+     * @param      writer        The writer to write to. It is neither flushed nor closed.
+     * @throws IOException if the output could not be written.
+     */
+    public static void write(OutputType outputType, boolean jsonOutput,
+            Map<RepositoryObject, Set<RepositoryObject>> dependencies, Writer writer) throws IOException {
+        switch (outputType) {
+            case TOPOLOGY:
+                final GraphicalRepresentation graphRep = new GraphicalRepresentation(dependencies);
+                try (Metrics.Timing timing = Metrics.get().time("topology")) {
+                    graphRep.createTopologyHierarchy();
+                }
+                writeTopology(jsonOutput, graphRep.getTopologyHierachy(), writer);
+                break;
+            case BUNDLE_TOPOLOGY:
+                final BundleGraph bundleGraph = BundleGraph.of(dependencies.keySet());
+                final List<int[]> buildLayers;
+                try (Metrics.Timing timing = Metrics.get().time("topology.bundles")) {
+                    buildLayers = bundleGraph.getBuildLayers();
+                }
+                writeBundleTopology(jsonOutput, bundleGraph, buildLayers, writer);
+                break;
+            case REPOSITORIES:
+                writeRepositories(jsonOutput, new TreeMap<>(dependencies), writer);
+                break;
+            case DEPENDENCIES:
+                writeDependencies(jsonOutput, new TreeMap<>(dependencies), writer);
+                break;
+            default:
+                throw new IllegalArgumentException("Output type " + outputType + " has no textual representation");
+        }
+    }
+
+    /**
+     * Writes the formatted dependencies of several update site types, one after another while they are formatted.
+     * Every json output is a document on its own, so they are combined to one object by type, e.g.
+     * {"nightly":...,"release":...}. Text outputs are preceded by a line with the type, e.g. # nightly.
+     *
+     * @param      outputType  The output type, one of REPOSITORIES, TOPOLOGY, BUNDLE_TOPOLOGY or DEPENDENCIES
+     * @param      jsonOutput  Set to true to format the output as json
+     * @param      results     The dependencies between the repositories of every update site type
+     * @param      writer      The writer to write to. It is neither flushed nor closed.
+     * @throws IOException if the output could not be written.
+     * @see        #write(OutputType, boolean, Map, Writer)
+     */
+    public static void writeByUpdateSiteType(OutputType outputType, boolean jsonOutput,
+            Map<UpdateSiteTypes, Map<RepositoryObject, Set<RepositoryObject>>> results, Writer writer)
+            throws IOException {
+        boolean first = true;
+        if (jsonOutput) {
+            writer.write("{");
+        }
+        for (Map.Entry<UpdateSiteTypes, Map<RepositoryObject, Set<RepositoryObject>>> result : results.entrySet()) {
+            if (jsonOutput) {
+                writer.write((first ? "" : ",") + "\"" + result.getKey() + "\":");
+            } else {
+                writer.write((first ? "" : "\n") + "# " + result.getKey() + "\n");
+            }
+            first = false;
+            write(outputType, jsonOutput, result.getValue(), writer);
+        }
+        if (jsonOutput) {
+            writer.write("}");
+        }
+    }
+
+    /**
+     * Formats an already calculated topology.
+     *
+     * @param      jsonOutput  Set to true to format the output as json
+     * @param      topology    The topology layers
+     * @return     The formatted topology.
+     * @throws JsonProcessingException if the output could not be serialized as json.
+     */
+    public static String formatTopology(boolean jsonOutput, List<Set<RepositoryObject>> topology)
+            throws JsonProcessingException {
+        final StringWriter writer = new StringWriter();
+        try {
+            writeTopology(jsonOutput, topology, writer);
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Writes an already calculated topology. The repositories of every layer are written in alphabetical order.
+     *
+     * @param      jsonOutput  Set to true to format the output as json
+     * @param      topology    The topology layers
+     * @param      writer      The writer to write to. It is neither flushed nor closed.
+     * @throws IOException if the output could not be written.
+     */
+    public static void writeTopology(boolean jsonOutput, List<Set<RepositoryObject>> topology, Writer writer)
+            throws IOException {
+        if (jsonOutput) {
+            final ObjectWriter topologyWriter = Json.VALUE_WRITER.withView(Views.Topology.class);
+            try (JsonGenerator generator = createGenerator(writer)) {
+                generator.writeStartArray();
+                for (Set<RepositoryObject> layer : topology) {
+                    generator.writeStartArray();
+                    for (RepositoryObject repository : new TreeSet<>(layer)) {
+                        topologyWriter.writeValue(generator, repository);
+                    }
+                    generator.writeEndArray();
+                }
+                generator.writeEndArray();
+            }
+            return;
+        }
+        final List<List<String>> layers = new ArrayList<>();
+        for (Set<RepositoryObject> layer : topology) {
+            layers.add(layer.stream().map(RepositoryObject::getName).sorted().collect(Collectors.toList()));
+        }
+        writeLayers(layers, writer);
+    }
+
+    /**
+     * Formats the explanation of a dependency.
+     *
+     * @param      jsonOutput  Set to true to format the output as json
+     * @param      from        The full name of the depending repository
+     * @param      to          The full name of the repository it depends on
+     * @param      steps       The dependency chain or empty if there is no dependency
+     * @return     The formatted explanation. The json representation of a missing dependency is an empty list.
+     * @throws JsonProcessingException if the output could not be serialized as json.
+     */
+    public static String formatExplanation(boolean jsonOutput, String from, String to,
+            Optional<List<DependencyExplanations.Step>> steps) throws JsonProcessingException {
+        if (jsonOutput) {
+            return Json.OBJECT_WRITER.writeValueAsString(steps.orElse(List.of()));
+        }
+        if (steps.isEmpty()) {
+            return from + " does not depend on " + to;
+        }
+        final StringBuilder explanation = new StringBuilder();
+        for (DependencyExplanations.Step step : steps.get()) {
+            explanation.append(step.getFrom()).append(" -> ").append(step.getTo()).append("\n");
+            for (DependencyExplanations.Requirement requirement : step.getRequirements()) {
+                explanation.append("  ").append(requirement).append("\n");
+            }
+        }
+        return explanation.toString().trim();
+    }
+
+    /**
+     * Formats the differences between two dependency calculations as json.
+     *
+     * @param      diff  The differences
+     * @return     The formatted differences.
+     * @throws JsonProcessingException if the output could not be serialized as json.
+     */
+    public static String formatDiff(SnapshotDiff diff) throws JsonProcessingException {
+        return Json.OBJECT_WRITER.writeValueAsString(diff);
+    }
+
+    /**
+     * Formats the dependency graphs at several points in time.
+     *
+     * @param      jsonOutput  Set to true to format the output as json
+     * @param      history     The dependency graph at every point in time
+     * @return     The formatted time series. The text representation is one summary line per point in time.
+     * @throws JsonProcessingException if the output could not be serialized as json.
+     */
+    public static String formatHistory(boolean jsonOutput, List<HistoryPoint> history) throws JsonProcessingException {
+        if (jsonOutput) {
+            return Json.OBJECT_WRITER.writeValueAsString(history);
+        }
+        final StringBuilder output = new StringBuilder();
+        for (HistoryPoint point : history) {
+            output.append(point.getPoint()).append(": ")
+                .append(point.getRepositories().size()).append(" repositories, ")
+                .append(point.getDependencyCount()).append(" dependencies, layers ")
+                .append(point.getLayerCounts() == null ? "cyclic" : point.getLayerCounts().toString())
+                .append("\n");
+        }
+        return output.toString().trim();
+    }
+
+    /**
+     * Formats the effect of changed working copies on the dependency graph.
+     *
+     * @param      jsonOutput  Set to true to format the output as json
+     * @param      change      The changed dependencies and layers
+     * @return     The formatted change. The text representation is one line per changed repository.
+     * @throws JsonProcessingException if the output could not be serialized as json.
+     */
+    public static String formatWorkingCopyChange(boolean jsonOutput, WorkingCopyChange change)
+            throws JsonProcessingException {
+        if (jsonOutput) {
+            return Json.OBJECT_WRITER.writeValueAsString(change);
+        }
+        final StringBuilder output = new StringBuilder();
+        change.getDependencies().forEach((repository, dependencies) -> output.append(repository).append(" -> ")
+            .append(String.join(", ", dependencies)).append("\n"));
+        change.getLayers().forEach((repository, layer) -> output.append(repository).append(": layer ")
+            .append(layer < 0 ? "removed" : layer.toString()).append("\n"));
+        if (change.getCycle() != null) {
+            output.append("cycle: ").append(change.getCycle()).append("\n");
+        }
+        return output.toString().trim();
+    }
+
+    /**
+     * Formats the classification of the requirements of a dependency calculation as json.
+     *
+     * @param      summary  The internal, external and unresolved requirements
+     * @return     The formatted summary.
+     * @throws JsonProcessingException if the output could not be serialized as json.
+     */
+    public static String formatResolutionSummary(ResolutionSummary summary) throws JsonProcessingException {
+        return Json.OBJECT_WRITER.writeValueAsString(summary);
+    }
+
+    private static void writeBundleTopology(boolean jsonOutput, BundleGraph bundleGraph, List<int[]> buildLayers,
+            Writer writer) throws IOException {
+        if (jsonOutput) {
+            try (JsonGenerator generator = createGenerator(writer)) {
+                generator.writeStartArray();
+                for (int[] layer : buildLayers) {
+                    generator.writeStartArray();
+                    for (int node : layer) {
+                        generator.writeStartObject();
+                        generator.writeStringField("kind", bundleGraph.getKind(node).toString());
+                        generator.writeStringField("name", bundleGraph.getName(node));
+                        generator.writeStringField("repository", bundleGraph.getOwner(node));
+                        generator.writeEndObject();
+                    }
+                    generator.writeEndArray();
+                }
+                generator.writeEndArray();
+            }
+            return;
+        }
+        final List<List<String>> layers = new ArrayList<>();
+        for (int[] layer : buildLayers) {
+            layers.add(Arrays.stream(layer).mapToObj(bundleGraph::getId).collect(Collectors.toList()));
+        }
+        writeLayers(layers, writer);
+    }
+
+    private static void writeRepositories(boolean jsonOutput, Map<RepositoryObject, Set<RepositoryObject>> dependencies,
+            Writer writer) throws IOException {
+        if (jsonOutput) {
+            final ObjectWriter repositoryWriter = Json.VALUE_WRITER.withView(Views.Repository.class);
+            try (JsonGenerator generator = createGenerator(writer)) {
+                generator.writeStartArray();
+                for (RepositoryObject repo : dependencies.keySet()) {
+                    repositoryWriter.writeValue(generator, repo);
+                }
+                generator.writeEndArray();
+            }
+            return;
+        }
+        for (final Map.Entry<RepositoryObject, Set<RepositoryObject>> entry : dependencies.entrySet()) {
+            final RepositoryObject repo = entry.getKey();
+            writer.append("Name: ").append(repo.getName()).append("\n");
+            writer.append("Address: ").append(repo.getGithubURL()).append("\n");
+            writer.append("UpdateSite: ").append(String.valueOf(repo.getUpdateSite())).append("\n");
+            writer.append("Dependencies: ").append(new TreeSet<>(entry.getValue()).toString()).append("\n");
+            writer.append("ProvidedFeatures: ").append(repo.getProvidedFeatures().toString()).append("\n");
+            writer.append("ProvidedBundles: ").append(repo.getProvidedBundles().toString()).append("\n");
+            writer.append("RequiredFeatures: ").append(repo.getRequiredFeatures().toString()).append("\n");
+            writer.append("RequiredBundles: ").append(repo.getRequiredBundles().toString()).append("\n");
+            writer.append("\n");
+        }
+    }
+
+    private static void writeDependencies(boolean jsonOutput, Map<RepositoryObject, Set<RepositoryObject>> dependencies,
+            Writer writer) throws IOException {
+        if (jsonOutput) {
+            try (JsonGenerator generator = createGenerator(writer)) {
+                generator.writeStartObject();
+                for (final Map.Entry<RepositoryObject, Set<RepositoryObject>> entry : dependencies.entrySet()) {
+                    generator.writeArrayFieldStart(entry.getKey().getName());
+                    for (RepositoryObject dependency : new TreeSet<>(entry.getValue())) {
+                        generator.writeString(dependency.getName());
+                    }
+                    generator.writeEndArray();
+                }
+                generator.writeEndObject();
+            }
+            return;
+        }
+        boolean first = true;
+        for (final Map.Entry<RepositoryObject, Set<RepositoryObject>> entry : dependencies.entrySet()) {
+            if (!first) {
+                writer.append("\n\n");
+            }
+            first = false;
+            writer.append(entry.getKey().getName()).append(":");
+            for (RepositoryObject dependency : new TreeSet<>(entry.getValue())) {
+                writer.append("\n  ").append(dependency.getName());
+            }
+        }
+    }
+
+    // Writes layers like List.toString with one layer per line.
+    private static void writeLayers(List<List<String>> layers, Writer writer) throws IOException {
+        writer.append('[');
+        for (int i = 0; i < layers.size(); i++) {
+            if (i > 0) {
+                writer.append(",\n ");
+            }
+            writer.append('[').append(String.join(", ", layers.get(i))).append(']');
+        }
+        writer.append(']');
+    }
+
+    // The generator must not close the writer, e.g. to keep the standard output open.
+    private static JsonGenerator createGenerator(Writer writer) throws IOException {
+        return Json.OBJECT_MAPPER.getFactory().createGenerator(writer).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * Private constructor to avoid object generation.
+     */
+    private OutputFormatter() {
+        throw new IllegalStateException("Utility-class constructor.");
+    }
+}
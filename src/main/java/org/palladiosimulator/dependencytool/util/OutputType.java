@@ -8,8 +8,16 @@ public enum OutputType {
     REPOSITORIES,
     /** Output a representation of the topology that is defined by the dependencies. */
     TOPOLOGY,
+    /** Output the build order of the bundles and features of all repositories. */
+    BUNDLE_TOPOLOGY,
     /** Output a representation of the dependencies between repositories. */
     DEPENDENCIES,
     /** Output the dependency graph as a Neo4J database. */
-    NEO4J
+    NEO4J,
+    /** Export the dependency graph in the GraphML format. */
+    GRAPHML,
+    /** Export the dependency graph in the DOT format of Graphviz. */
+    DOT,
+    /** Export the dependency graph as comma separated list of source, target and relation of every edge. */
+    CSV
 }
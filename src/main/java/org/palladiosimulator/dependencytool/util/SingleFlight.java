@@ -0,0 +1,130 @@
+package org.palladiosimulator.dependencytool.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+import org.palladiosimulator.dependencytool.metrics.Metrics;
+
+/**
+ * Coalesces concurrent requests for the same resource.
+ *
+ * While a request for a key is in flight, every further request for that key waits for it and shares its result
+ * or failure instead of being issued again. Nothing is kept once the request completed, so later requests are sent
+ * again; caching is left to the callers.
+ *
+ * @param      <K>   The type of the keys identifying a resource
+ * @param      <V>   The type of the results
+ */
+public final class SingleFlight<K, V> {
+
+    /**
+     * A request that may fail with an IOException.
+     *
+     * @param      <V>   The type of the result
+     */
+    @FunctionalInterface
+    public interface Call<V> {
+        /**
+         * Issues the request.
+         *
+         * @return     The result.
+         * @throws IOException if the request failed.
+         */
+        V call() throws IOException;
+    }
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final String counter;
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param      name  The name of the coalesced requests, the number of requests that shared the result of another
+     *                   one is counted as singleflight.&lt;name&gt;
+     */
+    public SingleFlight(String name) {
+        this.counter = "singleflight." + name;
+    }
+
+    /**
+     * Issues a request unless the same request is already in flight, in which case its result is awaited.
+     *
+     * @param      key   The key identifying the resource
+     * @param      call  The request
+     * @return     The result of this or the concurrent request.
+     * @throws IOException if the request failed.
+     */
+    public V get(K key, Call<V> call) throws IOException {
+        final CompletableFuture<V> pending = new CompletableFuture<>();
+        final CompletableFuture<V> running = inFlight.putIfAbsent(key, pending);
+        if (running != null) {
+            Metrics.get().count(counter);
+            return await(running);
+        }
+        try {
+            final V value = call.call();
+            pending.complete(value);
+            return value;
+        } catch (IOException | RuntimeException | Error e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, pending);
+        }
+    }
+
+    /**
+     * Issues an asynchronous request unless the same request is already in flight, in which case its future is
+     * shared.
+     *
+     * @param      key   The key identifying the resource
+     * @param      call  Starts the request
+     * @return     A future completing with the result of this or the concurrent request.
+     */
+    public CompletableFuture<V> getAsync(K key, Supplier<CompletableFuture<V>> call) {
+        final CompletableFuture<V> pending = new CompletableFuture<>();
+        final CompletableFuture<V> running = inFlight.putIfAbsent(key, pending);
+        if (running != null) {
+            Metrics.get().count(counter);
+            return running;
+        }
+        try {
+            call.get().whenComplete((value, e) -> {
+                inFlight.remove(key, pending);
+                if (e == null) {
+                    pending.complete(value);
+                } else {
+                    pending.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, pending);
+            pending.completeExceptionally(e);
+        }
+        return pending;
+    }
+
+    private static <V> V await(CompletableFuture<V> running) throws IOException {
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a concurrent request");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.palladiosimulator.dependencytool.util;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable set of strings that is stored as one sorted array.
+ *
+ * It needs a fraction of the memory of a TreeSet, iterates in the same order, and looks up strings by binary search.
+ * The strings are interned, so the bundle and feature ids that many repositories share are stored only once.
+ * Being immutable, it can be shared between threads without synchronization.
+ */
+public final class SortedStringSet extends AbstractSet<String> {
+
+    private static final SortedStringSet EMPTY = new SortedStringSet(new String[0]);
+
+    private final String[] elements;
+
+    private SortedStringSet(String[] elements) {
+        this.elements = elements;
+    }
+
+    /**
+     * Returns an immutable copy of the given strings.
+     *
+     * @param      strings  The strings to copy, null is not allowed
+     * @return     The sorted set of the distinct strings.
+     */
+    public static SortedStringSet of(Collection<String> strings) {
+        if (strings instanceof SortedStringSet) {
+            return (SortedStringSet) strings;
+        }
+        if (strings.isEmpty()) {
+            return EMPTY;
+        }
+        final String[] sorted = strings.toArray(new String[0]);
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (distinct == 0 || !sorted[i].equals(sorted[distinct - 1])) {
+                sorted[distinct++] = sorted[i].intern();
+            }
+        }
+        return new SortedStringSet(distinct == sorted.length ? sorted : Arrays.copyOf(sorted, distinct));
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof String && Arrays.binarySearch(elements, o) >= 0;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < elements.length;
+            }
+
+            @Override
+            public String next() {
+                if (next >= elements.length) {
+                    throw new NoSuchElementException();
+                }
+                return elements[next++];
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return elements.length;
+    }
+}
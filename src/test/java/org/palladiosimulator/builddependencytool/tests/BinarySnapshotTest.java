@@ -0,0 +1,73 @@
+package org.palladiosimulator.builddependencytool.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.palladiosimulator.builddependencytool.tests.Repositories.repository;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.palladiosimulator.dependencytool.github.RepositoryObject;
+import org.palladiosimulator.dependencytool.snapshot.BinarySnapshot;
+import org.palladiosimulator.dependencytool.util.OutputFormatter;
+import org.palladiosimulator.dependencytool.util.OutputType;
+
+public class BinarySnapshotTest {
+
+    private static final RepositoryObject COMMONS = repository("Palladio-Core-Commons", Set.of(),
+            Set.of("org.palladiosimulator.commons"));
+    private static final RepositoryObject PCM = repository("Palladio-Core-PCM", Set.of("org.palladiosimulator.commons"),
+            Set.of("org.palladiosimulator.pcm"));
+    private static final RepositoryObject SIMULIZAR = repository("Palladio-Analyzer-SimuLizar",
+            Set.of("org.palladiosimulator.pcm"), Set.of("org.palladiosimulator.simulizar"));
+
+    @Test
+    public void testRoundTrip(@TempDir Path directory) throws Exception {
+        Map<RepositoryObject, Set<RepositoryObject>> dependencies = new HashMap<>();
+        dependencies.put(COMMONS, Set.of());
+        dependencies.put(PCM, Set.of(COMMONS));
+        dependencies.put(SIMULIZAR, Set.of(PCM));
+        Path file = directory.resolve("dependencies.pdts");
+        BinarySnapshot.write(dependencies, file);
+
+        BinarySnapshot snapshot = BinarySnapshot.open(file);
+        assertEquals(3, snapshot.getRepositoryCount());
+        int pcm = snapshot.indexOf(PCM.getName());
+        assertEquals(PCM.getGithubURL(), snapshot.getGithubUrl(pcm));
+        assertEquals(List.of("org.palladiosimulator.commons"), snapshot.getRequiredBundles(pcm));
+        assertEquals(-1, snapshot.indexOf("PalladioSimulator/Palladio-Unknown"));
+        assertEquals(Set.of(COMMONS.getName()), snapshot.getDependencies().get(PCM.getName()));
+
+        Map<String, Set<String>> restored = new TreeMap<>();
+        snapshot.toDependencies().forEach((repository, repositoryDependencies) -> {
+            restored.put(repository.getName(), new TreeSet<>());
+            repositoryDependencies.forEach(dependency -> restored.get(repository.getName()).add(dependency.getName()));
+        });
+        assertEquals(snapshot.getDependencies(), restored);
+    }
+
+    @Test
+    public void testLoadedSnapshotFormatsLikeAnalysis(@TempDir Path directory) throws Exception {
+        Map<RepositoryObject, Set<RepositoryObject>> dependencies = new HashMap<>();
+        dependencies.put(COMMONS, Set.of());
+        dependencies.put(PCM, Set.of(COMMONS));
+        dependencies.put(SIMULIZAR, Set.of(PCM));
+        Path file = directory.resolve("dependencies.pdts");
+        BinarySnapshot.write(dependencies, file);
+
+        // --load-snapshot prints the restored dependencies like the ones of an analysis
+        Map<RepositoryObject, Set<RepositoryObject>> loaded = BinarySnapshot.open(file).toDependencies();
+        for (OutputType outputType : List.of(OutputType.REPOSITORIES, OutputType.DEPENDENCIES, OutputType.TOPOLOGY)) {
+            for (boolean jsonOutput : List.of(true, false)) {
+                assertEquals(OutputFormatter.format(outputType, jsonOutput, dependencies),
+                        OutputFormatter.format(outputType, jsonOutput, loaded));
+            }
+        }
+    }
+}
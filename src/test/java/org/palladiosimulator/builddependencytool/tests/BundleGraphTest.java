@@ -0,0 +1,93 @@
+package org.palladiosimulator.builddependencytool.tests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.palladiosimulator.builddependencytool.tests.Repositories.repository;
+import static org.palladiosimulator.builddependencytool.tests.Repositories.requires;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.palladiosimulator.dependencytool.dependencies.DependencyCalculator;
+import org.palladiosimulator.dependencytool.dependencies.P2MetadataCache;
+import org.palladiosimulator.dependencytool.dependencies.UpdateSiteDiscovery;
+import org.palladiosimulator.dependencytool.dependencies.UpdateSiteTypes;
+import org.palladiosimulator.dependencytool.github.RepositoryObject;
+import org.palladiosimulator.dependencytool.graph.BundleGraph;
+import org.palladiosimulator.dependencytool.graph.BundleGraph.Kind;
+
+public class BundleGraphTest {
+
+    @Test
+    public void testBuildLayers() {
+        RepositoryObject commons = repository("Palladio-Core-Commons",
+                Map.of("org.palladiosimulator.commons", requires()));
+        RepositoryObject pcm = repository("Palladio-Core-PCM",
+                Map.of("org.palladiosimulator.pcm", requires("org.palladiosimulator.commons", "org.eclipse.emf.ecore"),
+                        "org.palladiosimulator.pcm.ui", requires("org.palladiosimulator.pcm")));
+        BundleGraph graph = BundleGraph.of(List.of(pcm, commons));
+
+        // the external bundle is a node without sources and owner
+        assertEquals(4, graph.getNodeCount());
+        int ecore = graph.indexOf(Kind.BUNDLE, "org.eclipse.emf.ecore");
+        assertEquals(null, graph.getOwner(ecore));
+        assertEquals(pcm.getName(), graph.getOwner(graph.indexOf(Kind.BUNDLE, "org.palladiosimulator.pcm")));
+
+        assertEquals(List.of(List.of("bundle:org.palladiosimulator.commons"), List.of("bundle:org.palladiosimulator.pcm"),
+                List.of("bundle:org.palladiosimulator.pcm.ui")), ids(graph, graph.getBuildLayers()));
+        assertEquals(Map.of(commons.getName(), Set.of(), pcm.getName(), Set.of(commons.getName())),
+                graph.getRepositoryDependencies());
+
+        int commonsBundle = graph.indexOf(Kind.BUNDLE, "org.palladiosimulator.commons");
+        assertArrayEquals(new int[] {graph.indexOf(Kind.BUNDLE, "org.palladiosimulator.pcm"),
+            graph.indexOf(Kind.BUNDLE, "org.palladiosimulator.pcm.ui")}, graph.getImpact(commonsBundle));
+    }
+
+    @Test
+    public void testMatchesDependencyCalculator() {
+        RepositoryObject commons = repository("Palladio-Core-Commons",
+                Map.of("org.palladiosimulator.commons", requires()));
+        RepositoryObject pcm = repository("Palladio-Core-PCM",
+                Map.of("org.palladiosimulator.pcm", requires("org.palladiosimulator.commons")));
+        // an alphabetically earlier repository provides commons on its update site without its sources
+        RepositoryObject mirror = repository("Palladio-Addons-Mirror", Set.of(),
+                Set.of("org.palladiosimulator.commons"));
+        List<RepositoryObject> repositories = List.of(commons, pcm, mirror);
+
+        BundleGraph graph = BundleGraph.of(repositories);
+        int commonsBundle = graph.indexOf(Kind.BUNDLE, "org.palladiosimulator.commons");
+        assertEquals(commons.getName(), graph.getOwner(commonsBundle));
+        assertEquals(mirror.getName(), graph.getProvider(commonsBundle));
+
+        DependencyCalculator calculator = new DependencyCalculator(
+                new UpdateSiteDiscovery("https://updatesite.example/", UpdateSiteTypes.NIGHTLY),
+                P2MetadataCache.disabled(), false, Set.of(), false, true);
+        calculator.addAnalysed(repositories);
+        Map<String, Set<String>> expected = new TreeMap<>();
+        calculator.getDependencies().forEach((repo, deps) -> expected.put(repo.getName(),
+                deps.stream().map(RepositoryObject::getName).collect(Collectors.toCollection(TreeSet::new))));
+        assertEquals(Set.of(mirror.getName()), expected.get(pcm.getName()));
+        assertEquals(expected, graph.getRepositoryDependencies());
+    }
+
+    @Test
+    public void testCycle() {
+        RepositoryObject repository = repository("Palladio-Core-PCM",
+                Map.of("org.palladiosimulator.pcm", requires("org.palladiosimulator.pcm.ui"),
+                        "org.palladiosimulator.pcm.ui", requires("org.palladiosimulator.pcm")));
+        assertThrows(IllegalArgumentException.class, () -> BundleGraph.of(List.of(repository)).getBuildLayers());
+    }
+
+    private static List<List<String>> ids(BundleGraph graph, List<int[]> layers) {
+        return layers.stream()
+            .map(layer -> Arrays.stream(layer).mapToObj(graph::getId).collect(Collectors.toList()))
+            .collect(Collectors.toList());
+    }
+}
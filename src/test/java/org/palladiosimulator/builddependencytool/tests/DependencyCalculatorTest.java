@@ -0,0 +1,125 @@
+package org.palladiosimulator.builddependencytool.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.palladiosimulator.builddependencytool.tests.Repositories.repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.palladiosimulator.dependencytool.dependencies.ArtifactRequirements;
+import org.palladiosimulator.dependencytool.dependencies.DependencyCalculator;
+import org.palladiosimulator.dependencytool.dependencies.DependencyUpdate;
+import org.palladiosimulator.dependencytool.dependencies.ExternalProviderIndex;
+import org.palladiosimulator.dependencytool.dependencies.FeatureExpansion;
+import org.palladiosimulator.dependencytool.dependencies.P2MetadataCache;
+import org.palladiosimulator.dependencytool.dependencies.ResolutionSummary;
+import org.palladiosimulator.dependencytool.dependencies.UpdateSiteDiscovery;
+import org.palladiosimulator.dependencytool.dependencies.UpdateSiteTypes;
+import org.palladiosimulator.dependencytool.github.RepositoryObject;
+import org.palladiosimulator.dependencytool.graph.DependencyExplanations;
+
+public class DependencyCalculatorTest {
+
+    @Test
+    public void testFirstProviderAndSummary() {
+        DependencyCalculator calculator = calculator();
+        RepositoryObject commons = repository("Palladio-Core-Commons", Set.of(), Set.of("org.palladiosimulator.commons"));
+        RepositoryObject fork = repository("Palladio-Fork-Commons", Set.of(), Set.of("org.palladiosimulator.commons"));
+        RepositoryObject pcm = repository("Palladio-Core-PCM", Set.of("org.palladiosimulator.commons", "org.example"),
+                Set.of("org.palladiosimulator.pcm"));
+        calculator.addAnalysed(List.of(pcm, fork, commons));
+
+        Map<RepositoryObject, Set<RepositoryObject>> dependencies = calculator.getDependencies();
+        assertEquals(Set.of(commons), dependencies.get(pcm));
+        assertEquals(Set.of(), dependencies.get(commons));
+        assertEquals(1, calculator.getResolutionSummary().getInternal());
+        assertEquals(Map.of("bundle:org.example", Set.of("PalladioSimulator/Palladio-Core-PCM")),
+                calculator.getResolutionSummary().getUnresolved());
+    }
+
+    @Test
+    public void testDeterministicResolution() {
+        // a chain with shared providers, added in shuffled order
+        List<RepositoryObject> repositories = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Set<String> required = new TreeSet<>(List.of("bundle" + (i / 2), "missing" + (i % 7)));
+            repositories.add(repository(String.format("Repo-%04d", i), required, Set.of("bundle" + (i / 3))));
+        }
+        Collections.shuffle(repositories);
+
+        Map<String, Set<String>> expected = null;
+        ResolutionSummary expectedSummary = null;
+        for (int run = 0; run < 3; run++) {
+            DependencyCalculator calculator = calculator();
+            calculator.addAnalysed(repositories);
+            Map<String, Set<String>> names = new TreeMap<>();
+            calculator.getDependencies().forEach((repo, deps) -> names.put(repo.getName(),
+                    deps.stream().map(RepositoryObject::getName).collect(Collectors.toCollection(TreeSet::new))));
+            ResolutionSummary summary = calculator.getResolutionSummary();
+            if (expected == null) {
+                expected = names;
+                expectedSummary = summary;
+            }
+            assertEquals(expected, names);
+            assertEquals(expectedSummary.getInternal(), summary.getInternal());
+            assertEquals(expectedSummary.getUnresolved(), summary.getUnresolved());
+        }
+        // bundle1 is provided by Repo-0003 to Repo-0005, the first one is used
+        assertEquals(Set.of("PalladioSimulator/Repo-0003"), expected.get("PalladioSimulator/Repo-0002"));
+        // bundle667 to bundle999 and missing0 to missing6
+        assertEquals(340, expectedSummary.getUnresolved().size());
+        assertEquals(286, expectedSummary.getUnresolved().get("bundle:missing3").size());
+    }
+
+    @Test
+    public void testFeatureExpansion() {
+        // the PCM feature includes the commons feature, whose bundle is repackaged by the commons update site
+        RepositoryObject pcm = new RepositoryObject("PalladioSimulator/Palladio-Core-PCM", null, null, Set.of(),
+                Set.of("org.palladiosimulator.commons.feature"), Set.of("org.palladiosimulator.pcm"), Set.of(),
+                Map.of(), Map.of());
+        RepositoryObject commons = new RepositoryObject("PalladioSimulator/Palladio-Core-Commons", null, null,
+                Set.of(), Set.of(), Set.of(), Set.of("org.palladiosimulator.commons.feature"), Map.of(),
+                Map.of("org.palladiosimulator.commons.feature",
+                        new ArtifactRequirements(Set.of("org.palladiosimulator.stoex"), Set.of())));
+        RepositoryObject stoex = repository("Palladio-Core-StoEx", Set.of(), Set.of("org.palladiosimulator.stoex"));
+
+        DependencyCalculator calculator = calculator();
+        calculator.addAnalysed(List.of(pcm, commons, stoex));
+        assertEquals(Set.of(commons), calculator.getDependencies().get(pcm));
+
+        DependencyCalculator expanding = new DependencyCalculator(
+                new UpdateSiteDiscovery("https://updatesite.example/", UpdateSiteTypes.NIGHTLY),
+                P2MetadataCache.disabled(), false, Set.of(), false, true, ExternalProviderIndex.empty(), true);
+        expanding.addAnalysed(List.of(pcm, commons, stoex));
+        Map<RepositoryObject, Set<RepositoryObject>> dependencies = expanding.getDependencies();
+        assertEquals(Set.of(commons, stoex), dependencies.get(pcm));
+        // the dependency only exists by the expansion, it is explained by the feature requiring the StoEx bundle
+        List<DependencyExplanations.Step> steps = new DependencyExplanations(dependencies,
+                expanding.getFeatureExpansion()).explain(pcm.getName(), stoex.getName()).orElseThrow();
+        assertEquals(1, steps.size());
+        assertEquals("org.palladiosimulator.stoex", steps.get(0).getRequirements().get(0).getName());
+        FeatureExpansion expansion = expanding.getFeatureExpansion().orElseThrow();
+
+        // the commons feature no longer includes the StoEx bundle
+        DependencyUpdate update = expanding.replace(new RepositoryObject(commons.getName(), null, null, Set.of(),
+                Set.of(), Set.of(), Set.of("org.palladiosimulator.commons.feature"), Map.of(),
+                Map.of("org.palladiosimulator.commons.feature", new ArtifactRequirements(Set.of(), Set.of()))));
+        assertEquals(Set.of(commons.getName()), update.getDependencies().get(pcm).stream()
+                .map(RepositoryObject::getName).collect(Collectors.toSet()));
+        // the expansion is updated instead of being built again
+        assertSame(expansion, expanding.getFeatureExpansion().orElseThrow());
+    }
+
+    private static DependencyCalculator calculator() {
+        return new DependencyCalculator(new UpdateSiteDiscovery("https://updatesite.example/", UpdateSiteTypes.NIGHTLY),
+                P2MetadataCache.disabled(), false, Set.of(), false, true);
+    }
+}
@@ -0,0 +1,72 @@
+package org.palladiosimulator.builddependencytool.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.palladiosimulator.builddependencytool.tests.Repositories.repository;
+import static org.palladiosimulator.builddependencytool.tests.Repositories.requires;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.palladiosimulator.dependencytool.github.RepositoryObject;
+import org.palladiosimulator.dependencytool.graph.DependencyExplanations;
+import org.palladiosimulator.dependencytool.graph.DependencyExplanations.Step;
+
+public class DependencyExplanationsTest {
+
+    @Test
+    public void testShortestChain() {
+        RepositoryObject commons = repository("Palladio-Core-Commons", Map.of("org.palladiosimulator.commons", requires()));
+        RepositoryObject pcm = repository("Palladio-Core-PCM",
+                Map.of("org.palladiosimulator.pcm", requires("org.palladiosimulator.commons")));
+        RepositoryObject simulizar = repository("Palladio-Analyzer-SimuLizar",
+                Map.of("org.palladiosimulator.simulizar", requires("org.palladiosimulator.pcm")));
+        Map<RepositoryObject, Set<RepositoryObject>> dependencies = new HashMap<>();
+        dependencies.put(commons, Set.of());
+        dependencies.put(pcm, Set.of(commons));
+        dependencies.put(simulizar, Set.of(pcm));
+        DependencyExplanations explanations = new DependencyExplanations(dependencies);
+
+        List<Step> steps = explanations.explain(simulizar.getName(), commons.getName()).orElseThrow();
+        assertEquals(List.of(simulizar.getName(), pcm.getName()),
+                steps.stream().map(Step::getFrom).collect(Collectors.toList()));
+        assertEquals(List.of(pcm.getName(), commons.getName()),
+                steps.stream().map(Step::getTo).collect(Collectors.toList()));
+        assertEquals("bundle org.palladiosimulator.commons required by [bundle:org.palladiosimulator.pcm]",
+                steps.get(1).getRequirements().get(0).toString());
+
+        assertTrue(explanations.explain(commons.getName(), simulizar.getName()).isEmpty());
+        assertTrue(explanations.explain(simulizar.getName(), "PalladioSimulator/Palladio-Unknown").isEmpty());
+        assertTrue(explanations.contains(pcm.getName()));
+    }
+
+    @Test
+    public void testConcurrentQueries() {
+        // a chain of repositories, every one requires the bundle of the previous one
+        List<RepositoryObject> chain = IntStream.range(0, 50)
+            .mapToObj(i -> repository(String.format("Repo-%04d", i), Map.of("bundle" + i,
+                    i == 0 ? requires() : requires("bundle" + (i - 1)))))
+            .collect(Collectors.toList());
+        Map<RepositoryObject, Set<RepositoryObject>> dependencies = new HashMap<>();
+        for (int i = 0; i < chain.size(); i++) {
+            dependencies.put(chain.get(i), i == 0 ? Set.of() : Set.of(chain.get(i - 1)));
+        }
+        DependencyExplanations explanations = new DependencyExplanations(dependencies);
+
+        // the rows of the predecessor index are built by the first queries from every repository
+        List<Integer> lengths = IntStream.range(0, 1000).parallel()
+            .mapToObj(i -> explanations.explain(chain.get(i % 50).getName(), chain.get(i % 7).getName()))
+            .map(steps -> steps.map(List::size).orElse(-1))
+            .collect(Collectors.toList());
+        for (int i = 0; i < lengths.size(); i++) {
+            int from = i % 50;
+            int to = i % 7;
+            assertEquals(from > to ? from - to : -1, lengths.get(i));
+        }
+    }
+}
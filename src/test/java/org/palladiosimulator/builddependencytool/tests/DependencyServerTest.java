@@ -0,0 +1,205 @@
+package org.palladiosimulator.builddependencytool.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.palladiosimulator.builddependencytool.tests.Repositories.fullName;
+import static org.palladiosimulator.builddependencytool.tests.Repositories.repository;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kohsuke.github.GitHub;
+import org.palladiosimulator.dependencytool.dependencies.DependencyCalculator;
+import org.palladiosimulator.dependencytool.dependencies.DependencyUpdate;
+import org.palladiosimulator.dependencytool.dependencies.P2MetadataCache;
+import org.palladiosimulator.dependencytool.dependencies.UpdateSiteDiscovery;
+import org.palladiosimulator.dependencytool.dependencies.UpdateSiteTypes;
+import org.palladiosimulator.dependencytool.server.DependencyServer;
+import org.palladiosimulator.dependencytool.server.DependencySnapshot;
+import org.palladiosimulator.dependencytool.util.OutputType;
+
+public class DependencyServerTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    public void testCyclicDependencies() throws Exception {
+        DependencyCalculator calculator = new DependencyCalculator(
+                new UpdateSiteDiscovery("https://updatesite.example/", UpdateSiteTypes.NIGHTLY),
+                P2MetadataCache.disabled(), false, Set.of(), false, true);
+        calculator.addAnalysed(List.of(
+                repository("Palladio-Core-Commons", Set.of("org.palladiosimulator.pcm"),
+                        Set.of("org.palladiosimulator.commons")),
+                repository("Palladio-Core-PCM", Set.of("org.palladiosimulator.commons"),
+                        Set.of("org.palladiosimulator.pcm"))));
+        String commons = fullName("Palladio-Core-Commons");
+        String pcm = fullName("Palladio-Core-PCM");
+
+        try (DependencyServer server = new DependencyServer(new InetSocketAddress("localhost", 0), () -> calculator,
+                repository -> null, null, Duration.ofHours(1))) {
+            server.start();
+            assertTrue(server.getSnapshot().getCycle().isPresent());
+
+            HttpResponse<String> topology = get(server, "/topology");
+            assertEquals(409, topology.statusCode());
+            assertTrue(topology.body().contains("cyclic"));
+            assertEquals(409, get(server, "/topology?format=text").statusCode());
+
+            assertEquals(200, get(server, "/dependencies").statusCode());
+            assertEquals(200, get(server, "/repositories").statusCode());
+            assertEquals("[\"" + pcm + "\"]", get(server, "/dependents?repository=" + commons).body());
+            assertEquals("[\"" + pcm + "\"]", get(server, "/closure?repository=" + commons).body());
+            HttpResponse<String> explanation = get(server, "/explain?from=" + commons + "&to=" + pcm);
+            assertEquals(200, explanation.statusCode());
+            assertTrue(explanation.body().contains("org.palladiosimulator.pcm"));
+            assertTrue(get(server, "/status").body().contains("\"cycle\""));
+
+            // a refresh of a cyclic graph is served as well
+            server.refresh();
+            assertEquals(200, get(server, "/dependencies").statusCode());
+        }
+    }
+
+    @Test
+    public void testUpdateIntroducesCycle() throws Exception {
+        try (StandInServer standIn = new StandInServer(3)) {
+            GitHub github = standIn.connect();
+            Callable<DependencyCalculator> analysis = () -> {
+                DependencyCalculator calculator = new DependencyCalculator(
+                        new UpdateSiteDiscovery(standIn.getUpdateSiteUrl(), UpdateSiteTypes.NIGHTLY),
+                        P2MetadataCache.disabled(), false, Set.of(), false, false);
+                calculator.addAll(github.getOrganization(StandInServer.ORGANIZATION).getRepositories().values());
+                return calculator;
+            };
+            String first = StandInServer.ORGANIZATION + "/" + StandInServer.repositoryName(0);
+            String last = StandInServer.ORGANIZATION + "/" + StandInServer.repositoryName(2);
+
+            try (DependencyServer server = new DependencyServer(new InetSocketAddress("localhost", 0), analysis,
+                    github::getRepository, null, Duration.ofHours(1))) {
+                server.start();
+                assertEquals(200, get(server, "/topology").statusCode());
+
+                // the first repository starts to require the last one, which depends on it transitively
+                standIn.setDependencies(0, 2);
+                server.update(first);
+                DependencySnapshot snapshot = server.getSnapshot();
+                assertTrue(snapshot.getCycle().isPresent());
+                assertEquals(Optional.of(Set.of(last)), snapshot.getDependencies(first));
+                assertEquals(409, get(server, "/topology").statusCode());
+                assertEquals(2, snapshot.getClosure(first, false).orElseThrow().size());
+
+                // the cycle is removed again and the layers are computed from scratch
+                standIn.setDependencies(0);
+                server.update(first);
+                assertTrue(server.getSnapshot().getCycle().isEmpty());
+                assertEquals(Optional.of(Set.of()), server.getSnapshot().getDependencies(first));
+                assertEquals(200, get(server, "/topology").statusCode());
+            }
+        }
+    }
+
+    @Test
+    public void testUpdateRereadsUpdateSite(@TempDir Path cacheDirectory) throws Exception {
+        try (StandInServer standIn = new StandInServer(3)) {
+            GitHub github = standIn.connect();
+            UpdateSiteDiscovery discovery = new UpdateSiteDiscovery(standIn.getUpdateSiteUrl(), UpdateSiteTypes.NIGHTLY);
+            P2MetadataCache cache = new P2MetadataCache(cacheDirectory);
+            Callable<DependencyCalculator> analysis = () -> {
+                DependencyCalculator calculator = new DependencyCalculator(discovery, cache, false, Set.of(), false,
+                        false);
+                calculator.addAll(github.getOrganization(StandInServer.ORGANIZATION).getRepositories().values());
+                return calculator;
+            };
+            String first = StandInServer.ORGANIZATION + "/" + StandInServer.repositoryName(0);
+            String second = StandInServer.ORGANIZATION + "/" + StandInServer.repositoryName(1);
+
+            try (DependencyServer server = new DependencyServer(new InetSocketAddress("localhost", 0), analysis,
+                    github::getRepository, null, Duration.ofHours(1))) {
+                server.start();
+                assertEquals(Optional.of(Set.of(first)), server.getSnapshot().getDependencies(second));
+
+                // the update site is republished with a renamed bundle, which the second repository does not require
+                String renamed = StandInServer.bundleId(0) + ".renamed";
+                standIn.setProvidedBundle(0, renamed);
+                server.update(first);
+                DependencySnapshot snapshot = server.getSnapshot();
+                assertTrue(snapshot.getRepositories().get(first).getProvidedBundles().contains(renamed));
+                assertEquals(Optional.of(Set.of()), snapshot.getDependencies(second));
+            }
+        }
+    }
+
+    @Test
+    public void testIncrementalSnapshotMatchesRebuild() throws Exception {
+        DependencyCalculator calculator = new DependencyCalculator(
+                new UpdateSiteDiscovery("https://updatesite.example/", UpdateSiteTypes.NIGHTLY),
+                P2MetadataCache.disabled(), false, Set.of(), false, true);
+        calculator.addAnalysed(List.of(
+                repository("Palladio-Core-Commons", Set.of(), Set.of("org.palladiosimulator.commons")),
+                repository("Palladio-Core-PCM", Set.of("org.palladiosimulator.commons"),
+                        Set.of("org.palladiosimulator.pcm")),
+                repository("Palladio-Analyzer-SimuLizar", Set.of("org.palladiosimulator.pcm"),
+                        Set.of("org.palladiosimulator.simulizar"))));
+        String commons = fullName("Palladio-Core-Commons");
+        String pcm = fullName("Palladio-Core-PCM");
+        String simulizar = fullName("Palladio-Analyzer-SimuLizar");
+
+        DependencySnapshot snapshot = DependencySnapshot.of(calculator.getDependencies(), Optional.empty());
+        // the views of the previous snapshot are rendered already and must not leak into the new one
+        assertTrue(new String(snapshot.getView(OutputType.DEPENDENCIES, true).orElseThrow()).contains(pcm));
+
+        // the pcm stops requiring the commons, which simulizar requires directly now
+        snapshot = snapshot.update(calculator.replace(repository("Palladio-Core-PCM", Set.of(),
+                Set.of("org.palladiosimulator.pcm"))), Optional.empty());
+        snapshot = snapshot.update(calculator.replace(repository("Palladio-Analyzer-SimuLizar",
+                Set.of("org.palladiosimulator.pcm", "org.palladiosimulator.commons"),
+                Set.of("org.palladiosimulator.simulizar"))), Optional.empty());
+        DependencySnapshot rebuilt = DependencySnapshot.of(calculator.getDependencies(), Optional.empty());
+        assertEquals(Optional.of(Set.of(simulizar)), snapshot.getDependents(commons));
+        assertEquals(Optional.of(Set.of(simulizar)), snapshot.getDependents(pcm));
+        assertSameSnapshot(rebuilt, snapshot);
+
+        // a removed repository disappears from the dependents of its dependencies
+        DependencySnapshot removed = snapshot.update(new DependencyUpdate(Map.of(), Set.of(simulizar)),
+                Optional.empty());
+        assertEquals(Optional.empty(), removed.getDependencies(simulizar));
+        assertEquals(Optional.empty(), removed.getDependents(simulizar));
+        assertEquals(Optional.of(Set.of()), removed.getDependents(commons));
+        assertEquals(Optional.of(Set.of()), removed.getDependents(pcm));
+        assertFalse(new String(removed.getView(OutputType.REPOSITORIES, false).orElseThrow()).contains(simulizar));
+        // the previous snapshot is not changed
+        assertEquals(Optional.of(Set.of(simulizar)), snapshot.getDependents(commons));
+    }
+
+    private static void assertSameSnapshot(DependencySnapshot expected, DependencySnapshot actual) throws Exception {
+        assertEquals(expected.getRepositories(), actual.getRepositories());
+        for (String repository : expected.getRepositories().keySet()) {
+            assertEquals(expected.getDependencies(repository), actual.getDependencies(repository));
+            assertEquals(expected.getDependents(repository), actual.getDependents(repository));
+        }
+        for (OutputType outputType : List.of(OutputType.REPOSITORIES, OutputType.TOPOLOGY, OutputType.DEPENDENCIES)) {
+            for (boolean json : List.of(true, false)) {
+                assertEquals(new String(expected.getView(outputType, json).orElseThrow()),
+                        new String(actual.getView(outputType, json).orElseThrow()));
+            }
+        }
+    }
+
+    private HttpResponse<String> get(DependencyServer server, String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,64 @@
+package org.palladiosimulator.builddependencytool.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.GHRepository;
+import org.palladiosimulator.dependencytool.dependencies.DependencyCalculator;
+import org.palladiosimulator.dependencytool.dependencies.P2MetadataCache;
+import org.palladiosimulator.dependencytool.dependencies.UpdateSiteDiscovery;
+import org.palladiosimulator.dependencytool.dependencies.UpdateSiteTypes;
+import org.palladiosimulator.dependencytool.github.RepositoryObject;
+
+/**
+ * Measures the throughput of the whole analysis against the local stand-in server. Only run with -Pperformance.
+ */
+@Tag("performance")
+public class EndToEndPerformanceTest {
+
+    // a local round trip is much faster than one to GitHub, so every response is delayed
+    private static final Duration LATENCY = Duration.ofMillis(20);
+
+    @Test
+    public void test10Repositories() throws Exception {
+        measure(10);
+    }
+
+    @Test
+    public void test100Repositories() throws Exception {
+        measure(100);
+    }
+
+    @Test
+    public void test1000Repositories() throws Exception {
+        measure(1000);
+    }
+
+    private static void measure(int repositoryCount) throws Exception {
+        try (StandInServer server = new StandInServer(repositoryCount)) {
+            server.setLatency(LATENCY);
+            Collection<GHRepository> repositories = server.connect().getOrganization(StandInServer.ORGANIZATION)
+                .getRepositories().values();
+            int enumerationRequests = server.getRequests();
+            DependencyCalculator calculator = new DependencyCalculator(
+                    new UpdateSiteDiscovery(server.getUpdateSiteUrl(), UpdateSiteTypes.NIGHTLY),
+                    P2MetadataCache.disabled(), false, Set.of(), false, false);
+
+            long start = System.nanoTime();
+            calculator.addAll(repositories);
+            Map<RepositoryObject, Set<RepositoryObject>> dependencies = calculator.getDependencies();
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            assertEquals(repositoryCount, dependencies.size());
+            int requests = server.getRequests() - enumerationRequests;
+            System.out.printf("%d repositories in %.2f s: %.1f repositories/s, %d requests, %.1f requests/s%n",
+                    repositoryCount, seconds, repositoryCount / seconds, requests, requests / seconds);
+        }
+    }
+}
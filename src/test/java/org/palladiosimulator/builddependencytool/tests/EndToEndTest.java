@@ -0,0 +1,76 @@
+package org.palladiosimulator.builddependencytool.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.GHRepository;
+import org.palladiosimulator.dependencytool.dependencies.DependencyCalculator;
+import org.palladiosimulator.dependencytool.dependencies.P2MetadataCache;
+import org.palladiosimulator.dependencytool.dependencies.UpdateSiteDiscovery;
+import org.palladiosimulator.dependencytool.dependencies.UpdateSiteTypes;
+import org.palladiosimulator.dependencytool.github.RepositoryObject;
+
+public class EndToEndTest {
+
+    @Test
+    public void testSyntheticOrganization() throws Exception {
+        try (StandInServer server = new StandInServer(10)) {
+            Map<String, Set<String>> dependencies = analyse(server, false);
+
+            assertEquals(10, dependencies.size());
+            assertEquals(Set.of(), dependencies.get(name(0)));
+            assertEquals(Set.of(name(0)), dependencies.get(name(1)));
+            assertEquals(Set.of(name(3), name(2)), dependencies.get(name(4)));
+            assertEquals(Set.of(name(8), name(4)), dependencies.get(name(9)));
+        }
+    }
+
+    @Test
+    public void testErrorInjection() throws Exception {
+        Map<String, Set<String>> dependencies;
+        try (StandInServer server = new StandInServer(10, 42)) {
+            dependencies = analyse(server, true);
+
+            assertTrue(server.getFailures() > 0);
+            // failed files and update sites lose dependencies, but never add wrong ones
+            for (int i = 1; i < 10; i++) {
+                Set<String> dependencyNames = dependencies.getOrDefault(name(i), Set.of());
+                assertTrue(new TreeSet<>(List.of(name(i - 1), name(i / 2))).containsAll(dependencyNames));
+            }
+        }
+        // the same seed fails the same requests
+        try (StandInServer server = new StandInServer(10, 42)) {
+            assertEquals(dependencies, analyse(server, true));
+        }
+    }
+
+    private static Map<String, Set<String>> analyse(StandInServer server, boolean failing) throws Exception {
+        Collection<GHRepository> repositories = server.connect().getOrganization(StandInServer.ORGANIZATION)
+            .getRepositories().values();
+        if (failing) {
+            server.setErrorRate(0.2);
+        }
+        DependencyCalculator calculator = new DependencyCalculator(
+                new UpdateSiteDiscovery(server.getUpdateSiteUrl(), UpdateSiteTypes.NIGHTLY), P2MetadataCache.disabled(),
+                false, Set.of(), false, false);
+        calculator.addAll(repositories);
+
+        Map<String, Set<String>> names = new TreeMap<>();
+        calculator.getDependencies().forEach((repo, deps) -> names.put(repo.getName(),
+                deps.stream().map(RepositoryObject::getName).collect(Collectors.toCollection(TreeSet::new))));
+        return names;
+    }
+
+    private static String name(int index) {
+        return StandInServer.ORGANIZATION + "/" + StandInServer.repositoryName(index);
+    }
+}
@@ -0,0 +1,40 @@
+package org.palladiosimulator.builddependencytool.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.palladiosimulator.dependencytool.dependencies.ExternalProviderIndex;
+import org.palladiosimulator.dependencytool.dependencies.P2Metadata;
+
+public class ExternalProviderIndexTest {
+
+    private static final String ECLIPSE = "https://download.eclipse.org/releases/2023-03/";
+    private static final String ORBIT = "https://download.eclipse.org/tools/orbit/downloads/latest-R/";
+
+    @Test
+    public void testSources() {
+        Map<String, P2Metadata> metadata = new LinkedHashMap<>();
+        metadata.put(ECLIPSE, metadata(Map.of("org.eclipse.core.runtime", "3.26.100", "org.apache.commons.lang3", "3.1.0"),
+                Map.of("org.eclipse.platform", "4.27.0")));
+        metadata.put(ORBIT, metadata(Map.of("org.apache.commons.lang3", "3.12.0", "com.google.guava", "31.1.0"), Map.of()));
+        ExternalProviderIndex index = new ExternalProviderIndex(metadata);
+
+        assertEquals(Optional.of(ECLIPSE), index.getBundleSource("org.eclipse.core.runtime"));
+        assertEquals(Optional.of(ORBIT), index.getBundleSource("com.google.guava"));
+        // the first repository wins
+        assertEquals(Optional.of(ECLIPSE), index.getBundleSource("org.apache.commons.lang3"));
+        assertEquals(Optional.of(ECLIPSE), index.getFeatureSource("org.eclipse.platform"));
+        assertTrue(index.getBundleSource("org.eclipse.platform").isEmpty());
+        assertTrue(index.getFeatureSource("org.palladiosimulator.pcm").isEmpty());
+        assertTrue(ExternalProviderIndex.empty().getBundleSource("org.eclipse.core.runtime").isEmpty());
+    }
+
+    private static P2Metadata metadata(Map<String, String> bundles, Map<String, String> features) {
+        return new P2Metadata(bundles, features, Map.of(), Map.of(), Map.of(), null);
+    }
+}
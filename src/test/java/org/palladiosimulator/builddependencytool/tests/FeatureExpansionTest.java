@@ -0,0 +1,91 @@
+package org.palladiosimulator.builddependencytool.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.palladiosimulator.dependencytool.dependencies.ArtifactRequirements;
+import org.palladiosimulator.dependencytool.dependencies.ExternalProviderIndex;
+import org.palladiosimulator.dependencytool.dependencies.FeatureExpansion;
+import org.palladiosimulator.dependencytool.dependencies.P2Metadata;
+
+public class FeatureExpansionTest {
+
+    @Test
+    public void testTransitiveIncludes() {
+        Map<String, ArtifactRequirements> sources = Map.of(
+                "org.palladiosimulator.pcm.feature", requirements(Set.of("org.palladiosimulator.pcm"),
+                        Set.of("org.palladiosimulator.commons.feature")),
+                "org.palladiosimulator.commons.feature", requirements(Set.of("org.palladiosimulator.commons"),
+                        Set.of("org.eclipse.emf.ecore")));
+        ExternalProviderIndex externals = new ExternalProviderIndex(Map.of("https://download.eclipse.org/releases/",
+                new P2Metadata(Map.of("org.eclipse.emf.ecore", "2.33.0"), Map.of("org.eclipse.emf.ecore", "2.33.0"),
+                        Map.of(), Map.of("org.eclipse.emf.ecore", Set.of("org.eclipse.emf.ecore", "org.eclipse.emf.common")),
+                        Map.of("org.eclipse.emf.ecore", Set.of()), null)));
+        FeatureExpansion expansion = new FeatureExpansion(sources, externals);
+
+        ArtifactRequirements pcm = expansion.expand("org.palladiosimulator.pcm.feature");
+        assertEquals(Set.of("org.palladiosimulator.pcm", "org.palladiosimulator.commons", "org.eclipse.emf.ecore",
+                "org.eclipse.emf.common"), pcm.getBundles());
+        assertEquals(Set.of("org.palladiosimulator.commons.feature", "org.eclipse.emf.ecore"), pcm.getFeatures());
+        // every feature is expanded once
+        assertEquals(3, expansion.size());
+        assertSame(expansion.expand("org.palladiosimulator.commons.feature"),
+                expansion.expand("org.palladiosimulator.commons.feature"));
+        assertEquals(Set.of(), expansion.expand("org.example.unknown").getBundles());
+    }
+
+    @Test
+    public void testCycle() {
+        Map<String, ArtifactRequirements> sources = Map.of(
+                "a", requirements(Set.of("bundle.a"), Set.of("b")),
+                "b", requirements(Set.of("bundle.b"), Set.of("a")));
+        FeatureExpansion expansion = new FeatureExpansion(sources, ExternalProviderIndex.empty());
+        assertEquals(Set.of("bundle.a", "bundle.b"), expansion.expandAll(List.of("a")).getBundles());
+        // every feature of the cycle gets the same expansion, whichever is expanded first
+        assertEquals(Set.of("bundle.a", "bundle.b"), expansion.expand("b").getBundles());
+        assertEquals(Set.of("a", "b"), expansion.expand("b").getFeatures());
+        assertSame(expansion.expand("a"), expansion.expand("b"));
+
+        Map<String, ArtifactRequirements> chained = Map.of(
+                "top", requirements(Set.of("bundle.top"), Set.of("a")),
+                "a", requirements(Set.of("bundle.a"), Set.of("b")),
+                "b", requirements(Set.of("bundle.b"), Set.of("a", "c")),
+                "c", requirements(Set.of("bundle.c"), Set.of()));
+        FeatureExpansion chainedExpansion = new FeatureExpansion(chained, ExternalProviderIndex.empty());
+        assertEquals(Set.of("bundle.top", "bundle.a", "bundle.b", "bundle.c"),
+                chainedExpansion.expand("top").getBundles());
+        assertEquals(Set.of("bundle.a", "bundle.b", "bundle.c"), chainedExpansion.expand("b").getBundles());
+        assertEquals(Set.of("a", "b", "c"), chainedExpansion.expand("a").getFeatures());
+    }
+
+    @Test
+    public void testRedefine() {
+        Map<String, ArtifactRequirements> sources = Map.of(
+                "top", requirements(Set.of("bundle.top"), Set.of("a")),
+                "a", requirements(Set.of("bundle.a"), Set.of("b")),
+                "b", requirements(Set.of("bundle.b"), Set.of()),
+                "other", requirements(Set.of("bundle.other"), Set.of()));
+        FeatureExpansion expansion = new FeatureExpansion(sources, ExternalProviderIndex.empty());
+        expansion.expandAll(List.of("top", "other"));
+        assertEquals(4, expansion.size());
+
+        // only b and the features including it are expanded again
+        expansion.redefine(Map.of("b", Optional.of(requirements(Set.of("bundle.b2"), Set.of()))));
+        assertEquals(1, expansion.size());
+        assertEquals(Set.of("bundle.top", "bundle.a", "bundle.b2"), expansion.expand("top").getBundles());
+
+        expansion.redefine(Map.of("a", Optional.empty()));
+        assertEquals(Set.of("bundle.top"), expansion.expand("top").getBundles());
+        assertEquals(Set.of("bundle.b2"), expansion.expand("b").getBundles());
+    }
+
+    private static ArtifactRequirements requirements(Set<String> bundles, Set<String> features) {
+        return new ArtifactRequirements(bundles, features);
+    }
+}
@@ -1,5 +1,6 @@
 package org.palladiosimulator.builddependencytool.tests;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
@@ -89,4 +90,14 @@ public class FeatureXMLTest {
         assertTrue(testFeatures.contains("de.uka.ipd.sdq.probfunction.feature"));
     }
 
+    @Test
+    public void testId() throws ParserConfigurationException, SAXException, IOException {
+        URL featureURL = getClass().getResource("/pcm_feature.xml");
+        DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
+        DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
+        Document document = dBuilder.parse(featureURL.openStream());
+        document.getDocumentElement().normalize();
+        FeatureXML testFeatureXML = new FeatureXML(document, false);
+        assertEquals("org.palladiosimulator.pcm.feature", testFeatureXML.getId());
+    }
 }
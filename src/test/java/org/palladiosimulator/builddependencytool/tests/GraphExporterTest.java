@@ -0,0 +1,74 @@
+package org.palladiosimulator.builddependencytool.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.palladiosimulator.builddependencytool.tests.Repositories.repository;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.palladiosimulator.dependencytool.github.RepositoryObject;
+import org.palladiosimulator.dependencytool.graph.GraphExporter;
+import org.palladiosimulator.dependencytool.util.OutputType;
+
+public class GraphExporterTest {
+
+    private static final RepositoryObject COMMONS = repository("Palladio-Core-Commons", Set.of(),
+            Set.of("org.palladiosimulator.commons"));
+    private static final RepositoryObject PCM = repository("Palladio-Core-PCM",
+            Set.of("org.palladiosimulator.commons"), Set.of("org.palladiosimulator.pcm"));
+    private static final RepositoryObject EMPTY = repository("Palladio-Empty");
+
+    @Test
+    public void testCsv() {
+        assertEquals(List.of(
+                "source,target,relation",
+                "PalladioSimulator/Palladio-Core-PCM,PalladioSimulator/Palladio-Core-Commons,DEPENDS_ON",
+                "PalladioSimulator/Palladio-Empty,,"), lines(export(OutputType.CSV, false)));
+    }
+
+    @Test
+    public void testCsvWithBundles() {
+        List<String> lines = lines(export(OutputType.CSV, true));
+        assertEquals("source,target,relation", lines.get(0));
+        // the commons bundle is required by pcm and provided by commons, both rows are kept apart
+        assertTrue(lines.contains("PalladioSimulator/Palladio-Core-PCM,bundle:org.palladiosimulator.commons,REQUIRES_BUNDLE"));
+        assertTrue(lines.contains("PalladioSimulator/Palladio-Core-Commons,bundle:org.palladiosimulator.commons,PROVIDES_BUNDLE"));
+        assertTrue(lines.contains("PalladioSimulator/Palladio-Core-PCM,bundle:org.palladiosimulator.pcm,PROVIDES_BUNDLE"));
+        assertTrue(lines.contains("PalladioSimulator/Palladio-Empty,,"));
+        assertEquals(6, lines.size());
+    }
+
+    @Test
+    public void testGraphFormats() {
+        String graphML = export(OutputType.GRAPHML, true);
+        assertTrue(graphML.contains("<node id=\"bundle:org.palladiosimulator.commons\">"));
+        assertTrue(graphML.contains("PROVIDES_BUNDLE"));
+        String dot = export(OutputType.DOT, false);
+        assertTrue(dot.contains("\"PalladioSimulator/Palladio-Core-PCM\" -> \"PalladioSimulator/Palladio-Core-Commons\""));
+        assertTrue(dot.contains("\"PalladioSimulator/Palladio-Empty\""));
+    }
+
+    private static String export(OutputType outputType, boolean includeBundlesAndFeatures) {
+        Map<RepositoryObject, Set<RepositoryObject>> dependencies = new HashMap<>();
+        dependencies.put(COMMONS, Set.of());
+        dependencies.put(PCM, Set.of(COMMONS));
+        dependencies.put(EMPTY, Set.of());
+        StringWriter writer = new StringWriter();
+        new GraphExporter(dependencies, includeBundlesAndFeatures).export(outputType, writer);
+        return writer.toString();
+    }
+
+    // The rows follow the order of the dependency map, so they are sorted after the header.
+    private static List<String> lines(String csv) {
+        List<String> lines = new ArrayList<>(List.of(csv.split("\n")));
+        Collections.sort(lines.subList(1, lines.size()));
+        return lines;
+    }
+}
@@ -0,0 +1,44 @@
+package org.palladiosimulator.builddependencytool.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.GHRepository;
+import org.palladiosimulator.dependencytool.history.HistoricalAnalysis;
+import org.palladiosimulator.dependencytool.history.HistoryPoint;
+
+public class HistoricalAnalysisTest {
+
+    @Test
+    public void testBlobsFetchedOnce() throws Exception {
+        try (StandInServer server = new StandInServer(8)) {
+            // without coalescing, so concurrent fetches of the same blob reach the server
+            Collection<GHRepository> repositories = server.connect(false)
+                .getOrganization(StandInServer.ORGANIZATION)
+                .getRepositories()
+                .values();
+            server.setLatency(Duration.ofMillis(50));
+
+            // every ref resolves to the same tree, so all points find the same blobs at the same time
+            List<HistoryPoint> history = new HistoricalAnalysis(repositories, false)
+                .analyse(List.of("main", "v1.0", "v2.0"));
+
+            assertEquals(3, history.size());
+            for (HistoryPoint point : history) {
+                assertEquals(8, point.getRepositories().size());
+                assertEquals(Set.of(name(3), name(2)), point.getDependencies().get(name(4)));
+            }
+            // one manifest.mf and one feature.xml per repository
+            assertEquals(16, server.getBlobRequests());
+        }
+    }
+
+    private static String name(int index) {
+        return StandInServer.ORGANIZATION + "/" + StandInServer.repositoryName(index);
+    }
+}
@@ -1,9 +1,11 @@
 package org.palladiosimulator.builddependencytool.tests;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.Optional;
 import java.util.Set;
 
 import org.junit.jupiter.api.Test;
@@ -58,4 +60,11 @@ public class ManifestMFTest {
         assertTrue(testBundles.contains("org.eclipse.xtext.common.types"));
         assertTrue(testBundles.contains("org.eclipse.xtext.xbase.lib"));
     }
+
+    @Test
+    public void symbolicNameTest() throws IOException {
+        URL manifestURL = getClass().getResource("/pcm_manifest.mf");
+        ManifestMF manifest = new ManifestMF(manifestURL.openStream());
+        assertEquals(Optional.of("org.palladiosimulator.pcm"), manifest.getSymbolicName());
+    }
 }
@@ -0,0 +1,67 @@
+package org.palladiosimulator.builddependencytool.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.palladiosimulator.dependencytool.metrics.Metrics;
+import org.palladiosimulator.dependencytool.metrics.MetricsReport;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class MetricsReportTest {
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    public void reset() {
+        Metrics.get().reset();
+    }
+
+    @Test
+    public void testJsonReport() throws IOException {
+        Metrics metrics = Metrics.get();
+        metrics.reset();
+        metrics.record("analysis", 2_000_000);
+        metrics.record("analysis", 4_000_000);
+        metrics.hit("p2metadata");
+        metrics.hit("p2metadata");
+        metrics.hit("p2metadata");
+        metrics.miss("p2metadata");
+        metrics.repositoryLatency("PalladioSimulator/Palladio-Core-PCM", 8_000_000);
+        metrics.repositoryLatency("PalladioSimulator/Palladio-Core-Commons", 1_000_000);
+
+        Path file = directory.resolve("report.json");
+        new MetricsReport(metrics).writeJson(file);
+        JsonNode report = new ObjectMapper().readTree(file.toFile());
+
+        assertEquals(2, report.get("phases").get("analysis").get("count").asInt());
+        assertEquals(6.0, report.get("phases").get("analysis").get("totalMillis").asDouble());
+        assertEquals(0.75, report.get("cacheHitRates").get("p2metadata").asDouble());
+        assertEquals(8.0, report.get("repositoryLatencyMillis").get("p90").asDouble());
+        assertEquals("PalladioSimulator/Palladio-Core-PCM", report.get("slowestRepositories").get(0).get("name").asText());
+    }
+
+    @Test
+    public void testPrometheusReport() throws IOException {
+        Metrics metrics = Metrics.get();
+        metrics.reset();
+        metrics.count("github.requests", 3);
+        metrics.miss("discovery");
+
+        Path file = directory.resolve("dependencytool.prom");
+        new MetricsReport(metrics).writePrometheus(file);
+        String text = Files.readString(file);
+
+        assertTrue(text.contains("dependencytool_github_requests_total 3.0\n"));
+        assertTrue(text.contains("dependencytool_cache_hit_ratio{cache=\"discovery\"} 0.0\n"));
+    }
+}
@@ -0,0 +1,98 @@
+package org.palladiosimulator.builddependencytool.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.palladiosimulator.builddependencytool.tests.Repositories.repository;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.palladiosimulator.dependencytool.dependencies.UpdateSiteTypes;
+import org.palladiosimulator.dependencytool.github.RepositoryObject;
+import org.palladiosimulator.dependencytool.util.OutputFormatter;
+import org.palladiosimulator.dependencytool.util.OutputType;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class OutputFormatterTest {
+
+    private static final RepositoryObject COMMONS = repository("Palladio-Core-Commons", Set.of(),
+            Set.of("org.palladiosimulator.commons"));
+    private static final RepositoryObject PCM = repository("Palladio-Core-PCM", Set.of("org.palladiosimulator.commons"),
+            Set.of("org.palladiosimulator.pcm"));
+
+    @Test
+    public void testStreamedOutput() throws Exception {
+        Map<RepositoryObject, Set<RepositoryObject>> dependencies = new HashMap<>();
+        dependencies.put(PCM, Set.of(COMMONS));
+        dependencies.put(COMMONS, Set.of());
+
+        for (OutputType outputType : List.of(OutputType.REPOSITORIES, OutputType.TOPOLOGY, OutputType.DEPENDENCIES)) {
+            for (boolean json : List.of(true, false)) {
+                RecordingWriter writer = new RecordingWriter();
+                OutputFormatter.write(outputType, json, dependencies, writer);
+                assertEquals(OutputFormatter.format(outputType, json, dependencies), writer.toString());
+                // the standard output is written to, so it must stay open
+                assertFalse(writer.closed, outputType + " closed the writer");
+            }
+        }
+
+        // repositories and dependencies are written in alphabetical order
+        assertEquals("{\"" + COMMONS.getName() + "\":[],\"" + PCM.getName() + "\":[\"" + COMMONS.getName() + "\"]}",
+                OutputFormatter.format(OutputType.DEPENDENCIES, true, dependencies));
+        assertEquals("[[" + COMMONS.getName() + "],\n [" + PCM.getName() + "]]",
+                OutputFormatter.format(OutputType.TOPOLOGY, false, dependencies));
+    }
+
+    @Test
+    public void testByUpdateSiteType() throws Exception {
+        Map<RepositoryObject, Set<RepositoryObject>> nightly = new HashMap<>();
+        nightly.put(PCM, Set.of(COMMONS));
+        nightly.put(COMMONS, Set.of());
+        Map<RepositoryObject, Set<RepositoryObject>> release = new HashMap<>();
+        release.put(COMMONS, Set.of());
+        Map<UpdateSiteTypes, Map<RepositoryObject, Set<RepositoryObject>>> results = new LinkedHashMap<>();
+        results.put(UpdateSiteTypes.NIGHTLY, nightly);
+        results.put(UpdateSiteTypes.RELEASE, release);
+
+        // the json documents of the types are combined to one object
+        StringWriter json = new StringWriter();
+        OutputFormatter.writeByUpdateSiteType(OutputType.DEPENDENCIES, true, results, json);
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode combined = mapper.readTree(json.toString());
+        assertEquals(List.of("nightly", "release"), fieldNames(combined));
+        assertEquals(mapper.readTree(OutputFormatter.format(OutputType.DEPENDENCIES, true, nightly)),
+                combined.get("nightly"));
+        assertEquals(mapper.readTree(OutputFormatter.format(OutputType.DEPENDENCIES, true, release)),
+                combined.get("release"));
+
+        StringWriter text = new StringWriter();
+        OutputFormatter.writeByUpdateSiteType(OutputType.TOPOLOGY, false, results, text);
+        assertEquals("# nightly\n" + OutputFormatter.format(OutputType.TOPOLOGY, false, nightly) + "\n# release\n"
+                + OutputFormatter.format(OutputType.TOPOLOGY, false, release), text.toString());
+        assertTrue(text.toString().startsWith("# nightly\n[["));
+    }
+
+    private static List<String> fieldNames(JsonNode node) {
+        List<String> names = new ArrayList<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+
+    private static final class RecordingWriter extends StringWriter {
+        private boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.palladiosimulator.builddependencytool.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URL;
+
+import org.junit.jupiter.api.Test;
+import org.palladiosimulator.dependencytool.dependencies.P2ContentXML;
+import org.palladiosimulator.dependencytool.dependencies.P2Metadata;
+
+public class P2ContentXMLTest {
+
+    @Test
+    public void testProvidedCapabilities() throws IOException {
+        URL contentURL = getClass().getResource("/pcm_content.xml");
+        P2Metadata metadata = new P2ContentXML(contentURL.openStream()).getMetadata();
+        assertTrue(metadata.getBundles().size() == 2);
+        assertTrue(metadata.getBundles().contains("org.palladiosimulator.pcm"));
+        assertTrue(metadata.getBundles().contains("org.palladiosimulator.pcm.resources"));
+        assertEquals("4.3.0.202307060000", metadata.getBundleVersions().get("org.palladiosimulator.pcm"));
+        assertTrue(metadata.getFeatures().size() == 1);
+        assertTrue(metadata.getFeatures().contains("org.palladiosimulator.pcm.feature"));
+        assertEquals("1688630400000", metadata.getTimestamp());
+    }
+
+    @Test
+    public void testExportedPackages() throws IOException {
+        URL contentURL = getClass().getResource("/pcm_content.xml");
+        P2Metadata metadata = new P2ContentXML(contentURL.openStream()).getMetadata();
+        assertTrue(metadata.getPackages().size() == 2);
+        assertEquals("org.palladiosimulator.pcm", metadata.getPackages().get("org.palladiosimulator.pcm.allocation"));
+    }
+
+    @Test
+    public void testFeatureContents() throws IOException {
+        URL contentURL = getClass().getResource("/pcm_content.xml");
+        P2Metadata metadata = new P2ContentXML(contentURL.openStream()).getMetadata();
+        assertTrue(metadata.getFeatureBundles().get("org.palladiosimulator.pcm.feature").size() == 2);
+        assertTrue(metadata.getFeatureBundles().get("org.palladiosimulator.pcm.feature").contains("org.palladiosimulator.pcm.resources"));
+        assertTrue(metadata.getFeatureIncludes().get("org.palladiosimulator.pcm.feature").size() == 1);
+        assertTrue(metadata.getFeatureIncludes().get("org.palladiosimulator.pcm.feature").contains("de.uka.ipd.sdq.stoex.feature"));
+    }
+}
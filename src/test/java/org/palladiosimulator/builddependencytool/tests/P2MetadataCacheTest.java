@@ -0,0 +1,120 @@
+package org.palladiosimulator.builddependencytool.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.palladiosimulator.dependencytool.dependencies.P2Metadata;
+import org.palladiosimulator.dependencytool.dependencies.P2MetadataCache;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+public class P2MetadataCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private HttpServer server;
+    private String location;
+    private volatile String etag = "\"1\"";
+    private final AtomicInteger heads = new AtomicInteger();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::serve);
+        server.start();
+        location = "http://localhost:" + server.getAddress().getPort() + "/updatesite/nightly/";
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testValidatedEntriesAreReused() throws IOException {
+        P2MetadataCache cache = new P2MetadataCache(directory);
+        assertEquals(Map.of("org.palladiosimulator.pcm", "5.1.0"), cache.get(location, this::load).getBundleVersions());
+        assertEquals(1, loads.get());
+
+        // validated in this process, so the update site is not asked again
+        int headsAfterLoad = heads.get();
+        cache.get(location, this::load);
+        assertEquals(1, loads.get());
+        assertEquals(headsAfterLoad, heads.get());
+
+        // a new process validates the persisted entry with the same HEAD requests, but does not load it
+        P2MetadataCache restarted = new P2MetadataCache(directory);
+        assertEquals(Map.of("org.palladiosimulator.pcm", "5.1.0"),
+                restarted.get(location, this::load).getBundleVersions());
+        assertEquals(1, loads.get());
+        assertEquals(2 * headsAfterLoad, heads.get());
+    }
+
+    @Test
+    public void testInvalidateRevalidates() throws IOException {
+        P2MetadataCache cache = new P2MetadataCache(directory);
+        cache.get(location, this::load);
+
+        // the repository is republished, but the entry was validated already
+        etag = "\"2\"";
+        cache.get(location, this::load);
+        assertEquals(1, loads.get());
+
+        cache.invalidate();
+        cache.get(location, this::load);
+        assertEquals(2, loads.get());
+        cache.invalidate();
+        cache.get(location, this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testWithoutValidatorNothingIsCached() throws IOException {
+        etag = null;
+        new P2MetadataCache(directory).get(location, this::load);
+        new P2MetadataCache(directory).get(location, this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testDisabledCacheAlwaysLoads() throws IOException {
+        P2MetadataCache cache = P2MetadataCache.disabled();
+        cache.get(location, this::load);
+        cache.get(location, this::load);
+        assertEquals(2, loads.get());
+        assertEquals(0, heads.get());
+    }
+
+    private P2Metadata load() {
+        loads.incrementAndGet();
+        return new P2Metadata(Map.of("org.palladiosimulator.pcm", "5.1.0"), Map.of(), Map.of(), Map.of(), Map.of(),
+                null);
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        if (exchange.getRequestMethod().equals("HEAD")) {
+            heads.incrementAndGet();
+        }
+        if (exchange.getRequestURI().getPath().endsWith("/content.xml")) {
+            if (etag != null) {
+                exchange.getResponseHeaders().add("ETag", etag);
+            }
+            exchange.sendResponseHeaders(200, -1);
+        } else {
+            exchange.sendResponseHeaders(404, -1);
+        }
+        exchange.close();
+    }
+}
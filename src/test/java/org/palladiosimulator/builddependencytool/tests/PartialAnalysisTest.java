@@ -0,0 +1,78 @@
+package org.palladiosimulator.builddependencytool.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.palladiosimulator.dependencytool.dependencies.ArtifactRequirements;
+import org.palladiosimulator.dependencytool.dependencies.UpdateSiteTypes;
+import org.palladiosimulator.dependencytool.github.RepositoryObject;
+import org.palladiosimulator.dependencytool.snapshot.PartialAnalysis;
+
+public class PartialAnalysisTest {
+
+    @Test
+    public void testPartition() {
+        for (String repository : List.of("PalladioSimulator/Palladio-Core-PCM", "PalladioSimulator/Palladio-Core-Commons",
+                "PalladioSimulator/Palladio-Analyzer-SimuLizar", "PalladioSimulator/Palladio-Build-DependencyTool")) {
+            List<Integer> shards = IntStream.range(0, 3)
+                .filter(shard -> PartialAnalysis.isInShard(repository, shard, 3))
+                .boxed()
+                .collect(Collectors.toList());
+            assertEquals(1, shards.size());
+        }
+    }
+
+    @Test
+    public void testRoundTripAndMerge(@TempDir Path directory) throws Exception {
+        RepositoryObject pcm = new RepositoryObject("PalladioSimulator/Palladio-Core-PCM",
+                "https://github.com/PalladioSimulator/Palladio-Core-PCM", "https://updatesite.example/pcm/nightly/",
+                Set.of("org.palladiosimulator.commons"), Set.of(), Set.of("org.palladiosimulator.pcm"), Set.of(),
+                Map.of("org.palladiosimulator.pcm", new ArtifactRequirements(Set.of("org.palladiosimulator.commons"),
+                        Set.of())), Map.of());
+        RepositoryObject commons = new RepositoryObject("PalladioSimulator/Palladio-Core-Commons",
+                "https://github.com/PalladioSimulator/Palladio-Core-Commons", null, Set.of(), Set.of(),
+                Set.of("org.palladiosimulator.commons"), Set.of());
+        Path first = write(directory.resolve("shard-0.json"),
+                new PartialAnalysis(0, 2, Map.of(UpdateSiteTypes.NIGHTLY, List.of(pcm))));
+        Path second = write(directory.resolve("shard-1.json"),
+                new PartialAnalysis(1, 2, Map.of(UpdateSiteTypes.NIGHTLY, List.of(commons))));
+
+        PartialAnalysis read = PartialAnalysis.read(first);
+        assertEquals(0, read.getShard());
+        assertEquals(2, read.getShardCount());
+        RepositoryObject restored = read.getAnalysedRepositories().get(UpdateSiteTypes.NIGHTLY).get(0);
+        assertEquals(pcm.getUpdateSite(), restored.getUpdateSite());
+        assertEquals(pcm.getRequiredBundles(), restored.getRequiredBundles());
+        assertEquals(pcm.getBundleRequirements().get("org.palladiosimulator.pcm").getBundles(),
+                restored.getBundleRequirements().get("org.palladiosimulator.pcm").getBundles());
+
+        Map<UpdateSiteTypes, List<RepositoryObject>> merged = PartialAnalysis.merge(List.of(read, PartialAnalysis.read(second)));
+        assertEquals(List.of(commons.getName(), pcm.getName()), merged.get(UpdateSiteTypes.NIGHTLY).stream()
+            .map(RepositoryObject::getName).collect(Collectors.toList()));
+        assertThrows(IllegalArgumentException.class, () -> PartialAnalysis.merge(List.of(read, read)));
+
+        // a missing shard is only left out on request
+        assertThrows(IllegalArgumentException.class, () -> PartialAnalysis.merge(List.of(read)));
+        assertEquals(List.of(pcm.getName()), PartialAnalysis.merge(List.of(read), true).get(UpdateSiteTypes.NIGHTLY)
+            .stream().map(RepositoryObject::getName).collect(Collectors.toList()));
+    }
+
+    private static Path write(Path file, PartialAnalysis partial) throws Exception {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            partial.write(writer);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,77 @@
+package org.palladiosimulator.builddependencytool.tests;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.palladiosimulator.dependencytool.dependencies.ArtifactRequirements;
+import org.palladiosimulator.dependencytool.github.RepositoryObject;
+
+/**
+ * Analysed repositories of the PalladioSimulator organization for tests that do not talk to GitHub.
+ */
+public final class Repositories {
+
+    /** The organization every repository belongs to. */
+    public static final String ORGANIZATION = "PalladioSimulator";
+
+    private Repositories() {
+    }
+
+    /**
+     * Returns the full name of a repository.
+     *
+     * @param      name  The name without the organization
+     * @return     The full name.
+     */
+    public static String fullName(String name) {
+        return ORGANIZATION + "/" + name;
+    }
+
+    /**
+     * Creates a repository without requirements and artifacts.
+     *
+     * @param      name  The name without the organization
+     * @return     The repository.
+     */
+    public static RepositoryObject repository(String name) {
+        return repository(name, Set.of(), Set.of());
+    }
+
+    /**
+     * Creates a repository that requires and provides bundles.
+     *
+     * @param      name             The name without the organization
+     * @param      requiredBundles  The bundles the repository requires
+     * @param      providedBundles  The bundles the repository provides
+     * @return     The repository.
+     */
+    public static RepositoryObject repository(String name, Set<String> requiredBundles, Set<String> providedBundles) {
+        return new RepositoryObject(fullName(name), "https://github.com/" + fullName(name), null, requiredBundles,
+                Set.of(), providedBundles, Set.of());
+    }
+
+    /**
+     * Creates a repository whose bundle sources are known.
+     *
+     * @param      name     The name without the organization
+     * @param      bundles  The requirements of every bundle the repository contains and provides
+     * @return     The repository. It requires the union of the requirements of its bundles.
+     */
+    public static RepositoryObject repository(String name, Map<String, ArtifactRequirements> bundles) {
+        final Set<String> requiredBundles = new TreeSet<>();
+        bundles.values().forEach(requirements -> requiredBundles.addAll(requirements.getBundles()));
+        return new RepositoryObject(fullName(name), "https://github.com/" + fullName(name), null, requiredBundles,
+                Set.of(), bundles.keySet(), Set.of(), bundles, Map.of());
+    }
+
+    /**
+     * Creates the requirements of a bundle.
+     *
+     * @param      bundles  The bundles it requires
+     * @return     The requirements.
+     */
+    public static ArtifactRequirements requires(String... bundles) {
+        return new ArtifactRequirements(Set.of(bundles), Set.of());
+    }
+}
@@ -0,0 +1,61 @@
+package org.palladiosimulator.builddependencytool.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.palladiosimulator.builddependencytool.tests.Repositories.repository;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.palladiosimulator.dependencytool.github.RepositoryObject;
+import org.palladiosimulator.dependencytool.graph.RepositoryMetrics;
+
+public class RepositoryMetricsTest {
+
+    @Test
+    public void testMetrics() {
+        RepositoryObject commons = repository("Palladio-Core-Commons");
+        RepositoryObject pcm = repository("Palladio-Core-PCM");
+        RepositoryObject simulizar = repository("Palladio-Analyzer-SimuLizar");
+        RepositoryObject editors = repository("Palladio-Editors-Sirius");
+        Map<RepositoryObject, Set<RepositoryObject>> dependencies = new HashMap<>();
+        dependencies.put(commons, Set.of());
+        dependencies.put(pcm, Set.of(commons));
+        dependencies.put(simulizar, Set.of(pcm, commons));
+        dependencies.put(editors, Set.of(pcm));
+
+        RepositoryMetrics metrics = RepositoryMetrics.of(dependencies);
+        assertTrue(metrics.isAcyclic());
+        assertEquals(0, metrics.getLayer(commons.getName()));
+        assertEquals(2, metrics.getLayer(simulizar.getName()));
+        assertEquals(2, metrics.getDepth(commons.getName()));
+        assertEquals(0, metrics.getDepth(editors.getName()));
+        assertEquals(2, metrics.getFanIn(commons.getName()));
+        assertEquals(2, metrics.getFanOut(simulizar.getName()));
+        assertEquals(3, metrics.getTransitiveDependents(commons.getName()));
+        assertEquals(2, metrics.getTransitiveDependents(pcm.getName()));
+        assertEquals(0, metrics.getTransitiveDependents(editors.getName()));
+    }
+
+    @Test
+    public void testCycle() {
+        RepositoryObject commons = repository("Palladio-Core-Commons");
+        RepositoryObject pcm = repository("Palladio-Core-PCM");
+        RepositoryObject simulizar = repository("Palladio-Analyzer-SimuLizar");
+        Map<RepositoryObject, Set<RepositoryObject>> dependencies = new HashMap<>();
+        dependencies.put(commons, Set.of(pcm));
+        dependencies.put(pcm, Set.of(commons));
+        dependencies.put(simulizar, Set.of(pcm));
+
+        RepositoryMetrics metrics = RepositoryMetrics.of(dependencies);
+        assertFalse(metrics.isAcyclic());
+        assertEquals(-1, metrics.getLayer(pcm.getName()));
+        assertEquals(-1, metrics.getDepth(pcm.getName()));
+        // a repository in a cycle does not count itself
+        assertEquals(2, metrics.getTransitiveDependents(pcm.getName()));
+        assertEquals(2, metrics.getTransitiveDependents(commons.getName()));
+    }
+}
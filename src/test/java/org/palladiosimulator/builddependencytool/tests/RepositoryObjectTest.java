@@ -0,0 +1,69 @@
+package org.palladiosimulator.builddependencytool.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.palladiosimulator.dependencytool.dependencies.ArtifactRequirements;
+import org.palladiosimulator.dependencytool.github.RepositoryObject;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class RepositoryObjectTest {
+
+    @Test
+    public void testFrozen() {
+        Set<String> requiredBundles = new HashSet<>(Set.of("org.palladiosimulator.commons", "org.eclipse.emf.ecore"));
+        RepositoryObject repository = new RepositoryObject("PalladioSimulator/Palladio-Core-PCM",
+                "https://github.com/PalladioSimulator/Palladio-Core-PCM", null, requiredBundles, Set.of(),
+                Set.of("org.palladiosimulator.pcm"), Set.of(),
+                Map.of("org.palladiosimulator.pcm", new ArtifactRequirements(requiredBundles, Set.of())), Map.of());
+
+        // later changes of the analysis input do not leak into the record
+        requiredBundles.add("org.palladiosimulator.pcm.resources");
+        assertEquals(List.of("org.eclipse.emf.ecore", "org.palladiosimulator.commons"),
+                List.copyOf(repository.getRequiredBundles()));
+        assertTrue(repository.getRequiredBundles().contains("org.palladiosimulator.commons"));
+        assertThrows(UnsupportedOperationException.class, () -> repository.getProvidedBundles().add("org.example"));
+        assertThrows(UnsupportedOperationException.class, () -> repository.getBundleRequirements().clear());
+    }
+
+    @Test
+    public void testJsonRoundTrip() throws Exception {
+        RepositoryObject repository = new RepositoryObject("PalladioSimulator/Palladio-Core-PCM",
+                "https://github.com/PalladioSimulator/Palladio-Core-PCM",
+                "https://updatesite.palladio-simulator.com/palladio-core-pcm/nightly/",
+                Set.of("org.palladiosimulator.commons"), Set.of("org.palladiosimulator.commons.feature"),
+                Set.of("org.palladiosimulator.pcm"), Set.of("org.palladiosimulator.pcm.feature"));
+
+        ObjectMapper mapper = new ObjectMapper();
+        String json = mapper.writeValueAsString(repository);
+        RepositoryObject restored = mapper.readValue(json, RepositoryObject.class);
+
+        assertEquals(repository.getName(), restored.getName());
+        assertEquals(repository.getGithubURL(), restored.getGithubURL());
+        assertEquals(repository.getUpdateSite(), restored.getUpdateSite());
+        assertEquals(repository.getRequiredBundles(), restored.getRequiredBundles());
+        assertEquals(repository.getRequiredFeatures(), restored.getRequiredFeatures());
+        assertEquals(repository.getProvidedBundles(), restored.getProvidedBundles());
+        assertEquals(repository.getProvidedFeatures(), restored.getProvidedFeatures());
+        assertEquals(json, mapper.writeValueAsString(restored));
+        assertTrue(restored.getBundleRequirements().isEmpty());
+    }
+
+    @Test
+    public void testWithoutUpdateSite() throws Exception {
+        RepositoryObject restored = new ObjectMapper().readValue("{\"name\":\"PalladioSimulator/Palladio-Core-PCM\"}",
+                RepositoryObject.class);
+        assertNull(restored.getUpdateSite());
+        assertTrue(restored.getRequiredBundles().isEmpty());
+        assertTrue(restored.getProvidedFeatures().isEmpty());
+    }
+}
@@ -0,0 +1,83 @@
+package org.palladiosimulator.builddependencytool.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.palladiosimulator.dependencytool.util.SingleFlight;
+
+public class SingleFlightTest {
+
+    @Test
+    public void testConcurrentRequestsAreSentOnce() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>("test");
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> singleFlight.get("content.xml", () -> {
+                    calls.incrementAndGet();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new InterruptedIOException();
+                    }
+                    return "metadata";
+                })));
+            }
+            // the first request blocks until all others joined it
+            while (calls.get() == 0) {
+                Thread.sleep(1);
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("metadata", result.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(1, calls.get());
+
+            // nothing is cached once the request completed
+            assertEquals("again", singleFlight.get("content.xml", () -> "again"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSharedFailure() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>("test");
+        CompletableFuture<String> response = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> first = singleFlight.getAsync("p2.index", () -> {
+            calls.incrementAndGet();
+            return response;
+        });
+        CompletableFuture<String> second = singleFlight.getAsync("p2.index", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("unused");
+        });
+        response.completeExceptionally(new IOException("503"));
+
+        assertEquals(1, calls.get());
+        assertTrue(first.isCompletedExceptionally());
+        assertTrue(second.isCompletedExceptionally());
+        assertThrows(IOException.class, () -> singleFlight.get("p2.index", () -> {
+            throw new IOException("404");
+        }));
+    }
+}
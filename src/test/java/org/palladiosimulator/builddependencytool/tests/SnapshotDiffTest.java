@@ -0,0 +1,82 @@
+package org.palladiosimulator.builddependencytool.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.palladiosimulator.builddependencytool.tests.Repositories.repository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.palladiosimulator.dependencytool.github.RepositoryObject;
+import org.palladiosimulator.dependencytool.snapshot.BinarySnapshot;
+import org.palladiosimulator.dependencytool.snapshot.SnapshotDiff;
+import org.palladiosimulator.dependencytool.util.OutputFormatter;
+
+public class SnapshotDiffTest {
+
+    private static final RepositoryObject COMMONS = repository("Palladio-Core-Commons", Set.of(),
+            Set.of("org.palladiosimulator.commons"));
+    private static final RepositoryObject PCM = repository("Palladio-Core-PCM", Set.of("org.palladiosimulator.commons"),
+            Set.of("org.palladiosimulator.pcm"));
+
+    @Test
+    public void testDiff() {
+        Map<RepositoryObject, Set<RepositoryObject>> before = new HashMap<>();
+        before.put(COMMONS, Set.of());
+        before.put(PCM, Set.of(COMMONS));
+
+        RepositoryObject simulizar = repository("Palladio-Analyzer-SimuLizar", Set.of("org.palladiosimulator.commons"),
+                Set.of("org.palladiosimulator.simulizar"));
+        Map<RepositoryObject, Set<RepositoryObject>> after = new HashMap<>();
+        after.put(COMMONS, Set.of());
+        after.put(simulizar, Set.of(COMMONS));
+
+        SnapshotDiff diff = SnapshotDiff.compare(BinarySnapshot.of(before), BinarySnapshot.of(after));
+        assertEquals(List.of(simulizar.getName()), diff.getAddedRepositories());
+        assertEquals(List.of(PCM.getName()), diff.getRemovedRepositories());
+        assertEquals(List.of(simulizar.getName(), PCM.getName()), diff.getChangedRepositories().stream()
+            .map(SnapshotDiff.RepositoryDiff::getRepository).collect(Collectors.toList()));
+        assertEquals(List.of(COMMONS.getName()),
+                diff.getChangedRepositories().get(0).getChanges().get("dependencies").getAdded());
+        assertEquals(-1, diff.getChangedRepositories().get(0).getLayerBefore());
+        assertEquals(1, diff.getChangedRepositories().get(0).getLayerAfter());
+        assertFalse(diff.isCyclicBefore() || diff.isCyclicAfter());
+        assertTrue(SnapshotDiff.compare(BinarySnapshot.of(before), BinarySnapshot.of(before)).isEmpty());
+    }
+
+    @Test
+    public void testCyclicSnapshot() throws Exception {
+        Map<RepositoryObject, Set<RepositoryObject>> before = new HashMap<>();
+        before.put(COMMONS, Set.of());
+        before.put(PCM, Set.of(COMMONS));
+
+        // commons starts to require pcm
+        RepositoryObject cyclicCommons = repository("Palladio-Core-Commons", Set.of("org.palladiosimulator.pcm"),
+                Set.of("org.palladiosimulator.commons"));
+        Map<RepositoryObject, Set<RepositoryObject>> after = new HashMap<>();
+        after.put(cyclicCommons, Set.of(PCM));
+        after.put(PCM, Set.of(cyclicCommons));
+
+        SnapshotDiff diff = SnapshotDiff.compare(BinarySnapshot.of(before), BinarySnapshot.of(after));
+        assertFalse(diff.isCyclicBefore());
+        assertTrue(diff.isCyclicAfter());
+        assertEquals(1, diff.getChangedRepositories().size());
+        SnapshotDiff.RepositoryDiff commons = diff.getChangedRepositories().get(0);
+        assertEquals(COMMONS.getName(), commons.getRepository());
+        assertEquals(List.of(PCM.getName()), commons.getChanges().get("dependencies").getAdded());
+        assertNull(commons.getLayerBefore());
+        assertTrue(OutputFormatter.formatDiff(diff).contains("\"cyclicAfter\":true"));
+        assertFalse(OutputFormatter.formatDiff(diff).contains("cyclicBefore"));
+
+        SnapshotDiff reverse = SnapshotDiff.compare(BinarySnapshot.of(after), BinarySnapshot.of(before));
+        assertTrue(reverse.isCyclicBefore());
+        assertEquals(List.of(PCM.getName()), reverse.getChangedRepositories().get(0).getChanges().get("dependencies")
+            .getRemoved());
+    }
+}
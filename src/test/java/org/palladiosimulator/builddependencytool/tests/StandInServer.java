@@ -0,0 +1,432 @@
+package org.palladiosimulator.builddependencytool.tests;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.kohsuke.github.GitHub;
+import org.kohsuke.github.GitHubBuilder;
+import org.kohsuke.github.connector.GitHubConnector;
+import org.palladiosimulator.dependencytool.github.CoalescingGitHubConnector;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local stand-in for the GitHub API and the update sites of a synthetic organization, so the whole analysis can run
+ * without network access.
+ *
+ * Every repository has one bundle and one feature. Their manifest.mf, feature.xml and p2 content.xml are generated
+ * from the pcm and core-commons fixtures by renaming their ids, so they look like real Palladio repositories.
+ * Repository i additionally requires the bundles of repository i - 1 and i / 2 and the feature of repository i - 1.
+ * The files are served by the contents API and as blobs of a git tree, which every ref resolves to. Responses can be
+ * delayed and failed at random to simulate slow or unreliable servers. The failures are drawn from a seeded random
+ * generator per request, so they do not depend on the order the requests arrive in.
+ */
+public final class StandInServer implements AutoCloseable {
+
+    /** The name of the synthetic organization. */
+    public static final String ORGANIZATION = "SyntheticOrg";
+
+    private static final String API = "/api";
+    private static final String UPDATE_SITE = "/updatesite/";
+    private static final String CONTENT_VERSION = "4.3.0.202307060000";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, byte[]> resources = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, String>> trees = new ConcurrentHashMap<>();
+    private final String manifestTemplate;
+    private final String contentTemplate;
+    private final long seed;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicInteger blobRequests = new AtomicInteger();
+    private volatile Duration latency = Duration.ZERO;
+    private volatile double errorRate;
+
+    /**
+     * Generates a synthetic organization and starts serving it on a free local port.
+     *
+     * @param      repositories  The number of repositories of the organization
+     * @throws IOException if the fixtures could not be read or the server could not be started.
+     */
+    public StandInServer(int repositories) throws IOException {
+        this(repositories, 0);
+    }
+
+    /**
+     * Generates a synthetic organization and starts serving it on a free local port.
+     *
+     * @param      repositories  The number of repositories of the organization
+     * @param      seed          The seed of the injected failures
+     * @throws IOException if the fixtures could not be read or the server could not be started.
+     */
+    public StandInServer(int repositories, long seed) throws IOException {
+        this.seed = seed;
+        // requests are delayed by sleeping, so every request needs its own thread
+        this.executor = Executors.newCachedThreadPool();
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::serve);
+        server.setExecutor(executor);
+        server.start();
+        this.manifestTemplate = fixture("/pcm_manifest.mf");
+        this.contentTemplate = fixture("/pcm_content.xml");
+        generate(repositories, fixture("/core-commons_feature.xml"));
+    }
+
+    /**
+     * Returns the name of a synthetic repository.
+     *
+     * @param      index  The index of the repository
+     * @return     The name without the organization.
+     */
+    public static String repositoryName(int index) {
+        return String.format("Synthetic-%04d", index);
+    }
+
+    /**
+     * Returns the id of the bundle of a synthetic repository.
+     *
+     * @param      index  The index of the repository
+     * @return     The bundle id.
+     */
+    public static String bundleId(int index) {
+        return String.format("org.example.synthetic%04d", index);
+    }
+
+    /**
+     * Returns a GitHub client that talks to this server and coalesces requests like the command line interface.
+     *
+     * @return     The client.
+     * @throws IOException if the client could not be created.
+     */
+    public GitHub connect() throws IOException {
+        return connect(true);
+    }
+
+    /**
+     * Returns a GitHub client that talks to this server.
+     *
+     * @param      coalescing  Set to false to send concurrent identical requests individually
+     * @return     The client.
+     * @throws IOException if the client could not be created.
+     */
+    public GitHub connect(boolean coalescing) throws IOException {
+        return new GitHubBuilder().withEndpoint(getBaseUrl() + API)
+            .withConnector(coalescing ? new CoalescingGitHubConnector(GitHubConnector.DEFAULT) : GitHubConnector.DEFAULT)
+            .build();
+    }
+
+    /**
+     * Returns the update site url all synthetic update sites are found below.
+     *
+     * @return     The update site url.
+     */
+    public String getUpdateSiteUrl() {
+        return getBaseUrl() + UPDATE_SITE;
+    }
+
+    /**
+     * Replaces the bundles the bundle of a repository requires, e.g. to simulate a push.
+     *
+     * @param      index         The index of the repository
+     * @param      dependencies  The indexes of the repositories whose bundles it requires from now on
+     */
+    public void setDependencies(int index, int... dependencies) {
+        final TreeSet<Integer> indexes = new TreeSet<>();
+        Arrays.stream(dependencies).forEach(indexes::add);
+        putManifest(index, indexes);
+    }
+
+    /**
+     * Replaces the bundle the update site of a repository provides, e.g. to simulate a new build.
+     *
+     * @param      index   The index of the repository
+     * @param      bundle  The id of the bundle the update site provides from now on
+     */
+    public void setProvidedBundle(int index, String bundle) {
+        putContent(index, bundle);
+    }
+
+    /**
+     * Delays every response.
+     *
+     * @param      latency  The delay of every response
+     */
+    public void setLatency(Duration latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * Fails responses at random with 503 Service Unavailable. Whether a resource fails only depends on the seed and
+     * the request, so repeated requests fail alike.
+     *
+     * @param      errorRate  The probability of a failed response between 0 and 1
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * Returns the number of requests served so far.
+     *
+     * @return     The number of requests including failed ones.
+     */
+    public int getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * Returns the number of git blobs served so far.
+     *
+     * @return     The number of blob requests including failed ones.
+     */
+    public int getBlobRequests() {
+        return blobRequests.get();
+    }
+
+    /**
+     * Returns the number of injected failures so far.
+     *
+     * @return     The number of failed responses.
+     */
+    public int getFailures() {
+        return failures.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private void generate(int repositories, String featureTemplate) {
+        final List<Map<String, Object>> repositoryList = new ArrayList<>();
+        for (int i = 0; i < repositories; i++) {
+            final String name = repositoryName(i);
+            final String bundle = bundleId(i);
+            final String feature = bundle + ".feature";
+            final TreeSet<Integer> dependencies = new TreeSet<>();
+            if (i > 0) {
+                dependencies.add(i - 1);
+                dependencies.add(i / 2);
+            }
+
+            final String requiredFeature = i > 0 ? "\n      <import feature=\"" + bundleId(i - 1) + ".feature\"/>" : "";
+            final String featureXml = featureTemplate.replace("org.palladiosimulator.commons.feature", feature)
+                .replace("<requires>", "<requires>" + requiredFeature);
+
+            final String repositoryPath = API + "/repos/" + ORGANIZATION + "/" + name;
+            final Map<String, Object> repository = repository(i, name);
+            repositoryList.add(repository);
+            put(repositoryPath, json(repository));
+            put(repositoryPath + "/contents/bundles", json(List.of(directory("bundles/" + bundle))));
+            put(repositoryPath + "/contents/features", json(List.of(directory("features/" + feature))));
+            putManifest(i, dependencies);
+            putFile(i, "features/" + feature + "/feature.xml", featureXml);
+
+            // update sites are found by the lower case repository name first
+            final String site = UPDATE_SITE + name.toLowerCase() + "/nightly/";
+            put(site + "p2.index", bytes("version=1\n"
+                    + "metadata.repository.factory.order=content.xml,\\!\n"
+                    + "artifact.repository.factory.order=artifacts.xml,\\!\n"));
+            putContent(i, bundle);
+            put(site + "artifacts.xml", bytes(artifacts(name, bundle, feature)));
+        }
+
+        final Map<String, Object> organization = new LinkedHashMap<>();
+        organization.put("login", ORGANIZATION);
+        organization.put("id", 1);
+        organization.put("type", "Organization");
+        organization.put("url", getBaseUrl() + API + "/orgs/" + ORGANIZATION);
+        organization.put("html_url", "https://github.com/" + ORGANIZATION);
+        organization.put("public_repos", repositories);
+        put(API + "/orgs/" + ORGANIZATION, json(organization));
+        // all repositories fit on one page, so there is no link to a next page
+        put(API + "/orgs/" + ORGANIZATION + "/repos", json(repositoryList));
+        put(API + "/users/" + ORGANIZATION + "/repos", json(repositoryList));
+    }
+
+    private void putContent(int index, String bundle) {
+        final String site = UPDATE_SITE + repositoryName(index).toLowerCase() + "/nightly/";
+        put(site + "content.xml", bytes(contentTemplate.replace("org.palladiosimulator.pcm", bundle)));
+    }
+
+    private void putManifest(int index, TreeSet<Integer> dependencies) {
+        final String bundle = bundleId(index);
+        final StringBuilder requiredBundles = new StringBuilder("Require-Bundle: ");
+        dependencies.forEach(dependency -> requiredBundles.append(bundleId(dependency)).append(",\n "));
+        final String manifest = manifestTemplate.replace("org.palladiosimulator.pcm", bundle)
+            .replace("Require-Bundle: ", requiredBundles);
+        putFile(index, "bundles/" + bundle + "/META-INF/MANIFEST.MF", manifest);
+    }
+
+    // Serves a file by the contents API and as blob of the git tree of the repository
+    private synchronized void putFile(int index, String path, String content) {
+        final String repositoryPath = API + "/repos/" + ORGANIZATION + "/" + repositoryName(index);
+        final Map<String, Object> file = file(path, content);
+        put(repositoryPath + "/contents/" + path, json(file));
+        put(repositoryPath + "/git/blobs/" + file.get("sha"), bytes(content));
+
+        final Map<String, String> tree = trees.computeIfAbsent(repositoryPath, key -> new TreeMap<>());
+        tree.put(path, (String) file.get("sha"));
+        final List<Map<String, Object>> entries = new ArrayList<>();
+        tree.forEach((entryPath, sha) -> {
+            final Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("path", entryPath);
+            entry.put("mode", "100644");
+            entry.put("type", "blob");
+            entry.put("sha", sha);
+            entries.add(entry);
+        });
+        final Map<String, Object> treeJson = new LinkedHashMap<>();
+        treeJson.put("sha", Integer.toHexString(tree.hashCode()));
+        treeJson.put("tree", entries);
+        treeJson.put("truncated", false);
+        put(repositoryPath + "/git/trees", json(treeJson));
+    }
+
+    private Map<String, Object> repository(int index, String name) {
+        final Map<String, Object> owner = new LinkedHashMap<>();
+        owner.put("login", ORGANIZATION);
+        owner.put("type", "Organization");
+        final Map<String, Object> repository = new LinkedHashMap<>();
+        repository.put("id", index + 1);
+        repository.put("name", name);
+        repository.put("full_name", ORGANIZATION + "/" + name);
+        repository.put("owner", owner);
+        repository.put("url", getBaseUrl() + API + "/repos/" + ORGANIZATION + "/" + name);
+        repository.put("html_url", "https://github.com/" + ORGANIZATION + "/" + name);
+        repository.put("default_branch", "main");
+        repository.put("archived", false);
+        repository.put("private", false);
+        return repository;
+    }
+
+    private static Map<String, Object> directory(String path) {
+        final Map<String, Object> directory = new LinkedHashMap<>();
+        directory.put("type", "dir");
+        directory.put("name", path.substring(path.lastIndexOf('/') + 1));
+        directory.put("path", path);
+        directory.put("sha", Integer.toHexString(path.hashCode()));
+        return directory;
+    }
+
+    private static Map<String, Object> file(String path, String content) {
+        final byte[] bytes = bytes(content);
+        final Map<String, Object> file = new LinkedHashMap<>();
+        file.put("type", "file");
+        file.put("name", path.substring(path.lastIndexOf('/') + 1));
+        file.put("path", path);
+        file.put("sha", Integer.toHexString(content.hashCode()));
+        file.put("size", bytes.length);
+        file.put("encoding", "base64");
+        file.put("content", Base64.getMimeEncoder().encodeToString(bytes));
+        return file;
+    }
+
+    private static String artifacts(String name, String bundle, String feature) {
+        return "<?xml version='1.0' encoding='UTF-8'?>\n"
+                + "<?artifactRepository version='1.1.0'?>\n"
+                + "<repository name='" + name + "' type='org.eclipse.equinox.p2.artifact.repository.simpleRepository' version='1'>\n"
+                + "  <artifacts size='2'>\n"
+                + "    <artifact classifier='osgi.bundle' id='" + bundle + "' version='" + CONTENT_VERSION + "'/>\n"
+                + "    <artifact classifier='org.eclipse.update.feature' id='" + feature + "' version='" + CONTENT_VERSION + "'/>\n"
+                + "  </artifacts>\n"
+                + "</repository>\n";
+    }
+
+    private void put(String path, byte[] content) {
+        resources.put(path, content);
+    }
+
+    private static byte[] json(Object value) {
+        try {
+            return OBJECT_MAPPER.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String fixture(String name) throws IOException {
+        try (InputStream resource = StandInServer.class.getResourceAsStream(name)) {
+            return new String(resource.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private boolean fails(HttpExchange exchange) {
+        final String request = exchange.getRequestMethod() + " " + exchange.getRequestURI();
+        return new Random(seed * 31 + request.hashCode()).nextDouble() < errorRate;
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try (OutputStream body = exchange.getResponseBody()) {
+            final long delay = latency.toMillis();
+            if (delay > 0) {
+                Thread.sleep(delay);
+            }
+            if (errorRate > 0 && fails(exchange)) {
+                failures.incrementAndGet();
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+            // the feature.xml paths of the analysis start with a slash
+            // every ref resolves to the current tree
+            final String path = exchange.getRequestURI().getPath().replaceAll("/{2,}", "/")
+                .replaceFirst("/git/trees/[^/]+$", "/git/trees");
+            if (path.contains("/git/blobs/")) {
+                blobRequests.incrementAndGet();
+            }
+            final byte[] content = resources.get(path);
+            if (path.startsWith(API)) {
+                exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+                exchange.getResponseHeaders().add("X-RateLimit-Limit", "5000");
+                exchange.getResponseHeaders().add("X-RateLimit-Remaining", String.valueOf(Math.max(0, 5000 - requests.get())));
+                exchange.getResponseHeaders().add("X-RateLimit-Reset", String.valueOf(System.currentTimeMillis() / 1000 + 3600));
+            }
+            if (content != null && path.startsWith(UPDATE_SITE)) {
+                // lets the p2 metadata cache validate its entries
+                exchange.getResponseHeaders().add("ETag", "\"" + Integer.toHexString(Arrays.hashCode(content)) + "\"");
+            }
+            if (content == null) {
+                exchange.sendResponseHeaders(404, -1);
+            } else if (exchange.getRequestMethod().equals("HEAD")) {
+                exchange.sendResponseHeaders(200, -1);
+            } else {
+                exchange.sendResponseHeaders(200, content.length);
+                body.write(content);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
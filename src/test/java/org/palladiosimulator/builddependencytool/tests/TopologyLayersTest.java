@@ -0,0 +1,72 @@
+package org.palladiosimulator.builddependencytool.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+import org.palladiosimulator.dependencytool.graph.TopologyLayers;
+
+public class TopologyLayersTest {
+
+    @Test
+    public void testLayers() {
+        Map<String, Set<String>> dependencies = new TreeMap<>();
+        dependencies.put("commons", Set.of());
+        dependencies.put("pcm", Set.of("commons"));
+        dependencies.put("simulizar", Set.of("pcm", "commons"));
+        dependencies.put("editors", Set.of("pcm"));
+
+        TopologyLayers layers = TopologyLayers.of(dependencies);
+        assertEquals(List.of(Set.of("commons"), Set.of("pcm"), Set.of("editors", "simulizar")), layers.getLayers());
+    }
+
+    @Test
+    public void testIncrementalUpdate() {
+        Map<String, Set<String>> dependencies = new TreeMap<>();
+        dependencies.put("commons", Set.of());
+        dependencies.put("pcm", Set.of("commons"));
+        dependencies.put("simulizar", Set.of("pcm"));
+        dependencies.put("editors", Set.of("commons"));
+        TopologyLayers layers = TopologyLayers.of(dependencies);
+
+        // editors starts to depend on simulizar
+        dependencies.put("editors", Set.of("commons", "simulizar"));
+        TopologyLayers updated = layers.update(dependencies, reverse(dependencies), Set.of("editors"));
+        assertEquals(TopologyLayers.of(dependencies).getLayers(), updated.getLayers());
+        assertEquals(3, updated.getLayer("editors"));
+        assertEquals(1, layers.getLayer("editors"));
+
+        // pcm no longer depends on commons, simulizar and editors move down
+        dependencies.put("pcm", Set.of());
+        updated = updated.update(dependencies, reverse(dependencies), Set.of("pcm"));
+        assertEquals(TopologyLayers.of(dependencies).getLayers(), updated.getLayers());
+
+        // removed repositories disappear from the layers
+        dependencies.remove("editors");
+        updated = updated.update(dependencies, reverse(dependencies), Set.of("editors"));
+        assertEquals(-1, updated.getLayer("editors"));
+        assertEquals(TopologyLayers.of(dependencies).getLayers(), updated.getLayers());
+    }
+
+    @Test
+    public void testCycle() {
+        Map<String, Set<String>> dependencies = new TreeMap<>();
+        dependencies.put("a", Set.of("b"));
+        dependencies.put("b", Set.of("a"));
+        assertThrows(IllegalArgumentException.class, () -> TopologyLayers.of(dependencies));
+    }
+
+    private static Map<String, Set<String>> reverse(Map<String, Set<String>> dependencies) {
+        Map<String, Set<String>> reverse = new HashMap<>();
+        dependencies.forEach((repository, targets) -> targets
+            .forEach(target -> reverse.computeIfAbsent(target, key -> new TreeSet<>()).add(repository)));
+        return reverse;
+    }
+}
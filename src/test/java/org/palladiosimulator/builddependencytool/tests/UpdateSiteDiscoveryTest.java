@@ -0,0 +1,110 @@
+package org.palladiosimulator.builddependencytool.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.palladiosimulator.dependencytool.dependencies.UpdateSite;
+import org.palladiosimulator.dependencytool.dependencies.UpdateSiteDiscovery;
+import org.palladiosimulator.dependencytool.dependencies.UpdateSiteTypes;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+public class UpdateSiteDiscoveryTest {
+
+    private HttpServer server;
+    private AtomicInteger requests;
+    private AtomicInteger leaks;
+    private String updateSiteUrl;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        requests = new AtomicInteger();
+        leaks = new AtomicInteger();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::serveResource);
+        server.start();
+        updateSiteUrl = "http://localhost:" + server.getAddress().getPort() + "/updatesite/";
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testCompositeChildren() {
+        UpdateSiteDiscovery discovery = new UpdateSiteDiscovery(updateSiteUrl, UpdateSiteTypes.NIGHTLY);
+        Optional<UpdateSite> site = discovery.discover("Palladio-Composite");
+        assertTrue(site.isPresent());
+        assertEquals(updateSiteUrl + "palladio-composite/nightly/", site.get().getUrl());
+        List<String> repositories = site.get().getRepositories();
+        assertTrue(repositories.size() == 2);
+        assertTrue(repositories.contains(updateSiteUrl + "palladio-composite/nightly/child-a/"));
+        assertTrue(repositories.contains(updateSiteUrl + "palladio-composite/nightly/child-b/"));
+    }
+
+    @Test
+    public void testCandidatePatterns() {
+        UpdateSiteDiscovery discovery = new UpdateSiteDiscovery(updateSiteUrl, UpdateSiteTypes.NIGHTLY);
+        Optional<UpdateSite> site = discovery.discover("Palladio-Simple");
+        assertTrue(site.isPresent());
+        assertEquals(updateSiteUrl + "Palladio-Simple/nightly/", site.get().getUrl());
+        assertEquals(List.of(updateSiteUrl + "Palladio-Simple/nightly/"), site.get().getRepositories());
+    }
+
+    @Test
+    public void testCachedMiss() {
+        UpdateSiteDiscovery discovery = new UpdateSiteDiscovery(updateSiteUrl, UpdateSiteTypes.RELEASE);
+        assertTrue(discovery.discover("Palladio-Missing").isEmpty());
+        int requestsAfterFirstRun = requests.get();
+        assertTrue(requestsAfterFirstRun > 0);
+        assertTrue(discovery.discover("Palladio-Missing").isEmpty());
+        assertEquals(requestsAfterFirstRun, requests.get());
+    }
+
+    @Test
+    public void testExternalEntitiesAreNotResolved() {
+        UpdateSiteDiscovery discovery = new UpdateSiteDiscovery(updateSiteUrl, UpdateSiteTypes.NIGHTLY);
+        Optional<UpdateSite> site = discovery.discover("Palladio-Entity");
+        assertTrue(site.isPresent());
+        assertEquals(List.of(updateSiteUrl + "palladio-composite/nightly/child-a/"), site.get().getRepositories());
+        assertEquals(0, leaks.get());
+    }
+
+    private void serveResource(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        if (exchange.getRequestURI().getPath().endsWith("/leak.xml")) {
+            leaks.incrementAndGet();
+        }
+        try (InputStream resource = getClass().getResourceAsStream(exchange.getRequestURI().getPath());
+                OutputStream body = exchange.getResponseBody()) {
+            if (resource == null || exchange.getRequestURI().getPath().endsWith("/")) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            // the port of the server is only known at runtime
+            byte[] content = new String(resource.readAllBytes(), StandardCharsets.UTF_8)
+                .replace("@PORT@", Integer.toString(server.getAddress().getPort()))
+                .getBytes(StandardCharsets.UTF_8);
+            if (exchange.getRequestMethod().equals("HEAD")) {
+                exchange.sendResponseHeaders(200, -1);
+            } else {
+                exchange.sendResponseHeaders(200, content.length);
+                body.write(content);
+            }
+        }
+    }
+}
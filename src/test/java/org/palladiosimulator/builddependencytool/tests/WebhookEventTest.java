@@ -0,0 +1,53 @@
+package org.palladiosimulator.builddependencytool.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.palladiosimulator.dependencytool.server.WebhookEvent;
+
+public class WebhookEventTest {
+
+    @Test
+    public void testPushToDefaultBranch() throws IOException {
+        Optional<WebhookEvent> event = WebhookEvent.parse("push", payload("/webhook/push.json"));
+        assertTrue(event.isPresent());
+        assertEquals("PalladioSimulator/Palladio-Core-PCM", event.get().getRepository());
+    }
+
+    @Test
+    public void testPushToOtherBranch() throws IOException {
+        String payload = new String(payload("/webhook/push.json"), StandardCharsets.UTF_8)
+            .replace("refs/heads/master", "refs/heads/feature");
+        assertFalse(WebhookEvent.parse("push", payload.getBytes(StandardCharsets.UTF_8)).isPresent());
+    }
+
+    @Test
+    public void testRelease() throws IOException {
+        Optional<WebhookEvent> event = WebhookEvent.parse("release", payload("/webhook/release.json"));
+        assertTrue(event.isPresent());
+        assertEquals("release", event.get().getType());
+        assertFalse(WebhookEvent.parse("ping", payload("/webhook/release.json")).isPresent());
+    }
+
+    @Test
+    public void testSignature() throws IOException {
+        byte[] payload = payload("/webhook/push.json");
+        String signature = "sha256=" + WebhookEvent.sign("secret", payload);
+        assertTrue(WebhookEvent.verify("secret", payload, signature));
+        assertFalse(WebhookEvent.verify("other", payload, signature));
+        assertFalse(WebhookEvent.verify("secret", payload, null));
+    }
+
+    private byte[] payload(String resource) throws IOException {
+        try (InputStream in = getClass().getResourceAsStream(resource)) {
+            return in.readAllBytes();
+        }
+    }
+}
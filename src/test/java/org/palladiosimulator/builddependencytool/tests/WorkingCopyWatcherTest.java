@@ -0,0 +1,137 @@
+package org.palladiosimulator.builddependencytool.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.palladiosimulator.builddependencytool.tests.Repositories.fullName;
+import static org.palladiosimulator.builddependencytool.tests.Repositories.repository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.palladiosimulator.dependencytool.dependencies.DependencyCalculator;
+import org.palladiosimulator.dependencytool.dependencies.P2MetadataCache;
+import org.palladiosimulator.dependencytool.dependencies.UpdateSiteDiscovery;
+import org.palladiosimulator.dependencytool.dependencies.UpdateSiteTypes;
+import org.palladiosimulator.dependencytool.local.WorkingCopy;
+import org.palladiosimulator.dependencytool.local.WorkingCopyChange;
+import org.palladiosimulator.dependencytool.local.WorkingCopyWatcher;
+
+public class WorkingCopyWatcherTest {
+
+    private static final String BASE = fullName("Palladio-Core-Base");
+    private static final String COMMONS = fullName("Palladio-Core-Commons");
+    private static final String PCM = fullName("Palladio-Core-PCM");
+
+    @TempDir
+    Path root;
+
+    @Test
+    public void testIncrementalChanges() throws Exception {
+        DependencyCalculator calculator = new DependencyCalculator(
+                new UpdateSiteDiscovery("https://updatesite.example/", UpdateSiteTypes.NIGHTLY),
+                P2MetadataCache.disabled(), false, Set.of(), false, true);
+        calculator.addAnalysed(List.of(
+                repository("Palladio-Core-Base", Set.of(), Set.of("org.palladiosimulator.base")),
+                repository("Palladio-Core-Commons", Set.of(), Set.of("org.palladiosimulator.commons")),
+                repository("Palladio-Core-PCM", Set.of("org.palladiosimulator.commons"),
+                        Set.of("org.palladiosimulator.pcm"))));
+
+        Path commons = root.resolve("Palladio-Core-Commons");
+        writeManifest(commons, "org.palladiosimulator.commons");
+
+        BlockingQueue<WorkingCopyChange> changes = new LinkedBlockingQueue<>();
+        try (WorkingCopyWatcher watcher = new WorkingCopyWatcher(calculator,
+                List.of(new WorkingCopy(COMMONS, commons, false)), changes::add)) {
+            assertTrue(watcher.start().isEmpty());
+            Thread thread = new Thread(watcher::run);
+            thread.start();
+
+            // commons starts to require pcm
+            writeManifest(commons, "org.palladiosimulator.commons", "org.palladiosimulator.pcm");
+            WorkingCopyChange change = next(changes);
+            assertEquals(Map.of(COMMONS, Set.of(PCM)), change.getDependencies());
+            assertNotNull(change.getCycle());
+
+            // the cycle is removed again
+            writeManifest(commons, "org.palladiosimulator.commons");
+            change = next(changes);
+            assertEquals(Map.of(COMMONS, Set.of()), change.getDependencies());
+            assertEquals(Map.of(), change.getLayers());
+            assertNull(change.getCycle());
+
+            // a new bundle of commons requires base
+            writeManifest(commons.resolve("bundles").resolve("org.palladiosimulator.commons.ui"),
+                    "org.palladiosimulator.commons.ui", "org.palladiosimulator.base");
+            change = next(changes);
+            assertEquals(Map.of(COMMONS, Set.of(BASE)), change.getDependencies());
+            assertEquals(Map.of(COMMONS, 1, PCM, 2), change.getLayers());
+
+            watcher.close();
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    @Test
+    public void testOverflow() throws Exception {
+        DependencyCalculator calculator = new DependencyCalculator(
+                new UpdateSiteDiscovery("https://updatesite.example/", UpdateSiteTypes.NIGHTLY),
+                P2MetadataCache.disabled(), false, Set.of(), false, true);
+        calculator.addAnalysed(List.of(
+                repository("Palladio-Core-Base", Set.of(), Set.of("org.palladiosimulator.base")),
+                repository("Palladio-Core-Commons", Set.of(), Set.of("org.palladiosimulator.commons"))));
+
+        Path commons = root.resolve("Palladio-Core-Commons");
+        writeManifest(commons, "org.palladiosimulator.commons");
+
+        BlockingQueue<WorkingCopyChange> changes = new LinkedBlockingQueue<>();
+        try (WorkingCopyWatcher watcher = new WorkingCopyWatcher(calculator,
+                List.of(new WorkingCopy(COMMONS, commons, false)), changes::add)) {
+            assertTrue(watcher.start().isEmpty());
+
+            // events pile up until the watch key overflows before the watcher processes them
+            writeManifest(commons, "org.palladiosimulator.commons", "org.palladiosimulator.base");
+            Path metaInf = commons.resolve("bundles").resolve("org.palladiosimulator.commons").resolve("META-INF");
+            for (int i = 0; i < 1000; i++) {
+                Files.createFile(metaInf.resolve("file" + i));
+            }
+            Thread thread = new Thread(watcher::run);
+            thread.start();
+
+            // the rescan finds the changed manifest although its event was lost
+            assertEquals(Map.of(COMMONS, Set.of(BASE)), next(changes).getDependencies());
+
+            watcher.close();
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    private static WorkingCopyChange next(BlockingQueue<WorkingCopyChange> changes) throws InterruptedException {
+        WorkingCopyChange change = changes.poll(30, TimeUnit.SECONDS);
+        assertNotNull(change, "No change reported");
+        return change;
+    }
+
+    // Writes the manifest of a bundle, either of the bundle directory or the bundle of a working copy
+    private static void writeManifest(Path directory, String symbolicName, String... required) throws IOException {
+        Path bundle = directory.getFileName().toString().equals(symbolicName) ? directory
+                : directory.resolve("bundles").resolve(symbolicName);
+        Path manifest = bundle.resolve("META-INF").resolve("MANIFEST.MF");
+        Files.createDirectories(manifest.getParent());
+        StringBuilder content = new StringBuilder("Manifest-Version: 1.0\nBundle-SymbolicName: " + symbolicName + "\n");
+        if (required.length > 0) {
+            content.append("Require-Bundle: ").append(String.join(",", required)).append("\n");
+        }
+        Files.writeString(manifest, content);
+    }
+}